@@ -66,6 +66,7 @@ public class AuthZpeClient {
     private static JwtsSigningKeyResolver accessSignKeyResolver = null;
 
     private static ZpeClient zpeClt = null;
+    private static volatile ZpeDecisionCache decisionCache = null;
     private static PublicKeyStore publicKeyStore = null;
 
     private static final Set<String> X509_ISSUERS_NAMES = new HashSet<>();
@@ -163,6 +164,10 @@ public class AuthZpeClient {
         
         setTokenAllowedOffset(Integer.parseInt(System.getProperty(ZpeConsts.ZPE_PROP_TOKEN_OFFSET, "300")));
 
+        // set up the decision cache (disabled by default)
+
+        setDecisionCacheMaxSize(Integer.parseInt(System.getProperty(ZpeConsts.ZPE_PROP_DECISION_CACHE_MAX_SIZE, "0")));
+
         // load the x509 issuers
         
         setX509CAIssuers(System.getProperty(ZpeConsts.ZPE_PROP_X509_CA_ISSUERS));
@@ -195,6 +200,27 @@ public class AuthZpeClient {
         }
     }
     
+    /**
+     * Set the maximum number of authorization decisions that are cached.
+     * The decisions are keyed on the token domain, roles, action and resource
+     * and are discarded when the policy file for the domain is reloaded.
+     * The cache is only used when the ZPE client provides the compiled policy
+     * index for the domain.
+     * @param maxSize maximum number of decisions to cache (0 disables the cache)
+     */
+    public static void setDecisionCacheMaxSize(int maxSize) {
+        decisionCache = maxSize > 0 ? new ZpeDecisionCache(maxSize) : null;
+    }
+
+    /**
+     * Return the decision cache object so the caller can report
+     * its hit and miss counters
+     * @return decision cache object or null if the cache is disabled
+     */
+    public static ZpeDecisionCache getDecisionCache() {
+        return decisionCache;
+    }
+
     /**
      * Set the list of Athenz CA issuers with their full DNs that
      * ZPE should honor.
@@ -907,6 +933,21 @@ public class AuthZpeClient {
             return AccessCheckStatus.DENY_DOMAIN_MISMATCH;
         }
 
+        // if our client provides the compiled policy index for the domain
+        // then we'll use that to carry out the check otherwise we'll
+        // process the assertion maps
+
+        ZpePolicyIndex policyIndex = zpeClt.getPolicyIndex(tokenDomain);
+        if (policyIndex != null) {
+            final ZpeDecisionCache cache = decisionCache;
+            if (cache != null) {
+                return allowActionByDecisionCache(cache, policyIndex, action, tokenDomain, resource,
+                        roles, matchRoleName, msgPrefix);
+            }
+            return allowActionByPolicyIndex(policyIndex, action, tokenDomain, resource, roles,
+                    matchRoleName, msgPrefix);
+        }
+
         // first hunt by role for deny assertions since deny takes precedence
         // over allow assertions
 
@@ -973,6 +1014,88 @@ public class AuthZpeClient {
         return status;
     }
 
+    static AccessCheckStatus allowActionByDecisionCache(ZpeDecisionCache cache, ZpePolicyIndex policyIndex,
+            String action, String tokenDomain, String resource, List<String> roles,
+            StringBuilder matchRoleName, final String msgPrefix) {
+
+        final ZpeDecisionCache.DecisionKey key = ZpeDecisionCache.generateKey(tokenDomain, roles,
+                action, resource);
+        AccessCheckStatus status = cache.getDecision(key, policyIndex.getGeneration(), matchRoleName);
+        if (status != null) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("{}: cached decision {}", msgPrefix, status.name());
+            }
+            return status;
+        }
+
+        // the role name is only set when we have an explicit match
+
+        status = allowActionByPolicyIndex(policyIndex, action, tokenDomain, resource, roles,
+                matchRoleName, msgPrefix);
+        final String roleName = (status == AccessCheckStatus.ALLOW || status == AccessCheckStatus.DENY) ?
+                matchRoleName.toString() : null;
+        cache.putDecision(key, policyIndex.getGeneration(), status, roleName);
+        return status;
+    }
+
+    static AccessCheckStatus allowActionByPolicyIndex(ZpePolicyIndex policyIndex, String action,
+            String tokenDomain, String resource, List<String> roles, StringBuilder matchRoleName,
+            final String msgPrefix) {
+
+        // first hunt by role for deny assertions since deny takes precedence
+        // over allow assertions and then process the allow assertions. we
+        // return the same status as the assertion map based checks: no match
+        // if the domain has any assertions and empty domain otherwise
+
+        boolean domainEmpty = true;
+        ZpePolicyIndex.RoleIndex roleIndex = policyIndex.getDenyIndex();
+        AccessCheckStatus matchStatus = AccessCheckStatus.DENY;
+        for (int i = 0; i < 2; i++) {
+
+            if (roleIndex.hasStandardRoles()) {
+                domainEmpty = false;
+                final String roleName = roleIndex.matchStandardRole(roles, action, resource);
+                if (roleName != null) {
+                    return matchedPolicyIndexRole(matchStatus, roleName, matchRoleName, msgPrefix);
+                }
+            }
+
+            if (roleIndex.hasWildcardRoles()) {
+                domainEmpty = false;
+                final String roleName = roleIndex.matchWildcardRole(roles, action, resource);
+                if (roleName != null) {
+                    return matchedPolicyIndexRole(matchStatus, roleName, matchRoleName, msgPrefix);
+                }
+            }
+
+            roleIndex = policyIndex.getAllowIndex();
+            matchStatus = AccessCheckStatus.ALLOW;
+        }
+
+        if (domainEmpty) {
+            LOG.error("{}: No policy assertions for domain={} so access denied", msgPrefix, tokenDomain);
+            return AccessCheckStatus.DENY_DOMAIN_EMPTY;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("{}: No matching assertions in domain={} for roles({})", msgPrefix,
+                    tokenDomain, String.join(",", roles));
+        }
+        return AccessCheckStatus.DENY_NO_MATCH;
+    }
+
+    static AccessCheckStatus matchedPolicyIndexRole(AccessCheckStatus status, final String roleName,
+            StringBuilder matchRoleName, final String msgPrefix) {
+
+        matchRoleName.setLength(0);
+        matchRoleName.append(roleName);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("{}: matched role({}) with result {}", msgPrefix, roleName, status.name());
+        }
+        return status;
+    }
+
     static boolean matchAssertions(List<Struct> asserts, String role, String action,
             String resource, StringBuilder matchRoleName, String msgPrefix) {
         
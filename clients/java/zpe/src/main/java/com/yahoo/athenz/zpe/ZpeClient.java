@@ -50,6 +50,13 @@ public interface ZpeClient {
     // key is role name, value is List of assertions for that role
     Map<String, List<com.yahoo.rdl.Struct>> getWildcardDenyAssertions(String domain);
 
+    // return the compiled policy index for the specified domain. clients
+    // that only provide the assertion maps return null and the checks
+    // are carried out against the assertion maps instead
+    default ZpePolicyIndex getPolicyIndex(String domain) {
+        return null;
+    }
+
     // return the number of domains available in assertion maps
     int getDomainCount();
 }
@@ -61,9 +61,15 @@ public final class ZpeConsts {
     public static final String ZPE_PROP_METRIC_FILE_PATH           = "athenz.zpe.metric_file_path";
     public static final String ZPE_PROP_MON_TIMEOUT                = "athenz.zpe.monitor_timeout_secs";
     public static final String ZPE_PROP_MON_CLEANUP_TOKENS         = "athenz.zpe.cleanup_tokens_secs";
+    public static final String ZPE_PROP_MON_WATCH_ENABLED          = "athenz.zpe.monitor_watch_enabled";
+    public static final String ZPE_PROP_MON_WATCH_DEBOUNCE_MS      = "athenz.zpe.monitor_watch_debounce_ms";
+    public static final String ZPE_PROP_MON_FULL_SCAN_SECS         = "athenz.zpe.monitor_full_scan_secs";
+    public static final String ZPE_PROP_TOKEN_CACHE_MAX_ENTRIES    = "athenz.zpe.token_cache_max_entries";
+    public static final String ZPE_PROP_TOKEN_CACHE_LISTENER_CLASS = "athenz.zpe.token_cache_listener_class";
     public static final String ZPE_PROP_POLICY_DIR                 = "athenz.zpe.policy_dir";
     public static final String ZPE_PROP_SKIP_POLICY_DIR_CHECK      = "athenz.zpe.skip_policy_dir_check";
     public static final String ZPE_PROP_CHECK_POLICY_ZMS_SIGNATURE = "athenz.zpe.check_policy_zms_signature";
+    public static final String ZPE_PROP_DECISION_CACHE_MAX_SIZE    = "athenz.zpe.decision_cache_max_size";
 
     public static final String ZPE_PROP_X509_CA_ISSUERS           = "athenz.zpe.x509.ca.issuers";
 
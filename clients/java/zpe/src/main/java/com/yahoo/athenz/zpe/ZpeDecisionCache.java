@@ -0,0 +1,181 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.yahoo.athenz.zpe.AuthZpeClient.AccessCheckStatus;
+
+/**
+ * Bounded cache of authorization decisions keyed on the domain, the
+ * sorted list of roles, the action and the resource. Every decision is
+ * recorded together with the generation number of the policy index that
+ * it was computed from, so once the policy loader reloads the domain file
+ * and builds a new index, all the decisions for that domain are treated
+ * as misses and recomputed. When the cache reaches its maximum size all
+ * entries are discarded so the memory usage stays bounded without any
+ * per-request bookkeeping.
+ */
+public class ZpeDecisionCache {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<DecisionKey, Decision> decisions;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * Create a decision cache object
+     * @param maxSize maximum number of decisions in the cache
+     */
+    public ZpeDecisionCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.decisions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Generate the cache key for the given request. The roles are sorted
+     * so tokens with the same set of roles share the same decisions.
+     * @param domain name of the domain
+     * @param roles list of roles from the token
+     * @param action lower-cased action value
+     * @param resource lower-cased resource value without the domain prefix
+     * @return decision key
+     */
+    static DecisionKey generateKey(final String domain, List<String> roles, final String action,
+            final String resource) {
+
+        String[] sortedRoles = roles.toArray(new String[0]);
+        if (sortedRoles.length > 1) {
+            Arrays.sort(sortedRoles);
+        }
+        return new DecisionKey(domain, sortedRoles, action, resource);
+    }
+
+    /**
+     * Return the cached decision for the given key if it was computed
+     * from the policy index with the given generation number
+     * @param key decision key
+     * @param generation generation number of the current policy index
+     * @param matchRoleName - [out] will include the role name that the result was based on
+     * @return access check status or null if there is no valid decision
+     */
+    AccessCheckStatus getDecision(DecisionKey key, long generation, StringBuilder matchRoleName) {
+
+        Decision decision = decisions.get(key);
+        if (decision == null || decision.generation != generation) {
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        if (decision.roleName != null) {
+            matchRoleName.setLength(0);
+            matchRoleName.append(decision.roleName);
+        }
+        return decision.status;
+    }
+
+    /**
+     * Record the decision computed from the policy index with the given
+     * generation number
+     * @param key decision key
+     * @param generation generation number of the policy index
+     * @param status access check status
+     * @param roleName matched role name (null if no role was matched)
+     */
+    void putDecision(DecisionKey key, long generation, AccessCheckStatus status, final String roleName) {
+
+        // stale decisions for the same key are replaced so we only
+        // need to check the size when adding a new key
+
+        if (decisions.size() >= maxSize && !decisions.containsKey(key)) {
+            decisions.clear();
+        }
+        decisions.put(key, new Decision(status, roleName, generation));
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        return decisions.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public void invalidateAll() {
+        decisions.clear();
+    }
+
+    static final class DecisionKey {
+
+        private final String domain;
+        private final String[] roles;
+        private final String action;
+        private final String resource;
+        private final int hashCode;
+
+        DecisionKey(final String domain, String[] roles, final String action, final String resource) {
+            this.domain = domain;
+            this.roles = roles;
+            this.action = action;
+            this.resource = resource;
+            this.hashCode = 31 * (31 * (31 * domain.hashCode() + Arrays.hashCode(roles))
+                    + action.hashCode()) + resource.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DecisionKey that = (DecisionKey) o;
+            return hashCode == that.hashCode && domain.equals(that.domain) && action.equals(that.action)
+                    && resource.equals(that.resource) && Arrays.equals(roles, that.roles);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    static final class Decision {
+
+        private final AccessCheckStatus status;
+        private final String roleName;
+        private final long generation;
+
+        Decision(AccessCheckStatus status, final String roleName, long generation) {
+            this.status = status;
+            this.roleName = roleName;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.yahoo.athenz.zpe.match.ZpeMatch;
+import com.yahoo.athenz.zpe.match.impl.ZpeMatchEqual;
+import com.yahoo.rdl.Struct;
+
+/**
+ * Compiled and immutable view of the policy assertions for a single domain.
+ * The assertions are grouped by effect, then by role name (hash lookup for
+ * standard roles and a prefix trie for wildcard roles) and finally by action
+ * so that the authorization check only processes the assertions that could
+ * possibly match the request. Once built, the index is never modified so
+ * the policy loader can replace the index for a domain with a single put
+ * operation and the readers never see partially updated data. Every index
+ * is assigned a unique generation number when it's built so any results
+ * computed from an index can be invalidated when the domain is reloaded.
+ */
+public final class ZpePolicyIndex {
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    private final RoleIndex allowIndex;
+    private final RoleIndex denyIndex;
+    private final long generation;
+
+    private ZpePolicyIndex(RoleIndex allowIndex, RoleIndex denyIndex) {
+        this.allowIndex = allowIndex;
+        this.denyIndex = denyIndex;
+        this.generation = GENERATION.incrementAndGet();
+    }
+
+    /**
+     * @return an empty policy index for domains without any assertions
+     */
+    public static ZpePolicyIndex empty() {
+        return new Builder().build();
+    }
+
+    public RoleIndex getAllowIndex() {
+        return allowIndex;
+    }
+
+    public RoleIndex getDenyIndex() {
+        return denyIndex;
+    }
+
+    /**
+     * @return the generation number of this index. each index built by the
+     * policy loader gets a new and higher generation number
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Single compiled assertion record
+     */
+    public static final class ZpeAssertion {
+
+        final String policyName;
+        final String role;
+        final String action;
+        final String resource;
+        final ZpeMatch actionMatch;
+        final ZpeMatch resourceMatch;
+
+        ZpeAssertion(final String policyName, final String role, final String action,
+                final ZpeMatch actionMatch, final String resource, final ZpeMatch resourceMatch) {
+            this.policyName = policyName;
+            this.role = role;
+            this.action = action;
+            this.actionMatch = actionMatch;
+            this.resource = resource;
+            this.resourceMatch = resourceMatch;
+        }
+
+        public String getPolicyName() {
+            return policyName;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+    }
+
+    /**
+     * All assertions for a single role (standard or wildcard) grouped by
+     * their action value. Assertions with wildcard actions are kept in a
+     * separate list and are checked after the literal action bucket.
+     */
+    public static final class RoleAssertions {
+
+        final String roleName;
+        final ZpeMatch roleMatch;
+        final List<ZpeAssertion> assertions;
+        final Map<String, List<ZpeAssertion>> actionAssertions;
+        final List<ZpeAssertion> wildcardActionAssertions;
+        int ordinal;
+
+        RoleAssertions(final String roleName, final ZpeMatch roleMatch) {
+            this.roleName = roleName;
+            this.roleMatch = roleMatch;
+            this.assertions = new ArrayList<>();
+            this.actionAssertions = new HashMap<>();
+            this.wildcardActionAssertions = new ArrayList<>();
+        }
+
+        void addAssertion(ZpeAssertion assertion) {
+            assertions.add(assertion);
+            if (assertion.actionMatch instanceof ZpeMatchEqual) {
+                actionAssertions.computeIfAbsent(assertion.action, k -> new ArrayList<>()).add(assertion);
+            } else {
+                wildcardActionAssertions.add(assertion);
+            }
+        }
+
+        /**
+         * @param action lower cased action value
+         * @param resource lower cased resource value without the domain prefix
+         * @return true if any of the role assertions matches the action and resource
+         */
+        public boolean matches(final String action, final String resource) {
+
+            final List<ZpeAssertion> actionList = actionAssertions.get(action);
+            if (actionList != null) {
+                for (ZpeAssertion assertion : actionList) {
+                    if (assertion.resourceMatch.matches(resource)) {
+                        return true;
+                    }
+                }
+            }
+
+            for (ZpeAssertion assertion : wildcardActionAssertions) {
+                if (assertion.actionMatch.matches(action) && assertion.resourceMatch.matches(resource)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public String getRoleName() {
+            return roleName;
+        }
+
+        public List<ZpeAssertion> getAssertions() {
+            return Collections.unmodifiableList(assertions);
+        }
+    }
+
+    /**
+     * Role based index of assertions for a single effect
+     */
+    public static final class RoleIndex {
+
+        private final Map<String, RoleAssertions> standardRoles;
+        private final List<RoleAssertions> wildcardRoles;
+        private final WildcardRoleTrie wildcardRoleTrie;
+
+        RoleIndex(Map<String, RoleAssertions> standardRoles, List<RoleAssertions> wildcardRoles) {
+            this.standardRoles = standardRoles;
+
+            // the wildcard roles are always processed in their sorted
+            // name order so when multiple wildcard roles match a given
+            // role we'll report the same role name as the match
+
+            wildcardRoles.sort(Comparator.comparing(RoleAssertions::getRoleName));
+            this.wildcardRoles = wildcardRoles;
+            this.wildcardRoleTrie = new WildcardRoleTrie();
+            for (int i = 0; i < wildcardRoles.size(); i++) {
+                RoleAssertions roleAssertions = wildcardRoles.get(i);
+                roleAssertions.ordinal = i;
+                wildcardRoleTrie.insert(getLiteralPrefix(roleAssertions.roleName), roleAssertions);
+            }
+        }
+
+        public boolean hasStandardRoles() {
+            return !standardRoles.isEmpty();
+        }
+
+        public boolean hasWildcardRoles() {
+            return !wildcardRoles.isEmpty();
+        }
+
+        public Map<String, RoleAssertions> getStandardRoles() {
+            return Collections.unmodifiableMap(standardRoles);
+        }
+
+        public List<RoleAssertions> getWildcardRoles() {
+            return Collections.unmodifiableList(wildcardRoles);
+        }
+
+        /**
+         * Check if any of the given roles has a matching assertion
+         * for the action and resource
+         * @param roles list of role names
+         * @param action lower cased action value
+         * @param resource lower cased resource value without the domain prefix
+         * @return name of the role that matched or null if there is no match
+         */
+        public String matchStandardRole(List<String> roles, final String action, final String resource) {
+            for (String role : roles) {
+                RoleAssertions roleAssertions = standardRoles.get(role);
+                if (roleAssertions != null && roleAssertions.matches(action, resource)) {
+                    return role;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Check if any of the wildcard roles matching the given roles has
+         * a matching assertion for the action and resource
+         * @param roles list of role names
+         * @param action lower cased action value
+         * @param resource lower cased resource value without the domain prefix
+         * @return name of the wildcard role that matched or null if there is no match
+         */
+        public String matchWildcardRole(List<String> roles, final String action, final String resource) {
+
+            for (String role : roles) {
+
+                // the trie only returns the wildcard roles whose literal
+                // prefix matches our role so we don't need to process
+                // all the wildcard roles for each role
+
+                List<RoleAssertions> candidates = wildcardRoleTrie.findCandidates(role);
+                if (candidates.isEmpty()) {
+                    continue;
+                }
+                if (candidates.size() > 1) {
+                    candidates.sort(Comparator.comparingInt(r -> r.ordinal));
+                }
+                for (RoleAssertions roleAssertions : candidates) {
+                    if (roleAssertions.roleMatch.matches(role) && roleAssertions.matches(action, resource)) {
+                        return roleAssertions.roleName;
+                    }
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Generate the role assertion map in the original struct format
+         * @param wildcard flag to indicate to return standard or wildcard roles
+         * @return map of role names with list of assertion structs
+         */
+        Map<String, List<Struct>> asStructMap(boolean wildcard) {
+            Map<String, List<Struct>> roleMap = new TreeMap<>();
+            Collection<RoleAssertions> roleAssertionsList = wildcard ? wildcardRoles : standardRoles.values();
+            for (RoleAssertions roleAssertions : roleAssertionsList) {
+                List<Struct> structs = new ArrayList<>();
+                for (ZpeAssertion assertion : roleAssertions.assertions) {
+                    Struct strAssert = new Struct();
+                    strAssert.put(ZpeConsts.ZPE_FIELD_POLICY_NAME, assertion.policyName);
+                    strAssert.put(ZpeConsts.ZPE_FIELD_ACTION, assertion.action);
+                    strAssert.put(ZpeConsts.ZPE_ACTION_MATCH_STRUCT, assertion.actionMatch);
+                    strAssert.put(ZpeConsts.ZPE_FIELD_RESOURCE, assertion.resource);
+                    strAssert.put(ZpeConsts.ZPE_RESOURCE_MATCH_STRUCT, assertion.resourceMatch);
+                    strAssert.put(ZpeConsts.ZPE_FIELD_ROLE, assertion.role);
+                    strAssert.put(ZpeConsts.ZPE_ROLE_MATCH_STRUCT, roleAssertions.roleMatch);
+                    structs.add(strAssert);
+                }
+                roleMap.put(roleAssertions.roleName, structs);
+            }
+            return roleMap;
+        }
+    }
+
+    static String getLiteralPrefix(final String value) {
+        int idx = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '*' || c == '?') {
+                idx = i;
+                break;
+            }
+        }
+        return value.substring(0, idx);
+    }
+
+    /**
+     * Character trie keyed by the literal prefix (the value before the
+     * first wildcard character) of the wildcard role names.
+     */
+    static final class WildcardRoleTrie {
+
+        private static final class TrieNode {
+            private final Map<Character, TrieNode> children = new HashMap<>();
+            private List<RoleAssertions> roles;
+        }
+
+        private final TrieNode root = new TrieNode();
+
+        void insert(final String prefix, RoleAssertions roleAssertions) {
+            TrieNode current = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                current = current.children.computeIfAbsent(prefix.charAt(i), c -> new TrieNode());
+            }
+            if (current.roles == null) {
+                current.roles = new ArrayList<>();
+            }
+            current.roles.add(roleAssertions);
+        }
+
+        List<RoleAssertions> findCandidates(final String role) {
+            List<RoleAssertions> candidates = null;
+            TrieNode current = root;
+            int idx = 0;
+            while (current != null) {
+                if (current.roles != null) {
+                    if (candidates == null) {
+                        candidates = new ArrayList<>();
+                    }
+                    candidates.addAll(current.roles);
+                }
+                if (idx == role.length() || current.children.isEmpty()) {
+                    break;
+                }
+                current = current.children.get(role.charAt(idx++));
+            }
+            return candidates == null ? Collections.emptyList() : candidates;
+        }
+    }
+
+    /**
+     * Builder to compile the assertions for a domain into the index
+     */
+    public static final class Builder {
+
+        private final Map<String, RoleAssertions> allowStandardRoles = new HashMap<>();
+        private final Map<String, RoleAssertions> allowWildcardRoles = new HashMap<>();
+        private final Map<String, RoleAssertions> denyStandardRoles = new HashMap<>();
+        private final Map<String, RoleAssertions> denyWildcardRoles = new HashMap<>();
+
+        /**
+         * Add the given assertion to the index
+         * @param policyName name of the policy the assertion belongs to
+         * @param roleName role name without the domain and role. prefix
+         * @param roleMatch match object for the role name
+         * @param action lower cased action value
+         * @param actionMatch match object for the action value
+         * @param resource lower cased resource value without the domain prefix
+         * @param resourceMatch match object for the resource value
+         * @param deny true if the assertion effect is deny
+         * @return builder object
+         */
+        public Builder addAssertion(final String policyName, final String roleName, ZpeMatch roleMatch,
+                final String action, ZpeMatch actionMatch, final String resource, ZpeMatch resourceMatch,
+                boolean deny) {
+
+            Map<String, RoleAssertions> roleMap;
+            if (roleMatch instanceof ZpeMatchEqual) {
+                roleMap = deny ? denyStandardRoles : allowStandardRoles;
+            } else {
+                roleMap = deny ? denyWildcardRoles : allowWildcardRoles;
+            }
+
+            RoleAssertions roleAssertions = roleMap.computeIfAbsent(roleName, k -> new RoleAssertions(k, roleMatch));
+            roleAssertions.addAssertion(new ZpeAssertion(policyName, roleName, action, actionMatch,
+                    resource, resourceMatch));
+            return this;
+        }
+
+        public ZpePolicyIndex build() {
+            return new ZpePolicyIndex(
+                    new RoleIndex(allowStandardRoles, new ArrayList<>(allowWildcardRoles.values())),
+                    new RoleIndex(denyStandardRoles, new ArrayList<>(denyWildcardRoles.values())));
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+import com.yahoo.athenz.zpe.ZpeTokenCacheListener.EvictionCause;
+
+/**
+ * Size bounded cache of validated tokens keyed on the signed token string.
+ * Lookups go straight to a concurrent hash map. Besides the map, the tokens
+ * are also grouped in buckets by their expiry time (in seconds) so that
+ * removing expired tokens only visits the buckets that have expired instead
+ * of the full cache. When the cache is full, the token with the earliest
+ * expiry time is evicted first, so expired tokens are always dropped before
+ * any valid ones. Updates are synchronized since they only happen after an
+ * expensive token signature validation.
+ */
+public class ZpeTokenCache<T> extends AbstractMap<String, T> {
+
+    // estimated overhead for each cached token: the map and bucket entries
+    // plus the parsed token object excluding its copy of the token string
+
+    static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final String name;
+    private final int maxEntries;
+    private final ToLongFunction<T> expiryFunction;
+    private final ZpeTokenCacheListener listener;
+    private final ConcurrentHashMap<String, CacheEntry<T>> entries = new ConcurrentHashMap<>();
+    private final TreeMap<Long, Set<String>> expiryBuckets = new TreeMap<>();
+    private long memoryBytes = 0;
+
+    /**
+     * Create a token cache object
+     * @param name name of the cache reported to the listener
+     * @param maxEntries maximum number of tokens in the cache (at least 1)
+     * @param expiryFunction returns the token expiry time in seconds
+     * @param listener cache event listener (could be null)
+     */
+    public ZpeTokenCache(final String name, int maxEntries, ToLongFunction<T> expiryFunction,
+            ZpeTokenCacheListener listener) {
+        this.name = name;
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.expiryFunction = expiryFunction;
+        this.listener = listener != null ? listener : new ZpeTokenCacheListener() { };
+    }
+
+    static long estimateSize(final String key) {
+
+        // the token string is stored twice - as the map key and in the
+        // token object itself with 2 bytes per character
+
+        return ENTRY_OVERHEAD_BYTES + 4L * key.length();
+    }
+
+    @Override
+    public T get(Object key) {
+        CacheEntry<T> entry = entries.get(key);
+        if (entry == null) {
+            listener.onMiss(name);
+            return null;
+        }
+        listener.onHit(name);
+        return entry.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized T put(final String key, T value) {
+
+        final long expiryTime = expiryFunction.applyAsLong(value);
+        CacheEntry<T> oldEntry = entries.put(key, new CacheEntry<>(value, expiryTime));
+        if (oldEntry != null) {
+            removeFromBucket(key, oldEntry.expiryTime);
+        } else {
+            memoryBytes += estimateSize(key);
+        }
+        expiryBuckets.computeIfAbsent(expiryTime, k -> new HashSet<>()).add(key);
+
+        // if we're over our limit then we'll evict the tokens with the
+        // earliest expiry times until we're back within the limit
+
+        if (entries.size() > maxEntries) {
+            final long nowSecs = System.currentTimeMillis() / 1000;
+            while (entries.size() > maxEntries) {
+                Map.Entry<Long, Set<String>> bucket = expiryBuckets.firstEntry();
+                final String evictKey = bucket.getValue().iterator().next();
+                removeEntry(evictKey, bucket.getKey() < nowSecs ? EvictionCause.EXPIRED : EvictionCause.SIZE);
+            }
+        }
+        return oldEntry == null ? null : oldEntry.value;
+    }
+
+    @Override
+    public synchronized T remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        CacheEntry<T> entry = removeEntry((String) key, EvictionCause.REMOVED);
+        return entry == null ? null : entry.value;
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        expiryBuckets.clear();
+        memoryBytes = 0;
+    }
+
+    /**
+     * Return a snapshot of the cached tokens. Changes to the
+     * returned set are not reflected in the cache.
+     * @return set of cached tokens
+     */
+    @Override
+    public Set<Entry<String, T>> entrySet() {
+        Set<Entry<String, T>> entrySet = new HashSet<>();
+        for (Map.Entry<String, CacheEntry<T>> entry : entries.entrySet()) {
+            entrySet.add(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().value));
+        }
+        return Collections.unmodifiableSet(entrySet);
+    }
+
+    /**
+     * Remove all tokens that expired before the given time. Only the
+     * expired buckets are processed.
+     * @param nowSecs current time in seconds
+     * @return number of removed tokens
+     */
+    public int removeExpired(long nowSecs) {
+
+        int count = 0;
+        synchronized (this) {
+            SortedMap<Long, Set<String>> expired = expiryBuckets.headMap(nowSecs);
+            while (!expired.isEmpty()) {
+                final Long expiryTime = expired.firstKey();
+                for (String key : expired.remove(expiryTime)) {
+                    CacheEntry<T> entry = entries.remove(key);
+                    if (entry != null) {
+                        memoryBytes -= estimateSize(key);
+                        listener.onEviction(name, EvictionCause.EXPIRED);
+                        count += 1;
+                    }
+                }
+            }
+        }
+        listener.onCleanup(name, size(), getMemoryBytes());
+        return count;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return estimated number of bytes used by the cached tokens
+     */
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    CacheEntry<T> removeEntry(final String key, EvictionCause cause) {
+        CacheEntry<T> entry = entries.remove(key);
+        if (entry != null) {
+            removeFromBucket(key, entry.expiryTime);
+            memoryBytes -= estimateSize(key);
+            listener.onEviction(name, cause);
+        }
+        return entry;
+    }
+
+    void removeFromBucket(final String key, long expiryTime) {
+        Set<String> bucket = expiryBuckets.get(expiryTime);
+        if (bucket != null && bucket.remove(key) && bucket.isEmpty()) {
+            expiryBuckets.remove(expiryTime);
+        }
+    }
+
+    static final class CacheEntry<T> {
+
+        private final T value;
+        private final long expiryTime;
+
+        CacheEntry(T value, long expiryTime) {
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
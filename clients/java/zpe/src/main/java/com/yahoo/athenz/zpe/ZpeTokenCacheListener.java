@@ -0,0 +1,62 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+/**
+ * Listener for the role and access token cache events. The implementation
+ * class is configured with the athenz.zpe.token_cache_listener_class system
+ * property and must have a default constructor. The callbacks are invoked
+ * inline from the authorization checks so implementations must not block.
+ */
+public interface ZpeTokenCacheListener {
+
+    enum EvictionCause {
+        EXPIRED,
+        SIZE,
+        REMOVED
+    }
+
+    /**
+     * Called when a token is found in the cache
+     * @param cacheName name of the cache (roleToken or accessToken)
+     */
+    default void onHit(final String cacheName) {
+    }
+
+    /**
+     * Called when a token is not found in the cache
+     * @param cacheName name of the cache (roleToken or accessToken)
+     */
+    default void onMiss(final String cacheName) {
+    }
+
+    /**
+     * Called when a token is removed from the cache
+     * @param cacheName name of the cache (roleToken or accessToken)
+     * @param cause reason the token was removed
+     */
+    default void onEviction(final String cacheName, EvictionCause cause) {
+    }
+
+    /**
+     * Called after each cleanup of the cache with its current size
+     * @param cacheName name of the cache (roleToken or accessToken)
+     * @param entries number of tokens in the cache
+     * @param memoryBytes estimated memory used by the cached tokens
+     */
+    default void onCleanup(final String cacheName, int entries, long memoryBytes) {
+    }
+}
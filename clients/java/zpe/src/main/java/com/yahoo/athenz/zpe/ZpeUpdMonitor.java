@@ -31,6 +31,8 @@ public class ZpeUpdMonitor implements Runnable {
     private boolean firstRun = true;
     private final ZpeUpdPolLoader updLoader;
     private volatile boolean shutdownThread = false;
+    private volatile long fullScanIntervalMillis = 0;
+    private long lastFullScanMillis = 0;
 
     private java.io.FilenameFilter polFileNameFilter = (dir, name) -> name.endsWith(".pol");
 
@@ -42,6 +44,16 @@ public class ZpeUpdMonitor implements Runnable {
     public void cancel() {
         shutdownThread = true;
     }
+
+    /**
+     * Set the minimum interval between full scans of the policy directory.
+     * When the directory is watched for file events, the monitor only needs
+     * to scan the directory as a fallback in case any events are missed.
+     * @param intervalMillis full scan interval in milliseconds
+     */
+    void setFullScanInterval(long intervalMillis) {
+        fullScanIntervalMillis = intervalMillis;
+    }
     
     public File[] loadFileStatus() {
 
@@ -85,6 +97,15 @@ public class ZpeUpdMonitor implements Runnable {
             return;
         }
 
+        // we always process the directory on our first run and then
+        // based on the configured full scan interval
+
+        long now = System.currentTimeMillis();
+        if (!firstRun && now < lastFullScanMillis + fullScanIntervalMillis) {
+            return;
+        }
+        lastFullScanMillis = now;
+
         try {
             updLoader.loadDb(loadFileStatus());
             if (firstRun) {
@@ -52,11 +52,17 @@ public class ZpeUpdPolLoader implements Closeable {
     static long cleanupTokenInterval = 600000; // 600 secs = 10 minutes
     static long lastRoleTokenCleanup = System.currentTimeMillis();
     static long lastAccessTokenCleanup = System.currentTimeMillis();
+    static int tokenCacheMaxEntries = 100000;
+    static boolean watchEnabled;
+    static long watchDebounceMillis = 100;
+    static long fullScanIntervalMillis = 3600000; // 3600 secs = 1 hour
+    static ZpeTokenCacheListener tokenCacheListener = null;
 
     static {
 
         skipPolicyDirCheck = Boolean.parseBoolean(System.getProperty(ZpeConsts.ZPE_PROP_SKIP_POLICY_DIR_CHECK, "false"));
         checkPolicyZMSSignature = Boolean.parseBoolean(System.getProperty(ZpeConsts.ZPE_PROP_CHECK_POLICY_ZMS_SIGNATURE, "false"));
+        watchEnabled = Boolean.parseBoolean(System.getProperty(ZpeConsts.ZPE_PROP_MON_WATCH_ENABLED, "false"));
 
         // default to 5 minutes / 300 secs
         String timeoutSecs = System.getProperty(ZpeConsts.ZPE_PROP_MON_TIMEOUT, "300");
@@ -77,32 +83,62 @@ public class ZpeUpdPolLoader implements Closeable {
             LOG.warn("start: WARNING: Failed using system property({}) with value={}, exc: {}",
                     ZpeConsts.ZPE_PROP_MON_CLEANUP_TOKENS, timeoutSecs, exc);
         }
+
+        // default is 100K tokens in each cache
+        final String maxEntries = System.getProperty(ZpeConsts.ZPE_PROP_TOKEN_CACHE_MAX_ENTRIES, "100000");
+        try {
+            tokenCacheMaxEntries = Integer.parseInt(maxEntries);
+        } catch (NumberFormatException exc) {
+            LOG.warn("start: WARNING: Failed using system property({}) with value={}, exc: {}",
+                    ZpeConsts.ZPE_PROP_TOKEN_CACHE_MAX_ENTRIES, maxEntries, exc);
+        }
+
+        // default is 100 msecs to wait for more file events
+        final String debounceMillis = System.getProperty(ZpeConsts.ZPE_PROP_MON_WATCH_DEBOUNCE_MS, "100");
+        try {
+            watchDebounceMillis = Long.parseLong(debounceMillis);
+        } catch (NumberFormatException exc) {
+            LOG.warn("start: WARNING: Failed using system property({}) with value={}, exc: {}",
+                    ZpeConsts.ZPE_PROP_MON_WATCH_DEBOUNCE_MS, debounceMillis, exc);
+        }
+
+        // default is 1 hour / 3600 secs for the full scan when watching the directory
+        timeoutSecs = System.getProperty(ZpeConsts.ZPE_PROP_MON_FULL_SCAN_SECS, "3600");
+        try {
+            long secs = Long.parseLong(timeoutSecs);
+            fullScanIntervalMillis = TimeUnit.MILLISECONDS.convert(secs, TimeUnit.SECONDS);
+        } catch (NumberFormatException exc) {
+            LOG.warn("start: WARNING: Failed using system property({}) with value={}, exc: {}",
+                    ZpeConsts.ZPE_PROP_MON_FULL_SCAN_SECS, timeoutSecs, exc);
+        }
+
+        tokenCacheListener = getTokenCacheListener(System.getProperty(ZpeConsts.ZPE_PROP_TOKEN_CACHE_LISTENER_CLASS));
     }
 
     // create thread or event handler to monitor changes to ZpePolFiles
     // find the java7 api for monitoring files
     // see http://docs.oracle.com/javase/tutorial/essential/io/notification.html
 
-    private final ScheduledExecutorService scheduledExecutorSvc = Executors.newScheduledThreadPool(1);
+    private final ScheduledExecutorService scheduledExecutorSvc = Executors.newScheduledThreadPool(2);
     private ZpeUpdMonitor updMonWorker;
+    private ZpeUpdWatcher updWatcher;
 
-    // key is the domain name, value is a map keyed by role name with list of assertions
-    ConcurrentHashMap<String, Map<String, List<Struct>>> domStandardRoleAllowMap = new ConcurrentHashMap<>();
+    // policy files are loaded by both the monitor and watcher threads
 
-    // wild card role map, keys and values same as domRoleMap above
-    ConcurrentHashMap<String, Map<String, List<Struct>>> domWildcardRoleAllowMap = new ConcurrentHashMap<>();
+    private final Object loadLock = new Object();
 
-    // key is the domain name, value is a map keyed by role name with list of assertions
-    ConcurrentHashMap<String, Map<String, List<Struct>>> domStandardRoleDenyMap = new ConcurrentHashMap<>();
+    // key is the domain name, value is the compiled policy index for the domain.
+    // the index is immutable and replaced as a whole when the policy file is updated
 
-    // wild card role map, keys and values same as domRoleMap above
-    ConcurrentHashMap<String, Map<String, List<Struct>>> domWildcardRoleDenyMap = new ConcurrentHashMap<>();
+    ConcurrentHashMap<String, ZpePolicyIndex> domPolicyIndexMap = new ConcurrentHashMap<>();
 
     // cache of active Role Tokens
-    static ConcurrentHashMap<String, RoleToken> roleTokenCacheMap = new ConcurrentHashMap<>();
+    static ZpeTokenCache<RoleToken> roleTokenCacheMap = new ZpeTokenCache<>("roleToken",
+            tokenCacheMaxEntries, RoleToken::getExpiryTime, tokenCacheListener);
 
     // cache of active Access Tokens
-    static ConcurrentHashMap<String, AccessToken> accessTokenCacheMap = new ConcurrentHashMap<>();
+    static ZpeTokenCache<AccessToken> accessTokenCacheMap = new ZpeTokenCache<>("accessToken",
+            tokenCacheMaxEntries, AccessToken::getExpiryTime, tokenCacheListener);
 
     // array of file status objects
     static class ZpeFileStatus {
@@ -140,28 +176,42 @@ public class ZpeUpdPolLoader implements Closeable {
         return fileStatusRef;
     }
 
+    // return the compiled policy index for the given domain
+    //
+    public ZpePolicyIndex getPolicyIndex(String domainName) {
+        return domPolicyIndexMap.get(domainName);
+    }
+
+    // the following methods return the assertions in the original
+    // struct format. the maps are generated from the policy index
+    // on every call so they should only be used for compatibility
+
     // return map of wildcard role with assertion list with allow effect
     //
     public Map<String, List<Struct>> getWildcardRoleAllowMap(String domainName) {
-        return domWildcardRoleAllowMap.get(domainName);
+        ZpePolicyIndex policyIndex = domPolicyIndexMap.get(domainName);
+        return policyIndex == null ? null : policyIndex.getAllowIndex().asStructMap(true);
     }
 
     // return map of role-name with assertion list with allow effect
     //
     public Map<String, List<Struct>> getStandardRoleAllowMap(String domainName) {
-        return domStandardRoleAllowMap.get(domainName);
+        ZpePolicyIndex policyIndex = domPolicyIndexMap.get(domainName);
+        return policyIndex == null ? null : policyIndex.getAllowIndex().asStructMap(false);
     }
 
     // return map of wildcard role with assertion list with deny effect
     //
     public Map<String, List<Struct>> getWildcardRoleDenyMap(String domainName) {
-        return domWildcardRoleDenyMap.get(domainName);
+        ZpePolicyIndex policyIndex = domPolicyIndexMap.get(domainName);
+        return policyIndex == null ? null : policyIndex.getDenyIndex().asStructMap(true);
     }
 
     // return map of role-name with assertion list with deny effect
     //
     public Map<String, List<Struct>> getStandardRoleDenyMap(String domainName) {
-        return domStandardRoleDenyMap.get(domainName);
+        ZpePolicyIndex policyIndex = domPolicyIndexMap.get(domainName);
+        return policyIndex == null ? null : policyIndex.getDenyIndex().asStructMap(false);
     }
     
     static public Map<String, RoleToken> getRoleTokenCacheMap() {
@@ -173,13 +223,10 @@ public class ZpeUpdPolLoader implements Closeable {
     }
 
     /**
-     * All of our maps must contain the same number of objects since we
-     * process and update them at the same time, so we'll just return
-     * the number of entries in our allow role map
      * @return number of domains processed
      */
     public int getDomainCount() {
-        return domWildcardRoleAllowMap.size();
+        return domPolicyIndexMap.size();
     }
 
     public void start() throws Exception {
@@ -190,17 +237,55 @@ public class ZpeUpdPolLoader implements Closeable {
         if (updMonWorker == null) {
             updMonWorker = new ZpeUpdMonitor(this);
         }
+
+        // if configured, we'll reload the policy files based on the file
+        // system events and the monitor will only carry out a full scan
+        // of the directory as a fallback in case any events are missed
+
+        if (watchEnabled && !skipPolicyDirCheck && updWatcher == null) {
+            try {
+                updWatcher = new ZpeUpdWatcher(this, updMonWorker, watchDebounceMillis);
+                updMonWorker.setFullScanInterval(fullScanIntervalMillis);
+                scheduledExecutorSvc.execute(updWatcher);
+            } catch (Exception ex) {
+                LOG.error("start: unable to watch policy directory {}, using periodic scan: {}",
+                        polDirName, ex.getMessage());
+                updWatcher = null;
+            }
+        }
+
         scheduledExecutorSvc.scheduleAtFixedRate(updMonWorker, 0, sleepTimeMillis, TimeUnit.MILLISECONDS);
     }
 
+    ZpeUpdWatcher getUpdWatcher() {
+        return updWatcher;
+    }
+
     @Override
     public void close() {
         if (updMonWorker != null) {
             updMonWorker.cancel();
         }
+        if (updWatcher != null) {
+            updWatcher.close();
+        }
         scheduledExecutorSvc.shutdownNow();
     }
 
+    static ZpeTokenCacheListener getTokenCacheListener(final String className) {
+
+        if (className == null || className.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return (ZpeTokenCacheListener) Class.forName(className).newInstance();
+        } catch (Exception ex) {
+            LOG.error("Invalid token cache listener class: {}, error: {}", className, ex.getMessage());
+            return null;
+        }
+    }
+
     static public void cleanupRoleTokenCache() {
         // is it time to clean up?
         long now = System.currentTimeMillis();
@@ -208,8 +293,10 @@ public class ZpeUpdPolLoader implements Closeable {
             return;
         }
 
-        long nowSecs = now / 1000;
-        roleTokenCacheMap.entrySet().removeIf(entry -> entry.getValue().getExpiryTime() < nowSecs);
+        // only the expired tokens are visited so the cleanup
+        // does not depend on the number of tokens in the cache
+
+        roleTokenCacheMap.removeExpired(now / 1000);
         lastRoleTokenCleanup = now; // reset time of last cleanup
     }
 
@@ -220,8 +307,7 @@ public class ZpeUpdPolLoader implements Closeable {
             return;
         }
 
-        long nowSecs = now / 1000;
-        accessTokenCacheMap.entrySet().removeIf(entry -> entry.getValue().getExpiryTime() < nowSecs);
+        accessTokenCacheMap.removeExpired(now / 1000);
         lastAccessTokenCleanup = now; // reset time of last cleanup
     }
 
@@ -249,7 +335,14 @@ public class ZpeUpdPolLoader implements Closeable {
             LOG.error("loadDb: no policy files to load");
             return;
         }
-        
+
+        synchronized (loadLock) {
+            loadPolicyFiles(polFileNames);
+        }
+    }
+
+    private void loadPolicyFiles(File []polFileNames) {
+
         if (LOG.isDebugEnabled()) {
             LOG.debug("loadDb: START thrd={} directory={}", Thread.currentThread().getId(), polDirName);
         }
@@ -276,10 +369,7 @@ public class ZpeUpdPolLoader implements Closeable {
 
                     // replace domain with empty data
                     //
-                    domStandardRoleAllowMap.put(fstat.domain, new TreeMap<>());
-                    domWildcardRoleAllowMap.put(fstat.domain, new TreeMap<>());
-                    domStandardRoleDenyMap.put(fstat.domain, new TreeMap<>());
-                    domWildcardRoleDenyMap.put(fstat.domain, new TreeMap<>());
+                    domPolicyIndexMap.put(fstat.domain, ZpePolicyIndex.empty());
                     continue;
                 }
                 
@@ -301,6 +391,11 @@ public class ZpeUpdPolLoader implements Closeable {
                     }
             
                 }
+
+                // remember the timestamp of the version we're loading so
+                // we don't reload the same file again on the next scan
+
+                fstat.modifyTimeMillis = lastModMilliSeconds;
             } else {
                 fstat = new ZpeFileStatus(lastModMilliSeconds);
                 fsmap.put(fileName, fstat);
@@ -508,14 +603,11 @@ public class ZpeUpdPolLoader implements Closeable {
         }
         
         // Process the policies into assertions, process the assertions: action, resource, role
-        // If there is a wildcard in the action or resource, compile the
-        // regexpr and place it into the assertion Struct.
+        // If there is a wildcard in the action, resource or role, compile the
+        // match objects and place them into the policy index.
         // This is a performance enhancement for AuthZpeClient when it 
         // performs the authorization checks.
-        Map<String, List<Struct>> roleStandardAllowMap = new TreeMap<>();
-        Map<String, List<Struct>> roleWildcardAllowMap = new TreeMap<>();
-        Map<String, List<Struct>> roleStandardDenyMap  = new TreeMap<>();
-        Map<String, List<Struct>> roleWildcardDenyMap  = new TreeMap<>();
+        ZpePolicyIndex.Builder policyIndexBuilder = new ZpePolicyIndex.Builder();
         List<Policy> policies = policyData.getPolicies();
         for (Policy policy : policies) {
             String pname = policy.getName();
@@ -527,51 +619,29 @@ public class ZpeUpdPolLoader implements Closeable {
                 continue;
             }
             for (Assertion assertion : assertions) {
-                com.yahoo.rdl.Struct strAssert = new Struct();
-                strAssert.put(ZpeConsts.ZPE_FIELD_POLICY_NAME, pname);
 
                 // It is possible for action and resource to retain case. Need to lower them both.
                 final String passertAction = assertion.getAction().toLowerCase();
+                ZpeMatch actionMatch = getMatchObject(passertAction);
 
-                ZpeMatch matchStruct = getMatchObject(passertAction);
-                strAssert.put(ZpeConsts.ZPE_ACTION_MATCH_STRUCT, matchStruct);
-                
                 final String passertResource = assertion.getResource().toLowerCase();
                 final String rsrc = AuthZpeClient.stripDomainPrefix(passertResource, domainName, passertResource);
-                strAssert.put(ZpeConsts.ZPE_FIELD_RESOURCE, rsrc);
-                matchStruct = getMatchObject(rsrc);
-                strAssert.put(ZpeConsts.ZPE_RESOURCE_MATCH_STRUCT, matchStruct);
+                ZpeMatch resourceMatch = getMatchObject(rsrc);
 
                 final String passertRole = assertion.getRole();
                 String pRoleName = AuthZpeClient.stripDomainPrefix(passertRole, domainName, passertRole);
                 // strip the prefix "role." too
                 pRoleName = pRoleName.replaceFirst("^role.", "");
-                strAssert.put(ZpeConsts.ZPE_FIELD_ROLE, pRoleName);
-                
-                // based on the effect and role name determine what
-                // map we're going to use
-                
-                Map<String, List<Struct>> roleMap;
+                ZpeMatch roleMatch = getMatchObject(pRoleName);
+
+                // based on the effect and role name the builder determines
+                // which role index the assertion is added to
+
                 AssertionEffect passertEffect = assertion.getEffect();
-                matchStruct = getMatchObject(pRoleName);
-                strAssert.put(ZpeConsts.ZPE_ROLE_MATCH_STRUCT, matchStruct);
-                
-                if (passertEffect != null && passertEffect.toString().compareTo("DENY") == 0) {
-                    if (matchStruct instanceof ZpeMatchEqual) {
-                        roleMap = roleStandardDenyMap;
-                    } else {
-                        roleMap = roleWildcardDenyMap;
-                    }
-                } else {
-                    if (matchStruct instanceof ZpeMatchEqual) {
-                        roleMap = roleStandardAllowMap;
-                    } else {
-                        roleMap = roleWildcardAllowMap;
-                    }
-                }
+                final boolean deny = passertEffect != null && passertEffect.toString().compareTo("DENY") == 0;
 
-                List<Struct> assertList = roleMap.computeIfAbsent(pRoleName, k -> new ArrayList<>());
-                assertList.add(strAssert);
+                policyIndexBuilder.addAssertion(pname, pRoleName, roleMatch, passertAction, actionMatch,
+                        rsrc, resourceMatch, deny);
             }
         }
  
@@ -582,10 +652,6 @@ public class ZpeUpdPolLoader implements Closeable {
             fstat.domain = domainName;
         }
         
-        domStandardRoleAllowMap.put(domainName, roleStandardAllowMap);
-        domWildcardRoleAllowMap.put(domainName, roleWildcardAllowMap);
-        domStandardRoleDenyMap.put(domainName, roleStandardDenyMap);
-        domWildcardRoleDenyMap.put(domainName, roleWildcardDenyMap);
+        domPolicyIndexMap.put(domainName, policyIndexBuilder.build());
     }
 }
-
@@ -0,0 +1,164 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the policy directory for file system events and reloads only
+ * the policy files that were created, modified or deleted. The events are
+ * debounced: once the first event is received, we keep collecting events
+ * until there is a quiet period of the configured length and then process
+ * all the changed files at once, so a file that is written in several steps
+ * is only loaded once. The thread is blocked while there are no events.
+ * If the event queue overflows, the full directory is rescanned. The
+ * periodic monitor is still scheduled, at a much longer interval, as the
+ * fallback in case any events are missed. If the directory can no longer
+ * be watched, the watcher stops and the monitor goes back to scanning the
+ * directory on every run.
+ */
+public class ZpeUpdWatcher implements Runnable, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ZpeUpdWatcher.class);
+
+    private final ZpeUpdPolLoader updLoader;
+    private final ZpeUpdMonitor updMonitor;
+    private final Path dirPath;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private volatile boolean shutdownThread = false;
+
+    ZpeUpdWatcher(final ZpeUpdPolLoader zpeUpdLoader, final ZpeUpdMonitor zpeUpdMonitor,
+            long debounceMillis) throws IOException {
+
+        this.updLoader = zpeUpdLoader;
+        this.updMonitor = zpeUpdMonitor;
+        this.debounceMillis = debounceMillis;
+        this.dirPath = Paths.get(zpeUpdLoader.getDirName());
+        this.watchService = dirPath.getFileSystem().newWatchService();
+        dirPath.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+    }
+
+    @Override
+    public void run() {
+
+        LOG.info("run: watching policy directory: {}", dirPath);
+
+        while (!shutdownThread) {
+            try {
+
+                // block until we have at least one event
+
+                WatchKey watchKey = watchService.take();
+                Set<String> changedFiles = new LinkedHashSet<>();
+                boolean fullScan = processEvents(watchKey, changedFiles);
+
+                // now keep collecting events until we have a quiet period
+
+                while ((watchKey = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    fullScan |= processEvents(watchKey, changedFiles);
+                }
+
+                reloadFiles(changedFiles, fullScan);
+
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                break;
+            } catch (Exception ex) {
+                LOG.error("run: unable to process policy directory events: {}", dirPath, ex);
+            }
+        }
+
+        LOG.info("run: stopped watching policy directory: {}", dirPath);
+    }
+
+    /**
+     * Process the events for the given key and add the names of the changed
+     * policy files to the given set.
+     * @param watchKey watch key with pending events
+     * @param changedFiles set of changed policy file names
+     * @return true if the full directory must be scanned
+     */
+    boolean processEvents(WatchKey watchKey, Set<String> changedFiles) {
+
+        boolean fullScan = false;
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                LOG.warn("processEvents: event overflow for directory: {}", dirPath);
+                fullScan = true;
+                continue;
+            }
+            final String fileName = event.context().toString();
+            if (fileName.endsWith(".pol")) {
+                changedFiles.add(fileName);
+            }
+        }
+
+        // if the key is no longer valid then the directory is no longer
+        // accessible so we'll stop and have the monitor scan the full
+        // directory on every run instead of its long fallback interval
+
+        if (!watchKey.reset()) {
+            LOG.error("processEvents: policy directory {} is no longer accessible", dirPath);
+            shutdownThread = true;
+            updMonitor.setFullScanInterval(0);
+        }
+        return fullScan;
+    }
+
+    void reloadFiles(Set<String> changedFiles, boolean fullScan) {
+
+        if (fullScan) {
+            updLoader.loadDb(updMonitor.loadFileStatus());
+            return;
+        }
+
+        if (changedFiles.isEmpty()) {
+            return;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("reloadFiles: changed policy files: {}", changedFiles);
+        }
+
+        File[] files = new File[changedFiles.size()];
+        int idx = 0;
+        for (String fileName : changedFiles) {
+            files[idx++] = dirPath.resolve(fileName).toFile();
+        }
+        updLoader.loadDb(files);
+    }
+
+    @Override
+    public void close() {
+        shutdownThread = true;
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            LOG.error("close: unable to close watch service: {}", ex.getMessage());
+        }
+    }
+}
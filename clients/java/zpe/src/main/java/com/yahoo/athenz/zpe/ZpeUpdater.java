@@ -104,6 +104,11 @@ public class ZpeUpdater implements ZpeClient {
         return POLICYLOADER.getStandardRoleDenyMap(domain);
     }
 
+    @Override
+    public ZpePolicyIndex getPolicyIndex(String domain) {
+        return POLICYLOADER.getPolicyIndex(domain);
+    }
+
     @Override
     public int getDomainCount() {
         return POLICYLOADER.getDomainCount();
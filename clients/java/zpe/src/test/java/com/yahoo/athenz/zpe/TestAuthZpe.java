@@ -77,6 +77,7 @@ public class TestAuthZpe {
     public void beforeClass() throws IOException {
 
         System.setProperty(ZpeConsts.ZPE_PROP_CHECK_POLICY_ZMS_SIGNATURE, "true");
+        Files.createDirectories(Paths.get("./target/pol_dir"));
 
         Path path = Paths.get("./src/test/resources/unit_test_zts_private_k0.pem");
         ztsPrivateKeyK0 = Crypto.loadPrivateKey(new String((Files.readAllBytes(path))));
@@ -135,10 +136,10 @@ public class TestAuthZpe {
         signedPolicyData.setZmsSignature(signature).setZmsKeyId("0");
         signature = Crypto.sign(SignUtils.asCanonicalString(signedPolicyData), ztsPrivateKeyK0);
         domainSignedPolicyData.setSignature(signature).setKeyId("0");
-        File file = new File("./src/test/resources/pol_dir/angler.gen");
+        File file = new File("./target/pol_dir/angler.gen");
         file.createNewFile();
         Files.write(file.toPath(), JSON.bytes(domainSignedPolicyData));
-        File renamedFile = new File("./src/test/resources/pol_dir/angler.pol");
+        File renamedFile = new File("./target/pol_dir/angler.pol");
         file.renameTo(renamedFile);
         
         path = Paths.get("./src/test/resources/sports.pol");
@@ -148,10 +149,10 @@ public class TestAuthZpe {
         signedPolicyData.setZmsSignature(signature).setZmsKeyId("0");
         signature = Crypto.sign(SignUtils.asCanonicalString(signedPolicyData), ztsPrivateKeyK1);
         domainSignedPolicyData.setSignature(signature).setKeyId("1");
-        file = new File("./src/test/resources/pol_dir/sports.gen");
+        file = new File("./target/pol_dir/sports.gen");
         file.createNewFile();
         Files.write(file.toPath(), JSON.bytes(domainSignedPolicyData));
-        renamedFile = new File("./src/test/resources/pol_dir/sports.pol");
+        renamedFile = new File("./target/pol_dir/sports.pol");
         file.renameTo(renamedFile);
         
         path = Paths.get("./src/test/resources/empty.pol");
@@ -161,11 +162,11 @@ public class TestAuthZpe {
         signedPolicyData.setZmsSignature(signature).setZmsKeyId("0");
         signature = Crypto.sign(SignUtils.asCanonicalString(signedPolicyData), ztsPrivateKeyK0);
         domainSignedPolicyData.setSignature(signature).setKeyId("0");
-        file = new File("./src/test/resources/pol_dir/empty.gen");
+        file = new File("./target/pol_dir/empty.gen");
         file.createNewFile();
         Files.write(file.toPath(), JSON.bytes(domainSignedPolicyData));
 
-        renamedFile = new File("./src/test/resources/pol_dir/empty.pol");
+        renamedFile = new File("./target/pol_dir/empty.pol");
         file.renameTo(renamedFile);
     }
     
@@ -645,6 +646,38 @@ public class TestAuthZpe {
         Assert.assertEquals(status, AccessCheckStatus.ALLOW);
     }
 
+    @Test
+    public void testPublicFishingDecisionCache() {
+
+        assertNull(AuthZpeClient.getDecisionCache());
+        AuthZpeClient.setDecisionCacheMaxSize(100);
+
+        try {
+            ZpeDecisionCache cache = AuthZpeClient.getDecisionCache();
+            assertNotNull(cache);
+
+            for (int i = 0; i < 3; i++) {
+                StringBuilder roleName = new StringBuilder();
+                AccessCheckStatus status = AuthZpeClient.allowAccess(rToken0AnglerPublic,
+                        "angler:stockedpondBigBassLake", "fish", roleName);
+                Assert.assertEquals(status, AccessCheckStatus.ALLOW);
+                Assert.assertEquals(roleName.toString(), "public");
+
+                roleName = new StringBuilder();
+                status = AuthZpeClient.allowAccess(rToken0AnglerPublic,
+                        "angler:spawningpondLittleBassLake", "fish", roleName);
+                Assert.assertEquals(status, AccessCheckStatus.DENY);
+                Assert.assertEquals(roleName.toString(), "public");
+            }
+
+            Assert.assertEquals(cache.getMissCount(), 2);
+            Assert.assertEquals(cache.getHitCount(), 4);
+        } finally {
+            AuthZpeClient.setDecisionCacheMaxSize(0);
+        }
+        assertNull(AuthZpeClient.getDecisionCache());
+    }
+
     @Test
     public void testCleanupOfToken() {
         // perform allowed access check
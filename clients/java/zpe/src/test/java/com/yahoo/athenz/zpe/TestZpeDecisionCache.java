@@ -0,0 +1,171 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import com.yahoo.athenz.zpe.AuthZpeClient.AccessCheckStatus;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.testng.Assert.*;
+
+public class TestZpeDecisionCache {
+
+    private ZpePolicyIndex createPolicyIndex(ZpeUpdPolLoader loader, final String resource) {
+        ZpePolicyIndex.Builder builder = new ZpePolicyIndex.Builder();
+        builder.addAssertion("policy1", "readers", loader.getMatchObject("readers"), "read",
+                loader.getMatchObject("read"), resource, loader.getMatchObject(resource), false);
+        builder.addAssertion("policy1", "guests", loader.getMatchObject("guests"), "*",
+                loader.getMatchObject("*"), "secret", loader.getMatchObject("secret"), true);
+        return builder.build();
+    }
+
+    @Test
+    public void testGenerateKey() {
+
+        // roles are sorted so the order in the token does not matter
+
+        assertEquals(ZpeDecisionCache.generateKey("coretech", Arrays.asList("readers", "admin"), "read", "data"),
+                ZpeDecisionCache.generateKey("coretech", Arrays.asList("admin", "readers"), "read", "data"));
+        assertEquals(ZpeDecisionCache.generateKey("coretech", Arrays.asList("readers", "admin"), "read", "data")
+                .hashCode(), ZpeDecisionCache.generateKey("coretech", Arrays.asList("admin", "readers"),
+                "read", "data").hashCode());
+
+        ZpeDecisionCache.DecisionKey key = ZpeDecisionCache.generateKey("coretech",
+                Collections.singletonList("readers"), "read", "data");
+        assertEquals(key, key);
+        assertNotEquals(key, null);
+        assertNotEquals(key, "coretech");
+        assertNotEquals(key, ZpeDecisionCache.generateKey("sports", Collections.singletonList("readers"),
+                "read", "data"));
+        assertNotEquals(key, ZpeDecisionCache.generateKey("coretech", Collections.singletonList("writers"),
+                "read", "data"));
+        assertNotEquals(key, ZpeDecisionCache.generateKey("coretech", Collections.singletonList("readers"),
+                "write", "data"));
+        assertNotEquals(key, ZpeDecisionCache.generateKey("coretech", Collections.singletonList("readers"),
+                "read", "secret"));
+    }
+
+    @Test
+    public void testGetPutDecision() {
+
+        ZpeDecisionCache cache = new ZpeDecisionCache(10);
+        assertEquals(cache.getMaxSize(), 10);
+
+        ZpeDecisionCache.DecisionKey key1 = ZpeDecisionCache.generateKey("coretech",
+                Collections.singletonList("readers"), "read", "data");
+        ZpeDecisionCache.DecisionKey key2 = ZpeDecisionCache.generateKey("coretech",
+                Collections.singletonList("readers"), "read", "secret");
+
+        StringBuilder matchRoleName = new StringBuilder();
+        assertNull(cache.getDecision(key1, 1, matchRoleName));
+        assertEquals(cache.getMissCount(), 1);
+
+        cache.putDecision(key1, 1, AccessCheckStatus.ALLOW, "readers");
+        cache.putDecision(key2, 1, AccessCheckStatus.DENY_NO_MATCH, null);
+        assertEquals(cache.size(), 2);
+
+        assertEquals(cache.getDecision(key1, 1, matchRoleName), AccessCheckStatus.ALLOW);
+        assertEquals(matchRoleName.toString(), "readers");
+
+        matchRoleName.setLength(0);
+        assertEquals(cache.getDecision(key2, 1, matchRoleName), AccessCheckStatus.DENY_NO_MATCH);
+        assertEquals(matchRoleName.toString(), "");
+        assertEquals(cache.getHitCount(), 2);
+
+        // decisions from an older generation are misses
+
+        assertNull(cache.getDecision(key1, 2, matchRoleName));
+        assertEquals(cache.getMissCount(), 2);
+
+        cache.invalidateAll();
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testPutDecisionMaxSize() {
+
+        ZpeDecisionCache cache = new ZpeDecisionCache(2);
+        ZpeDecisionCache.DecisionKey key1 = ZpeDecisionCache.generateKey("coretech",
+                Collections.singletonList("role1"), "read", "data");
+        ZpeDecisionCache.DecisionKey key2 = ZpeDecisionCache.generateKey("coretech",
+                Collections.singletonList("role2"), "read", "data");
+        ZpeDecisionCache.DecisionKey key3 = ZpeDecisionCache.generateKey("coretech",
+                Collections.singletonList("role3"), "read", "data");
+
+        cache.putDecision(key1, 1, AccessCheckStatus.ALLOW, "role1");
+        cache.putDecision(key2, 1, AccessCheckStatus.ALLOW, "role2");
+
+        // replacing an existing key does not discard any entries
+
+        cache.putDecision(key2, 2, AccessCheckStatus.DENY, "role2");
+        assertEquals(cache.size(), 2);
+
+        // adding a new key when the cache is full discards all entries
+
+        cache.putDecision(key3, 1, AccessCheckStatus.ALLOW, "role3");
+        assertEquals(cache.size(), 1);
+        assertNull(cache.getDecision(key1, 1, new StringBuilder()));
+        assertEquals(cache.getDecision(key3, 1, new StringBuilder()), AccessCheckStatus.ALLOW);
+    }
+
+    @Test
+    public void testAllowActionByDecisionCache() {
+
+        try (ZpeUpdPolLoader loader = new ZpeUpdPolLoader(null)) {
+
+            ZpeDecisionCache cache = new ZpeDecisionCache(10);
+            ZpePolicyIndex policyIndex = createPolicyIndex(loader, "data");
+
+            StringBuilder matchRoleName = new StringBuilder();
+            assertEquals(AuthZpeClient.allowActionByDecisionCache(cache, policyIndex, "read", "coretech",
+                    "data", Collections.singletonList("readers"), matchRoleName, "test"), AccessCheckStatus.ALLOW);
+            assertEquals(matchRoleName.toString(), "readers");
+            assertEquals(cache.getMissCount(), 1);
+
+            matchRoleName.setLength(0);
+            assertEquals(AuthZpeClient.allowActionByDecisionCache(cache, policyIndex, "read", "coretech",
+                    "data", Collections.singletonList("readers"), matchRoleName, "test"), AccessCheckStatus.ALLOW);
+            assertEquals(matchRoleName.toString(), "readers");
+            assertEquals(cache.getHitCount(), 1);
+
+            matchRoleName.setLength(0);
+            assertEquals(AuthZpeClient.allowActionByDecisionCache(cache, policyIndex, "read", "coretech",
+                    "secret", Arrays.asList("readers", "guests"), matchRoleName, "test"), AccessCheckStatus.DENY);
+            assertEquals(matchRoleName.toString(), "guests");
+
+            matchRoleName.setLength(0);
+            assertEquals(AuthZpeClient.allowActionByDecisionCache(cache, policyIndex, "read", "coretech",
+                    "secret", Arrays.asList("guests", "readers"), matchRoleName, "test"), AccessCheckStatus.DENY);
+            assertEquals(matchRoleName.toString(), "guests");
+            assertEquals(cache.getHitCount(), 2);
+
+            // a reloaded domain has a new index and the cached decision
+            // based on the previous policy index must not be returned
+
+            ZpePolicyIndex newPolicyIndex = createPolicyIndex(loader, "other");
+            assertTrue(newPolicyIndex.getGeneration() > policyIndex.getGeneration());
+
+            matchRoleName.setLength(0);
+            assertEquals(AuthZpeClient.allowActionByDecisionCache(cache, newPolicyIndex, "read", "coretech",
+                    "data", Collections.singletonList("readers"), matchRoleName, "test"),
+                    AccessCheckStatus.DENY_NO_MATCH);
+            assertEquals(matchRoleName.toString(), "");
+            assertEquals(cache.getMissCount(), 3);
+        }
+    }
+}
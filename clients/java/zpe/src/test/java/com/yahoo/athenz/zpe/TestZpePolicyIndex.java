@@ -0,0 +1,216 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import com.yahoo.athenz.zpe.AuthZpeClient.AccessCheckStatus;
+import com.yahoo.athenz.zpe.match.impl.ZpeMatchEqual;
+import com.yahoo.rdl.Struct;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class TestZpePolicyIndex {
+
+    private ZpePolicyIndex.Builder addAssertion(ZpePolicyIndex.Builder builder, ZpeUpdPolLoader loader,
+            final String role, final String action, final String resource, boolean deny) {
+        return builder.addAssertion("policy1", role, loader.getMatchObject(role), action,
+                loader.getMatchObject(action), resource, loader.getMatchObject(resource), deny);
+    }
+
+    private ZpePolicyIndex createPolicyIndex(ZpeUpdPolLoader loader) {
+        ZpePolicyIndex.Builder builder = new ZpePolicyIndex.Builder();
+        addAssertion(builder, loader, "readers", "read", "data.*", false);
+        addAssertion(builder, loader, "readers", "list", "data.*", false);
+        addAssertion(builder, loader, "writers", "*", "data.*", false);
+        addAssertion(builder, loader, "writers", "write", "secret", true);
+        addAssertion(builder, loader, "admin*", "*", "*", false);
+        addAssertion(builder, loader, "admin.*", "update", "config", false);
+        addAssertion(builder, loader, "*", "health", "status", false);
+        addAssertion(builder, loader, "guest?", "*", "data.private", true);
+        return builder.build();
+    }
+
+    @Test
+    public void testIndexStructure() {
+
+        try (ZpeUpdPolLoader loader = new ZpeUpdPolLoader(null)) {
+
+            ZpePolicyIndex policyIndex = createPolicyIndex(loader);
+
+            ZpePolicyIndex.RoleIndex allowIndex = policyIndex.getAllowIndex();
+            assertTrue(allowIndex.hasStandardRoles());
+            assertTrue(allowIndex.hasWildcardRoles());
+            assertEquals(allowIndex.getStandardRoles().size(), 2);
+            assertEquals(allowIndex.getStandardRoles().get("readers").getAssertions().size(), 2);
+
+            // wildcard roles are always sorted by name
+
+            List<ZpePolicyIndex.RoleAssertions> wildcardRoles = allowIndex.getWildcardRoles();
+            assertEquals(wildcardRoles.size(), 3);
+            assertEquals(wildcardRoles.get(0).getRoleName(), "*");
+            assertEquals(wildcardRoles.get(1).getRoleName(), "admin*");
+            assertEquals(wildcardRoles.get(2).getRoleName(), "admin.*");
+
+            ZpePolicyIndex.RoleIndex denyIndex = policyIndex.getDenyIndex();
+            assertEquals(denyIndex.getStandardRoles().size(), 1);
+            assertEquals(denyIndex.getWildcardRoles().size(), 1);
+
+            ZpePolicyIndex.ZpeAssertion assertion = denyIndex.getStandardRoles().get("writers")
+                    .getAssertions().get(0);
+            assertEquals(assertion.getPolicyName(), "policy1");
+            assertEquals(assertion.getRole(), "writers");
+            assertEquals(assertion.getAction(), "write");
+            assertEquals(assertion.getResource(), "secret");
+
+            ZpePolicyIndex emptyIndex = ZpePolicyIndex.empty();
+            assertFalse(emptyIndex.getAllowIndex().hasStandardRoles());
+            assertFalse(emptyIndex.getAllowIndex().hasWildcardRoles());
+            assertFalse(emptyIndex.getDenyIndex().hasStandardRoles());
+            assertFalse(emptyIndex.getDenyIndex().hasWildcardRoles());
+        }
+    }
+
+    @Test
+    public void testMatchStandardRole() {
+
+        try (ZpeUpdPolLoader loader = new ZpeUpdPolLoader(null)) {
+
+            ZpePolicyIndex.RoleIndex allowIndex = createPolicyIndex(loader).getAllowIndex();
+            assertEquals(allowIndex.matchStandardRole(Collections.singletonList("readers"), "read", "data.file1"),
+                    "readers");
+            assertEquals(allowIndex.matchStandardRole(Collections.singletonList("readers"), "list", "data.file1"),
+                    "readers");
+            assertNull(allowIndex.matchStandardRole(Collections.singletonList("readers"), "write", "data.file1"));
+            assertNull(allowIndex.matchStandardRole(Collections.singletonList("readers"), "read", "secret"));
+            assertNull(allowIndex.matchStandardRole(Collections.singletonList("unknown"), "read", "data.file1"));
+
+            // the first role in the list that matches is returned
+
+            assertEquals(allowIndex.matchStandardRole(Arrays.asList("unknown", "writers", "readers"),
+                    "read", "data.file1"), "writers");
+        }
+    }
+
+    @Test
+    public void testMatchWildcardRole() {
+
+        try (ZpeUpdPolLoader loader = new ZpeUpdPolLoader(null)) {
+
+            ZpePolicyIndex policyIndex = createPolicyIndex(loader);
+            ZpePolicyIndex.RoleIndex allowIndex = policyIndex.getAllowIndex();
+
+            // both admin* and admin.* match so we must get the first one
+            // in the sorted order
+
+            assertEquals(allowIndex.matchWildcardRole(Collections.singletonList("admin.app"), "update", "config"),
+                    "admin*");
+            assertEquals(allowIndex.matchWildcardRole(Collections.singletonList("admins"), "delete", "data"),
+                    "admin*");
+            assertEquals(allowIndex.matchWildcardRole(Collections.singletonList("readers"), "health", "status"),
+                    "*");
+            assertNull(allowIndex.matchWildcardRole(Collections.singletonList("readers"), "read", "status"));
+            assertNull(allowIndex.matchWildcardRole(Collections.singletonList("adm"), "delete", "data"));
+
+            ZpePolicyIndex.RoleIndex denyIndex = policyIndex.getDenyIndex();
+            assertEquals(denyIndex.matchWildcardRole(Arrays.asList("guest", "guest1"), "read", "data.private"),
+                    "guest?");
+            assertNull(denyIndex.matchWildcardRole(Arrays.asList("guest", "guest12"), "read", "data.private"));
+        }
+    }
+
+    @Test
+    public void testAllowActionByPolicyIndex() {
+
+        try (ZpeUpdPolLoader loader = new ZpeUpdPolLoader(null)) {
+
+            ZpePolicyIndex policyIndex = createPolicyIndex(loader);
+            StringBuilder matchRoleName = new StringBuilder();
+
+            assertEquals(AuthZpeClient.allowActionByPolicyIndex(policyIndex, "write", "coretech", "secret",
+                    Collections.singletonList("writers"), matchRoleName, "test"), AccessCheckStatus.DENY);
+            assertEquals(matchRoleName.toString(), "writers");
+
+            assertEquals(AuthZpeClient.allowActionByPolicyIndex(policyIndex, "write", "coretech", "data.file",
+                    Collections.singletonList("writers"), matchRoleName, "test"), AccessCheckStatus.ALLOW);
+            assertEquals(matchRoleName.toString(), "writers");
+
+            assertEquals(AuthZpeClient.allowActionByPolicyIndex(policyIndex, "write", "coretech", "data.private",
+                    Arrays.asList("writers", "guest1"), matchRoleName, "test"), AccessCheckStatus.DENY);
+            assertEquals(matchRoleName.toString(), "guest?");
+
+            assertEquals(AuthZpeClient.allowActionByPolicyIndex(policyIndex, "read", "coretech", "secret",
+                    Collections.singletonList("readers"), matchRoleName, "test"), AccessCheckStatus.DENY_NO_MATCH);
+
+            assertEquals(AuthZpeClient.allowActionByPolicyIndex(ZpePolicyIndex.empty(), "read", "coretech",
+                    "secret", Collections.singletonList("readers"), matchRoleName, "test"),
+                    AccessCheckStatus.DENY_DOMAIN_EMPTY);
+        }
+    }
+
+    @Test
+    public void testPolicyIndexMatchesStructMaps() {
+
+        // the policy index must return the same results as the
+        // original checks based on the assertion struct maps
+
+        try (ZpeUpdPolLoader loader = new ZpeUpdPolLoader(null)) {
+
+            ZpePolicyIndex policyIndex = createPolicyIndex(loader);
+            Map<String, List<Struct>> allowRoleMap = policyIndex.getAllowIndex().asStructMap(false);
+            Map<String, List<Struct>> allowWildcardMap = policyIndex.getAllowIndex().asStructMap(true);
+            Map<String, List<Struct>> denyRoleMap = policyIndex.getDenyIndex().asStructMap(false);
+            Map<String, List<Struct>> denyWildcardMap = policyIndex.getDenyIndex().asStructMap(true);
+
+            assertEquals(allowRoleMap.keySet(), new HashSet<>(Arrays.asList("readers", "writers")));
+            assertTrue(allowRoleMap.get("readers").get(0).get(ZpeConsts.ZPE_ROLE_MATCH_STRUCT) instanceof ZpeMatchEqual);
+
+            final String[] actions = { "read", "list", "write", "update", "health", "delete" };
+            final String[] resources = { "data.file1", "data.private", "secret", "config", "status" };
+            final List<List<String>> roleLists = Arrays.asList(
+                    Collections.singletonList("readers"), Collections.singletonList("writers"),
+                    Arrays.asList("admins", "readers"), Arrays.asList("guest1", "writers"),
+                    Collections.singletonList("admin.app"), Collections.singletonList("unknown"));
+
+            for (String action : actions) {
+                for (String resource : resources) {
+                    for (List<String> roles : roleLists) {
+
+                        StringBuilder expectedRoleName = new StringBuilder();
+                        AccessCheckStatus expected;
+                        if (AuthZpeClient.actionByRole(action, "coretech", resource, roles, denyRoleMap, expectedRoleName)
+                                || AuthZpeClient.actionByWildCardRole(action, "coretech", resource, roles,
+                                        denyWildcardMap, expectedRoleName)) {
+                            expected = AccessCheckStatus.DENY;
+                        } else if (AuthZpeClient.actionByRole(action, "coretech", resource, roles,
+                                allowRoleMap, expectedRoleName) || AuthZpeClient.actionByWildCardRole(action,
+                                "coretech", resource, roles, allowWildcardMap, expectedRoleName)) {
+                            expected = AccessCheckStatus.ALLOW;
+                        } else {
+                            expected = AccessCheckStatus.DENY_NO_MATCH;
+                        }
+
+                        StringBuilder matchRoleName = new StringBuilder();
+                        assertEquals(AuthZpeClient.allowActionByPolicyIndex(policyIndex, action, "coretech",
+                                resource, roles, matchRoleName, "test"), expected);
+                        assertEquals(matchRoleName.toString(), expectedRoleName.toString());
+                    }
+                }
+            }
+        }
+    }
+}
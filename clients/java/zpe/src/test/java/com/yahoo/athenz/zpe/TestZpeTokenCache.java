@@ -0,0 +1,189 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import com.yahoo.athenz.zpe.ZpeTokenCacheListener.EvictionCause;
+import org.testng.annotations.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class TestZpeTokenCache {
+
+    // test tokens are represented by their expiry time
+
+    static class TestCacheListener implements ZpeTokenCacheListener {
+
+        final AtomicInteger hits = new AtomicInteger();
+        final AtomicInteger misses = new AtomicInteger();
+        final Map<EvictionCause, Integer> evictions = new EnumMap<>(EvictionCause.class);
+        int cleanupEntries = -1;
+        long cleanupMemoryBytes = -1;
+
+        @Override
+        public void onHit(String cacheName) {
+            hits.incrementAndGet();
+        }
+
+        @Override
+        public void onMiss(String cacheName) {
+            misses.incrementAndGet();
+        }
+
+        @Override
+        public synchronized void onEviction(String cacheName, EvictionCause cause) {
+            evictions.merge(cause, 1, Integer::sum);
+        }
+
+        @Override
+        public void onCleanup(String cacheName, int entries, long memoryBytes) {
+            cleanupEntries = entries;
+            cleanupMemoryBytes = memoryBytes;
+        }
+    }
+
+    @Test
+    public void testGetPut() {
+
+        TestCacheListener listener = new TestCacheListener();
+        ZpeTokenCache<Long> cache = new ZpeTokenCache<>("test", 10, Long::longValue, listener);
+        assertEquals(cache.getName(), "test");
+        assertEquals(cache.getMaxEntries(), 10);
+
+        assertNull(cache.get("token1"));
+        assertNull(cache.put("token1", 100L));
+        assertEquals(cache.get("token1"), Long.valueOf(100));
+        assertTrue(cache.containsKey("token1"));
+        assertFalse(cache.containsKey("token2"));
+        assertEquals(listener.hits.get(), 1);
+        assertEquals(listener.misses.get(), 1);
+
+        // memory accounting is based on the token length
+
+        assertEquals(cache.getMemoryBytes(), ZpeTokenCache.estimateSize("token1"));
+
+        // replacing a token does not change the memory usage
+
+        assertEquals(cache.put("token1", 200L), Long.valueOf(100));
+        assertEquals(cache.size(), 1);
+        assertEquals(cache.getMemoryBytes(), ZpeTokenCache.estimateSize("token1"));
+
+        // the entry set is a read-only snapshot
+
+        cache.put("token2", 300L);
+        assertEquals(cache.entrySet().size(), 2);
+        assertThrows(UnsupportedOperationException.class, () -> cache.entrySet().clear());
+
+        assertEquals(cache.remove("token1"), Long.valueOf(200));
+        assertNull(cache.remove("token1"));
+        assertNull(cache.remove(1));
+        assertEquals(cache.size(), 1);
+        assertEquals(listener.evictions.get(EvictionCause.REMOVED), Integer.valueOf(1));
+
+        cache.clear();
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getMemoryBytes(), 0);
+    }
+
+    @Test
+    public void testEvictionByExpiry() {
+
+        TestCacheListener listener = new TestCacheListener();
+        ZpeTokenCache<Long> cache = new ZpeTokenCache<>("test", 3, Long::longValue, listener);
+
+        final long now = System.currentTimeMillis() / 1000;
+        cache.put("token1", now + 300);
+        cache.put("token2", now - 10);
+        cache.put("token3", now + 100);
+
+        // the expired token must be evicted first and then the
+        // token with the earliest expiry time
+
+        cache.put("token4", now + 200);
+        assertEquals(cache.size(), 3);
+        assertFalse(cache.containsKey("token2"));
+        assertEquals(listener.evictions.get(EvictionCause.EXPIRED), Integer.valueOf(1));
+
+        cache.put("token5", now + 400);
+        assertEquals(cache.size(), 3);
+        assertFalse(cache.containsKey("token3"));
+        assertTrue(cache.containsKey("token1"));
+        assertTrue(cache.containsKey("token4"));
+        assertTrue(cache.containsKey("token5"));
+        assertEquals(listener.evictions.get(EvictionCause.SIZE), Integer.valueOf(1));
+        assertEquals(cache.getMemoryBytes(), 3 * ZpeTokenCache.estimateSize("token1"));
+    }
+
+    @Test
+    public void testInvalidMaxEntries() {
+
+        // non-positive limits are treated as a single entry cache
+
+        for (int maxEntries : new int[] { 0, -1 }) {
+            ZpeTokenCache<Long> cache = new ZpeTokenCache<>("test", maxEntries, Long::longValue, null);
+            cache.put("token1", 100L);
+            assertEquals(cache.size(), 1);
+            cache.put("token2", 200L);
+            assertEquals(cache.size(), 1);
+            assertTrue(cache.containsKey("token2"));
+        }
+    }
+
+    @Test
+    public void testRemoveExpired() {
+
+        TestCacheListener listener = new TestCacheListener();
+        ZpeTokenCache<Long> cache = new ZpeTokenCache<>("test", 100, Long::longValue, listener);
+
+        cache.put("token1", 100L);
+        cache.put("token2", 100L);
+        cache.put("token3", 200L);
+        cache.put("token4", 300L);
+
+        // a replaced token must only be removed based on its new expiry
+
+        cache.put("token5", 150L);
+        cache.put("token5", 400L);
+
+        assertEquals(cache.removeExpired(100), 0);
+        assertEquals(cache.removeExpired(201), 3);
+        assertEquals(cache.size(), 2);
+        assertTrue(cache.containsKey("token4"));
+        assertTrue(cache.containsKey("token5"));
+        assertEquals(listener.evictions.get(EvictionCause.EXPIRED), Integer.valueOf(3));
+        assertEquals(listener.cleanupEntries, 2);
+        assertEquals(listener.cleanupMemoryBytes, 2 * ZpeTokenCache.estimateSize("token1"));
+
+        assertEquals(cache.removeExpired(1000), 2);
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getMemoryBytes(), 0);
+    }
+
+    @Test
+    public void testDefaultListener() {
+
+        ZpeTokenCache<Long> cache = new ZpeTokenCache<>("test", 1, Long::longValue, null);
+        assertNull(cache.get("token1"));
+        cache.put("token1", 100L);
+        cache.put("token2", 200L);
+        assertEquals(cache.get("token2"), Long.valueOf(200));
+        assertEquals(cache.removeExpired(300), 1);
+        assertEquals(cache.size(), 0);
+    }
+}
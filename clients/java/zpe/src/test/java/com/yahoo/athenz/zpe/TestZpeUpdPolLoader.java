@@ -46,16 +46,18 @@ import java.util.*;
 
 public class TestZpeUpdPolLoader {
 
-    static String TEST_POL_DIR  = "./src/test/resources/upd_pol_dir/";
+    static String TEST_POL_DIR  = "./target/upd_pol_dir/";
     static String TEST_POL_FILE = "angler.pol";
     static String TEST_ORIG_POL_FILE = "./src/test/resources/angler.pol";
-    static String TEST_SIGNED_POL_GOOD_FILE = "./src/test/resources/pol_dir/angler.pol";
-    static String TEST_JWS_POL_GOOD_FILE = "./src/test/resources/pol_dir/angler.jws";
+    static String TEST_SIGNED_POL_GOOD_FILE = "./target/pol_dir/angler.pol";
+    static String TEST_JWS_POL_GOOD_FILE = "./target/pol_dir/angler.jws";
 
     private static final byte[] PERIOD = { 46 };
 
     @BeforeClass
-    public void init() {
+    public void init() throws IOException {
+        Files.createDirectories(Paths.get("./target/pol_dir"));
+        Files.createDirectories(Paths.get(TEST_POL_DIR));
         AuthZpeClient.init();
         try {
             Thread.sleep(5000);
@@ -84,7 +86,7 @@ public class TestZpeUpdPolLoader {
                 .setPayload(new String(encodedPolicyData))
                 .setProtectedHeader(new String(encodedHeader))
                 .setSignature(encoder.encodeToString(signatureBytes));
-        File file = new File("./src/test/resources/pol_dir/angler.jws.gen");
+        File file = new File("./target/pol_dir/angler.jws.gen");
         file.createNewFile();
         Files.write(file.toPath(), JSON.bytes(jwsPolicyData));
         File renamedFile = new File(fileName);
@@ -110,7 +112,7 @@ public class TestZpeUpdPolLoader {
         signedPolicyData.setZmsSignature(signature).setZmsKeyId(keyVersion);
         signature = Crypto.sign(SignUtils.asCanonicalString(signedPolicyData), ztsPrivateKeyK0);
         domainSignedPolicyData.setSignature(signature).setKeyId(keyVersion);
-        File file = new File("./src/test/resources/pol_dir/angler.gen");
+        File file = new File("./target/pol_dir/angler.gen");
         file.createNewFile();
         Files.write(file.toPath(), JSON.bytes(domainSignedPolicyData));
         File renamedFile = new File(TEST_SIGNED_POL_GOOD_FILE);
@@ -141,7 +143,7 @@ public class TestZpeUpdPolLoader {
         signedPolicyData.setZmsSignature(signature).setZmsKeyId(zmsKeyVersion);
         signature = Crypto.sign(SignUtils.asCanonicalString(signedPolicyData), ztsPrivateKeyK0);
         domainSignedPolicyData.setSignature(signature).setKeyId(ztsKeyVersion);
-        File file = new File("./src/test/resources/pol_dir/angler.gen");
+        File file = new File("./target/pol_dir/angler.gen");
         file.createNewFile();
         Files.write(file.toPath(), JSON.bytes(domainSignedPolicyData));
         File renamedFile = new File(TEST_SIGNED_POL_GOOD_FILE);
@@ -186,7 +188,7 @@ public class TestZpeUpdPolLoader {
                 .setPayload(new String(encodedPolicyData))
                 .setProtectedHeader(new String(encodedHeader))
                 .setSignature(new String(signatureBytes));
-        File file = new File("./src/test/resources/pol_dir/angler.jws.gen");
+        File file = new File("./target/pol_dir/angler.jws.gen");
         file.createNewFile();
         Files.write(file.toPath(), JSON.bytes(jwsPolicyData));
         File renamedFile = new File(TEST_JWS_POL_GOOD_FILE);
@@ -208,13 +210,23 @@ public class TestZpeUpdPolLoader {
                 .setPayload(new String(encodedPolicyData))
                 .setProtectedHeader(new String(encodedHeader))
                 .setSignature("invalid-signature");
-        File file = new File("./src/test/resources/pol_dir/angler.jws.gen");
+        File file = new File("./target/pol_dir/angler.jws.gen");
         file.createNewFile();
         Files.write(file.toPath(), JSON.bytes(jwsPolicyData));
         File renamedFile = new File(TEST_JWS_POL_GOOD_FILE);
         file.renameTo(renamedFile);
     }
 
+    @Test
+    public void testGetTokenCacheListener() {
+        assertNull(ZpeUpdPolLoader.getTokenCacheListener(null));
+        assertNull(ZpeUpdPolLoader.getTokenCacheListener(""));
+        assertNull(ZpeUpdPolLoader.getTokenCacheListener("invalid.class"));
+        assertNull(ZpeUpdPolLoader.getTokenCacheListener(String.class.getName()));
+        assertTrue(ZpeUpdPolLoader.getTokenCacheListener(TestZpeTokenCache.TestCacheListener.class.getName())
+                instanceof TestZpeTokenCache.TestCacheListener);
+    }
+
     @Test
     public void testGetMatchObject() {
         
@@ -0,0 +1,228 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import org.apache.commons.io.FileUtils;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class TestZpeUpdWatcher {
+
+    private boolean waitForFileStatus(ZpeUpdPolLoader loader, final String fileName, boolean present)
+            throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (loader.getFileStatusMap().containsKey(fileName) == present) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+
+    @Test
+    public void testWatchPolicyDirectory() throws Exception {
+
+        Path dirPath = Files.createTempDirectory("zpe-watch");
+        boolean savedWatchEnabled = ZpeUpdPolLoader.watchEnabled;
+        ZpeUpdPolLoader.watchEnabled = true;
+
+        ZpeUpdPolLoader loader = new ZpeUpdPolLoader(dirPath.toString());
+        try {
+            loader.start();
+            assertNotNull(loader.getUpdWatcher());
+
+            // new policy files must be processed right away without
+            // waiting for the full scan of the directory. the file is
+            // not a valid policy file, but it's still recorded
+
+            Files.write(dirPath.resolve("coretech.pol"), "invalid".getBytes());
+            Files.write(dirPath.resolve("coretech.txt"), "invalid".getBytes());
+            assertTrue(waitForFileStatus(loader, "coretech.pol", true));
+            assertFalse(loader.getFileStatusMap().get("coretech.pol").validPolFile);
+            assertFalse(loader.getFileStatusMap().containsKey("coretech.txt"));
+
+            Files.delete(dirPath.resolve("coretech.pol"));
+            assertTrue(waitForFileStatus(loader, "coretech.pol", false));
+        } finally {
+            loader.close();
+            ZpeUpdPolLoader.watchEnabled = savedWatchEnabled;
+            FileUtils.deleteDirectory(dirPath.toFile());
+        }
+    }
+
+    @Test
+    public void testWatchInvalidDirectory() throws Exception {
+
+        boolean savedWatchEnabled = ZpeUpdPolLoader.watchEnabled;
+        ZpeUpdPolLoader.watchEnabled = true;
+
+        // we fall back to the periodic scan if we can't watch the directory
+
+        ZpeUpdPolLoader loader = new ZpeUpdPolLoader("./noexist");
+        try {
+            loader.start();
+            assertNull(loader.getUpdWatcher());
+        } finally {
+            loader.close();
+            ZpeUpdPolLoader.watchEnabled = savedWatchEnabled;
+        }
+    }
+
+    @Test
+    public void testReloadFiles() throws Exception {
+
+        Path dirPath = Files.createTempDirectory("zpe-watch");
+        ZpeUpdPolLoader loader = Mockito.mock(ZpeUpdPolLoader.class);
+        Mockito.when(loader.getDirName()).thenReturn(dirPath.toString());
+        ZpeUpdMonitor monitor = Mockito.mock(ZpeUpdMonitor.class);
+        File[] allFiles = new File[0];
+        Mockito.when(monitor.loadFileStatus()).thenReturn(allFiles);
+
+        ZpeUpdWatcher watcher = new ZpeUpdWatcher(loader, monitor, 10);
+        try {
+            // no changes - nothing to load
+
+            watcher.reloadFiles(Collections.emptySet(), false);
+            Mockito.verify(loader, Mockito.times(0)).loadDb(Mockito.any());
+
+            // only the changed files are loaded
+
+            watcher.reloadFiles(new LinkedHashSet<>(Arrays.asList("coretech.pol", "sports.pol")), false);
+            ArgumentCaptor<File[]> captor = ArgumentCaptor.forClass(File[].class);
+            Mockito.verify(loader, Mockito.times(1)).loadDb(captor.capture());
+            assertEquals(captor.getValue().length, 2);
+            assertEquals(captor.getValue()[0], dirPath.resolve("coretech.pol").toFile());
+            assertEquals(captor.getValue()[1], dirPath.resolve("sports.pol").toFile());
+
+            // full scan after an overflow
+
+            watcher.reloadFiles(Collections.singleton("coretech.pol"), true);
+            Mockito.verify(loader, Mockito.times(1)).loadDb(allFiles);
+        } finally {
+            watcher.close();
+            watcher.close();
+            FileUtils.deleteDirectory(dirPath.toFile());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProcessEvents() throws Exception {
+
+        Path dirPath = Files.createTempDirectory("zpe-watch");
+        ZpeUpdPolLoader loader = Mockito.mock(ZpeUpdPolLoader.class);
+        Mockito.when(loader.getDirName()).thenReturn(dirPath.toString());
+
+        ZpeUpdMonitor monitor = Mockito.mock(ZpeUpdMonitor.class);
+        ZpeUpdWatcher watcher = new ZpeUpdWatcher(loader, monitor, 10);
+        try {
+            WatchEvent<Path> polEvent = Mockito.mock(WatchEvent.class);
+            Mockito.when(polEvent.kind()).thenReturn(StandardWatchEventKinds.ENTRY_MODIFY);
+            Mockito.when(polEvent.context()).thenReturn(Paths.get("coretech.pol"));
+            WatchEvent<Path> txtEvent = Mockito.mock(WatchEvent.class);
+            Mockito.when(txtEvent.kind()).thenReturn(StandardWatchEventKinds.ENTRY_CREATE);
+            Mockito.when(txtEvent.context()).thenReturn(Paths.get("coretech.txt"));
+            WatchEvent<Object> overflowEvent = Mockito.mock(WatchEvent.class);
+            Mockito.when(overflowEvent.kind()).thenReturn(StandardWatchEventKinds.OVERFLOW);
+
+            WatchKey watchKey = Mockito.mock(WatchKey.class);
+            Mockito.when(watchKey.pollEvents()).thenReturn(Arrays.asList(polEvent, txtEvent));
+            Mockito.when(watchKey.reset()).thenReturn(true);
+
+            Set<String> changedFiles = new HashSet<>();
+            assertFalse(watcher.processEvents(watchKey, changedFiles));
+            assertEquals(changedFiles, Collections.singleton("coretech.pol"));
+            Mockito.verify(monitor, Mockito.never()).setFullScanInterval(Mockito.anyLong());
+
+            Mockito.when(watchKey.pollEvents()).thenReturn(Collections.singletonList(overflowEvent));
+            Mockito.when(watchKey.reset()).thenReturn(false);
+            assertTrue(watcher.processEvents(watchKey, changedFiles));
+
+            // the watcher is stopped since the key is no longer valid
+
+            watcher.run();
+        } finally {
+            watcher.close();
+            FileUtils.deleteDirectory(dirPath.toFile());
+        }
+    }
+
+    @Test
+    public void testInvalidWatchKey() throws Exception {
+
+        Path dirPath = Files.createTempDirectory("zpe-watch");
+        ZpeUpdPolLoader loader = Mockito.mock(ZpeUpdPolLoader.class);
+        Mockito.when(loader.getDirName()).thenReturn(dirPath.toString());
+        ZpeUpdMonitor monitor = new ZpeUpdMonitor(loader);
+        monitor.setFullScanInterval(3600000);
+
+        ZpeUpdWatcher watcher = new ZpeUpdWatcher(loader, monitor, 10);
+        try {
+            // run the monitor once so its first full scan is done
+
+            monitor.run();
+            monitor.run();
+            Mockito.verify(loader, Mockito.times(1)).loadDb(Mockito.any());
+
+            WatchKey watchKey = Mockito.mock(WatchKey.class);
+            Mockito.when(watchKey.pollEvents()).thenReturn(Collections.emptyList());
+            Mockito.when(watchKey.reset()).thenReturn(false);
+            assertFalse(watcher.processEvents(watchKey, new HashSet<>()));
+
+            // with the watcher stopped the monitor must scan
+            // the directory on every run
+
+            monitor.run();
+            Mockito.verify(loader, Mockito.times(2)).loadDb(Mockito.any());
+            monitor.run();
+            Mockito.verify(loader, Mockito.times(3)).loadDb(Mockito.any());
+
+            // the watcher thread exits right away
+
+            watcher.run();
+        } finally {
+            watcher.close();
+            FileUtils.deleteDirectory(dirPath.toFile());
+        }
+    }
+
+    @Test
+    public void testMonitorFullScanInterval() {
+
+        ZpeUpdPolLoader loader = Mockito.mock(ZpeUpdPolLoader.class);
+        Mockito.when(loader.getDirName()).thenReturn("./noexist");
+        ZpeUpdMonitor monitor = new ZpeUpdMonitor(loader);
+        monitor.setFullScanInterval(3600000);
+
+        // the directory is always scanned on the first run and
+        // then only once the full scan interval has passed
+
+        monitor.run();
+        monitor.run();
+        Mockito.verify(loader, Mockito.times(1)).loadDb(Mockito.any());
+
+        monitor.setFullScanInterval(0);
+        monitor.run();
+        Mockito.verify(loader, Mockito.times(2)).loadDb(Mockito.any());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zpe;
+
+import com.yahoo.athenz.zpe.AuthZpeClient.AccessCheckStatus;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the authorization check with and without the decision
+ * cache. The hit path returns the cached decision, the miss path always
+ * has a stale generation number so it evaluates the policy index and
+ * records the decision, and the uncached path only evaluates the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ZpeDecisionCacheBenchmark {
+
+    @Param({"10", "100"})
+    int roleCount;
+
+    @Param({"5", "50"})
+    int assertionCount;
+
+    ZpePolicyIndex policyIndex;
+    ZpePolicyIndex[] reloadedIndexes;
+    ZpeDecisionCache hitCache;
+    ZpeDecisionCache missCache;
+    List<String> roles;
+    int reloadCounter;
+
+    @Setup
+    public void setup() {
+
+        try (ZpeUpdPolLoader loader = new ZpeUpdPolLoader(null)) {
+            policyIndex = createPolicyIndex(loader);
+            reloadedIndexes = new ZpePolicyIndex[] { createPolicyIndex(loader), createPolicyIndex(loader) };
+        }
+
+        // the token includes a few roles and the matching assertion
+        // is the last one defined for the last role
+
+        roles = new ArrayList<>();
+        roles.add("reader" + (roleCount - 1));
+        roles.add("writer" + (roleCount - 1));
+        roles.add("admin");
+
+        hitCache = new ZpeDecisionCache(1000);
+        missCache = new ZpeDecisionCache(1000);
+        AuthZpeClient.allowActionByDecisionCache(hitCache, policyIndex, "read", "coretech",
+                resource(), roles, new StringBuilder(), "benchmark");
+    }
+
+    ZpePolicyIndex createPolicyIndex(ZpeUpdPolLoader loader) {
+        ZpePolicyIndex.Builder builder = new ZpePolicyIndex.Builder();
+        for (int i = 0; i < roleCount; i++) {
+            for (final String role : new String[] { "reader" + i, "writer" + i }) {
+                for (int j = 0; j < assertionCount; j++) {
+                    final String resource = "data" + j + ".*";
+                    builder.addAssertion("policy1", role, loader.getMatchObject(role), "read",
+                            loader.getMatchObject("read"), resource, loader.getMatchObject(resource), false);
+                }
+                builder.addAssertion("policy1", role, loader.getMatchObject(role), "*",
+                        loader.getMatchObject("*"), "secret", loader.getMatchObject("secret"), true);
+            }
+        }
+        return builder.build();
+    }
+
+    String resource() {
+        return "data" + (assertionCount - 1) + ".file";
+    }
+
+    @Benchmark
+    public AccessCheckStatus decisionCacheHit() {
+        return AuthZpeClient.allowActionByDecisionCache(hitCache, policyIndex, "read", "coretech",
+                resource(), roles, new StringBuilder(), "benchmark");
+    }
+
+    @Benchmark
+    public AccessCheckStatus decisionCacheMiss() {
+
+        // alternate between two indexes so the cached decision is always
+        // from the previous generation and must be recomputed
+
+        ZpePolicyIndex index = reloadedIndexes[reloadCounter++ & 1];
+        return AuthZpeClient.allowActionByDecisionCache(missCache, index, "read", "coretech",
+                resource(), roles, new StringBuilder(), "benchmark");
+    }
+
+    @Benchmark
+    public AccessCheckStatus policyIndexNoCache() {
+        return AuthZpeClient.allowActionByPolicyIndex(policyIndex, "read", "coretech",
+                resource(), roles, new StringBuilder(), "benchmark");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ZpeDecisionCacheBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.yahoo.athenz.auth.impl;
 
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -36,11 +37,13 @@ public class CertificateAuthority implements Authority {
 
     private static final String ATHENZ_PROP_EXCLUDED_PRINCIPALS = "athenz.auth.certificate.excluded_principals";
     private static final String ATHENZ_PROP_EXCLUDE_ROLE_CERTIFICATES = "athenz.auth.certificate.exclude_role_certificates";
+    static final String ATHENZ_PROP_CREDENTIAL_CACHE_SIZE = "athenz.auth.certificate.credential_cache_size";
 
     private static final String ATHENZ_AUTH_CHALLENGE = "AthenzX509Certificate realm=\"athenz\"";
 
     private CertificateIdentityParser certificateIdentityParser = null;
     private GlobStringsMatcher globStringsMatcher = new GlobStringsMatcher(ATHENZ_PROP_RESTRICTED_OU);
+    CredentialCache<SimplePrincipal> credentialCache = null;
 
     @Override
     public void initialize() {
@@ -54,6 +57,15 @@ public class CertificateAuthority implements Authority {
         boolean excludeRoleCertificates = Boolean.parseBoolean(System.getProperty(ATHENZ_PROP_EXCLUDE_ROLE_CERTIFICATES, "false"));
 
         this.certificateIdentityParser = new CertificateIdentityParser(excludedPrincipalSet, excludeRoleCertificates);
+
+        // the verified certificate cache is disabled by default. if enabled,
+        // the principal for a certificate is reused until the certificate
+        // expires instead of parsing the certificate on every request
+
+        int credentialCacheSize = Integer.parseInt(System.getProperty(ATHENZ_PROP_CREDENTIAL_CACHE_SIZE, "0"));
+        if (credentialCacheSize > 0) {
+            credentialCache = new CredentialCache<>(credentialCacheSize);
+        }
     }
 
     @Override
@@ -105,6 +117,16 @@ public class CertificateAuthority implements Authority {
             }
         }
 
+        // check if we have already processed this certificate
+
+        final String credentialKey = getCredentialKey(certs);
+        if (credentialKey != null) {
+            SimplePrincipal principal = credentialCache.get(credentialKey, System.currentTimeMillis() / 1000);
+            if (principal != null) {
+                return principal.copy();
+            }
+        }
+
         // parse certificate
         CertificateIdentity certId;
         try {
@@ -125,7 +147,30 @@ public class CertificateAuthority implements Authority {
         }
         principal.setMtlsRestricted(Crypto.isRestrictedCertificate(x509Cert, globStringsMatcher));
 
+        if (credentialKey != null) {
+            credentialCache.put(credentialKey, principal.copy(), x509Cert.getNotAfter().getTime() / 1000);
+        }
         return principal;
     }
 
+    /**
+     * Return the cache key for the given certificate chain, which is the
+     * fingerprint of the client certificate, or null if the cache is
+     * disabled or the certificate is not valid.
+     * @param certs certificate chain
+     * @return cache key or null
+     */
+    String getCredentialKey(X509Certificate[] certs) {
+
+        if (credentialCache == null || certs == null || certs.length == 0 || certs[0] == null) {
+            return null;
+        }
+
+        try {
+            return CredentialCache.digest(certs[0].getEncoded());
+        } catch (CertificateEncodingException ex) {
+            LOG.error("CertificateAuthority: unable to encode certificate: {}", ex.getMessage());
+            return null;
+        }
+    }
 }
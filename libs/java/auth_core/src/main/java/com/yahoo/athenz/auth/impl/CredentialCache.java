@@ -0,0 +1,99 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.auth.impl;
+
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.yahoo.athenz.auth.util.Crypto;
+
+/**
+ * Size bounded cache of successfully verified credentials keyed by the
+ * digest of the credential. Each entry is only returned until the expiry
+ * time of the credential itself. When the cache is full, the expired
+ * entries are removed first and if that's not enough we start over.
+ * @param <T> type of the cached authentication result
+ */
+class CredentialCache<T> {
+
+    private final int maxSize;
+    private final ConcurrentHashMap<String, CachedCredential<T>> credentials = new ConcurrentHashMap<>();
+
+    CredentialCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    static String digest(final byte[] credential) {
+        return Base64.getEncoder().encodeToString(Crypto.sha256(credential));
+    }
+
+    static String digest(final String credential) {
+        return Base64.getEncoder().encodeToString(Crypto.sha256(credential));
+    }
+
+    /**
+     * Return the cached result for the given credential digest
+     * @param key credential digest
+     * @param nowSecs current time in seconds
+     * @return cached result or null if not present or already expired
+     */
+    T get(final String key, long nowSecs) {
+        CachedCredential<T> credential = credentials.get(key);
+        if (credential == null) {
+            return null;
+        }
+        if (credential.expiryTime < nowSecs) {
+            credentials.remove(key, credential);
+            return null;
+        }
+        return credential.value;
+    }
+
+    void put(final String key, T value, long expiryTime) {
+
+        if (credentials.size() >= maxSize) {
+            final long nowSecs = System.currentTimeMillis() / 1000;
+            credentials.values().removeIf(credential -> credential.expiryTime < nowSecs);
+            if (credentials.size() >= maxSize) {
+                credentials.clear();
+            }
+        }
+        credentials.put(key, new CachedCredential<>(value, expiryTime));
+    }
+
+    void remove(final String key) {
+        credentials.remove(key);
+    }
+
+    int size() {
+        return credentials.size();
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    static final class CachedCredential<T> {
+
+        final T value;
+        final long expiryTime;
+
+        CachedCredential(T value, long expiryTime) {
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
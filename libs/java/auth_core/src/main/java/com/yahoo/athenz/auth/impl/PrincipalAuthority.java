@@ -15,7 +15,9 @@
  */
 package com.yahoo.athenz.auth.impl;
 
+import java.security.PublicKey;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +28,7 @@ import com.yahoo.athenz.auth.KeyStore;
 import com.yahoo.athenz.auth.Principal;
 import com.yahoo.athenz.auth.token.PrincipalToken;
 import com.yahoo.athenz.auth.token.Token;
+import com.yahoo.athenz.auth.util.Crypto;
 
 public class PrincipalAuthority implements Authority, AuthorityKeyStore {
     
@@ -37,6 +40,8 @@ public class PrincipalAuthority implements Authority, AuthorityKeyStore {
     static final String ATHENZ_PROP_TOKEN_OFFSET = "athenz.auth.principal.token_allowed_offset";
     private static final String ATHENZ_PROP_IP_CHECK_MODE = "athenz.auth.principal.remote_ip_check_mode";
     private static final String ATHENZ_PROP_USER_DOMAIN = "athenz.user_domain";
+    static final String ATHENZ_PROP_PUBLIC_KEY_CACHE_SIZE = "athenz.auth.principal.public_key_cache_size";
+    static final String ATHENZ_PROP_CREDENTIAL_CACHE_SIZE = "athenz.auth.principal.credential_cache_size";
     
     public static final String HTTP_HEADER = "Athenz-Principal-Auth";
     public static final String ATHENZ_AUTH_CHALLENGE = "AthenzPrincipalToken realm=\"athenz\"";
@@ -55,14 +60,30 @@ public class PrincipalAuthority implements Authority, AuthorityKeyStore {
     IpCheckMode ipCheckMode;
     final String userDomain;
     private String headerName;
-    
+    final int publicKeyCacheSize;
+    final ConcurrentHashMap<String, CachedPublicKey> publicKeyCache = new ConcurrentHashMap<>();
+    final CredentialCache<VerifiedToken> credentialCache;
+
     public PrincipalAuthority() {
         allowedOffset = Integer.parseInt(System.getProperty(ATHENZ_PROP_TOKEN_OFFSET, "300"));
         ipCheckMode = IpCheckMode.valueOf(System.getProperty(ATHENZ_PROP_IP_CHECK_MODE,
                 IpCheckMode.OPS_WRITE.toString()));
         userDomain = System.getProperty(ATHENZ_PROP_USER_DOMAIN, USER_DOMAIN);
         headerName = System.getProperty(ATHENZ_PROP_PRINCIPAL_HEADER, HTTP_HEADER);
-        
+
+        // parsed public keys are cached so we don't need to decode the
+        // same pem keys on every request. setting the size to 0 disables
+        // the cache
+
+        publicKeyCacheSize = Integer.parseInt(System.getProperty(ATHENZ_PROP_PUBLIC_KEY_CACHE_SIZE, "10000"));
+
+        // the verified credential cache is disabled by default. if enabled,
+        // tokens that were successfully validated are not validated again
+        // until they expire
+
+        int credentialCacheSize = Integer.parseInt(System.getProperty(ATHENZ_PROP_CREDENTIAL_CACHE_SIZE, "0"));
+        credentialCache = credentialCacheSize > 0 ? new CredentialCache<>(credentialCacheSize) : null;
+
         // case of invalid value, we'll default back to 5 minutes
         
         if (allowedOffset < 0) {
@@ -103,6 +124,21 @@ public class PrincipalAuthority implements Authority, AuthorityKeyStore {
             LOG.debug("Authenticating PrincipalToken: {}", signedToken);
         }
 
+        /* if we have already verified this token then we only need to
+         * carry out the checks that depend on the request itself */
+
+        String credentialKey = null;
+        if (credentialCache != null) {
+            credentialKey = CredentialCache.digest(signedToken);
+            VerifiedToken verifiedToken = credentialCache.get(credentialKey, System.currentTimeMillis() / 1000);
+            if (verifiedToken != null) {
+                if (isVerifiedTokenKeyValid(verifiedToken)) {
+                    return authenticateVerifiedToken(verifiedToken, remoteAddr, httpMethod, errMsg);
+                }
+                credentialCache.remove(credentialKey);
+            }
+        }
+
         PrincipalToken serviceToken;
         try {
             serviceToken = new PrincipalToken(signedToken);
@@ -134,13 +170,19 @@ public class PrincipalAuthority implements Authority, AuthorityKeyStore {
         
         /* get the public key for this token to validate signature */
         
-        String publicKey = getPublicKey(tokenDomain, tokenName, keyService,
-                serviceToken.getKeyId(), userToken);
+        PublicKeyOwner keyOwner = getPublicKeyOwner(tokenDomain, tokenName, keyService, userToken);
+        final String keyId = serviceToken.getKeyId();
+        String publicKey = keyStore.getPublicKey(keyOwner.domain, keyOwner.service, keyId);
+        PublicKey pubKey = getParsedPublicKey(keyOwner, keyId, publicKey);
 
-        /* the validate method logs all error messages */
+        /* the validate method logs all error messages. if we were not able
+         * to parse the public key then we'll let the token report the error */
         
         boolean writeOp = isWriteOperation(httpMethod);
-        if (!serviceToken.validate(publicKey, allowedOffset, !writeOp, errDetail)) {
+        boolean validToken = (pubKey != null) ?
+                serviceToken.validate(pubKey, allowedOffset, !writeOp, errDetail) :
+                serviceToken.validate(publicKey, allowedOffset, !writeOp, errDetail);
+        if (!validToken) {
             errMsg.append("PrincipalAuthority:authenticate: service token validation failure: ");
             errMsg.append(errDetail).append(" : credential=").
                    append(Token.getUnsignedToken(signedToken));
@@ -166,10 +208,7 @@ public class PrincipalAuthority implements Authority, AuthorityKeyStore {
          * matches before allowing the operation go through */
         
         if (userToken && !remoteIpCheck(remoteAddr, writeOp, serviceToken, authorizedServiceName)) {
-            errMsg.append("PrincipalAuthority:authenticate: IP Mismatch - token (").
-                append(serviceToken.getIP()).append(") request (").
-                append(remoteAddr).append(")");
-            LOG.error(errMsg.toString());
+            reportIpMismatch(serviceToken, remoteAddr, errMsg);
             return null;
         }
         
@@ -184,9 +223,70 @@ public class PrincipalAuthority implements Authority, AuthorityKeyStore {
         princ.setKeyService(keyService);
         princ.setIP(serviceToken.getIP());
         princ.setKeyId(serviceToken.getKeyId());
+
+        /* tokens without an expiry are only accepted for read operations
+         * so we never cache those */
+
+        if (credentialKey != null && serviceToken.getExpiryTime() > 0) {
+            VerifiedToken verifiedToken = new VerifiedToken(serviceToken, princ.copy(), userToken,
+                    keyOwner, keyId, publicKey);
+            if (authorizedServiceName != null) {
+                int idx = authorizedServiceName.lastIndexOf('.');
+                PublicKeyOwner authzKeyOwner = new PublicKeyOwner(authorizedServiceName.substring(0, idx),
+                        authorizedServiceName.substring(idx + 1));
+                final String authzKeyId = serviceToken.getAuthorizedServiceKeyId();
+                verifiedToken.setAuthorizedServiceKey(authzKeyOwner, authzKeyId,
+                        keyStore.getPublicKey(authzKeyOwner.domain, authzKeyOwner.service, authzKeyId));
+            }
+            credentialCache.put(credentialKey, verifiedToken, serviceToken.getExpiryTime());
+        }
         return princ;
     }
 
+    /**
+     * Verify that the keys used to validate the cached token are still
+     * returned by the key store so that any revoked or rotated keys are
+     * immediately honored.
+     * @param verifiedToken cached verified token
+     * @return true if all keys are still valid
+     */
+    boolean isVerifiedTokenKeyValid(VerifiedToken verifiedToken) {
+
+        if (!verifiedToken.pemKey.equals(keyStore.getPublicKey(verifiedToken.keyOwner.domain,
+                verifiedToken.keyOwner.service, verifiedToken.keyId))) {
+            return false;
+        }
+        if (verifiedToken.authzKeyOwner != null) {
+            return verifiedToken.authzPemKey != null &&
+                    verifiedToken.authzPemKey.equals(keyStore.getPublicKey(verifiedToken.authzKeyOwner.domain,
+                            verifiedToken.authzKeyOwner.service, verifiedToken.authzKeyId));
+        }
+        return true;
+    }
+
+    Principal authenticateVerifiedToken(VerifiedToken verifiedToken, String remoteAddr,
+            String httpMethod, StringBuilder errMsg) {
+
+        /* the remote ip check depends on the operation and the
+         * client address so it must be carried out for every request */
+
+        PrincipalToken serviceToken = verifiedToken.serviceToken;
+        boolean writeOp = isWriteOperation(httpMethod);
+        if (verifiedToken.userToken && !remoteIpCheck(remoteAddr, writeOp, serviceToken,
+                verifiedToken.principal.getAuthorizedService())) {
+            reportIpMismatch(serviceToken, remoteAddr, errMsg == null ? new StringBuilder(512) : errMsg);
+            return null;
+        }
+        return verifiedToken.principal.copy();
+    }
+
+    void reportIpMismatch(PrincipalToken serviceToken, String remoteAddr, StringBuilder errMsg) {
+        errMsg.append("PrincipalAuthority:authenticate: IP Mismatch - token (").
+            append(serviceToken.getIP()).append(") request (").
+            append(remoteAddr).append(")");
+        LOG.error(errMsg.toString());
+    }
+
     boolean remoteIpCheck(String remoteAddr, boolean writeOp, PrincipalToken serviceToken,
             String authorizedServiceName) {
         
@@ -218,6 +318,13 @@ public class PrincipalAuthority implements Authority, AuthorityKeyStore {
     
     String getPublicKey(String tokenDomain, String tokenName, String keyService,
             String keyId, boolean userToken) {
+
+        PublicKeyOwner keyOwner = getPublicKeyOwner(tokenDomain, tokenName, keyService, userToken);
+        return keyStore.getPublicKey(keyOwner.domain, keyOwner.service, keyId);
+    }
+
+    PublicKeyOwner getPublicKeyOwner(String tokenDomain, String tokenName, String keyService,
+            boolean userToken) {
         
         /* by default we're going to look for the public key for the domain
          * and service defined in the token */
@@ -245,7 +352,54 @@ public class PrincipalAuthority implements Authority, AuthorityKeyStore {
             publicKeyService = ZMS_SERVICE;
         }
 
-        return keyStore.getPublicKey(publicKeyDomain, publicKeyService, keyId);
+        return new PublicKeyOwner(publicKeyDomain, publicKeyService);
+    }
+
+    /**
+     * Return the parsed public key for the given pem encoded key returned
+     * by the key store. The parsed keys are cached based on the key owner
+     * and key id, and the cached key is only used if the key store still
+     * returns the same pem encoded key so any key updates are picked up
+     * right away.
+     * @param keyOwner domain and service that own the key
+     * @param keyId the public key identifier
+     * @param pemKey pem encoded public key returned by the key store
+     * @return parsed public key or null if the key is not valid
+     */
+    PublicKey getParsedPublicKey(PublicKeyOwner keyOwner, final String keyId, final String pemKey) {
+
+        if (pemKey == null) {
+            return null;
+        }
+
+        final String cacheKey = keyOwner.domain + "." + keyOwner.service + ":" + keyId;
+        if (publicKeyCacheSize > 0) {
+            CachedPublicKey cachedKey = publicKeyCache.get(cacheKey);
+            if (cachedKey != null && cachedKey.pemKey.equals(pemKey)) {
+                return cachedKey.publicKey;
+            }
+        }
+
+        PublicKey publicKey;
+        try {
+            publicKey = Crypto.loadPublicKey(pemKey);
+        } catch (Exception ex) {
+            LOG.error("getParsedPublicKey: unable to load public key for {}: {}", cacheKey, ex.getMessage());
+            publicKeyCache.remove(cacheKey);
+            return null;
+        }
+
+        if (publicKeyCacheSize > 0) {
+
+            // the number of registered keys is small so instead of tracking
+            // access order we just start over if we ever reach our limit
+
+            if (publicKeyCache.size() >= publicKeyCacheSize) {
+                publicKeyCache.clear();
+            }
+            publicKeyCache.put(cacheKey, new CachedPublicKey(pemKey, publicKey));
+        }
+        return publicKey;
     }
     
     boolean isWriteOperation(String httpMethod) {
@@ -312,12 +466,18 @@ public class PrincipalAuthority implements Authority, AuthorityKeyStore {
             return null;
         }
         
-        String publicKey = keyStore.getPublicKey(authorizedServiceName.substring(0, idx),
-                authorizedServiceName.substring(idx + 1), userToken.getAuthorizedServiceKeyId());
+        PublicKeyOwner keyOwner = new PublicKeyOwner(authorizedServiceName.substring(0, idx),
+                authorizedServiceName.substring(idx + 1));
+        final String keyId = userToken.getAuthorizedServiceKeyId();
+        String publicKey = keyStore.getPublicKey(keyOwner.domain, keyOwner.service, keyId);
+        PublicKey pubKey = getParsedPublicKey(keyOwner, keyId, publicKey);
         
         /* the token method reports all error messages */
         StringBuilder errDetail = new StringBuilder(512);
-        if (!userToken.validateForAuthorizedService(publicKey, errDetail)) {
+        boolean validToken = (pubKey != null) ?
+                userToken.validateForAuthorizedService(pubKey, errDetail) :
+                userToken.validateForAuthorizedService(publicKey, errDetail);
+        if (!validToken) {
             errMsg.append("PrincipalAuthority:validateAuthorizeService: token validation for authorized service failed: ").
                    append(errDetail);
             return null;
@@ -330,4 +490,56 @@ public class PrincipalAuthority implements Authority, AuthorityKeyStore {
     public void setKeyStore(KeyStore keyStore) {
         this.keyStore = keyStore;
     }
+
+    static final class PublicKeyOwner {
+
+        final String domain;
+        final String service;
+
+        PublicKeyOwner(final String domain, final String service) {
+            this.domain = domain;
+            this.service = service;
+        }
+    }
+
+    static final class CachedPublicKey {
+
+        final String pemKey;
+        final PublicKey publicKey;
+
+        CachedPublicKey(final String pemKey, final PublicKey publicKey) {
+            this.pemKey = pemKey;
+            this.publicKey = publicKey;
+        }
+    }
+
+    static final class VerifiedToken {
+
+        final PrincipalToken serviceToken;
+        final SimplePrincipal principal;
+        final boolean userToken;
+        final PublicKeyOwner keyOwner;
+        final String keyId;
+        final String pemKey;
+        PublicKeyOwner authzKeyOwner;
+        String authzKeyId;
+        String authzPemKey;
+
+        VerifiedToken(PrincipalToken serviceToken, SimplePrincipal principal, boolean userToken,
+                PublicKeyOwner keyOwner, final String keyId, final String pemKey) {
+            this.serviceToken = serviceToken;
+            this.principal = principal;
+            this.userToken = userToken;
+            this.keyOwner = keyOwner;
+            this.keyId = keyId;
+            this.pemKey = pemKey;
+        }
+
+        void setAuthorizedServiceKey(PublicKeyOwner authzKeyOwner, final String authzKeyId,
+                final String authzPemKey) {
+            this.authzKeyOwner = authzKeyOwner;
+            this.authzKeyId = authzKeyId;
+            this.authzPemKey = authzPemKey;
+        }
+    }
 }
@@ -144,6 +144,30 @@ public class SimplePrincipal implements Principal {
         this.rolePrincipalName = rolePrincipalName;
     }
 
+    /**
+     * Create a copy of the principal. Authorities that cache authenticated
+     * principals must return a copy to the caller since the servers update
+     * the principal object (e.g. its state) while processing the request.
+     * @return a new principal object with the same attributes
+     */
+    SimplePrincipal copy() {
+        SimplePrincipal principal = new SimplePrincipal(domain, name, creds, issueTime, authority);
+        principal.fullName = fullName;
+        principal.unsignedCreds = unsignedCreds;
+        principal.ip = ip;
+        principal.roles = roles;
+        principal.authorizedService = authorizedService;
+        principal.originalRequestor = originalRequestor;
+        principal.keyService = keyService;
+        principal.keyId = keyId;
+        principal.x509Certificate = x509Certificate;
+        principal.applicationId = applicationId;
+        principal.mtlsRestricted = mtlsRestricted;
+        principal.rolePrincipalName = rolePrincipalName;
+        principal.state = state;
+        return principal;
+    }
+
     public void setUnsignedCreds(String unsignedCreds) {
         this.unsignedCreds = unsignedCreds;
     }
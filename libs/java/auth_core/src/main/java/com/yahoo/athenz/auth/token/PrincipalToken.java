@@ -384,6 +384,38 @@ public class PrincipalToken extends Token {
             return false;
         }
 
+        if (pubKey == null) {
+            errMsg.append("PrincipalToken:validateForAuthorizedService: token=").
+                   append(unsignedToken).append(" : No public key provided");
+            LOG.error(errMsg.toString());
+            return false;
+        }
+
+        PublicKey pub;
+        try {
+            pub = Crypto.loadPublicKey(pubKey);
+        } catch (Exception e) {
+            errMsg.append("PrincipalToken:validateForAuthorizedService: token=").
+                   append(unsignedToken).
+                   append(" : authentication failed loading public key: exc=").
+                   append(e.getMessage()).append(" : public key=").append(pubKey);
+            LOG.error(errMsg.toString());
+            return false;
+        }
+
+        return validateForAuthorizedService(pub, errMsg);
+    }
+
+    public boolean validateForAuthorizedService(PublicKey pubKey, StringBuilder errMsg) {
+        errMsg = errMsg == null ? new StringBuilder(512) : errMsg;
+        if (authorizedServiceSignature == null) {
+            errMsg.append("PrincipalToken:validateForAuthorizedService: token=").
+                   append(unsignedToken).
+                   append(" : missing data/signature component");
+            LOG.error(errMsg.toString());
+            return false;
+        }
+
         // since at this point authorizedServiceSignature is not null
         // our signed token has the ";bs=" component
 
@@ -397,16 +429,13 @@ public class PrincipalToken extends Token {
             return false;
         }
         
-        PublicKey pub;
         boolean verified = false; // fail safe
         try {
-            pub = Crypto.loadPublicKey(pubKey);
-            verified = Crypto.verify(unsignedAuthorizedServiceToken, pub, authorizedServiceSignature);
+            verified = Crypto.verify(unsignedAuthorizedServiceToken, pubKey, authorizedServiceSignature);
             ///CLOVER:OFF
             if (!verified) {
                 errMsg.append("PrincipalToken:validateForAuthorizedService: token=").
-                       append(unsignedToken).append(" : authentication failed: public key=").
-                       append(pubKey);
+                       append(unsignedToken).append(" : authentication failed");
                 LOG.error(errMsg.toString());
             } else if (LOG.isDebugEnabled()) {
                 LOG.debug("validateForAuthorizedService: Token: {} -  successfully authenticated", unsignedToken);
@@ -416,7 +445,7 @@ public class PrincipalToken extends Token {
             errMsg.append("PrincipalToken:validateForAuthorizedService: token=").
                    append(unsignedToken).
                    append(" : authentication failed verifying signature: exc=").
-                   append(e.getMessage()).append(" : public key=").append(pubKey);
+                   append(e.getMessage());
             LOG.error(errMsg.toString());
         }
 
@@ -29,6 +29,12 @@ import java.security.Key;
 import java.security.PublicKey;
 import java.util.ArrayList;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.DeserializationFeature;
@@ -40,12 +46,38 @@ import javax.net.ssl.SSLContext;
 public class JwtsSigningKeyResolver implements SigningKeyResolver {
 
     public static final String ZTS_PROP_ATHENZ_CONF = "athenz.athenz_conf";
+    public static final String ZTS_PROP_JWKS_REFRESH_INTERVAL = "athenz.auth.token.jwts.refresh_interval_secs";
+    public static final String ZTS_PROP_JWKS_MIN_REFRESH_INTERVAL = "athenz.auth.token.jwts.min_refresh_interval_secs";
+    public static final String ZTS_PROP_JWKS_UNKNOWN_KEY_TIMEOUT = "athenz.auth.token.jwts.unknown_key_timeout_secs";
     private static final String ZTS_DEFAULT_ATHENZ_CONFIG = "/conf/athenz/athenz.conf";
 
+    // we don't want tokens with random key ids to fill up our memory
+
+    static final int MAX_UNKNOWN_KEY_IDS = 10000;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(JwtsSigningKeyResolver.class);
     private static final ObjectMapper JSON_MAPPER = initJsonMapper();
 
+    // all resolvers share a single daemon thread for their periodic refresh
+
+    private static ScheduledExecutorService refreshScheduler = null;
+
     ConcurrentHashMap<String, PublicKey> publicKeys;
+    final ConcurrentHashMap<String, Long> unknownKeyIds = new ConcurrentHashMap<>();
+    final String jwksUri;
+    final SSLContext sslContext;
+    long minRefreshIntervalMillis;
+    long unknownKeyTimeoutMillis;
+    private final Object refreshLock = new Object();
+    private final AtomicLong refreshGeneration = new AtomicLong();
+    private volatile long lastRefreshTime = 0;
+    private volatile boolean lastRefreshSucceeded = false;
+    private ScheduledFuture<?> refreshTask = null;
+
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder refreshFailureCount = new LongAdder();
+    private final LongAdder unknownKeyCount = new LongAdder();
+    private final LongAdder unknownKeyCacheHitCount = new LongAdder();
 
     static ObjectMapper initJsonMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -58,11 +90,51 @@ public class JwtsSigningKeyResolver implements SigningKeyResolver {
     }
 
     public JwtsSigningKeyResolver(final String jwksUri, final SSLContext sslContext, boolean skipConfig) {
+        this.jwksUri = (jwksUri == null || jwksUri.isEmpty()) ? null : jwksUri;
+        this.sslContext = sslContext;
         publicKeys = new ConcurrentHashMap<>();
         if (!skipConfig) {
             loadPublicKeysFromConfig();
         }
-        loadPublicKeysFromServer(jwksUri, sslContext);
+        if (loadPublicKeysFromServer(jwksUri, sslContext)) {
+            lastRefreshTime = System.currentTimeMillis();
+        }
+
+        // if we have a jwks uri then we're going to refresh our keys
+        // when we get a token with an unknown key id (rate limited to
+        // the min refresh interval) and optionally periodically
+
+        minRefreshIntervalMillis = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(System.getProperty(ZTS_PROP_JWKS_MIN_REFRESH_INTERVAL, "60")));
+        unknownKeyTimeoutMillis = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(System.getProperty(ZTS_PROP_JWKS_UNKNOWN_KEY_TIMEOUT, "300")));
+
+        long refreshInterval = Long.parseLong(System.getProperty(ZTS_PROP_JWKS_REFRESH_INTERVAL, "0"));
+        if (jwksUri != null && refreshInterval > 0) {
+            refreshTask = getRefreshScheduler().scheduleAtFixedRate(this::refreshPublicKeys,
+                    refreshInterval, refreshInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    static synchronized ScheduledExecutorService getRefreshScheduler() {
+        if (refreshScheduler == null) {
+            refreshScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "jwks-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return refreshScheduler;
+    }
+
+    /**
+     * Stop the periodic refresh of the public keys
+     */
+    public void close() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
     }
 
     @Override
@@ -76,7 +148,103 @@ public class JwtsSigningKeyResolver implements SigningKeyResolver {
     }
 
     private Key resolveSigningKey(JwsHeader jwsHeader) {
-        return publicKeys.get(jwsHeader.getKeyId());
+        return getPublicKey(jwsHeader.getKeyId());
+    }
+
+    PublicKey getPublicKey(final String keyId) {
+
+        if (keyId == null) {
+            return null;
+        }
+
+        PublicKey publicKey = publicKeys.get(keyId);
+        if (publicKey != null || jwksUri == null) {
+            return publicKey;
+        }
+
+        // if we have recently failed to find this key id after a refresh
+        // then we're not going to try again until the timeout expires
+
+        unknownKeyCount.increment();
+        final long now = System.currentTimeMillis();
+        Long unknownKeyTime = unknownKeyIds.get(keyId);
+        if (unknownKeyTime != null && now - unknownKeyTime < unknownKeyTimeoutMillis) {
+            unknownKeyCacheHitCount.increment();
+            return null;
+        }
+
+        boolean refreshed = refreshPublicKeys(minRefreshIntervalMillis);
+
+        // we only remember the unknown key id if the key was not found
+        // after the keys were successfully refreshed. otherwise a new key
+        // id that we see right after a refresh or while the jwks uri is
+        // not available would be rejected until the timeout
+
+        publicKey = publicKeys.get(keyId);
+        if (publicKey == null) {
+            if (!refreshed) {
+                return null;
+            }
+            if (unknownKeyIds.size() >= MAX_UNKNOWN_KEY_IDS) {
+                unknownKeyIds.clear();
+            }
+            unknownKeyIds.put(keyId, now);
+        } else {
+            unknownKeyIds.remove(keyId);
+        }
+        return publicKey;
+    }
+
+    /**
+     * Refresh the public keys from the configured jwks uri
+     */
+    public void refreshPublicKeys() {
+        refreshPublicKeys(0);
+    }
+
+    /**
+     * Refresh the public keys from the configured jwks uri. Only a single
+     * request is made at a time. Any callers that are waiting while the
+     * keys are being fetched do not fetch them again once the lock is
+     * released. The keys are not fetched if they were last refreshed
+     * within the given interval.
+     * @param minIntervalMillis minimum interval since the last refresh
+     * @return true if the keys were successfully refreshed by this or another thread
+     */
+    boolean refreshPublicKeys(long minIntervalMillis) {
+
+        if (jwksUri == null) {
+            return false;
+        }
+
+        final long generation = refreshGeneration.get();
+        synchronized (refreshLock) {
+
+            // if another thread refreshed the keys while we were waiting
+            // for the lock then there is nothing to do
+
+            if (generation != refreshGeneration.get()) {
+                return lastRefreshSucceeded;
+            }
+            if (System.currentTimeMillis() - lastRefreshTime < minIntervalMillis) {
+                return false;
+            }
+
+            refreshCount.increment();
+            lastRefreshSucceeded = loadPublicKeysFromServer(jwksUri, sslContext);
+            if (lastRefreshSucceeded) {
+                unknownKeyIds.clear();
+            } else {
+                refreshFailureCount.increment();
+            }
+
+            // we update the refresh time even if we failed so that we
+            // don't keep calling a server that is not responding
+
+            lastRefreshTime = System.currentTimeMillis();
+            refreshGeneration.incrementAndGet();
+            return lastRefreshSucceeded;
+        }
     }
 
     public void addPublicKey(final String keyId, final PublicKey publicKey) {
@@ -87,11 +255,46 @@ public class JwtsSigningKeyResolver implements SigningKeyResolver {
         return publicKeys.size();
     }
 
-    void loadPublicKeysFromServer(final String jwksUri, final SSLContext sslContext) {
+    /**
+     * @return number of times the keys were fetched from the jwks uri
+     */
+    public long getRefreshCount() {
+        return refreshCount.sum();
+    }
+
+    /**
+     * @return number of failed fetches from the jwks uri
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.sum();
+    }
+
+    /**
+     * @return number of lookups for unknown key ids
+     */
+    public long getUnknownKeyCount() {
+        return unknownKeyCount.sum();
+    }
+
+    /**
+     * @return number of unknown key id lookups rejected without a refresh
+     */
+    public long getUnknownKeyCacheHitCount() {
+        return unknownKeyCacheHitCount.sum();
+    }
+
+    /**
+     * @return time in millis when the keys were last fetched from the jwks uri
+     */
+    public long getLastRefreshTime() {
+        return lastRefreshTime;
+    }
+
+    boolean loadPublicKeysFromServer(final String jwksUri, final SSLContext sslContext) {
 
         final String jwksData = getHttpData(jwksUri, sslContext);
         if (jwksData == null) {
-            return;
+            return false;
         }
 
         try {
@@ -105,7 +308,9 @@ public class JwtsSigningKeyResolver implements SigningKeyResolver {
             }
         } catch (Exception ex) {
             LOGGER.error("Unable to extract json web keys from {}", jwksUri, ex);
+            return false;
         }
+        return true;
     }
 
     String getHttpData(final String jwksUri, final SSLContext sslContext) {
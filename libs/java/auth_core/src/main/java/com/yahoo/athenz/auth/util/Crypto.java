@@ -147,6 +147,76 @@ public class Crypto {
         return System.getProperty(ATHENZ_CRYPTO_SIGNATURE_PROVIDER, BC_PROVIDER);
     }
 
+    // creating and initializing signature engines is expensive, so each
+    // thread keeps its own engines keyed by the signature algorithm and
+    // provider. an engine is only re-initialized when it's used with a
+    // different key or switched between sign and verify modes. after
+    // a successful sign or verify operation the engine is reset by the
+    // provider to its initialized state so it's ready for the next call
+
+    static final class SignatureEngine {
+
+        final java.security.Signature signature;
+        Key key;
+        boolean signMode;
+
+        SignatureEngine(java.security.Signature signature) {
+            this.signature = signature;
+        }
+    }
+
+    private static final ThreadLocal<Map<String, SignatureEngine>> SIGNATURE_ENGINES =
+            ThreadLocal.withInitial(HashMap::new);
+
+    static SignatureEngine getSignatureEngine(final String signatureAlgorithm)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+
+        final String provider = getSignatureProvider();
+        final String engineKey = signatureAlgorithm + ":" + provider;
+        Map<String, SignatureEngine> engines = SIGNATURE_ENGINES.get();
+        SignatureEngine engine = engines.get(engineKey);
+        if (engine == null) {
+            engine = new SignatureEngine(java.security.Signature.getInstance(signatureAlgorithm, provider));
+            engines.put(engineKey, engine);
+        }
+        return engine;
+    }
+
+    static java.security.Signature getSigner(final String signatureAlgorithm, PrivateKey key)
+            throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeyException {
+
+        SignatureEngine engine = getSignatureEngine(signatureAlgorithm);
+        if (engine.key != key || !engine.signMode) {
+            engine.key = null;
+            engine.signature.initSign(key);
+            engine.key = key;
+            engine.signMode = true;
+        }
+        return engine.signature;
+    }
+
+    static java.security.Signature getVerifier(final String signatureAlgorithm, PublicKey key)
+            throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeyException {
+
+        SignatureEngine engine = getSignatureEngine(signatureAlgorithm);
+        if (engine.key != key || engine.signMode) {
+            engine.key = null;
+            engine.signature.initVerify(key);
+            engine.key = key;
+            engine.signMode = false;
+        }
+        return engine.signature;
+    }
+
+    /**
+     * If the sign/verify operation failed then the state of the engine
+     * is not known so we'll force it to be initialized on the next call
+     * @param signatureAlgorithm signature algorithm of the engine
+     */
+    static void resetSignatureEngine(final String signatureAlgorithm) {
+        SIGNATURE_ENGINES.get().remove(signatureAlgorithm + ":" + getSignatureProvider());
+    }
+
     private static String getECDSAAlgo() {
         return System.getProperty(ATHENZ_CRYPTO_ALGO_ECDSA, ECDSA);
     }
@@ -264,28 +334,7 @@ public class Crypto {
      * @throws CryptoException for any issues with provider/algorithm/signature/key
      */
     public static String sign(String message, PrivateKey key, String digestAlgorithm) throws CryptoException {
-        try {
-            String signatureAlgorithm = getSignatureAlgorithm(key.getAlgorithm(), digestAlgorithm);
-            java.security.Signature signer = java.security.Signature.getInstance(signatureAlgorithm, getSignatureProvider());
-            signer.initSign(key);
-            signer.update(utf8Bytes(message));
-            byte[] sig = signer.sign();
-            return ybase64(sig);
-            /// CLOVER:OFF
-        } catch (NoSuchProviderException e) {
-            LOG.error("sign: Caught NoSuchProviderException, check to make sure the provider is loaded correctly.");
-            throw new CryptoException(e);
-        } catch (NoSuchAlgorithmException e) {
-            LOG.error("sign: Caught NoSuchAlgorithmException, check to make sure the algorithm is supported by the provider.");
-            throw new CryptoException(e);
-        } catch (SignatureException e) {
-            LOG.error("sign: Caught SignatureException.");
-            throw new CryptoException(e);
-        } catch (InvalidKeyException e) {
-            LOG.error("sign: Caught InvalidKeyException, incorrect key type is being used.");
-            throw new CryptoException(e);
-        }
-        ///CLOVER:ON
+        return ybase64(sign(utf8Bytes(message), key, digestAlgorithm));
     }
 
     /**
@@ -297,10 +346,10 @@ public class Crypto {
      * @throws CryptoException for any issues with provider/algorithm/signature/key
      */
     public static byte[] sign(byte[] message, PrivateKey key, String digestAlgorithm) throws CryptoException {
+        String signatureAlgorithm = null;
         try {
-            String signatureAlgorithm = getSignatureAlgorithm(key.getAlgorithm(), digestAlgorithm);
-            java.security.Signature signer = java.security.Signature.getInstance(signatureAlgorithm, getSignatureProvider());
-            signer.initSign(key);
+            signatureAlgorithm = getSignatureAlgorithm(key.getAlgorithm(), digestAlgorithm);
+            java.security.Signature signer = getSigner(signatureAlgorithm, key);
             signer.update(message);
             return signer.sign();
         } catch (NoSuchProviderException e) {
@@ -311,6 +360,7 @@ public class Crypto {
             throw new CryptoException(e);
         } catch (SignatureException e) {
             LOG.error("sign: Caught SignatureException.");
+            resetSignatureEngine(signatureAlgorithm);
             throw new CryptoException(e);
         } catch (InvalidKeyException e) {
             LOG.error("sign: Caught InvalidKeyException, incorrect key type is being used.");
@@ -470,28 +520,7 @@ public class Crypto {
      */
     public static boolean verify(String message, PublicKey key, String signature,
                                  String digestAlgorithm) throws CryptoException {
-        try {
-            byte [] sig = ybase64Decode(signature);
-            String signatureAlgorithm = getSignatureAlgorithm(key.getAlgorithm(), digestAlgorithm);
-            java.security.Signature signer = java.security.Signature.getInstance(signatureAlgorithm, getSignatureProvider());
-            signer.initVerify(key);
-            signer.update(utf8Bytes(message));
-            return signer.verify(sig);
-            ///CLOVER:OFF
-        } catch (NoSuchProviderException e) {
-            LOG.error("verify: Caught NoSuchProviderException, check to make sure the provider is loaded correctly.");
-            throw new CryptoException(e);
-        } catch (InvalidKeyException e) {
-            LOG.error("verify: Caught InvalidKeyException, invalid key type is being used.");
-            throw new CryptoException(e);
-        } catch (NoSuchAlgorithmException e) {
-            ///CLOVER:ON
-            LOG.error("verify: Caught NoSuchAlgorithmException, check to make sure the algorithm is supported by the provider.");
-            throw new CryptoException(e);
-        } catch (SignatureException e) {
-            LOG.error("verify: Caught SignatureException.");
-            throw new CryptoException(e);
-        }
+        return verify(utf8Bytes(message), key, ybase64Decode(signature), digestAlgorithm);
     }
 
     /**
@@ -517,10 +546,10 @@ public class Crypto {
      */
     public static boolean verify(byte[] message, PublicKey key, byte[] signature,
                                  String digestAlgorithm) throws CryptoException {
+        String signatureAlgorithm = null;
         try {
-            String signatureAlgorithm = getSignatureAlgorithm(key.getAlgorithm(), digestAlgorithm);
-            java.security.Signature signer = java.security.Signature.getInstance(signatureAlgorithm, getSignatureProvider());
-            signer.initVerify(key);
+            signatureAlgorithm = getSignatureAlgorithm(key.getAlgorithm(), digestAlgorithm);
+            java.security.Signature signer = getVerifier(signatureAlgorithm, key);
             signer.update(message);
             return signer.verify(signature);
         } catch (NoSuchProviderException e) {
@@ -534,6 +563,7 @@ public class Crypto {
             throw new CryptoException(e);
         } catch (SignatureException e) {
             LOG.error("verify: Caught SignatureException.");
+            resetSignatureEngine(signatureAlgorithm);
             throw new CryptoException(e);
         }
     }
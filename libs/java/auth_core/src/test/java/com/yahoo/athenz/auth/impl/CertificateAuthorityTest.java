@@ -19,10 +19,12 @@ import static org.testng.Assert.*;
 
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.List;
 
+import org.mockito.Mockito;
 import org.testng.annotations.Test;
 
 import com.yahoo.athenz.auth.Principal;
@@ -281,4 +283,64 @@ public class CertificateAuthorityTest {
             assertTrue(errMsg.toString().contains("Principal is not a valid service identity"));
         }
     }
+
+    @Test
+    public void testAuthenticateCertificateCache() throws Exception {
+
+        System.setProperty(CertificateAuthority.ATHENZ_PROP_CREDENTIAL_CACHE_SIZE, "10");
+        CertificateAuthority authority = new CertificateAuthority();
+        authority.initialize();
+        System.clearProperty(CertificateAuthority.ATHENZ_PROP_CREDENTIAL_CACHE_SIZE);
+
+        try (InputStream inStream = new FileInputStream("src/test/resources/valid_email_x509.cert")) {
+            CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            X509Certificate cert = (X509Certificate) cf.generateCertificate(inStream);
+
+            X509Certificate[] certs = new X509Certificate[1];
+            certs[0] = cert;
+            Principal principal1 = authority.authenticate(certs, null);
+            assertNotNull(principal1);
+            assertEquals(authority.credentialCache.size(), 1);
+
+            // the second request returns a copy of the cached principal
+
+            Principal principal2 = authority.authenticate(certs, null);
+            assertNotSame(principal1, principal2);
+            assertEquals(principal2.getFullName(), "athens.zts");
+            assertEquals(principal2.getRoles(), principal1.getRoles());
+            assertEquals(principal2.getX509Certificate(), cert);
+            assertEquals(principal2.getCredentials(), principal1.getCredentials());
+
+            // changes to the returned principal are not reflected in the cache
+
+            ((SimplePrincipal) principal2).setState(Principal.State.AUTHORITY_SYSTEM_SUSPENDED);
+            assertEquals(authority.authenticate(certs, null).getState(), Principal.State.ACTIVE);
+        }
+    }
+
+    @Test
+    public void testGetCredentialKey() throws Exception {
+
+        CertificateAuthority authority = new CertificateAuthority();
+        authority.initialize();
+
+        try (InputStream inStream = new FileInputStream("src/test/resources/valid_email_x509.cert")) {
+            CertificateFactory cf = CertificateFactory.getInstance("X.509");
+            X509Certificate cert = (X509Certificate) cf.generateCertificate(inStream);
+
+            // cache is disabled by default
+
+            assertNull(authority.getCredentialKey(new X509Certificate[] { cert }));
+
+            authority.credentialCache = new CredentialCache<>(10);
+            assertNotNull(authority.getCredentialKey(new X509Certificate[] { cert }));
+            assertNull(authority.getCredentialKey(null));
+            assertNull(authority.getCredentialKey(new X509Certificate[0]));
+            assertNull(authority.getCredentialKey(new X509Certificate[1]));
+
+            X509Certificate invalidCert = Mockito.mock(X509Certificate.class);
+            Mockito.when(invalidCert.getEncoded()).thenThrow(new CertificateEncodingException("invalid"));
+            assertNull(authority.getCredentialKey(new X509Certificate[] { invalidCert }));
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.auth.impl;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class CredentialCacheTest {
+
+    @Test
+    public void testGetPut() {
+
+        CredentialCache<String> cache = new CredentialCache<>(10);
+        assertEquals(cache.getMaxSize(), 10);
+
+        final long now = System.currentTimeMillis() / 1000;
+        final String key = CredentialCache.digest("v=S1;d=sports;n=api;s=signature");
+        assertEquals(key, CredentialCache.digest("v=S1;d=sports;n=api;s=signature".getBytes()));
+        assertNotEquals(key, CredentialCache.digest("v=S1;d=sports;n=api;s=signature2"));
+
+        assertNull(cache.get(key, now));
+        cache.put(key, "principal", now + 100);
+        assertEquals(cache.get(key, now), "principal");
+        assertEquals(cache.get(key, now + 100), "principal");
+
+        // expired entries are removed
+
+        assertNull(cache.get(key, now + 101));
+        assertEquals(cache.size(), 0);
+
+        cache.put(key, "principal", now + 100);
+        cache.remove(key);
+        assertNull(cache.get(key, now));
+    }
+
+    @Test
+    public void testMaxSize() {
+
+        CredentialCache<String> cache = new CredentialCache<>(3);
+        final long now = System.currentTimeMillis() / 1000;
+
+        // expired entries are removed first when the cache is full
+
+        cache.put("key1", "principal1", now + 100);
+        cache.put("key2", "principal2", now - 100);
+        cache.put("key3", "principal3", now + 100);
+        cache.put("key4", "principal4", now + 100);
+        assertEquals(cache.size(), 3);
+        assertNull(cache.get("key2", now));
+        assertEquals(cache.get("key1", now), "principal1");
+
+        // if there are no expired entries we start over
+
+        cache.put("key5", "principal5", now + 100);
+        assertEquals(cache.size(), 1);
+        assertEquals(cache.get("key5", now), "principal5");
+    }
+}
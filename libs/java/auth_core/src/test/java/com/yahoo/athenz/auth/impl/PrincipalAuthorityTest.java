@@ -703,6 +703,205 @@ public class PrincipalAuthorityTest {
         assertNull(principal);
     }
 
+    @Test
+    public void testPublicKeyCache() throws IOException {
+
+        PrincipalAuthority serviceAuthority = new PrincipalAuthority();
+        KeyStore keyStore = Mockito.mock(KeyStore.class);
+        serviceAuthority.setKeyStore(keyStore);
+
+        final String publicKeyK0 = new String(Files.readAllBytes(Paths.get("./src/test/resources/fantasy_public_k0.key")));
+        final String publicKeyK1 = new String(Files.readAllBytes(Paths.get("./src/test/resources/fantasy_public_k1.key")));
+        Mockito.when(keyStore.getPublicKey("sports", "fantasy", "0")).thenReturn(publicKeyK0);
+
+        PrincipalToken tokenK0 = new PrincipalToken.Builder(svcVersion, svcDomain, svcName)
+                .host(host).salt(salt).keyId("0").expirationWindow(expirationTime).build();
+        tokenK0.sign(servicePrivateKeyStringK0);
+
+        // the key is parsed only once and then reused
+
+        assertNotNull(serviceAuthority.authenticate(tokenK0.getSignedToken(), null, "GET", null));
+        assertEquals(serviceAuthority.publicKeyCache.size(), 1);
+        PrincipalAuthority.CachedPublicKey cachedKey = serviceAuthority.publicKeyCache.get("sports.fantasy:0");
+        assertNotNull(serviceAuthority.authenticate(tokenK0.getSignedToken(), null, "GET", null));
+        assertSame(serviceAuthority.publicKeyCache.get("sports.fantasy:0"), cachedKey);
+
+        // once the key store returns an updated key, the old one is no longer used
+
+        Mockito.when(keyStore.getPublicKey("sports", "fantasy", "0")).thenReturn(publicKeyK1);
+        assertNull(serviceAuthority.authenticate(tokenK0.getSignedToken(), null, "GET", null));
+        assertEquals(serviceAuthority.publicKeyCache.get("sports.fantasy:0").pemKey, publicKeyK1);
+
+        PrincipalToken tokenK1 = new PrincipalToken.Builder(svcVersion, svcDomain, svcName)
+                .host(host).salt(salt).keyId("0").expirationWindow(expirationTime).build();
+        tokenK1.sign(servicePrivateKeyStringK1);
+        assertNotNull(serviceAuthority.authenticate(tokenK1.getSignedToken(), null, "GET", null));
+
+        // invalid and unknown keys are not cached
+
+        Mockito.when(keyStore.getPublicKey("sports", "fantasy", "0")).thenReturn("invalid-key");
+        assertNull(serviceAuthority.authenticate(tokenK1.getSignedToken(), null, "GET", null));
+        assertTrue(serviceAuthority.publicKeyCache.isEmpty());
+
+        Mockito.when(keyStore.getPublicKey("sports", "fantasy", "0")).thenReturn(null);
+        assertNull(serviceAuthority.authenticate(tokenK1.getSignedToken(), null, "GET", null));
+        assertTrue(serviceAuthority.publicKeyCache.isEmpty());
+    }
+
+    @Test
+    public void testPublicKeyCacheSize() throws IOException {
+
+        final String publicKeyK0 = new String(Files.readAllBytes(Paths.get("./src/test/resources/fantasy_public_k0.key")));
+        PrincipalAuthority.PublicKeyOwner keyOwner1 = new PrincipalAuthority.PublicKeyOwner("sports", "fantasy");
+        PrincipalAuthority.PublicKeyOwner keyOwner2 = new PrincipalAuthority.PublicKeyOwner("sports", "api");
+
+        // with a single entry we start over once the cache is full
+
+        System.setProperty(PrincipalAuthority.ATHENZ_PROP_PUBLIC_KEY_CACHE_SIZE, "1");
+        PrincipalAuthority serviceAuthority = new PrincipalAuthority();
+        assertNotNull(serviceAuthority.getParsedPublicKey(keyOwner1, "0", publicKeyK0));
+        assertNotNull(serviceAuthority.getParsedPublicKey(keyOwner2, "0", publicKeyK0));
+        assertEquals(serviceAuthority.publicKeyCache.size(), 1);
+        assertNotNull(serviceAuthority.publicKeyCache.get("sports.api:0"));
+
+        // with the cache disabled the key is still parsed
+
+        System.setProperty(PrincipalAuthority.ATHENZ_PROP_PUBLIC_KEY_CACHE_SIZE, "0");
+        serviceAuthority = new PrincipalAuthority();
+        assertNotNull(serviceAuthority.getParsedPublicKey(keyOwner1, "0", publicKeyK0));
+        assertTrue(serviceAuthority.publicKeyCache.isEmpty());
+        System.clearProperty(PrincipalAuthority.ATHENZ_PROP_PUBLIC_KEY_CACHE_SIZE);
+    }
+
+    @Test
+    public void testCredentialCache() throws IOException {
+
+        System.setProperty(PrincipalAuthority.ATHENZ_PROP_CREDENTIAL_CACHE_SIZE, "10");
+        PrincipalAuthority serviceAuthority = new PrincipalAuthority();
+        System.clearProperty(PrincipalAuthority.ATHENZ_PROP_CREDENTIAL_CACHE_SIZE);
+        KeyStoreMock keyStore = new KeyStoreMock();
+        serviceAuthority.setKeyStore(keyStore);
+
+        PrincipalToken serviceToken = new PrincipalToken.Builder(svcVersion, svcDomain, svcName)
+                .host(host).salt(salt).keyId("0").expirationWindow(expirationTime).build();
+        serviceToken.sign(servicePrivateKeyStringK0);
+
+        Principal principal1 = serviceAuthority.authenticate(serviceToken.getSignedToken(), null, "GET", null);
+        assertNotNull(principal1);
+        assertEquals(serviceAuthority.credentialCache.size(), 1);
+
+        // the second request returns a copy of the cached principal
+
+        Principal principal2 = serviceAuthority.authenticate(serviceToken.getSignedToken(), null, "GET", null);
+        assertNotNull(principal2);
+        assertNotSame(principal1, principal2);
+        assertEquals(principal2.getFullName(), "sports.fantasy");
+        assertEquals(principal2.getUnsignedCredentials(), serviceToken.getUnsignedToken());
+        assertEquals(principal2.getKeyId(), "0");
+    }
+
+    @Test
+    public void testCredentialCacheKeyChange() throws IOException {
+
+        System.setProperty(PrincipalAuthority.ATHENZ_PROP_CREDENTIAL_CACHE_SIZE, "10");
+        PrincipalAuthority serviceAuthority = new PrincipalAuthority();
+        System.clearProperty(PrincipalAuthority.ATHENZ_PROP_CREDENTIAL_CACHE_SIZE);
+        KeyStore keyStore = Mockito.mock(KeyStore.class);
+        serviceAuthority.setKeyStore(keyStore);
+
+        KeyStoreMock keyStoreMock = new KeyStoreMock();
+        final String publicKeyK0 = keyStoreMock.getPublicKey("sports", "fantasy", "0");
+        final String publicKeyK1 = keyStoreMock.getPublicKey("sports", "fantasy", "1");
+        Mockito.when(keyStore.getPublicKey("sports", "fantasy", "0")).thenReturn(publicKeyK0);
+
+        PrincipalToken serviceToken = new PrincipalToken.Builder(svcVersion, svcDomain, svcName)
+                .host(host).salt(salt).keyId("0").expirationWindow(expirationTime).build();
+        serviceToken.sign(servicePrivateKeyStringK0);
+        final String signedToken = serviceToken.getSignedToken();
+
+        assertNotNull(serviceAuthority.authenticate(signedToken, null, "GET", null));
+        assertEquals(serviceAuthority.credentialCache.size(), 1);
+
+        // once the key is updated, the cached result is no longer used
+
+        Mockito.when(keyStore.getPublicKey("sports", "fantasy", "0")).thenReturn(publicKeyK1);
+        assertNull(serviceAuthority.authenticate(signedToken, null, "GET", null));
+        assertEquals(serviceAuthority.credentialCache.size(), 0);
+    }
+
+    @Test
+    public void testCredentialCacheRemoteIpCheck() throws IOException {
+
+        System.setProperty(PrincipalAuthority.ATHENZ_PROP_CREDENTIAL_CACHE_SIZE, "10");
+        PrincipalAuthority serviceAuthority = new PrincipalAuthority();
+        System.clearProperty(PrincipalAuthority.ATHENZ_PROP_CREDENTIAL_CACHE_SIZE);
+        KeyStore keyStore = Mockito.mock(KeyStore.class);
+        serviceAuthority.setKeyStore(keyStore);
+
+        KeyStoreMock keyStoreMock = new KeyStoreMock();
+        Mockito.when(keyStore.getPublicKey("sys.auth", "zms", "0"))
+                .thenReturn(keyStoreMock.getPublicKey("sports", "fantasy", "0"));
+
+        PrincipalToken userToken = new PrincipalToken.Builder(usrVersion, usrDomain, usrName)
+                .salt(salt).ip("10.11.12.13").keyId("0").expirationWindow(expirationTime).build();
+        userToken.sign(servicePrivateKeyStringK0);
+        final String signedToken = userToken.getSignedToken();
+
+        assertNotNull(serviceAuthority.authenticate(signedToken, "10.11.12.13", "PUT", null));
+        assertEquals(serviceAuthority.credentialCache.size(), 1);
+
+        // the ip check is still carried out for the cached token based
+        // on the operation and the client address
+
+        assertNotNull(serviceAuthority.authenticate(signedToken, "10.11.12.14", "GET", null));
+        StringBuilder errMsg = new StringBuilder();
+        assertNull(serviceAuthority.authenticate(signedToken, "10.11.12.14", "PUT", errMsg));
+        assertTrue(errMsg.toString().contains("IP Mismatch"));
+        assertNotNull(serviceAuthority.authenticate(signedToken, "10.11.12.13", "DELETE", null));
+    }
+
+    @Test
+    public void testCredentialCacheAuthorizedService() throws IOException {
+
+        System.setProperty(PrincipalAuthority.ATHENZ_PROP_CREDENTIAL_CACHE_SIZE, "10");
+        PrincipalAuthority serviceAuthority = new PrincipalAuthority();
+        System.clearProperty(PrincipalAuthority.ATHENZ_PROP_CREDENTIAL_CACHE_SIZE);
+        KeyStore keyStore = Mockito.mock(KeyStore.class);
+        serviceAuthority.setKeyStore(keyStore);
+
+        KeyStoreMock keyStoreMock = new KeyStoreMock();
+        final String publicKeyK0 = keyStoreMock.getPublicKey("sports", "fantasy", "0");
+        final String publicKeyK1 = keyStoreMock.getPublicKey("sports", "fantasy", "1");
+        Mockito.when(keyStore.getPublicKey("sys.auth", "zms", "0")).thenReturn(publicKeyK0);
+        Mockito.when(keyStore.getPublicKey("sports", "fantasy", "1")).thenReturn(publicKeyK1);
+
+        List<String> authorizedServices = new ArrayList<>();
+        authorizedServices.add("sports.fantasy");
+        PrincipalToken userToken = new PrincipalToken.Builder(usrVersion, usrDomain, usrName)
+                .salt(salt).ip("10.11.12.13").keyId("0").expirationWindow(expirationTime)
+                .authorizedServices(authorizedServices).build();
+        userToken.sign(servicePrivateKeyStringK0);
+        userToken.signForAuthorizedService("sports.fantasy", "1", servicePrivateKeyStringK1);
+        final String signedToken = userToken.getSignedToken();
+
+        // with an authorized service we allow ip mismatch for write operations
+
+        Principal principal = serviceAuthority.authenticate(signedToken, "10.11.12.14", "PUT", null);
+        assertNotNull(principal);
+        assertEquals(principal.getAuthorizedService(), "sports.fantasy");
+        assertEquals(serviceAuthority.credentialCache.size(), 1);
+
+        principal = serviceAuthority.authenticate(signedToken, "10.11.12.14", "PUT", null);
+        assertNotNull(principal);
+        assertEquals(principal.getAuthorizedService(), "sports.fantasy");
+
+        // once the authorized service key is removed, the token is rejected
+
+        Mockito.when(keyStore.getPublicKey("sports", "fantasy", "1")).thenReturn(null);
+        assertNull(serviceAuthority.authenticate(signedToken, "10.11.12.14", "PUT", null));
+        assertEquals(serviceAuthority.credentialCache.size(), 0);
+    }
+
 //    @Test
     public void testPrincipalTokenValidateForAuthorizedService() throws IOException {
 
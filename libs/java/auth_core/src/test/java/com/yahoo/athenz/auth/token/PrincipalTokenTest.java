@@ -750,10 +750,10 @@ public class PrincipalTokenTest {
     @Test
     public void testValidateForAuthorizedServiceIllegal() {
         PrincipalToken token = new PrincipalToken("bs=signature;v=S1;d=domain;n=service;t=1234;e=1235;k=0;h=host1;i=1.2.3.4;b=svc1;s=signature;bk=0;bn=svc1");
-        assertFalse(token.validateForAuthorizedService(null, null));
+        assertFalse(token.validateForAuthorizedService((String) null, null));
         
         token = new PrincipalToken("v=S1;d=domain;n=service;t=1234;e=1235;k=0;h=host1;i=1.2.3.4;b=svc1;s=signature;bk=1;bn=svc1;bs=signature");
-        assertFalse(token.validateForAuthorizedService(null, null));
+        assertFalse(token.validateForAuthorizedService((String) null, null));
 
         assertFalse(token.validateForAuthorizedService(servicePublicKeyStringK1, null));
     }
@@ -0,0 +1,146 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.auth.token;
+
+import com.yahoo.athenz.auth.util.Crypto;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the signature generation and validation of the raw
+ * Crypto sign/verify calls and the principal, role and access tokens
+ * with both RSA and EC keys. The tokens are signed once during setup so
+ * the validate benchmarks only measure parsing and signature validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenSignatureBenchmark {
+
+    private static final String MESSAGE = "v=U1;d=coretech;n=storage;h=localhost;a=f10e5a3b;t=1700000000;e=1700003600";
+
+    @Param({"rsa", "ec"})
+    String keyType;
+
+    PrivateKey privateKey;
+    PublicKey publicKey;
+    SignatureAlgorithm accessTokenAlgorithm;
+    String messageSignature;
+    String signedPrincipalToken;
+    String signedRoleToken;
+    String signedAccessToken;
+
+    @Setup
+    public void setup() {
+
+        if ("rsa".equals(keyType)) {
+            privateKey = Crypto.loadPrivateKey(new File("src/test/resources/unit_test_jwt_private.key"));
+            publicKey = Crypto.loadPublicKey(new File("src/test/resources/jwt_public.key"));
+            accessTokenAlgorithm = SignatureAlgorithm.RS256;
+        } else {
+            privateKey = Crypto.loadPrivateKey(new File("src/test/resources/unit_test_ec_private.key"));
+            publicKey = Crypto.loadPublicKey(new File("src/test/resources/ec_public.key"));
+            accessTokenAlgorithm = SignatureAlgorithm.ES256;
+        }
+
+        messageSignature = cryptoSign();
+        signedPrincipalToken = principalTokenSign();
+        signedRoleToken = roleTokenSign();
+        signedAccessToken = accessTokenSign();
+    }
+
+    @Benchmark
+    public String cryptoSign() {
+        return Crypto.sign(MESSAGE, privateKey);
+    }
+
+    @Benchmark
+    public boolean cryptoVerify() {
+        return Crypto.verify(MESSAGE, publicKey, messageSignature);
+    }
+
+    @Benchmark
+    public String principalTokenSign() {
+        PrincipalToken token = new PrincipalToken.Builder("S1", "coretech", "storage")
+                .host("localhost").salt("f10e5a3b").keyId("0").expirationWindow(3600).build();
+        token.sign(privateKey);
+        return token.getSignedToken();
+    }
+
+    @Benchmark
+    public boolean principalTokenValidate() {
+        PrincipalToken token = new PrincipalToken(signedPrincipalToken);
+        return token.validate(publicKey, 300, false, null);
+    }
+
+    @Benchmark
+    public String roleTokenSign() {
+        RoleToken token = new RoleToken.Builder("Z1", "coretech", Arrays.asList("readers", "writers"))
+                .principal("user.john").host("localhost").salt("f10e5a3b").keyId("0")
+                .expirationWindow(3600).build();
+        token.sign(privateKey);
+        return token.getSignedToken();
+    }
+
+    @Benchmark
+    public boolean roleTokenValidate() {
+        RoleToken token = new RoleToken(signedRoleToken);
+        return token.validate(publicKey, 300, false, null);
+    }
+
+    @Benchmark
+    public String accessTokenSign() {
+        final long now = System.currentTimeMillis() / 1000;
+        AccessToken accessToken = new AccessToken();
+        accessToken.setAuthTime(now);
+        accessToken.setSubject("user.john");
+        accessToken.setUserId("user.john");
+        accessToken.setExpiryTime(now + 3600);
+        accessToken.setIssueTime(now);
+        accessToken.setClientId("mtls");
+        accessToken.setAudience("coretech");
+        accessToken.setVersion(1);
+        accessToken.setIssuer("athenz");
+        accessToken.setScope(Collections.singletonList("readers"));
+        return accessToken.getSignedToken(privateKey, "0", accessTokenAlgorithm);
+    }
+
+    @Benchmark
+    public AccessToken accessTokenValidate() {
+        return new AccessToken(signedAccessToken, publicKey);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TokenSignatureBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
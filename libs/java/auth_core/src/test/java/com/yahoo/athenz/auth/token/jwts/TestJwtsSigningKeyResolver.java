@@ -19,6 +19,14 @@ import io.jsonwebtoken.JwsHeader;
 import org.mockito.Mockito;
 import org.testng.annotations.Test;
 
+import javax.net.ssl.SSLContext;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.testng.Assert.*;
 
 public class TestJwtsSigningKeyResolver {
@@ -69,4 +77,188 @@ public class TestJwtsSigningKeyResolver {
 
         resetConfProperty(oldConf);
     }
+
+    static class CountingKeyResolver extends JwtsSigningKeyResolver {
+
+        static volatile String responseBody;
+        static final AtomicInteger FETCH_COUNT = new AtomicInteger();
+        static volatile CountDownLatch fetchLatch = null;
+
+        CountingKeyResolver(final String serverUrl) {
+            super(serverUrl, null, true);
+        }
+
+        @Override
+        String getHttpData(String jwksUri, SSLContext sslContext) {
+            FETCH_COUNT.incrementAndGet();
+            if (fetchLatch != null) {
+                try {
+                    fetchLatch.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+            return responseBody;
+        }
+    }
+
+    @Test
+    public void testResolveUnknownKeyRefresh() throws Exception {
+
+        final String jwksData = new String(Files.readAllBytes(Paths.get("src/test/resources/jwt_jwks.json")));
+        final String keyId = "c9986ee3-7b2a-4d20-b86a-0839856f2541";
+
+        CountingKeyResolver.responseBody = "{\"keys\":[]}";
+        CountingKeyResolver.FETCH_COUNT.set(0);
+        CountingKeyResolver resolver = new CountingKeyResolver("https://localhost:4443");
+        assertEquals(resolver.publicKeyCount(), 0);
+        assertEquals(CountingKeyResolver.FETCH_COUNT.get(), 1);
+        assertTrue(resolver.getLastRefreshTime() > 0);
+
+        // the key server rotates the key but we have just refreshed
+        // our keys so the new key id is not remembered as unknown
+
+        CountingKeyResolver.responseBody = jwksData;
+        assertNull(resolver.getPublicKey(keyId));
+        assertEquals(CountingKeyResolver.FETCH_COUNT.get(), 1);
+        assertTrue(resolver.unknownKeyIds.isEmpty());
+
+        // once the min refresh interval has passed the key is fetched
+
+        resolver.minRefreshIntervalMillis = 0;
+        assertNotNull(resolver.getPublicKey(keyId));
+        assertEquals(CountingKeyResolver.FETCH_COUNT.get(), 2);
+        assertEquals(resolver.getRefreshCount(), 1);
+        assertEquals(resolver.getUnknownKeyCount(), 2);
+
+        // known keys never trigger a refresh
+
+        assertNotNull(resolver.getPublicKey(keyId));
+        assertEquals(CountingKeyResolver.FETCH_COUNT.get(), 2);
+
+        // unknown key ids are only fetched once until the timeout expires
+
+        assertNull(resolver.getPublicKey("unknown"));
+        assertNull(resolver.getPublicKey("unknown"));
+        assertNull(resolver.getPublicKey("unknown"));
+        assertEquals(CountingKeyResolver.FETCH_COUNT.get(), 3);
+        assertEquals(resolver.getUnknownKeyCacheHitCount(), 2);
+
+        resolver.unknownKeyTimeoutMillis = 0;
+        assertNull(resolver.getPublicKey("unknown"));
+        assertEquals(CountingKeyResolver.FETCH_COUNT.get(), 4);
+
+        // null key ids are rejected right away
+
+        assertNull(resolver.getPublicKey(null));
+        assertEquals(CountingKeyResolver.FETCH_COUNT.get(), 4);
+
+        // failures are recorded
+
+        CountingKeyResolver.responseBody = null;
+        resolver.refreshPublicKeys();
+        CountingKeyResolver.responseBody = "invalid-json";
+        resolver.refreshPublicKeys();
+        assertEquals(resolver.getRefreshFailureCount(), 2);
+        assertEquals(resolver.publicKeyCount(), 1);
+        resolver.close();
+    }
+
+    @Test
+    public void testUnknownKeyRefreshFailure() throws Exception {
+
+        final String jwksData = new String(Files.readAllBytes(Paths.get("src/test/resources/jwt_jwks.json")));
+        final String keyId = "c9986ee3-7b2a-4d20-b86a-0839856f2541";
+
+        CountingKeyResolver.responseBody = "{\"keys\":[]}";
+        CountingKeyResolver.FETCH_COUNT.set(0);
+        CountingKeyResolver resolver = new CountingKeyResolver("https://localhost:4443");
+        resolver.minRefreshIntervalMillis = 0;
+
+        // the jwks uri is not available so the key id must not be
+        // remembered as unknown
+
+        CountingKeyResolver.responseBody = null;
+        assertNull(resolver.getPublicKey(keyId));
+        assertEquals(CountingKeyResolver.FETCH_COUNT.get(), 2);
+        assertEquals(resolver.getRefreshFailureCount(), 1);
+        assertTrue(resolver.unknownKeyIds.isEmpty());
+
+        // once the jwks uri is available again the rotated key
+        // is fetched right away without waiting for the timeout
+
+        CountingKeyResolver.responseBody = jwksData;
+        assertNotNull(resolver.getPublicKey(keyId));
+        assertEquals(CountingKeyResolver.FETCH_COUNT.get(), 3);
+        assertEquals(resolver.getUnknownKeyCacheHitCount(), 0);
+        resolver.close();
+    }
+
+    @Test
+    public void testUnknownKeyIdsLimit() {
+
+        CountingKeyResolver.responseBody = "{\"keys\":[]}";
+        CountingKeyResolver resolver = new CountingKeyResolver("https://localhost:4443");
+        resolver.minRefreshIntervalMillis = 0;
+        for (int i = 0; i < JwtsSigningKeyResolver.MAX_UNKNOWN_KEY_IDS; i++) {
+            resolver.unknownKeyIds.put("key" + i, System.currentTimeMillis());
+        }
+        assertNull(resolver.getPublicKey("unknown"));
+        assertEquals(resolver.unknownKeyIds.size(), 1);
+    }
+
+    @Test
+    public void testRefreshSingleFlight() throws Exception {
+
+        CountingKeyResolver.responseBody = "{\"keys\":[]}";
+        CountingKeyResolver resolver = new CountingKeyResolver("https://localhost:4443");
+        resolver.minRefreshIntervalMillis = 0;
+        CountingKeyResolver.FETCH_COUNT.set(0);
+
+        // block the first fetch until all other threads are waiting
+        // for it to complete. only a single fetch must be made
+
+        CountDownLatch latch = new CountDownLatch(1);
+        CountingKeyResolver.fetchLatch = latch;
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Thread thread = new Thread(() -> resolver.getPublicKey("unknown"));
+            threads.add(thread);
+            thread.start();
+        }
+        while (CountingKeyResolver.FETCH_COUNT.get() == 0) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        latch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        CountingKeyResolver.fetchLatch = null;
+        assertEquals(CountingKeyResolver.FETCH_COUNT.get(), 1);
+        assertEquals(resolver.getRefreshCount(), 1);
+    }
+
+    @Test
+    public void testPeriodicRefresh() throws Exception {
+
+        System.setProperty(JwtsSigningKeyResolver.ZTS_PROP_JWKS_REFRESH_INTERVAL, "1");
+        CountingKeyResolver.responseBody = "{\"keys\":[]}";
+        CountingKeyResolver resolver = new CountingKeyResolver("https://localhost:4443");
+        System.clearProperty(JwtsSigningKeyResolver.ZTS_PROP_JWKS_REFRESH_INTERVAL);
+
+        for (int i = 0; i < 50 && resolver.getRefreshCount() == 0; i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(resolver.getRefreshCount() > 0);
+        resolver.close();
+        resolver.close();
+
+        // without a jwks uri there is nothing to refresh
+
+        JwtsSigningKeyResolver noUriResolver = new JwtsSigningKeyResolver("", null, true);
+        assertNull(noUriResolver.getPublicKey("unknown"));
+        noUriResolver.refreshPublicKeys();
+        assertEquals(noUriResolver.getRefreshCount(), 0);
+        noUriResolver.close();
+    }
 }
@@ -87,6 +87,47 @@ public class CryptoTest {
         assertTrue(Crypto.verify(serviceToken, publicKey, signature));
     }
 
+    @Test
+    public void testSignatureEngineReuse() throws Exception {
+
+        PrivateKey rsaKey = Crypto.loadPrivateKey(rsaPrivateKey);
+        PublicKey rsaPubKey = Crypto.loadPublicKey(rsaPublicKey);
+        PrivateKey ecKey = Crypto.loadPrivateKey(ecPrivateKey);
+        PublicKey ecPubKey = Crypto.loadPublicKey(ecPublicKey);
+
+        // the same engine must be returned for the same algorithm
+        // and it's re-initialized only when the key changes
+
+        java.security.Signature signer = Crypto.getSigner("SHA256withRSA", rsaKey);
+        assertSame(Crypto.getSigner("SHA256withRSA", rsaKey), signer);
+        assertSame(Crypto.getVerifier("SHA256withRSA", rsaPubKey), signer);
+        assertSame(Crypto.getSignatureEngine("SHA256withRSA").key, rsaPubKey);
+        assertFalse(Crypto.getSignatureEngine("SHA256withRSA").signMode);
+        assertNotSame(Crypto.getSigner("SHA256withECDSA", ecKey), signer);
+
+        // multiple calls with the reused engines must generate the same
+        // results as the original implementation
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Crypto.sign(serviceToken, rsaKey), serviceRSASignature);
+            assertTrue(Crypto.verify(serviceToken, rsaPubKey, serviceRSASignature));
+            assertFalse(Crypto.verify(serviceToken + "x", rsaPubKey, serviceRSASignature));
+            final String ecSignature = Crypto.sign(serviceToken, ecKey);
+            assertTrue(Crypto.verify(serviceToken, ecPubKey, ecSignature));
+            assertTrue(Crypto.verify(serviceToken, ecPubKey, serviceECSignature));
+        }
+
+        // invalid signatures reset the engine
+
+        assertThrows(CryptoException.class, () -> Crypto.verify(serviceToken.getBytes(StandardCharsets.UTF_8),
+                ecPubKey, new byte[] { 1, 2, 3 }, Crypto.SHA256));
+        assertNull(Crypto.getSignatureEngine("SHA256withECDSA").key);
+        assertTrue(Crypto.verify(serviceToken, ecPubKey, serviceECSignature));
+
+        Crypto.resetSignatureEngine("SHA256withRSA");
+        assertNotSame(Crypto.getSigner("SHA256withRSA", rsaKey), signer);
+    }
+
     @Test
     public void testSignVerifyExtractedRSAKey() {
 
@@ -33,6 +33,14 @@ import com.yahoo.athenz.zts.SignedPolicyData;
 import com.yahoo.rdl.Array;
 import com.yahoo.rdl.Struct;
 
+/**
+ * Generates the canonical string representation of the domain and policy
+ * objects that is used for signing and verification. The canonical string
+ * is a json-like document with all attributes in sorted order and without
+ * any null values. The output is written directly from the model objects
+ * into a single buffer, so the attribute values in each writer method must
+ * be appended in the canonical (sorted) order of their names.
+ */
 public class SignUtils {
 
     private static final String ATTR_ENABLED = "enabled";
@@ -88,314 +96,379 @@ public class SignUtils {
     private static final String ATTR_SERVICE_REVIEW_DAYS = "serviceReviewDays";
     private static final String ATTR_SIGN_ALGORITHM = "signAlgorithm";
 
-    private static Struct asStruct(DomainPolicies domainPolicies) {
-        // all of our fields are in canonical order based
-        // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_DOMAIN, domainPolicies.getDomain());
-        Array policiesArray = new Array();
+    // we keep the per-thread buffer for reuse unless it was expanded
+    // for a very large domain in which case we'll release it
+
+    private static final int MAX_REUSE_BUFFER_SIZE = 1024 * 1024;
+    private static final ThreadLocal<StringBuilder> TLS_BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    /**
+     * Simple writer that keeps track of when a comma separator
+     * is required between attributes or array elements.
+     */
+    static final class CanonicalWriter {
+
+        final StringBuilder buf;
+        boolean separator = false;
+
+        CanonicalWriter(StringBuilder buf) {
+            this.buf = buf;
+        }
+
+        void beginObject() {
+            appendSeparator();
+            buf.append('{');
+            separator = false;
+        }
+
+        void endObject() {
+            buf.append('}');
+            separator = true;
+        }
+
+        void beginArray() {
+            appendSeparator();
+            buf.append('[');
+            separator = false;
+        }
+
+        void endArray() {
+            buf.append(']');
+            separator = true;
+        }
+
+        void name(final String name) {
+            appendSeparator();
+            buf.append('"').append(name).append("\":");
+            separator = false;
+        }
+
+        void appendSeparator() {
+            if (separator) {
+                buf.append(',');
+            }
+        }
+
+        void string(final String value) {
+            appendSeparator();
+            buf.append('"').append(value).append('"');
+            separator = true;
+        }
+
+        void raw(final Object value) {
+            appendSeparator();
+            buf.append(value);
+            separator = true;
+        }
+
+        void attribute(final String name, final Object value) {
+
+            // null values are not included in the canonical string. integer
+            // and boolean values are written as is while all other objects
+            // (e.g. timestamps, enums) are written as their string values
+
+            if (value == null) {
+                return;
+            }
+            name(name);
+            if (value instanceof Integer || value instanceof Boolean) {
+                raw(value);
+            } else {
+                string(value.toString());
+            }
+        }
+
+        void attribute(final String name, final List<String> values) {
+            if (values == null) {
+                return;
+            }
+            name(name);
+            beginArray();
+            for (String value : values) {
+                string(value);
+            }
+            endArray();
+        }
+    }
+
+    private static void write(CanonicalWriter writer, DomainPolicies domainPolicies) {
+        writer.beginObject();
+        writer.attribute(ATTR_DOMAIN, domainPolicies.getDomain());
+        writer.name(ATTR_POLICIES);
+        writer.beginArray();
         for (Policy policy : domainPolicies.getPolicies()) {
-            policiesArray.add(asStruct(policy));
+            write(writer, policy);
         }
-        appendArray(struct, ATTR_POLICIES, policiesArray);
-        return struct;
+        writer.endArray();
+        writer.endObject();
     }
-    
-    private static Struct asStruct(Policy policy) {
-        // all of our fields are in canonical order based
-        // on their attribute name
-        Struct struct = new Struct();
+
+    private static void write(CanonicalWriter writer, Policy policy) {
+        writer.beginObject();
         List<Assertion> assertions = policy.getAssertions();
         if (assertions != null && !assertions.isEmpty()) {
-            Array assertionsArray = new Array();
+            writer.name(ATTR_ASSERTIONS);
+            writer.beginArray();
             for (Assertion assertion : assertions) {
-                Struct structAssertion = new Struct();
-                appendObject(structAssertion, ATTR_ACTION, assertion.getAction());
-                appendObject(structAssertion, ATTR_EFFECT, assertion.getEffect());
-                appendObject(structAssertion, ATTR_RESOURCE, assertion.getResource());
-                appendObject(structAssertion, ATTR_ROLE, assertion.getRole());
-                assertionsArray.add(structAssertion);
+                writer.beginObject();
+                writer.attribute(ATTR_ACTION, assertion.getAction());
+                writer.attribute(ATTR_EFFECT, assertion.getEffect());
+                writer.attribute(ATTR_RESOURCE, assertion.getResource());
+                writer.attribute(ATTR_ROLE, assertion.getRole());
+                writer.endObject();
             }
-            appendArray(struct, ATTR_ASSERTIONS, assertionsArray);
+            writer.endArray();
         }
-        appendObject(struct, ATTR_MODIFIED, policy.getModified());
-        appendObject(struct, ATTR_NAME, policy.getName());
-        return struct;
+        writer.attribute(ATTR_MODIFIED, policy.getModified());
+        writer.attribute(ATTR_NAME, policy.getName());
+        writer.endObject();
     }
-    
-    private static Struct asStruct(com.yahoo.athenz.zts.Policy policy) {
-        // all of our fields are in canonical order based
-        // on their attribute name
-        Struct struct = new Struct();
+
+    private static void write(CanonicalWriter writer, com.yahoo.athenz.zts.Policy policy) {
+        writer.beginObject();
         List<com.yahoo.athenz.zts.Assertion> assertions = policy.getAssertions();
         if (assertions != null && !assertions.isEmpty()) {
-            Array assertionsArray = new Array();
+            writer.name(ATTR_ASSERTIONS);
+            writer.beginArray();
             for (com.yahoo.athenz.zts.Assertion assertion : assertions) {
-                Struct structAssertion = new Struct();
-                appendObject(structAssertion, ATTR_ACTION, assertion.getAction());
-                appendObject(structAssertion, ATTR_EFFECT, assertion.getEffect());
-                appendObject(structAssertion, ATTR_RESOURCE, assertion.getResource());
-                appendObject(structAssertion, ATTR_ROLE, assertion.getRole());
-                assertionsArray.add(structAssertion);
+                writer.beginObject();
+                writer.attribute(ATTR_ACTION, assertion.getAction());
+                writer.attribute(ATTR_EFFECT, assertion.getEffect());
+                writer.attribute(ATTR_RESOURCE, assertion.getResource());
+                writer.attribute(ATTR_ROLE, assertion.getRole());
+                writer.endObject();
             }
-            appendArray(struct, ATTR_ASSERTIONS, assertionsArray);
+            writer.endArray();
         }
-        appendObject(struct, ATTR_MODIFIED, policy.getModified());
-        appendObject(struct, ATTR_NAME, policy.getName());
-        return struct;
+        writer.attribute(ATTR_MODIFIED, policy.getModified());
+        writer.attribute(ATTR_NAME, policy.getName());
+        writer.endObject();
     }
-    
-    private static Struct asStruct(Role role) {
-        // all of our fields are in canonical order based
-        // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_AUDIT_ENABLED, role.getAuditEnabled());
-        appendObject(struct, ATTR_CERT_EXPIRY_MINS, role.getCertExpiryMins());
-        appendObject(struct, ATTR_MEMBER_EXPIRY_DAYS, role.getMemberExpiryDays());
-        appendObject(struct, ATTR_MEMBER_REVIEW_DAYS, role.getMemberReviewDays());
-        appendList(struct, ATTR_MEMBERS, role.getMembers());
-        appendObject(struct, ATTR_MODIFIED, role.getModified());
-        appendObject(struct, ATTR_NAME, role.getName());
+
+    private static void write(CanonicalWriter writer, Role role) {
+        writer.beginObject();
+        writer.attribute(ATTR_AUDIT_ENABLED, role.getAuditEnabled());
+        writer.attribute(ATTR_CERT_EXPIRY_MINS, role.getCertExpiryMins());
+        writer.attribute(ATTR_MEMBER_EXPIRY_DAYS, role.getMemberExpiryDays());
+        writer.attribute(ATTR_MEMBER_REVIEW_DAYS, role.getMemberReviewDays());
+        writer.attribute(ATTR_MEMBERS, role.getMembers());
+        writer.attribute(ATTR_MODIFIED, role.getModified());
+        writer.attribute(ATTR_NAME, role.getName());
         List<RoleMember> roleMembers = role.getRoleMembers();
         if (roleMembers != null) {
-            Array roleMembersArray = new Array();
+            writer.name(ATTR_ROLE_MEMBERS);
+            writer.beginArray();
             for (RoleMember roleMember : roleMembers) {
-                Struct structRoleMember = new Struct();
-                appendObject(structRoleMember, ATTR_EXPIRATION, roleMember.getExpiration());
-                appendObject(structRoleMember, ATTR_MEMBER_NAME, roleMember.getMemberName());
-                appendObject(structRoleMember, ATTR_SYSTEM_DISABLED, roleMember.getSystemDisabled());
-                roleMembersArray.add(structRoleMember);
+                writer.beginObject();
+                writer.attribute(ATTR_EXPIRATION, roleMember.getExpiration());
+                writer.attribute(ATTR_MEMBER_NAME, roleMember.getMemberName());
+                writer.attribute(ATTR_SYSTEM_DISABLED, roleMember.getSystemDisabled());
+                writer.endObject();
             }
-            appendArray(struct, ATTR_ROLE_MEMBERS, roleMembersArray);
+            writer.endArray();
         }
-        appendObject(struct, ATTR_SELF_SERVE, role.getSelfServe());
-        appendObject(struct, ATTR_SERVICE_EXPIRY_DAYS, role.getServiceExpiryDays());
-        appendObject(struct, ATTR_SERVICE_REVIEW_DAYS, role.getServiceReviewDays());
-        appendObject(struct, ATTR_SIGN_ALGORITHM, role.getSignAlgorithm());
-        appendObject(struct, ATTR_TOKEN_EXPIRY_MINS, role.getTokenExpiryMins());
-        appendObject(struct, ATTR_TRUST, role.getTrust());
-        return struct;
+        writer.attribute(ATTR_SELF_SERVE, role.getSelfServe());
+        writer.attribute(ATTR_SERVICE_EXPIRY_DAYS, role.getServiceExpiryDays());
+        writer.attribute(ATTR_SERVICE_REVIEW_DAYS, role.getServiceReviewDays());
+        writer.attribute(ATTR_SIGN_ALGORITHM, role.getSignAlgorithm());
+        writer.attribute(ATTR_TOKEN_EXPIRY_MINS, role.getTokenExpiryMins());
+        writer.attribute(ATTR_TRUST, role.getTrust());
+        writer.endObject();
     }
 
-    private static Struct asStruct(Group group) {
-        // all of our fields are in canonical order based
-        // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_AUDIT_ENABLED, group.getAuditEnabled());
-        appendObject(struct, ATTR_MEMBER_EXPIRY_DAYS, group.getMemberExpiryDays());
+    private static void write(CanonicalWriter writer, Group group) {
+        writer.beginObject();
+        writer.attribute(ATTR_AUDIT_ENABLED, group.getAuditEnabled());
         List<GroupMember> groupMembers = group.getGroupMembers();
         if (groupMembers != null) {
-            Array groupMembersArray = new Array();
+            writer.name(ATTR_GROUP_MEMBERS);
+            writer.beginArray();
             for (GroupMember groupMember : groupMembers) {
-                Struct structRoleMember = new Struct();
-                appendObject(structRoleMember, ATTR_EXPIRATION, groupMember.getExpiration());
-                appendObject(structRoleMember, ATTR_GROUP_NAME, groupMember.getGroupName());
-                appendObject(structRoleMember, ATTR_MEMBER_NAME, groupMember.getMemberName());
-                appendObject(structRoleMember, ATTR_SYSTEM_DISABLED, groupMember.getSystemDisabled());
-                groupMembersArray.add(structRoleMember);
+                writer.beginObject();
+                writer.attribute(ATTR_EXPIRATION, groupMember.getExpiration());
+                writer.attribute(ATTR_GROUP_NAME, groupMember.getGroupName());
+                writer.attribute(ATTR_MEMBER_NAME, groupMember.getMemberName());
+                writer.attribute(ATTR_SYSTEM_DISABLED, groupMember.getSystemDisabled());
+                writer.endObject();
             }
-            appendArray(struct, ATTR_GROUP_MEMBERS, groupMembersArray);
+            writer.endArray();
         }
-        appendObject(struct, ATTR_MODIFIED, group.getModified());
-        appendObject(struct, ATTR_NAME, group.getName());
-        appendObject(struct, ATTR_REVIEW_ENABLED, group.getReviewEnabled());
-        appendObject(struct, ATTR_SELF_SERVE, group.getSelfServe());
-        appendObject(struct, ATTR_SERVICE_EXPIRY_DAYS, group.getServiceExpiryDays());
-        return struct;
+        writer.attribute(ATTR_MEMBER_EXPIRY_DAYS, group.getMemberExpiryDays());
+        writer.attribute(ATTR_MODIFIED, group.getModified());
+        writer.attribute(ATTR_NAME, group.getName());
+        writer.attribute(ATTR_REVIEW_ENABLED, group.getReviewEnabled());
+        writer.attribute(ATTR_SELF_SERVE, group.getSelfServe());
+        writer.attribute(ATTR_SERVICE_EXPIRY_DAYS, group.getServiceExpiryDays());
+        writer.endObject();
     }
 
-    private static Struct asStruct(ServiceIdentity service) {
-        // all of our fields are in canonical order based
-        // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_DESCRIPTION, service.getDescription());
-        appendObject(struct, ATTR_EXECUTABLE, service.getExecutable());
-        appendObject(struct, ATTR_GROUP, service.getGroup());
-        appendList(struct, ATTR_HOSTS, service.getHosts());
-        appendObject(struct, ATTR_MODIFIED, service.getModified());
-        appendObject(struct, ATTR_NAME, service.getName());
-        appendObject(struct, ATTR_PROVIDER_ENDPOINT, service.getProviderEndpoint());
+    private static void write(CanonicalWriter writer, ServiceIdentity service) {
+        writer.beginObject();
+        writer.attribute(ATTR_DESCRIPTION, service.getDescription());
+        writer.attribute(ATTR_EXECUTABLE, service.getExecutable());
+        writer.attribute(ATTR_GROUP, service.getGroup());
+        writer.attribute(ATTR_HOSTS, service.getHosts());
+        writer.attribute(ATTR_MODIFIED, service.getModified());
+        writer.attribute(ATTR_NAME, service.getName());
+        writer.attribute(ATTR_PROVIDER_ENDPOINT, service.getProviderEndpoint());
+        writer.name(ATTR_PUBLIC_KEYS);
+        writer.beginArray();
         List<PublicKeyEntry> publicKeys = service.getPublicKeys();
-        Array publicKeysArray = new Array();
         if (publicKeys != null) {
             for (PublicKeyEntry publicKey : publicKeys) {
-                Struct structPublicKey = new Struct();
-                appendObject(structPublicKey, ATTR_ID, publicKey.getId());
-                appendObject(structPublicKey, ATTR_KEY, publicKey.getKey());
-                publicKeysArray.add(structPublicKey);
+                writer.beginObject();
+                writer.attribute(ATTR_ID, publicKey.getId());
+                writer.attribute(ATTR_KEY, publicKey.getKey());
+                writer.endObject();
             }
         }
-        appendArray(struct, ATTR_PUBLIC_KEYS, publicKeysArray);
-        appendObject(struct, ATTR_USER, service.getUser());
-        return struct;
-    }
-    
-    private static void appendList(Struct struct, String name, List<String> list) {
-        if (list == null) {
-            return;
-        }
-        Array items = new Array();
-        items.addAll(list);
-        appendArray(struct, name, items);
+        writer.endArray();
+        writer.attribute(ATTR_USER, service.getUser());
+        writer.endObject();
     }
-    
-    private static void appendObject(Struct struct, String name, Object value) {
-        if (value == null) {
-            return;
-        }
-        if (value instanceof Struct) {
-            struct.append(name, value);
-        } else if (value instanceof String) {
-            struct.append(name, value);
-        } else if (value instanceof Integer) {
-            struct.append(name, value);
-        } else if (value instanceof Boolean) {
-            struct.append(name, value);
-        } else {
-            struct.append(name, value.toString());
-        }
-    }
-    
-    private static void appendArray(Struct struct, String name, Array array) {
-        struct.append(name, array);
-    }
-    
-    private static Object asStruct(PolicyData policyData) {
-        // all of our fields are in canonical order based
-        // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_DOMAIN, policyData.getDomain());
+
+    private static void write(CanonicalWriter writer, PolicyData policyData) {
+        writer.beginObject();
+        writer.attribute(ATTR_DOMAIN, policyData.getDomain());
+        writer.name(ATTR_POLICIES);
+        writer.beginArray();
         List<com.yahoo.athenz.zts.Policy> policies = policyData.getPolicies();
-        Array policiesArray = new Array();
         if (policies != null) {
             for (com.yahoo.athenz.zts.Policy policy : policies) {
-                policiesArray.add(asStruct(policy));
+                write(writer, policy);
             }
         }
-        appendArray(struct, ATTR_POLICIES, policiesArray);
-        return struct;
+        writer.endArray();
+        writer.endObject();
     }
-    
-    private static Object asStruct(SignedPolicyData signedPolicyData) {
-        // all of our fields are in canonical order based
-        // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_EXPIRES, signedPolicyData.getExpires());
-        appendObject(struct, ATTR_MODIFIED, signedPolicyData.getModified());
-        appendObject(struct, ATTR_POLICY_DATA, asStruct(signedPolicyData.getPolicyData()));
-        appendObject(struct, ATTR_ZMS_KEY_ID, signedPolicyData.getZmsKeyId());
-        appendObject(struct, ATTR_ZMS_SIGNATURE, signedPolicyData.getZmsSignature());
-        return struct;
+
+    private static void write(CanonicalWriter writer, SignedPolicyData signedPolicyData) {
+        writer.beginObject();
+        writer.attribute(ATTR_EXPIRES, signedPolicyData.getExpires());
+        writer.attribute(ATTR_MODIFIED, signedPolicyData.getModified());
+        writer.name(ATTR_POLICY_DATA);
+        write(writer, signedPolicyData.getPolicyData());
+        writer.attribute(ATTR_ZMS_KEY_ID, signedPolicyData.getZmsKeyId());
+        writer.attribute(ATTR_ZMS_SIGNATURE, signedPolicyData.getZmsSignature());
+        writer.endObject();
     }
-    
-    private static Struct asStruct(DomainData domainData) {
-        // all of our fields are in canonical order based
-        // on their attribute name
-        Struct struct = new Struct();
-        appendObject(struct, ATTR_ACCOUNT, domainData.getAccount());
-        appendObject(struct, ATTR_AUDIT_ENABLED, domainData.getAuditEnabled());
-        appendObject(struct, ATTR_CERT_DNS_DOMAIN, domainData.getCertDnsDomain());
-        appendObject(struct, ATTR_ENABLED, domainData.getEnabled());
-        if (domainData.getGroups() != null && !domainData.getGroups().isEmpty()) {
-            Array structGroups = new Array();
-            for (Group group : domainData.getGroups()) {
-                structGroups.add(asStruct(group));
+
+    private static void write(CanonicalWriter writer, DomainData domainData) {
+        writer.beginObject();
+        writer.attribute(ATTR_ACCOUNT, domainData.getAccount());
+        writer.attribute(ATTR_AUDIT_ENABLED, domainData.getAuditEnabled());
+        writer.attribute(ATTR_CERT_DNS_DOMAIN, domainData.getCertDnsDomain());
+        writer.attribute(ATTR_ENABLED, domainData.getEnabled());
+        List<Group> groups = domainData.getGroups();
+        if (groups != null && !groups.isEmpty()) {
+            writer.name(ATTR_GROUPS);
+            writer.beginArray();
+            for (Group group : groups) {
+                write(writer, group);
             }
-            appendArray(struct, ATTR_GROUPS, structGroups);
+            writer.endArray();
         }
-        appendObject(struct, ATTR_MEMBER_EXPIRY_DAYS, domainData.getMemberExpiryDays());
-        appendObject(struct, ATTR_MODIFIED, domainData.getModified());
-        appendObject(struct, ATTR_NAME, domainData.getName());
+        writer.attribute(ATTR_MEMBER_EXPIRY_DAYS, domainData.getMemberExpiryDays());
+        writer.attribute(ATTR_MODIFIED, domainData.getModified());
+        writer.attribute(ATTR_NAME, domainData.getName());
         SignedPolicies signedPolicies = domainData.getPolicies();
         if (signedPolicies != null) {
-            Struct structSignedPolicies = new Struct();
-            appendObject(structSignedPolicies, ATTR_CONTENTS, asStruct(signedPolicies.getContents()));
-            appendObject(structSignedPolicies, ATTR_KEYID, signedPolicies.getKeyId());
-            appendObject(struct, ATTR_POLICIES, structSignedPolicies);
-            appendObject(structSignedPolicies, ATTR_SIGNATURE, signedPolicies.getSignature());
+            writer.name(ATTR_POLICIES);
+            writer.beginObject();
+            writer.name(ATTR_CONTENTS);
+            write(writer, signedPolicies.getContents());
+            writer.attribute(ATTR_KEYID, signedPolicies.getKeyId());
+            writer.attribute(ATTR_SIGNATURE, signedPolicies.getSignature());
+            writer.endObject();
         }
-        appendObject(struct, ATTR_ROLE_CERT_EXPIRY_MINS, domainData.getRoleCertExpiryMins());
-        Array structRoles = new Array();
+        writer.attribute(ATTR_ROLE_CERT_EXPIRY_MINS, domainData.getRoleCertExpiryMins());
+        writer.name(ATTR_ROLES);
+        writer.beginArray();
         if (domainData.getRoles() != null) {
             for (Role role : domainData.getRoles()) {
-                structRoles.add(asStruct(role));
+                write(writer, role);
             }
         }
-        appendArray(struct, ATTR_ROLES, structRoles);
-        Array structServices = new Array();
+        writer.endArray();
+        writer.attribute(ATTR_SERVICE_CERT_EXPIRY_MINS, domainData.getServiceCertExpiryMins());
+        writer.attribute(ATTR_SERVICE_EXPIRY_DAYS, domainData.getServiceExpiryDays());
+        writer.name(ATTR_SERVICES);
+        writer.beginArray();
         if (domainData.getServices() != null) {
             for (ServiceIdentity service : domainData.getServices()) {
-                structServices.add(asStruct(service));
+                write(writer, service);
             }
         }
-        appendObject(struct, ATTR_SERVICE_CERT_EXPIRY_MINS, domainData.getServiceCertExpiryMins());
-        appendObject(struct, ATTR_SERVICE_EXPIRY_DAYS, domainData.getServiceExpiryDays());
-        appendArray(struct, ATTR_SERVICES, structServices);
-        appendObject(struct, ATTR_SIGN_ALGORITHM, domainData.getSignAlgorithm());
-        appendObject(struct, ATTR_TOKEN_EXPIRY_MINS, domainData.getTokenExpiryMins());
-        appendObject(struct, ATTR_YPMID, domainData.getYpmId());
-        return struct;
+        writer.endArray();
+        writer.attribute(ATTR_SIGN_ALGORITHM, domainData.getSignAlgorithm());
+        writer.attribute(ATTR_TOKEN_EXPIRY_MINS, domainData.getTokenExpiryMins());
+        writer.attribute(ATTR_YPMID, domainData.getYpmId());
+        writer.endObject();
     }
-    
-    private static void appendSeparator(StringBuilder strBuffer) {
-        // if we have more than a single character
-        // (which is our initial {/[ character) 
-        // in our buffer then we need to separate
-        // the item with a comma
-        if (strBuffer.length() != 1) {
-            strBuffer.append(',');
-        }
-    }
-    
-    static String asCanonicalString(Object obj) {
-        StringBuilder strBuffer = new StringBuilder();
+
+    private static void write(CanonicalWriter writer, Object obj) {
         if (obj instanceof Struct) {
             Struct struct = (Struct) obj;
-            strBuffer.append('{');
+            writer.beginObject();
             for (String name : struct.sortedNames()) {
-                appendSeparator(strBuffer);
-                strBuffer.append('"');
-                strBuffer.append(name);
-                strBuffer.append("\":");
-                strBuffer.append(asCanonicalString(struct.get(name)));
+                writer.name(name);
+                write(writer, struct.get(name));
             }
-            strBuffer.append('}');
+            writer.endObject();
         } else if (obj instanceof Array) {
-            strBuffer.append('[');
+            writer.beginArray();
             for (Object item : (Array) obj) {
-                appendSeparator(strBuffer);
-                strBuffer.append(asCanonicalString(item));
+                write(writer, item);
             }
-            strBuffer.append(']');
+            writer.endArray();
         } else if (obj instanceof String) {
-            strBuffer.append('"');
-            strBuffer.append(obj);
-            strBuffer.append('"');
-        } else if (obj instanceof Integer) {
-            strBuffer.append(obj);
-        } else if (obj instanceof Long) {
-            strBuffer.append(obj);
-        } else if (obj instanceof Boolean) {
-            strBuffer.append(obj);
+            writer.string((String) obj);
         } else {
-            strBuffer.append(obj.toString());
+            writer.raw(obj);
+        }
+    }
+
+    private static CanonicalWriter getWriter() {
+        StringBuilder buf = TLS_BUILDER.get();
+        buf.setLength(0);
+        return new CanonicalWriter(buf);
+    }
+
+    private static String getCanonicalString(CanonicalWriter writer) {
+        final String value = writer.buf.toString();
+        if (writer.buf.capacity() > MAX_REUSE_BUFFER_SIZE) {
+            TLS_BUILDER.remove();
         }
-        return strBuffer.toString();
+        return value;
+    }
+
+    static String asCanonicalString(Object obj) {
+        CanonicalWriter writer = getWriter();
+        write(writer, obj);
+        return getCanonicalString(writer);
     }
-    
+
     public static String asCanonicalString(PolicyData policyData) {
-        return asCanonicalString(asStruct(policyData));
+        CanonicalWriter writer = getWriter();
+        write(writer, policyData);
+        return getCanonicalString(writer);
     }
-    
+
     public static String asCanonicalString(DomainData domainData) {
-        return asCanonicalString(asStruct(domainData));
+        CanonicalWriter writer = getWriter();
+        write(writer, domainData);
+        return getCanonicalString(writer);
     }
-    
+
     public static String asCanonicalString(DomainPolicies domainPolicies) {
-        return asCanonicalString(asStruct(domainPolicies));
+        CanonicalWriter writer = getWriter();
+        write(writer, domainPolicies);
+        return getCanonicalString(writer);
     }
-    
+
     public static String asCanonicalString(SignedPolicyData signedPolicyData) {
-        return asCanonicalString(asStruct(signedPolicyData));
+        CanonicalWriter writer = getWriter();
+        write(writer, signedPolicyData);
+        return getCanonicalString(writer);
     }
 }
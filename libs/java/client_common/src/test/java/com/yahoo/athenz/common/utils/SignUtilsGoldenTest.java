@@ -0,0 +1,191 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.utils;
+
+import com.yahoo.athenz.zms.*;
+import com.yahoo.athenz.zts.PolicyData;
+import com.yahoo.athenz.zts.SignedPolicyData;
+import com.yahoo.rdl.Timestamp;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+/**
+ * The canonical strings generated for the objects below must match
+ * byte for byte the golden files in the src/test/resources/canonical
+ * directory. These files were generated with the original struct based
+ * implementation and must never be updated since any change in the
+ * output would break signature validation between different versions
+ * of ZMS, ZTS and ZPE clients.
+ */
+public class SignUtilsGoldenTest {
+
+    private static final Timestamp MODIFIED = Timestamp.fromMillis(1577836800123L);
+    private static final Timestamp EXPIRES = Timestamp.fromMillis(1893456000456L);
+
+    static String readGoldenFile(final String name) throws IOException {
+        return new String(Files.readAllBytes(Paths.get("src/test/resources/canonical/" + name)),
+                StandardCharsets.UTF_8);
+    }
+
+    static List<Assertion> createAssertions(final String domainName) {
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(new Assertion().setAction("read").setEffect(AssertionEffect.ALLOW)
+                .setResource(domainName + ":data.*").setRole(domainName + ":role.readers"));
+        assertions.add(new Assertion().setAction("*").setEffect(AssertionEffect.DENY)
+                .setResource(domainName + ":secret").setRole(domainName + ":role.guests").setId(101L));
+        assertions.add(new Assertion().setAction("update").setResource(domainName + ":data.ü\"q")
+                .setRole(domainName + ":role.writers"));
+        return assertions;
+    }
+
+    static DomainPolicies createDomainPolicies(final String domainName) {
+        List<Policy> policies = new ArrayList<>();
+        policies.add(new Policy().setName(domainName + ":policy.admin").setModified(MODIFIED)
+                .setAssertions(createAssertions(domainName)).setActive(true).setVersion("0"));
+        policies.add(new Policy().setName(domainName + ":policy.empty").setAssertions(Collections.emptyList()));
+        policies.add(new Policy().setName(domainName + ":policy.noassertions"));
+        return new DomainPolicies().setDomain(domainName).setPolicies(policies);
+    }
+
+    static PolicyData createPolicyData(final String domainName) {
+        List<com.yahoo.athenz.zts.Assertion> assertions = new ArrayList<>();
+        assertions.add(new com.yahoo.athenz.zts.Assertion().setAction("read")
+                .setEffect(com.yahoo.athenz.zts.AssertionEffect.ALLOW)
+                .setResource(domainName + ":data.*").setRole(domainName + ":role.readers"));
+        assertions.add(new com.yahoo.athenz.zts.Assertion().setAction("write")
+                .setEffect(com.yahoo.athenz.zts.AssertionEffect.DENY)
+                .setResource(domainName + ":data.ü").setRole(domainName + ":role.guests"));
+        List<com.yahoo.athenz.zts.Policy> policies = new ArrayList<>();
+        policies.add(new com.yahoo.athenz.zts.Policy().setName(domainName + ":policy.admin")
+                .setModified(MODIFIED).setAssertions(assertions));
+        policies.add(new com.yahoo.athenz.zts.Policy().setName(domainName + ":policy.empty")
+                .setAssertions(Collections.emptyList()));
+        return new PolicyData().setDomain(domainName).setPolicies(policies);
+    }
+
+    static DomainData createDomainData(final String domainName) {
+
+        List<Role> roles = new ArrayList<>();
+        List<RoleMember> roleMembers = new ArrayList<>();
+        roleMembers.add(new RoleMember().setMemberName("user.joe").setExpiration(EXPIRES));
+        roleMembers.add(new RoleMember().setMemberName("user.jane").setSystemDisabled(1)
+                .setReviewReminder(EXPIRES));
+        roleMembers.add(new RoleMember().setMemberName("coretech:group.dev-team"));
+        roles.add(new Role().setName(domainName + ":role.admin").setModified(MODIFIED)
+                .setRoleMembers(roleMembers).setAuditEnabled(true).setSelfServe(false)
+                .setCertExpiryMins(10).setMemberExpiryDays(20).setMemberReviewDays(30)
+                .setServiceExpiryDays(40).setServiceReviewDays(50).setTokenExpiryMins(60)
+                .setSignAlgorithm("ec").setReviewEnabled(true).setGroupExpiryDays(70));
+        roles.add(new Role().setName(domainName + ":role.trusted").setTrust("sys.auth"));
+        roles.add(new Role().setName(domainName + ":role.legacy")
+                .setMembers(Arrays.asList("user.joe", "user.jane")));
+        roles.add(new Role().setName(domainName + ":role.empty").setRoleMembers(Collections.emptyList()));
+
+        List<Group> groups = new ArrayList<>();
+        List<GroupMember> groupMembers = new ArrayList<>();
+        groupMembers.add(new GroupMember().setMemberName("user.joe").setGroupName(domainName + ":group.dev-team")
+                .setExpiration(EXPIRES));
+        groupMembers.add(new GroupMember().setMemberName("sports.api").setSystemDisabled(0));
+        groups.add(new Group().setName(domainName + ":group.dev-team").setModified(MODIFIED)
+                .setGroupMembers(groupMembers).setAuditEnabled(false).setReviewEnabled(true)
+                .setSelfServe(true).setMemberExpiryDays(15).setServiceExpiryDays(25));
+        groups.add(new Group().setName(domainName + ":group.empty"));
+
+        List<ServiceIdentity> services = new ArrayList<>();
+        List<PublicKeyEntry> publicKeys = new ArrayList<>();
+        publicKeys.add(new PublicKeyEntry().setId("0").setKey("LS0tLS1CRUdJTi"));
+        publicKeys.add(new PublicKeyEntry().setId("1").setKey("LS0tLS1CRUdJTj"));
+        services.add(new ServiceIdentity().setName(domainName + ".api").setModified(MODIFIED)
+                .setDescription("api service").setExecutable("/usr/bin/api").setGroup("users")
+                .setUser("nobody").setHosts(Arrays.asList("host1.athenz.io", "host2.athenz.io"))
+                .setProviderEndpoint("https://provider.athenz.io").setPublicKeys(publicKeys));
+        services.add(new ServiceIdentity().setName(domainName + ".backend"));
+
+        SignedPolicies signedPolicies = new SignedPolicies().setContents(createDomainPolicies(domainName))
+                .setKeyId("zms.0").setSignature("signature-value");
+
+        return new DomainData().setName(domainName).setModified(MODIFIED).setEnabled(true)
+                .setAccount("123456789012").setYpmId(1001).setAuditEnabled(false)
+                .setCertDnsDomain("athenz.cloud").setMemberExpiryDays(90).setServiceExpiryDays(100)
+                .setTokenExpiryMins(120).setRoleCertExpiryMins(130).setServiceCertExpiryMins(140)
+                .setSignAlgorithm("rsa").setRoles(roles).setGroups(groups).setServices(services)
+                .setPolicies(signedPolicies).setDescription("not part of the canonical string")
+                .setOrg("athenz").setApplicationId("app-id");
+    }
+
+    @Test
+    public void testDomainDataGolden() throws IOException {
+        assertEquals(SignUtils.asCanonicalString(createDomainData("coretech")),
+                readGoldenFile("domain_data.txt"));
+    }
+
+    @Test
+    public void testDomainDataMinimalGolden() throws IOException {
+        assertEquals(SignUtils.asCanonicalString(new DomainData().setName("minimal")),
+                readGoldenFile("domain_data_minimal.txt"));
+    }
+
+    @Test
+    public void testDomainPoliciesGolden() throws IOException {
+        assertEquals(SignUtils.asCanonicalString(createDomainPolicies("coretech")),
+                readGoldenFile("domain_policies.txt"));
+    }
+
+    @Test
+    public void testPolicyDataGolden() throws IOException {
+        assertEquals(SignUtils.asCanonicalString(createPolicyData("coretech")),
+                readGoldenFile("policy_data.txt"));
+    }
+
+    @Test
+    public void testSignedPolicyDataGolden() throws IOException {
+        SignedPolicyData signedPolicyData = new SignedPolicyData().setPolicyData(createPolicyData("coretech"))
+                .setExpires(EXPIRES).setModified(MODIFIED).setZmsKeyId("zms.0").setZmsSignature("signature-value");
+        assertEquals(SignUtils.asCanonicalString(signedPolicyData),
+                readGoldenFile("signed_policy_data.txt"));
+    }
+
+    @Test
+    public void testLargeDomainData() {
+
+        // generate the same domain multiple times to verify that
+        // the reused per-thread buffer does not leak any data
+        // between calls including when it's over the reuse limit
+
+        DomainData domainData = createDomainData("large");
+        List<RoleMember> roleMembers = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            roleMembers.add(new RoleMember().setMemberName("user.user" + i).setExpiration(EXPIRES));
+        }
+        domainData.getRoles().add(new Role().setName("large:role.large").setRoleMembers(roleMembers));
+
+        final String check1 = SignUtils.asCanonicalString(domainData);
+        assertTrue(check1.length() > 1024 * 1024);
+        final String check2 = SignUtils.asCanonicalString(new DomainData().setName("minimal"));
+        assertEquals(check2, "{\"name\":\"minimal\",\"roles\":[],\"services\":[]}");
+        assertEquals(SignUtils.asCanonicalString(domainData), check1);
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.filter.impl;
+
+import com.yahoo.athenz.auth.util.Crypto;
+import com.yahoo.athenz.common.filter.RateLimit;
+import com.yahoo.athenz.common.server.util.config.ConfigManager;
+import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigBoolean;
+import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigCsv;
+import com.yahoo.athenz.common.server.util.config.dynamic.DynamicConfigLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Token bucket rate limiter that limits the number of requests each client
+ * can make to each api. A client is identified by the domain of the
+ * principal in its x.509 client certificate, or by its ip address if the
+ * request has no client certificate. The api is the configured path prefix
+ * that matches the request uri (or all requests if no prefixes are
+ * configured).
+ *
+ * Each client/api pair is hashed into a fixed array of buckets so the
+ * memory used does not depend on the number of clients. A bucket is a
+ * single long holding the theoretical arrival time of the next request
+ * (generic cell rate algorithm) that is updated with a compare-and-set,
+ * so the filter is lock-free and does not allocate per request. Clients
+ * that hash to the same bucket share their limit, so the number of buckets
+ * should be well above the expected number of active clients.
+ *
+ * The rate, burst and api paths are dynamic settings and take effect (with
+ * all buckets reset) when the configuration is reloaded. Rejected requests
+ * get a 429 response with a Retry-After header.
+ */
+public class TokenBucketRateLimit implements RateLimit {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TokenBucketRateLimit.class);
+
+    public static final String PROP_RATE_LIMIT_REQUESTS_PER_SECOND = "athenz.ratelimit.requests_per_second";
+    public static final String PROP_RATE_LIMIT_BURST = "athenz.ratelimit.burst";
+    public static final String PROP_RATE_LIMIT_API_PATHS = "athenz.ratelimit.api_paths";
+    public static final String PROP_RATE_LIMIT_KEY_PRINCIPAL_DOMAIN = "athenz.ratelimit.key_principal_domain";
+    public static final String PROP_RATE_LIMIT_BUCKET_COUNT = "athenz.ratelimit.bucket_count";
+
+    static final String ATTR_X509_CERTIFICATE = "javax.servlet.request.X509Certificate";
+    static final String ALL_APIS = "*";
+    static final int HTTP_TOO_MANY_REQUESTS = 429;
+    static final String TOO_MANY_REQUESTS_RESPONSE = "{\"code\":429,\"message\":\"Too Many Requests\"}";
+
+    private static final int CERT_CACHE_SIZE = 1024;
+
+    private final DynamicConfigLong requestsPerSecond;
+    private final DynamicConfigLong burst;
+    private final DynamicConfigCsv apiPaths;
+    private final DynamicConfigBoolean keyPrincipalDomain;
+
+    private final AtomicLongArray buckets;
+    private final int bucketMask;
+    private final AtomicReferenceArray<CertDomain> certDomains = new AtomicReferenceArray<>(CERT_CACHE_SIZE);
+    private final long startTime = System.nanoTime();
+    private volatile Limits limits;
+
+    public TokenBucketRateLimit(ConfigManager configManager) {
+
+        // the number of buckets is rounded up to a power of two so we
+        // can map the hash into the array with a simple mask
+
+        int bucketCount = Integer.parseInt(System.getProperty(PROP_RATE_LIMIT_BUCKET_COUNT, "65536"));
+        bucketCount = Integer.highestOneBit(Math.max(bucketCount - 1, 1)) << 1;
+        buckets = new AtomicLongArray(bucketCount);
+        bucketMask = bucketCount - 1;
+
+        requestsPerSecond = new DynamicConfigLong(configManager, PROP_RATE_LIMIT_REQUESTS_PER_SECOND, 0L, 0L, Long.MAX_VALUE);
+        burst = new DynamicConfigLong(configManager, PROP_RATE_LIMIT_BURST, 0L, 0L, Long.MAX_VALUE);
+        apiPaths = new DynamicConfigCsv(configManager, PROP_RATE_LIMIT_API_PATHS, "");
+        keyPrincipalDomain = new DynamicConfigBoolean(configManager, PROP_RATE_LIMIT_KEY_PRINCIPAL_DOMAIN, true);
+
+        // the change callbacks are not called in any specific order so the
+        // api paths callback might run before the csv list is updated. we
+        // always parse the api paths from the raw value, which is updated
+        // before any of the callbacks are called
+
+        requestsPerSecond.registerChangeCallback((newValue, oldValue, config) -> updateLimits(apiPaths.get()));
+        burst.registerChangeCallback((newValue, oldValue, config) -> updateLimits(apiPaths.get()));
+        apiPaths.registerChangeCallback((newValue, oldValue, config) -> updateLimits(newValue));
+        updateLimits(apiPaths.get());
+    }
+
+    void updateLimits(final String apiPathsValue) {
+
+        final long rate = requestsPerSecond.get();
+        if (rate <= 0) {
+            limits = null;
+            LOG.info("Rate limit disabled");
+            return;
+        }
+
+        final long burstSize = Math.max(burst.get(), 1);
+        final long interval = Math.max(TimeUnit.SECONDS.toNanos(1) / rate, 1);
+        final List<String> paths = parseApiPaths(apiPathsValue);
+
+        // reset the buckets so clients that were throttled with
+        // the previous limits are not held back by their old state
+
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        limits = new Limits(interval, interval * (burstSize - 1), paths.toArray(new String[0]));
+        LOG.info("Rate limit: {} requests per second with burst {} for apis: {}", rate, burstSize,
+                paths.isEmpty() ? ALL_APIS : paths);
+    }
+
+    /**
+     * Split the comma separated api paths the same way as DynamicConfigCsv:
+     * items are trimmed and empty items are ignored
+     * @param apiPathsValue comma separated list of api paths
+     * @return list of api paths
+     */
+    static List<String> parseApiPaths(final String apiPathsValue) {
+
+        List<String> paths = new ArrayList<>();
+        if (apiPathsValue == null) {
+            return paths;
+        }
+        for (String path : apiPathsValue.split(",")) {
+            path = path.trim();
+            if (!path.isEmpty()) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    @Override
+    public boolean filter(ServletRequest servletRequest, ServletResponse servletResponse) {
+
+        final Limits current = limits;
+        if (current == null || !(servletRequest instanceof HttpServletRequest)) {
+            return false;
+        }
+
+        final HttpServletRequest request = (HttpServletRequest) servletRequest;
+        final String api = getApiName(request.getRequestURI(), current.apiPaths);
+        if (api == null) {
+            return false;
+        }
+
+        final String client = getClientKey(request);
+        final long waitTime = acquire(getBucket(api, client), now(), current);
+        if (waitTime == 0) {
+            return false;
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Rate limit exceeded for client: {} api: {}", client, api);
+        }
+        sendTooManyRequests((HttpServletResponse) servletResponse, waitTime);
+        return true;
+    }
+
+    long now() {
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * Take a token from the given bucket
+     * @param bucket bucket index
+     * @param now current time in nanos since the limiter was created
+     * @param current configured limits
+     * @return 0 if the request is allowed, otherwise the number of nanos
+     *      until the next request from the client would be allowed
+     */
+    long acquire(int bucket, long now, final Limits current) {
+
+        while (true) {
+            final long arrivalTime = buckets.get(bucket);
+            final long nextArrivalTime = Math.max(arrivalTime, now);
+            final long delay = nextArrivalTime - now - current.tolerance;
+            if (delay > 0) {
+                return delay;
+            }
+            if (buckets.compareAndSet(bucket, arrivalTime, nextArrivalTime + current.interval)) {
+                return 0;
+            }
+        }
+    }
+
+    int getBucket(final String api, final String client) {
+        int hash = api.hashCode() * 31 + client.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        return hash & bucketMask;
+    }
+
+    String getApiName(final String uri, final String[] paths) {
+
+        if (paths.length == 0) {
+            return ALL_APIS;
+        }
+        if (uri == null) {
+            return null;
+        }
+        for (String path : paths) {
+            if (uri.startsWith(path)) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    String getClientKey(final HttpServletRequest request) {
+
+        if (keyPrincipalDomain.get()) {
+            final Object certs = request.getAttribute(ATTR_X509_CERTIFICATE);
+            if (certs instanceof X509Certificate[] && ((X509Certificate[]) certs).length > 0) {
+                final String domain = getPrincipalDomain(((X509Certificate[]) certs)[0]);
+                if (domain != null) {
+                    return domain;
+                }
+            }
+        }
+        final String remoteAddr = request.getRemoteAddr();
+        return remoteAddr == null ? "" : remoteAddr;
+    }
+
+    /**
+     * Extract the principal domain from the certificate common name. The
+     * container returns the same certificate object for all requests over
+     * a tls session, so we cache the result by identity to avoid parsing
+     * the subject on every request.
+     */
+    String getPrincipalDomain(X509Certificate cert) {
+
+        final int index = System.identityHashCode(cert) & (CERT_CACHE_SIZE - 1);
+        final CertDomain cached = certDomains.get(index);
+        if (cached != null && cached.cert == cert) {
+            return cached.domain;
+        }
+
+        String domain = null;
+        try {
+            final String cn = Crypto.extractX509CertCommonName(cert);
+            if (cn != null) {
+                final int idx = cn.lastIndexOf('.');
+                domain = idx > 0 ? cn.substring(0, idx) : cn;
+            }
+        } catch (Exception ex) {
+            LOG.debug("Unable to extract common name from certificate: {}", ex.getMessage());
+        }
+        certDomains.set(index, new CertDomain(cert, domain));
+        return domain;
+    }
+
+    void sendTooManyRequests(HttpServletResponse response, long waitTime) {
+
+        // the retry after header value is in seconds, rounded up
+
+        final long retryAfter = Math.max(1, (waitTime + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        try {
+            response.setStatus(HTTP_TOO_MANY_REQUESTS);
+            response.setHeader("Retry-After", Long.toString(retryAfter));
+            response.setContentType("application/json");
+            response.getWriter().write(TOO_MANY_REQUESTS_RESPONSE);
+        } catch (IOException ex) {
+            LOG.error("Unable to write rate limit response: {}", ex.getMessage());
+        }
+    }
+
+    static final class Limits {
+
+        final long interval;
+        final long tolerance;
+        final String[] apiPaths;
+
+        Limits(long interval, long tolerance, String[] apiPaths) {
+            this.interval = interval;
+            this.tolerance = tolerance;
+            this.apiPaths = apiPaths;
+        }
+    }
+
+    static final class CertDomain {
+
+        final X509Certificate cert;
+        final String domain;
+
+        CertDomain(X509Certificate cert, String domain) {
+            this.cert = cert;
+            this.domain = domain;
+        }
+    }
+}
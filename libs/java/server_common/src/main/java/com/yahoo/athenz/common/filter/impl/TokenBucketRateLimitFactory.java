@@ -0,0 +1,30 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.yahoo.athenz.common.filter.impl;
+
+import com.yahoo.athenz.common.filter.RateLimit;
+import com.yahoo.athenz.common.filter.RateLimitFactory;
+
+import static com.yahoo.athenz.common.server.util.config.ConfigManagerSingleton.CONFIG_MANAGER;
+
+public class TokenBucketRateLimitFactory implements RateLimitFactory {
+
+    @Override
+    public RateLimit create() {
+        return new TokenBucketRateLimit(CONFIG_MANAGER);
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.messaging;
+
+import com.yahoo.athenz.common.metrics.Metric;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ChangePublisher} that queues the messages and publishes them
+ * from a background thread so the caller never waits for the messaging
+ * system. Messages are taken from a bounded queue in batches and sent
+ * with {@link ChangePublisher#publishAsync} to the given publisher with
+ * a limit on the number of messages waiting for acknowledgement. If the
+ * queue is full, the configured overflow policy determines whether the
+ * caller waits (up to the block timeout) or a message is dropped.
+ * The following metrics are reported with the publisher name:
+ * domain_change_publish_lag (time from queuing a message until it is
+ * acknowledged, failed or dropped), domain_change_publish_success,
+ * domain_change_publish_failure, domain_change_publish_dropped and the
+ * domain_change_publish_queue_depth gauge which is updated whenever
+ * messages are added to or taken from the queue.
+ * @param <T> message type
+ */
+public class AsyncChangePublisher<T> implements ChangePublisher<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncChangePublisher.class);
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP_NEWEST,
+        DROP_OLDEST
+    }
+
+    static final String METRIC_PUBLISH_LAG = "domain_change_publish_lag";
+    static final String METRIC_SUCCESS = "domain_change_publish_success";
+    static final String METRIC_FAILURE = "domain_change_publish_failure";
+    static final String METRIC_DROPPED = "domain_change_publish_dropped";
+    static final String METRIC_QUEUE_DEPTH = "domain_change_publish_queue_depth";
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final ChangePublisher<T> publisher;
+    private final String name;
+    private final Metric metric;
+    private final BlockingQueue<PendingMessage<T>> queue;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final Thread publisherThread;
+    private volatile boolean running = true;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong lastPublishLag = new AtomicLong();
+
+    /**
+     * Create a new async publisher and start its publishing thread
+     * @param publisher publisher used to send the messages
+     * @param name name of the publisher (e.g. topic name) used in metrics and logs
+     * @param metric metric object to report publishing stats
+     * @param queueSize maximum number of messages waiting to be published
+     * @param batchSize maximum number of messages taken from the queue at once
+     * @param maxInFlight maximum number of messages waiting for acknowledgement
+     * @param overflowPolicy policy to apply when the queue is full
+     * @param blockTimeoutMs how long to wait for space in the queue with the BLOCK policy
+     */
+    public AsyncChangePublisher(ChangePublisher<T> publisher, final String name, Metric metric,
+            int queueSize, int batchSize, int maxInFlight, OverflowPolicy overflowPolicy, long blockTimeoutMs) {
+
+        if (queueSize <= 0 || batchSize <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("invalid async publisher queue settings");
+        }
+
+        this.publisher = publisher;
+        this.name = name;
+        this.metric = metric;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+
+        publisherThread = new Thread(this::processQueue, "async-change-publisher-" + name);
+        publisherThread.setDaemon(true);
+        publisherThread.start();
+    }
+
+    public ChangePublisher<T> getPublisher() {
+        return publisher;
+    }
+
+    @Override
+    public void publish(T message) {
+
+        if (!running) {
+            dropMessage(message);
+            return;
+        }
+
+        PendingMessage<T> pendingMessage = new PendingMessage<>(message,
+                metric.startTiming(METRIC_PUBLISH_LAG, name));
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (!queue.offer(pendingMessage, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        dropMessage(pendingMessage);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    dropMessage(pendingMessage);
+                }
+                break;
+            case DROP_NEWEST:
+                if (!queue.offer(pendingMessage)) {
+                    dropMessage(pendingMessage);
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(pendingMessage)) {
+                    PendingMessage<T> oldestMessage = queue.poll();
+                    if (oldestMessage != null) {
+                        dropMessage(oldestMessage);
+                    }
+                }
+                break;
+        }
+        reportQueueDepth();
+    }
+
+    @Override
+    public CompletableFuture<Void> publishAsync(T message) {
+        publish(message);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    void dropMessage(PendingMessage<T> pendingMessage) {
+        metric.stopTiming(pendingMessage.timerMetric);
+        dropMessage(pendingMessage.message);
+    }
+
+    void dropMessage(T message) {
+        droppedCount.incrementAndGet();
+        metric.increment(METRIC_DROPPED, name);
+        LOGGER.error("Publisher {}: dropping change message: {}", name, message);
+    }
+
+    void processQueue() {
+
+        List<PendingMessage<T>> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+
+            PendingMessage<T> pendingMessage;
+            try {
+                pendingMessage = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                if (!running) {
+                    continue;
+                }
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (pendingMessage == null) {
+                continue;
+            }
+
+            batch.add(pendingMessage);
+            queue.drainTo(batch, batchSize - 1);
+            reportQueueDepth();
+
+            for (PendingMessage<T> message : batch) {
+                sendMessage(message);
+            }
+            batch.clear();
+        }
+    }
+
+    void sendMessage(PendingMessage<T> pendingMessage) {
+
+        // wait until the number of messages waiting for
+        // acknowledgement is below our configured limit
+
+        inFlight.acquireUninterruptibly();
+
+        CompletableFuture<Void> future;
+        try {
+            future = publisher.publishAsync(pendingMessage.message);
+        } catch (Exception ex) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+        }
+        future.whenComplete((result, ex) -> completeMessage(pendingMessage, ex));
+    }
+
+    void completeMessage(PendingMessage<T> pendingMessage, Throwable ex) {
+
+        inFlight.release();
+        metric.stopTiming(pendingMessage.timerMetric);
+        if (ex != null) {
+            failedCount.incrementAndGet();
+            metric.increment(METRIC_FAILURE, name);
+            LOGGER.error("Publisher {}: unable to publish change message: {}", name, ex.getMessage());
+            return;
+        }
+
+        publishedCount.incrementAndGet();
+        lastPublishLag.set(System.currentTimeMillis() - pendingMessage.queuedTime);
+        metric.increment(METRIC_SUCCESS, name);
+    }
+
+    void reportQueueDepth() {
+        metric.setGauge(METRIC_QUEUE_DEPTH, name, queue.size());
+    }
+
+    /**
+     * @return number of messages waiting in the queue
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of messages sent but not yet acknowledged
+     */
+    public int getInFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * @return time in millis from queuing until acknowledgement of the last published message
+     */
+    public long getLastPublishLag() {
+        return lastPublishLag.get();
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Stop accepting new messages, publish all queued messages and
+     * wait up to the given timeout for them to be acknowledged before
+     * closing the publisher.
+     * @param timeoutMs maximum time to wait in millis
+     */
+    public void close(long timeoutMs) {
+
+        running = false;
+        try {
+            publisherThread.join(timeoutMs);
+            if (!inFlight.tryAcquire(maxInFlight, timeoutMs, TimeUnit.MILLISECONDS)) {
+                LOGGER.error("Publisher {}: closing with {} unacknowledged messages", name, getInFlightCount());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        publisherThread.interrupt();
+        publisher.close();
+    }
+
+    @Override
+    public void close() {
+        close(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    static class PendingMessage<T> {
+
+        final T message;
+        final Object timerMetric;
+        final long queuedTime;
+
+        PendingMessage(T message, Object timerMetric) {
+            this.message = message;
+            this.timerMetric = timerMetric;
+            this.queuedTime = System.currentTimeMillis();
+        }
+    }
+}
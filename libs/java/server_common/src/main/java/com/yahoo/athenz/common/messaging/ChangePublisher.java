@@ -16,6 +16,8 @@
 
 package com.yahoo.athenz.common.messaging;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * change publisher interface
  */
@@ -27,6 +29,18 @@ public interface ChangePublisher<T> {
      */
     void publish(T message);
 
+    /**
+     * Publishes a message of type T to the configured messaging system
+     * without waiting for the messaging system to acknowledge it. The
+     * default implementation publishes the message synchronously.
+     * @param message to be published
+     * @return future completed once the message has been published
+     */
+    default CompletableFuture<Void> publishAsync(T message) {
+        publish(message);
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Close the producer and releases resources allocated.
      */
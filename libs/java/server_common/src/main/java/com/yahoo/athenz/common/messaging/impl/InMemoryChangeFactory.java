@@ -0,0 +1,92 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.messaging.impl;
+
+import com.yahoo.athenz.auth.PrivateKeyStore;
+import com.yahoo.athenz.common.messaging.ChangePublisher;
+import com.yahoo.athenz.common.messaging.ChangePublisherFactory;
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import com.yahoo.athenz.common.messaging.ChangeSubscriberFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Publisher and subscriber factory for topics that only exist within the
+ * jvm. Every message published to a topic is delivered to all subscribers
+ * of that topic that are not closed, regardless of the subscription name
+ * and type. It allows the full change message flow between ZMS and ZTS to
+ * be tested without an external messaging system.
+ */
+public class InMemoryChangeFactory<T> implements ChangePublisherFactory<T>, ChangeSubscriberFactory<T> {
+
+    private static final Map<String, List<InMemoryChangeSubscriber<?>>> TOPICS = new ConcurrentHashMap<>();
+
+    @Override
+    public ChangePublisher<T> create(PrivateKeyStore keyStore, String topicName) {
+        return new InMemoryChangePublisher<>(topicName);
+    }
+
+    @Override
+    public ChangeSubscriber<T> create(PrivateKeyStore keyStore, String topicName, String subscriptionName,
+            String subscriptionType) {
+        InMemoryChangeSubscriber<T> subscriber = new InMemoryChangeSubscriber<>(topicName);
+        TOPICS.computeIfAbsent(topicName, k -> new CopyOnWriteArrayList<>()).add(subscriber);
+        return subscriber;
+    }
+
+    static void removeSubscriber(InMemoryChangeSubscriber<?> subscriber) {
+        List<InMemoryChangeSubscriber<?>> subscribers = TOPICS.get(subscriber.getTopicName());
+        if (subscribers != null) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> void publish(final String topicName, T message) {
+        List<InMemoryChangeSubscriber<?>> subscribers = TOPICS.get(topicName);
+        if (subscribers == null) {
+            return;
+        }
+        for (InMemoryChangeSubscriber<?> subscriber : subscribers) {
+            ((InMemoryChangeSubscriber<T>) subscriber).publish(message);
+        }
+    }
+
+    static class InMemoryChangePublisher<T> implements ChangePublisher<T> {
+
+        private final String topicName;
+        private volatile boolean closed = false;
+
+        InMemoryChangePublisher(final String topicName) {
+            this.topicName = topicName;
+        }
+
+        @Override
+        public void publish(T message) {
+            if (!closed) {
+                InMemoryChangeFactory.publish(topicName, message);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
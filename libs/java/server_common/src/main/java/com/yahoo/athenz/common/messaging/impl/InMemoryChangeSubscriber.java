@@ -0,0 +1,97 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.messaging.impl;
+
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * In-memory implementation of {@link ChangeSubscriber} that delivers
+ * messages published by the {@link InMemoryChangeFactory} publishers
+ * for the same topic within the same jvm. Messages are queued and passed
+ * to the processor by the thread executing the subscriber run method.
+ */
+public class InMemoryChangeSubscriber<T> implements ChangeSubscriber<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryChangeSubscriber.class);
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final String topicName;
+    private final BlockingQueue<T> messages = new LinkedBlockingQueue<>();
+    private Consumer<T> processor;
+    private volatile boolean closed = false;
+
+    public InMemoryChangeSubscriber(final String topicName) {
+        this.topicName = topicName;
+    }
+
+    public String getTopicName() {
+        return topicName;
+    }
+
+    @Override
+    public void init(Consumer<T> processor, Class<T> valueType) {
+        this.processor = processor;
+    }
+
+    /**
+     * Queue the given message for delivery to the processor
+     * @param message message to be delivered
+     */
+    public void publish(T message) {
+        if (!closed) {
+            messages.add(message);
+        }
+    }
+
+    /**
+     * @return number of messages waiting to be delivered
+     */
+    public int getPendingMessageCount() {
+        return messages.size();
+    }
+
+    @Override
+    public void run() {
+        while (!closed) {
+            try {
+                T message = messages.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (message != null) {
+                    processor.accept(message);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception ex) {
+                LOGGER.error("unable to process message from topic {}: {}", topicName, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        messages.clear();
+        InMemoryChangeFactory.removeSubscriber(this);
+    }
+}
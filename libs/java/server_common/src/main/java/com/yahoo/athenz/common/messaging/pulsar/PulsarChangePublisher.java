@@ -30,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.invoke.MethodHandles;
+import java.util.concurrent.CompletableFuture;
 
 public class PulsarChangePublisher<T> implements ChangePublisher<T> {
 
@@ -58,6 +59,23 @@ public class PulsarChangePublisher<T> implements ChangePublisher<T> {
     }
   }
 
+  @Override
+  public CompletableFuture<Void> publishAsync(T message) {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("producer: {}, publishing async message: {}", producer, message);
+    }
+    byte[] data;
+    try {
+      data = OBJECT_MAPPER.writeValueAsBytes(message);
+    } catch (JsonProcessingException e) {
+      LOG.error("Pulsar client was not able to serialize message. error: {}", e.getMessage(), e);
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      future.completeExceptionally(e);
+      return future;
+    }
+    return producer.sendAsync(data).thenApply(messageId -> null);
+  }
+
   @Override
   public void close() {
     try {
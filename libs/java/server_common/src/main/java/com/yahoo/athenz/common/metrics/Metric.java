@@ -195,6 +195,20 @@ public interface Metric {
         stopTiming(timerMetric);
     }
 
+    /**
+     * Set the current value of the specified gauge metric. Unlike
+     * counters the value is not accumulated and replaces the last
+     * reported value for the metric.
+     * @param metric Name of the gauge
+     * @param requestDomainName Name of the request domain. requestDomainName is
+     *      optional and can be passed as null to indicate that the gauge is
+     *      global and not per-domain
+     * @param value current value of the gauge
+     */
+    default void setGauge(String metric, String requestDomainName, long value) {
+        // No op
+    }
+
     /**
      * Flush any buffered metrics to destination.
      */
@@ -81,6 +81,10 @@ public class NoOpMetric implements Metric {
     public void stopTiming(Object timerMetric, String requestDomainName, String principalDomainName, String httpMethod, int httpStatus, String apiName) {
     }
 
+    @Override
+    public void setGauge(String metric, String requestDomainName, long value) {
+    }
+
     @Override
     public void flush() {
     }
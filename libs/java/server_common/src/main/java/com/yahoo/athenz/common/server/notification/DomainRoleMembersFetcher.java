@@ -19,17 +19,37 @@ package com.yahoo.athenz.common.server.notification;
 import com.yahoo.athenz.common.server.db.RolesProvider;
 import com.yahoo.athenz.zms.Role;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DomainRoleMembersFetcher {
     private final RolesProvider rolesProvider;
     private final DomainRoleMembersFetcherCommon domainRoleMembersFetcherCommon;
+    private final Map<String, Map<String, Set<String>>> domainRoleMembersCache;
 
     public DomainRoleMembersFetcher(RolesProvider rolesProvider, String userDomainPrefix) {
+        this(rolesProvider, userDomainPrefix, false);
+    }
+
+    /**
+     * Create a fetcher that optionally remembers the members of each
+     * domain role it has looked up. Notification tasks that create many
+     * notifications for the same domains during a run enable the cache
+     * and clear it at the end of each run with {@link #clearCache()}.
+     * @param rolesProvider provider used to look up the roles of a domain
+     * @param userDomainPrefix user domain prefix
+     * @param cacheEnabled true if the role members should be cached
+     */
+    public DomainRoleMembersFetcher(RolesProvider rolesProvider, String userDomainPrefix, boolean cacheEnabled) {
         this.rolesProvider = rolesProvider;
         this.domainRoleMembersFetcherCommon = new DomainRoleMembersFetcherCommon(userDomainPrefix);
+        this.domainRoleMembersCache = cacheEnabled ? new ConcurrentHashMap<>() : null;
+    }
+
+    public void clearCache() {
+        if (domainRoleMembersCache != null) {
+            domainRoleMembersCache.clear();
+        }
     }
 
     public Set<String> getDomainRoleMembers(String domainName, String roleName) {
@@ -37,6 +57,18 @@ public class DomainRoleMembersFetcher {
             return new HashSet<>();
         }
 
+        if (domainRoleMembersCache == null || domainName == null || roleName == null) {
+            return fetchDomainRoleMembers(domainName, roleName);
+        }
+
+        // the cached sets are shared between all notifications
+        // so we return them as read-only sets
+
+        return domainRoleMembersCache.computeIfAbsent(domainName, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(roleName, k -> Collections.unmodifiableSet(fetchDomainRoleMembers(domainName, roleName)));
+    }
+
+    private Set<String> fetchDomainRoleMembers(String domainName, String roleName) {
         List<Role> roles = rolesProvider.getRolesByDomain(domainName);
         if (roles == null) {
             return new HashSet<>();
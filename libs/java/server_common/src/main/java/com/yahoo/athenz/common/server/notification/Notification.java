@@ -79,6 +79,10 @@ public class Notification {
         return this;
     }
 
+    public NotificationToEmailConverter getNotificationToEmailConverter() {
+        return notificationToEmailConverter;
+    }
+
     public NotificationEmail getNotificationAsEmail() {
         if (notificationToEmailConverter != null) {
             return notificationToEmailConverter.getNotificationAsEmail(this);
@@ -91,6 +95,10 @@ public class Notification {
         return this;
     }
 
+    public NotificationToMetricConverter getNotificationToMetricConverter() {
+        return notificationToMetricConverter;
+    }
+
     public NotificationMetric getNotificationAsMetrics(Timestamp currentTime) {
         if (notificationToMetricConverter != null) {
             return notificationToMetricConverter.getNotificationAsMetrics(this, currentTime);
@@ -23,9 +23,8 @@ import com.yahoo.athenz.common.server.util.ResourceUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.function.BiFunction;
 
 /**
  * Common functionality for Notification Tasks.
@@ -120,6 +119,130 @@ public class NotificationCommon {
         }
     }
 
+    /**
+     * Merge the notifications that use the given email converter so that
+     * each recipient gets a single email for all of them. Each notification
+     * must have a name detail (e.g. the domain name) and an entries detail
+     * with the table rows separated by '|'. Recipients that receive the
+     * same set of notifications share one merged notification that lists
+     * all the names, with the rows of each notification passed through the
+     * entry qualifier (name and row as arguments) so they still identify
+     * their source once combined. Since the name detail of a merged
+     * notification is a comma separated list of names, the merged
+     * notifications covering more than one name use the given merged
+     * email converter while the others keep the original converter.
+     * The merged notifications only generate emails - the original
+     * notifications are kept without their email converter so the metrics
+     * are not changed. Notifications that do not need to be merged are
+     * returned as is.
+     * @param notifications list of notifications
+     * @param notificationToEmailConverter email converter of the notifications to merge
+     * @param mergedNotificationToEmailConverter email converter for notifications with multiple names
+     * @param nameKey details key of the notification name
+     * @param entriesKey details key of the notification table rows
+     * @param entryQualifier function to qualify a table row with its notification name
+     * @return list of notifications with the merged notifications added
+     */
+    public List<Notification> aggregateNotifications(List<Notification> notifications,
+                                                     NotificationToEmailConverter notificationToEmailConverter,
+                                                     NotificationToEmailConverter mergedNotificationToEmailConverter,
+                                                     final String nameKey,
+                                                     final String entriesKey,
+                                                     BiFunction<String, String, String> entryQualifier) {
+
+        if (notifications == null || notificationToEmailConverter == null
+                || mergedNotificationToEmailConverter == null) {
+            return notifications;
+        }
+
+        // first we're going to collect the notifications that
+        // each recipient is going to receive with our converter
+
+        List<Notification> candidates = new ArrayList<>();
+        Map<String, List<Integer>> recipientNotifications = new TreeMap<>();
+        for (Notification notification : notifications) {
+            if (notification == null || notification.getNotificationToEmailConverter() != notificationToEmailConverter
+                    || notification.getDetails() == null || notification.getDetails().get(nameKey) == null) {
+                continue;
+            }
+            final Integer index = candidates.size();
+            candidates.add(notification);
+            for (String recipient : notification.getRecipients()) {
+                recipientNotifications.computeIfAbsent(recipient, k -> new ArrayList<>()).add(index);
+            }
+        }
+
+        // recipients that receive the same notifications share
+        // a single merged notification
+
+        Map<List<Integer>, Set<String>> recipientGroups = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Integer>> entry : recipientNotifications.entrySet()) {
+            recipientGroups.computeIfAbsent(entry.getValue(), k -> new HashSet<>()).add(entry.getKey());
+        }
+
+        List<Notification> mergedNotifications = new ArrayList<>();
+        Set<Notification> replacedNotifications = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<List<Integer>, Set<String>> recipientGroup : recipientGroups.entrySet()) {
+
+            final List<Integer> indexes = recipientGroup.getKey();
+            final Set<String> recipients = recipientGroup.getValue();
+            if (indexes.size() == 1 && candidates.get(indexes.get(0)).getRecipients().equals(recipients)) {
+                continue;
+            }
+
+            StringBuilder names = new StringBuilder(256);
+            StringBuilder entries = new StringBuilder(256);
+            for (Integer index : indexes) {
+                Notification notification = candidates.get(index);
+                replacedNotifications.add(notification);
+
+                final String name = notification.getDetails().get(nameKey);
+                if (names.length() != 0) {
+                    names.append(", ");
+                }
+                names.append(name);
+
+                final String rows = notification.getDetails().get(entriesKey);
+                if (rows == null || rows.isEmpty()) {
+                    continue;
+                }
+                for (String row : rows.split("\\|")) {
+                    if (entries.length() != 0) {
+                        entries.append('|');
+                    }
+                    entries.append(indexes.size() == 1 ? row : entryQualifier.apply(name, row));
+                }
+            }
+
+            Notification mergedNotification = new Notification();
+            mergedNotification.setRecipients(recipients);
+            mergedNotification.addDetails(nameKey, names.toString());
+            mergedNotification.addDetails(entriesKey, entries.toString());
+            mergedNotification.setNotificationToEmailConverter(indexes.size() == 1 ?
+                    notificationToEmailConverter : mergedNotificationToEmailConverter);
+            mergedNotifications.add(mergedNotification);
+        }
+
+        if (mergedNotifications.isEmpty()) {
+            return notifications;
+        }
+
+        List<Notification> notificationList = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (!replacedNotifications.contains(notification)) {
+                notificationList.add(notification);
+            } else if (notification.getNotificationToMetricConverter() != null) {
+                notification.setNotificationToEmailConverter(null);
+                notificationList.add(notification);
+            }
+        }
+        notificationList.addAll(mergedNotifications);
+
+        LOGGER.info("Merged {} notifications into {} notifications", replacedNotifications.size(),
+                mergedNotifications.size());
+        return notificationList;
+    }
+
     public List<Notification> printNotificationDetailsToLog(List<Notification> notificationDetails, String description, Logger logger) {
         if (notificationDetails != null && notificationDetails.size() > 0) {
             StringBuilder detailsForLog = new StringBuilder();
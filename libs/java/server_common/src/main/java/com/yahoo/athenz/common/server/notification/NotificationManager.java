@@ -16,16 +16,18 @@
 
 package com.yahoo.athenz.common.server.notification;
 
+import com.google.common.util.concurrent.RateLimiter;
 import com.yahoo.athenz.auth.Authority;
 import org.eclipse.jetty.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+import static com.yahoo.athenz.common.server.notification.NotificationServiceConstants.NOTIFICATION_PROP_DELIVERY_QUEUE_SIZE;
 import static com.yahoo.athenz.common.server.notification.NotificationServiceConstants.NOTIFICATION_PROP_SERVICE_FACTORY_CLASS;
 
 public class NotificationManager {
@@ -33,6 +35,7 @@ public class NotificationManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(NotificationManager.class);
 
     private List<NotificationService> notificationServices = new ArrayList<>();
+    private final List<ServiceDelivery> serviceDeliveries = new ArrayList<>();
     private ScheduledExecutorService scheduledExecutor;
     private List<NotificationTask> notificationTasks;
     private final Authority notificationUserAuthority;
@@ -61,6 +64,15 @@ public class NotificationManager {
     }
 
     private void init() {
+
+        // each service gets its own delivery executor so a slow service
+        // (e.g. email) does not hold back the others
+
+        final int queueSize = Integer.parseInt(System.getProperty(NOTIFICATION_PROP_DELIVERY_QUEUE_SIZE, "1000"));
+        for (NotificationService notificationService : notificationServices) {
+            serviceDeliveries.add(new ServiceDelivery(notificationService, queueSize));
+        }
+
         if (enableScheduledNotifications()) {
             scheduledExecutor = Executors.newScheduledThreadPool(1);
             scheduledExecutor.scheduleAtFixedRate(new PeriodicNotificationsSender(), 0, 1, TimeUnit.DAYS);
@@ -83,16 +95,62 @@ public class NotificationManager {
         if (scheduledExecutor != null) {
             scheduledExecutor.shutdownNow();
         }
+        serviceDeliveries.forEach(ServiceDelivery::shutdown);
     }
 
+    /**
+     * Send the notifications generated while processing a request. These
+     * are delivered directly from the caller's thread, bypassing the
+     * per-service delivery queues, so the request is never blocked behind
+     * the notifications of a periodic notification task.
+     * @param notifications list of notifications to send
+     */
     public void sendNotifications(List<Notification> notifications) {
-        if (isNotificationFeatureAvailable()) {
+        if (isNotificationFeatureAvailable() && notifications != null) {
             notifications.stream().filter(Objects::nonNull).forEach(notification -> {
                 notificationServices.stream().filter(Objects::nonNull).forEach(service -> service.notify(notification));
             });
         }
     }
 
+    /**
+     * Deliver the notifications of a periodic notification task to all
+     * services and wait until all deliveries are completed. Each service
+     * processes the notifications in parallel up to its configured
+     * concurrency and rate.
+     * @param notifications list of notifications to deliver
+     * @return delivery stats
+     */
+    DeliveryStats deliverNotifications(List<Notification> notifications) {
+
+        DeliveryStats stats = new DeliveryStats();
+        if (notifications == null) {
+            return stats;
+        }
+
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (notification == null) {
+                continue;
+            }
+            for (ServiceDelivery serviceDelivery : serviceDeliveries) {
+
+                // notifications without a converter for the service
+                // (e.g. merged email notifications for the metric
+                // service) are skipped and not counted as failures
+
+                if (!serviceDelivery.isApplicable(notification)) {
+                    stats.notApplicable.increment();
+                    continue;
+                }
+                deliveries.add(serviceDelivery.submit(notification, stats));
+            }
+        }
+        CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0])).join();
+        stats.complete();
+        return stats;
+    }
+
     public boolean isNotificationFeatureAvailable () {
         return notificationServices != null && notificationServices.size() > 0;
     }
@@ -124,13 +182,12 @@ public class NotificationManager {
             for (NotificationTask notificationTask: notificationTasks) {
                 try {
                     List<Notification> notifications = notificationTask.getNotifications();
-                    notifications.stream()
-                            .filter(Objects::nonNull)
-                            .forEach(notification -> {
-                                notificationServices.forEach(service -> service.notify(notification));
-                            });
+                    DeliveryStats stats = deliverNotifications(notifications);
                     int numberOfNotificationsSent = (notifications != null) ? notifications.size() : 0;
-                    LOGGER.info("PeriodicNotificationsSender: Sent {} notifications of type {}.", numberOfNotificationsSent, notificationTask.getDescription());
+                    LOGGER.info("PeriodicNotificationsSender: Sent {} notifications of type {}. Deliveries: {} succeeded, {} failed, {} not applicable in {} ms ({} per second).",
+                            numberOfNotificationsSent, notificationTask.getDescription(), stats.getSucceeded(),
+                            stats.getFailed(), stats.getNotApplicable(), stats.getElapsedTime(),
+                            String.format("%.1f", stats.getThroughput()));
                 } catch (Throwable t) {
                     LOGGER.error(String.format("PeriodicNotificationsSender: unable to send %s: ", notificationTask.getDescription()), t);
                 }
@@ -139,4 +196,122 @@ public class NotificationManager {
             LOGGER.info("PeriodicNotificationsSender: completed");
         }
     }
+
+    /**
+     * Delivery stats of a list of notifications to all services
+     */
+    static class DeliveryStats {
+
+        private final long startTime = System.currentTimeMillis();
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder notApplicable = new LongAdder();
+        private long elapsedTime;
+
+        void complete() {
+            elapsedTime = System.currentTimeMillis() - startTime;
+        }
+
+        long getSucceeded() {
+            return succeeded.sum();
+        }
+
+        long getFailed() {
+            return failed.sum();
+        }
+
+        long getNotApplicable() {
+            return notApplicable.sum();
+        }
+
+        long getElapsedTime() {
+            return elapsedTime;
+        }
+
+        double getThroughput() {
+            final long deliveries = getSucceeded() + getFailed();
+            return (elapsedTime == 0) ? deliveries : deliveries * 1000.0 / elapsedTime;
+        }
+    }
+
+    /**
+     * Delivers notifications to a single service with a pool sized to the
+     * concurrency the service supports, an optional rate limit and a bounded
+     * number of queued notifications so the caller is blocked (rather than
+     * queueing all notifications of a run) when the service falls behind.
+     */
+    static class ServiceDelivery {
+
+        private final NotificationService service;
+        private final ExecutorService executor;
+        private final RateLimiter rateLimiter;
+        private final Semaphore queuePermits;
+
+        ServiceDelivery(NotificationService service, int queueSize) {
+
+            this.service = service;
+            final String serviceName = service.getClass().getSimpleName();
+            final int concurrency = Math.max(1, service.getMaxConcurrency());
+            final AtomicInteger threadCount = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+                Thread thread = new Thread(runnable, "notification-" + serviceName + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            final double maxRate = service.getMaxRate();
+            rateLimiter = (maxRate > 0) ? RateLimiter.create(maxRate) : null;
+            queuePermits = new Semaphore(Math.max(queueSize, concurrency));
+            LOGGER.info("Notification service {}: concurrency {}, rate limit {}", serviceName, concurrency,
+                    (rateLimiter == null) ? "none" : maxRate);
+        }
+
+        boolean isApplicable(Notification notification) {
+            try {
+                return service.isApplicable(notification);
+            } catch (Exception ex) {
+                LOGGER.error("Unable to check notification with {}", service.getClass().getSimpleName(), ex);
+                return true;
+            }
+        }
+
+        CompletableFuture<Void> submit(Notification notification, DeliveryStats stats) {
+
+            // once the manager is shutdown the notifications are
+            // delivered directly from the caller's thread
+
+            queuePermits.acquireUninterruptibly();
+            try {
+                return CompletableFuture.runAsync(() -> deliver(notification, stats), executor);
+            } catch (RejectedExecutionException ex) {
+                deliver(notification, stats);
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+
+        void deliver(Notification notification, DeliveryStats stats) {
+            try {
+                if (rateLimiter != null) {
+                    rateLimiter.acquire();
+                }
+                if (service.notify(notification)) {
+                    stats.succeeded.increment();
+                } else {
+                    stats.failed.increment();
+                }
+            } catch (Exception ex) {
+                stats.failed.increment();
+                LOGGER.error("Unable to deliver notification with {}", service.getClass().getSimpleName(), ex);
+            } finally {
+                queuePermits.release();
+            }
+        }
+
+        void shutdown() {
+
+            // already queued deliveries are still completed so
+            // callers waiting on them are not blocked forever
+
+            executor.shutdown();
+        }
+    }
 }
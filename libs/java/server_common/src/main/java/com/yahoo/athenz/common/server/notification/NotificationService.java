@@ -24,4 +24,32 @@ public interface NotificationService {
      * @return status of sent notification
      */
     boolean notify (Notification notification);
+
+    /**
+     * check if the service is able to deliver the given notification (e.g.
+     * the notification has a converter for the service's format). Deliveries
+     * of notifications that are not applicable are skipped and not reported
+     * as failures
+     * @param notification - notification to be sent
+     * @return true if the notification can be delivered, default true
+     */
+    default boolean isApplicable(Notification notification) {
+        return true;
+    }
+
+    /**
+     * maximum number of notifications the service can send concurrently
+     * @return number of notifications, default 1 (sequential delivery)
+     */
+    default int getMaxConcurrency() {
+        return 1;
+    }
+
+    /**
+     * maximum number of notifications per second the service can send
+     * @return notifications per second, default 0 (no limit)
+     */
+    default double getMaxRate() {
+        return 0;
+    }
 }
@@ -18,6 +18,9 @@ package com.yahoo.athenz.common.server.notification;
 
 public final class NotificationServiceConstants {
     public static final String NOTIFICATION_PROP_SERVICE_FACTORY_CLASS = "athenz.zms.notification_service_factory_class";
+    public static final String NOTIFICATION_PROP_DELIVERY_QUEUE_SIZE   = "athenz.notification_delivery_queue_size";
+    public static final String NOTIFICATION_PROP_EMAIL_MAX_CONCURRENCY = "athenz.notification_email_max_concurrency";
+    public static final String NOTIFICATION_PROP_EMAIL_MAX_RATE        = "athenz.notification_email_max_rate";
 
     public static final String NOTIFICATION_DETAILS_DOMAIN              = "domain";
     public static final String NOTIFICATION_DETAILS_ROLE                = "role";
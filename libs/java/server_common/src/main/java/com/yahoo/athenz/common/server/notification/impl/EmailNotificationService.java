@@ -57,6 +57,8 @@ public class EmailNotificationService implements NotificationService {
     private final EmailProvider emailProvider;
     private final String emailDomainFrom;
     private final String from;
+    private final int maxConcurrency;
+    private final double maxRate;
 
     private byte[] logoImage;
 
@@ -64,9 +66,24 @@ public class EmailNotificationService implements NotificationService {
         this.emailProvider = emailProvider;
         emailDomainFrom = System.getProperty(PROP_NOTIFICATION_EMAIL_DOMAIN_FROM);
         from = System.getProperty(PROP_NOTIFICATION_EMAIL_FROM);
+        // emails are sent one at a time unless the operator configures
+        // a higher concurrency (and a rate within the provider's limits)
+
+        maxConcurrency = Integer.parseInt(System.getProperty(NOTIFICATION_PROP_EMAIL_MAX_CONCURRENCY, "1"));
+        maxRate = Double.parseDouble(System.getProperty(NOTIFICATION_PROP_EMAIL_MAX_RATE, "0"));
         logoImage = readBinaryFromFile(EMAIL_TEMPLATE_ATHENZ_LOGO);
     }
 
+    @Override
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    @Override
+    public double getMaxRate() {
+        return maxRate;
+    }
+
     byte[] readBinaryFromFile(String fileName) {
 
         byte[] fileByteArray = null;
@@ -83,6 +100,11 @@ public class EmailNotificationService implements NotificationService {
         return fileByteArray;
     }
 
+    @Override
+    public boolean isApplicable(Notification notification) {
+        return notification != null && notification.getNotificationToEmailConverter() != null;
+    }
+
     @Override
     public boolean notify(Notification notification) {
         if (notification == null) {
@@ -102,6 +124,18 @@ public class EmailNotificationService implements NotificationService {
     }
 
     boolean sendEmail(Set<String> recipients, String subject, String body) {
+
+        // the message content is generated once and only the recipients
+        // are updated for each batch
+
+        MimeMessage mimeMessage;
+        try {
+            mimeMessage = getMimeMessage(subject, body, from + AT + emailDomainFrom, logoImage);
+        } catch (MessagingException ex) {
+            LOGGER.error("The email could not be sent. Error message: {}", ex.getMessage());
+            return false;
+        }
+
         final AtomicInteger counter = new AtomicInteger();
         // SES imposes a limit of 50 recipients. So we convert the recipients into batches
         if (recipients.size() > SES_RECIPIENTS_LIMIT_PER_MESSAGE) {
@@ -110,17 +144,17 @@ public class EmailNotificationService implements NotificationService {
                     .values();
             boolean status = true;
             for (List<String> recipientsSegment : recipientsBatch) {
-                if (!sendEmailMIME(subject, body, recipientsSegment)) {
+                if (!sendEmailMIME(mimeMessage, recipientsSegment)) {
                     status = false;
                 }
             }
             return status;
         } else {
-            return sendEmailMIME(subject, body, new ArrayList<>(recipients));
+            return sendEmailMIME(mimeMessage, new ArrayList<>(recipients));
         }
     }
 
-    private MimeMessage getMimeMessage(String subject, String body, Collection<String> recipients, String from, byte[] logoImage) throws MessagingException {
+    private MimeMessage getMimeMessage(String subject, String body, String from, byte[] logoImage) throws MessagingException {
         Session session = Session.getDefaultInstance(new Properties());
 
         // Create a new MimeMessage object.
@@ -129,7 +163,6 @@ public class EmailNotificationService implements NotificationService {
         // Add subject, from and to lines.
         message.setSubject(subject, CHARSET_UTF_8);
         message.setFrom(new InternetAddress(from));
-        message.setRecipients(jakarta.mail.Message.RecipientType.BCC, InternetAddress.parse(String.join(",", recipients)));
 
         // Set the HTML part.
         MimeBodyPart htmlPart = new MimeBodyPart();
@@ -156,10 +189,11 @@ public class EmailNotificationService implements NotificationService {
         return message;
     }
 
-    private boolean sendEmailMIME(String subject, String body, Collection<String> recipients) {
-        MimeMessage mimeMessage;
+    private boolean sendEmailMIME(MimeMessage mimeMessage, Collection<String> recipients) {
         try {
-            mimeMessage = getMimeMessage(subject, body, recipients, from + AT + emailDomainFrom, logoImage);
+            // saving the changes also generates a new message id for each batch
+            mimeMessage.setRecipients(jakarta.mail.Message.RecipientType.BCC, InternetAddress.parse(String.join(",", recipients)));
+            mimeMessage.saveChanges();
         } catch (MessagingException ex) {
             LOGGER.error("The email could not be sent. Error message: {}", ex.getMessage());
             return false;
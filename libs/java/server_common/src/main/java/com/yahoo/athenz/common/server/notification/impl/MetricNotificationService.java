@@ -49,6 +49,11 @@ public class MetricNotificationService implements NotificationService {
         this.metric = metric;
     }
 
+    @Override
+    public boolean isApplicable(Notification notification) {
+        return notification != null && notification.getNotificationToMetricConverter() != null;
+    }
+
     @Override
     public boolean notify(Notification notification) {
         NotificationMetric notificationAsMetrics = notification.getNotificationAsMetrics(Timestamp.fromMillis(System.currentTimeMillis()));
@@ -0,0 +1,467 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.store.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only segment file that keeps the records for all domains in a
+ * single file. Each update appends a new record for the domain and an index
+ * of the latest record for each domain is kept in memory. When the store
+ * is opened, the file is memory mapped and scanned sequentially to rebuild
+ * the index. Superseded records are removed by compacting the live records
+ * into a new segment file once they account for the configured percentage
+ * of the file. The segment is limited to 2GB since it's accessed through
+ * a single mapped buffer.
+ *
+ * Segment layout: magic (int), version (int) followed by records:
+ * length (int), crc32 (int), type (byte), name length (short), name, data
+ * where the length includes all the fields after the length field and the
+ * crc32 is calculated over the type, name and data fields.
+ */
+public class DomainSegmentStore implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DomainSegmentStore.class);
+
+    public static final byte RECORD_SIGNED_DOMAIN = 1;
+    public static final byte RECORD_JWS_DOMAIN    = 2;
+    static final byte RECORD_DELETE               = 3;
+
+    static final int SEGMENT_MAGIC   = 0x415a5347;
+    static final int SEGMENT_VERSION = 1;
+    static final int HEADER_SIZE     = 8;
+
+    // length, crc32, type and name length fields
+
+    static final int RECORD_OVERHEAD = 4 + 4 + 1 + 2;
+
+    private final Path segmentPath;
+    private final Path compactPath;
+    private final long compactMinSize;
+    private final int compactPercent;
+    private final Map<String, RecordLocation> index = new HashMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer mappedBuffer;
+    private long writePosition;
+    private long liveBytes;
+    private boolean truncated;
+
+    /**
+     * Open the segment file with the given name in the specified directory.
+     * If the file does not exist, a new empty segment is created.
+     * @param directory directory for the segment file
+     * @param name name of the segment file
+     * @param compactMinSize minimum size of the segment file before compaction is considered
+     * @param compactPercent percentage of superseded records in the segment to trigger compaction
+     */
+    public DomainSegmentStore(File directory, final String name, long compactMinSize, int compactPercent) {
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            ZMSFileChangeLogStoreCommon.error("cannot create specified root: " + directory);
+        }
+
+        segmentPath = new File(directory, name).toPath();
+        compactPath = new File(directory, name + ".compact").toPath();
+        this.compactMinSize = compactMinSize;
+        this.compactPercent = compactPercent;
+
+        try {
+            open();
+        } catch (IOException ex) {
+            ZMSFileChangeLogStoreCommon.error("unable to open segment file: " + segmentPath + " error: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Return the latest record for the given name
+     * @param name name of the record
+     * @return record or null if not present
+     */
+    public synchronized Record get(final String name) {
+
+        RecordLocation location = index.get(name);
+        if (location == null) {
+            return null;
+        }
+
+        // we only map the segment during the initial scan and
+        // after compaction so if the record was appended later
+        // we need to remap our segment before reading the data
+
+        try {
+            if (mappedBuffer == null || location.position + location.size > mappedBuffer.capacity()) {
+                mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, writePosition);
+            }
+        } catch (IOException ex) {
+            LOGGER.error("Unable to map segment file: {} error: {}", segmentPath, ex.getMessage());
+            return null;
+        }
+
+        ByteBuffer buffer = mappedBuffer.duplicate();
+        buffer.position((int) location.position + location.dataOffset);
+        byte[] data = new byte[location.size - location.dataOffset];
+        buffer.get(data);
+        return new Record(location.type, data);
+    }
+
+    /**
+     * Append a new record for the given name to the segment
+     * @param name name of the record
+     * @param type type of the record
+     * @param data record data
+     */
+    public synchronized void put(final String name, byte type, final byte[] data) {
+        appendRecord(name, type, data);
+        compactIfNeeded();
+    }
+
+    /**
+     * Append a delete record for the given name to the segment
+     * @param name name of the record
+     */
+    public synchronized void delete(final String name) {
+        if (!index.containsKey(name)) {
+            return;
+        }
+        appendRecord(name, RECORD_DELETE, new byte[0]);
+        compactIfNeeded();
+    }
+
+    /**
+     * @return the names of all the records in the segment
+     */
+    public synchronized List<String> getNames() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    public synchronized long getSegmentSize() {
+        return writePosition;
+    }
+
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * @return true if the segment was reset or truncated when it was
+     * opened because of an invalid header or record, thus some of the
+     * records that were previously written are no longer present
+     */
+    public synchronized boolean wasTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            LOGGER.error("Unable to close segment file: {} error: {}", segmentPath, ex.getMessage());
+        }
+        mappedBuffer = null;
+    }
+
+    void open() throws IOException {
+
+        final boolean newSegment = !Files.exists(segmentPath);
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (newSegment) {
+            setupFilePermissions(segmentPath);
+        }
+
+        index.clear();
+        liveBytes = 0;
+        mappedBuffer = null;
+        truncated = false;
+
+        final long size = channel.size();
+        if (size < HEADER_SIZE) {
+            writeHeader(channel);
+            writePosition = HEADER_SIZE;
+            return;
+        }
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("segment file too large: " + size);
+        }
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (buffer.getInt(0) != SEGMENT_MAGIC || buffer.getInt(4) != SEGMENT_VERSION) {
+            LOGGER.error("Invalid segment file header: {}, resetting segment", segmentPath);
+            channel.truncate(0);
+            truncated = true;
+            writeHeader(channel);
+            writePosition = HEADER_SIZE;
+            return;
+        }
+
+        // scan all the records and keep track of the last record
+        // for each name. if we come across an invalid record (e.g.
+        // partially written record during a crash) we'll truncate
+        // the segment at that point
+
+        int position = HEADER_SIZE;
+        while (position < size) {
+            int recordSize = scanRecord(buffer, position, (int) size);
+            if (recordSize == -1) {
+                LOGGER.error("Invalid record at offset {} in segment file: {}, truncating segment",
+                        position, segmentPath);
+                channel.truncate(position);
+                truncated = true;
+                break;
+            }
+            position += recordSize;
+        }
+
+        writePosition = position;
+        mappedBuffer = buffer;
+
+        LOGGER.info("Loaded {} records from segment file: {} size: {}", index.size(), segmentPath, writePosition);
+    }
+
+    int scanRecord(ByteBuffer buffer, int position, int size) {
+
+        if (size - position < RECORD_OVERHEAD) {
+            return -1;
+        }
+
+        final int length = buffer.getInt(position);
+        if (length < RECORD_OVERHEAD - 4 || length > size - position - 4) {
+            return -1;
+        }
+
+        final int crc = buffer.getInt(position + 4);
+        final byte type = buffer.get(position + 8);
+        final int nameLength = buffer.getShort(position + 9) & 0xffff;
+        if (nameLength > length - (RECORD_OVERHEAD - 4)) {
+            return -1;
+        }
+
+        ByteBuffer body = buffer.duplicate();
+        body.position(position + 8);
+        body.limit(position + 4 + length);
+        CRC32 crc32 = new CRC32();
+        crc32.update(body);
+        if ((int) crc32.getValue() != crc) {
+            return -1;
+        }
+
+        byte[] nameBytes = new byte[nameLength];
+        ByteBuffer nameBuffer = buffer.duplicate();
+        nameBuffer.position(position + RECORD_OVERHEAD);
+        nameBuffer.get(nameBytes);
+        final String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+        final int recordSize = length + 4;
+        updateIndex(name, type, position, recordSize, RECORD_OVERHEAD + nameLength);
+        return recordSize;
+    }
+
+    void appendRecord(final String name, byte type, final byte[] data) {
+
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > 0xffff) {
+            ZMSFileChangeLogStoreCommon.error("invalid record name: " + name);
+        }
+
+        final int recordSize = RECORD_OVERHEAD + nameBytes.length + data.length;
+        if (writePosition + recordSize > Integer.MAX_VALUE) {
+            ZMSFileChangeLogStoreCommon.error("segment file size limit reached: " + segmentPath);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize);
+        buffer.putInt(recordSize - 4);
+        buffer.putInt(0);
+        buffer.put(type);
+        buffer.putShort((short) nameBytes.length);
+        buffer.put(nameBytes);
+        buffer.put(data);
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.array(), 8, recordSize - 8);
+        buffer.putInt(4, (int) crc32.getValue());
+        buffer.flip();
+
+        try {
+            writeFully(channel, buffer, writePosition);
+        } catch (IOException ex) {
+            ZMSFileChangeLogStoreCommon.error("unable to write segment file: " + segmentPath + " error: " + ex.getMessage());
+        }
+
+        updateIndex(name, type, writePosition, recordSize, RECORD_OVERHEAD + nameBytes.length);
+        writePosition += recordSize;
+    }
+
+    void updateIndex(final String name, byte type, long position, int size, int dataOffset) {
+
+        RecordLocation previous;
+        if (type == RECORD_DELETE) {
+            previous = index.remove(name);
+        } else {
+            previous = index.put(name, new RecordLocation(type, position, size, dataOffset));
+            liveBytes += size;
+        }
+        if (previous != null) {
+            liveBytes -= previous.size;
+        }
+    }
+
+    void compactIfNeeded() {
+
+        if (writePosition < compactMinSize) {
+            return;
+        }
+
+        final long garbageBytes = writePosition - HEADER_SIZE - liveBytes;
+        if (garbageBytes * 100 < writePosition * compactPercent) {
+            return;
+        }
+
+        try {
+            compact();
+        } catch (IOException ex) {
+            LOGGER.error("Unable to compact segment file: {} error: {}", segmentPath, ex.getMessage());
+        }
+    }
+
+    /**
+     * Copy all the live records into a new segment file and replace
+     * the current segment file with the new one.
+     * @throws IOException in case of any failures
+     */
+    synchronized void compact() throws IOException {
+
+        final long startTime = System.currentTimeMillis();
+        final long originalSize = writePosition;
+
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, writePosition);
+
+        // sort our records based on their position so we're
+        // reading the current segment sequentially
+
+        List<Map.Entry<String, RecordLocation>> entries = new ArrayList<>(index.entrySet());
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().position));
+
+        Map<String, RecordLocation> compactIndex = new HashMap<>();
+        try (FileChannel compactChannel = FileChannel.open(compactPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+
+            setupFilePermissions(compactPath);
+            writeHeader(compactChannel);
+
+            long position = HEADER_SIZE;
+            for (Map.Entry<String, RecordLocation> entry : entries) {
+                RecordLocation location = entry.getValue();
+                ByteBuffer record = buffer.duplicate();
+                record.position((int) location.position);
+                record.limit((int) location.position + location.size);
+                writeFully(compactChannel, record, position);
+                compactIndex.put(entry.getKey(), new RecordLocation(location.type, position,
+                        location.size, location.dataOffset));
+                position += location.size;
+            }
+            compactChannel.force(true);
+        }
+
+        Files.move(compactPath, segmentPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        channel.close();
+        channel = FileChannel.open(segmentPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        index.clear();
+        index.putAll(compactIndex);
+        writePosition = channel.size();
+        mappedBuffer = null;
+
+        LOGGER.info("Compacted segment file: {} from {} to {} bytes in {} ms", segmentPath, originalSize,
+                writePosition, System.currentTimeMillis() - startTime);
+    }
+
+    void writeHeader(FileChannel fileChannel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(SEGMENT_MAGIC);
+        header.putInt(SEGMENT_VERSION);
+        header.flip();
+        writeFully(fileChannel, header, 0);
+    }
+
+    void writeFully(FileChannel fileChannel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += fileChannel.write(buffer, position);
+        }
+    }
+
+    void setupFilePermissions(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, EnumSet.of(PosixFilePermission.OWNER_READ,
+                    PosixFilePermission.OWNER_WRITE));
+        } catch (IOException ex) {
+            ZMSFileChangeLogStoreCommon.error("unable to setup segment file with permissions: " + ex.getMessage());
+        }
+    }
+
+    public static class Record {
+
+        private final byte type;
+        private final byte[] data;
+
+        Record(byte type, final byte[] data) {
+            this.type = type;
+            this.data = data;
+        }
+
+        public byte getType() {
+            return type;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    static class RecordLocation {
+
+        final byte type;
+        final long position;
+        final int size;
+        final int dataOffset;
+
+        RecordLocation(byte type, long position, int size, int dataOffset) {
+            this.type = type;
+            this.position = position;
+            this.size = size;
+            this.dataOffset = dataOffset;
+        }
+    }
+}
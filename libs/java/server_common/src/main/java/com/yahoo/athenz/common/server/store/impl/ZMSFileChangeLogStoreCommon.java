@@ -18,6 +18,7 @@ package com.yahoo.athenz.common.server.store.impl;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.Striped;
 import com.yahoo.athenz.common.server.util.FilesHelper;
 import com.yahoo.athenz.zms.*;
 import com.yahoo.rdl.Struct;
@@ -25,10 +26,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
 
 public class ZMSFileChangeLogStoreCommon {
 
@@ -44,6 +48,14 @@ public class ZMSFileChangeLogStoreCommon {
     private static final String VALUE_TRUE         = "true";
     private static final String LAST_MOD_FNAME     = ".lastModTime";
     private static final String ATTR_LAST_MOD_TIME = "lastModTime";
+    private static final String TEMP_FILE_SUFFIX   = ".tmp";
+    private static final int FILE_LOCK_STRIPES    = 64;
+
+    // updates for the same file are serialized with striped locks
+    // while reads do not require any locks since files are always
+    // replaced atomically with a rename of a fully written temp file
+
+    private final Striped<Lock> fileLocks = Striped.lock(FILE_LOCK_STRIPES);
 
     boolean requestConditions;
     int maxRateLimitRetryCount = 101;
@@ -79,6 +91,10 @@ public class ZMSFileChangeLogStoreCommon {
                 PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE);
         setupFilePermissions(rootDir, perms);
 
+        // remove any temp files left from incomplete updates
+
+        removeTempFiles();
+
         // retrieve our last modification timestamp
 
         lastModTime = retrieveLastModificationTime();
@@ -164,7 +180,7 @@ public class ZMSFileChangeLogStoreCommon {
         }
     }
 
-    public synchronized <T> T get(String name, Class<T> classType) {
+    public <T> T get(String name, Class<T> classType) {
 
         File file = new File(rootDir, name);
         if (!file.exists()) {
@@ -173,36 +189,70 @@ public class ZMSFileChangeLogStoreCommon {
 
         try {
             return jsonMapper.readValue(file, classType);
+        } catch (FileNotFoundException ex) {
+            LOGGER.debug("File deleted before it could be retrieved: {}", file.getAbsolutePath());
         } catch (Exception ex) {
             LOGGER.error("Unable to retrieve file: {} error: {}", file.getAbsolutePath(), ex.getMessage());
         }
         return null;
     }
 
-    public synchronized void put(String name, byte[] data) {
+    public void put(String name, byte[] data) {
+
+        // we're going to write our data into a hidden temp file first
+        // and then rename it so readers never see a partial file
 
         File file = new File(rootDir, name);
-        if (!file.exists()) {
-            setupDomainFile(file);
-        }
+        File tempFile = new File(rootDir, "." + name + TEMP_FILE_SUFFIX);
 
+        Lock lock = fileLocks.get(name);
+        lock.lock();
         try {
-            filesHelper.write(file, data);
+            setupDomainFile(tempFile);
+            filesHelper.write(tempFile, data);
+            filesHelper.move(tempFile, file);
         } catch (IOException ex) {
+            deleteTempFile(tempFile);
             error("unable to save file: " + file.getPath() + " error: " + ex.getMessage());
+        } finally {
+            lock.unlock();
         }
     }
 
-    public synchronized void delete(String name) {
+    public void delete(String name) {
+
         File file = new File(rootDir, name);
-        if (!file.exists()) {
-            return;
-        }
 
+        Lock lock = fileLocks.get(name);
+        lock.lock();
         try {
+            if (!file.exists()) {
+                return;
+            }
             filesHelper.delete(file);
         } catch (Exception exc) {
             error("Cannot delete file or directory: " + name + " : exc: " + exc);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void deleteTempFile(File tempFile) {
+        try {
+            Files.deleteIfExists(tempFile.toPath());
+        } catch (IOException ex) {
+            LOGGER.error("Unable to delete temp file: {} error: {}", tempFile.getPath(), ex.getMessage());
+        }
+    }
+
+    void removeTempFiles() {
+
+        File[] tempFiles = rootDir.listFiles((dir, name) -> name.charAt(0) == '.' && name.endsWith(TEMP_FILE_SUFFIX));
+        if (tempFiles == null) {
+            return;
+        }
+        for (File tempFile : tempFiles) {
+            deleteTempFile(tempFile);
         }
     }
 
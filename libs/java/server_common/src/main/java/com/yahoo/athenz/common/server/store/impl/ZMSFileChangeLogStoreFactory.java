@@ -59,7 +59,7 @@ public class ZMSFileChangeLogStoreFactory implements ChangeLogStoreFactory {
         // if we have mtls settings configured then we should use those
         // for our client otherwise we'll fall back to our private key access
 
-        final String rootDirectory = ztsHomeDir + File.separator + System.getProperty(PROP_DATA_STORE_SUBDIR, "zts_store");
+        final String rootDirectory = getRootDirectory(ztsHomeDir);
         ChangeLogStore store = mtlsClientChangeLogStore(rootDirectory);
         if (store == null) {
             LOGGER.info("mtls client change log store not available");
@@ -68,6 +68,10 @@ public class ZMSFileChangeLogStoreFactory implements ChangeLogStoreFactory {
         return store;
     }
 
+    String getRootDirectory(final String ztsHomeDir) {
+        return ztsHomeDir + File.separator + System.getProperty(PROP_DATA_STORE_SUBDIR, "zts_store");
+    }
+
     ChangeLogStore mtlsClientChangeLogStore(final String rootDirectory) {
 
         final String keyPath = System.getProperty(ZTS_SERVER_PROP_KEY_PATH, "");
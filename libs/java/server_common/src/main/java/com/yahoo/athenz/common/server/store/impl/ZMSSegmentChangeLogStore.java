@@ -0,0 +1,285 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.store.impl;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yahoo.athenz.common.server.store.ChangeLogStore;
+import com.yahoo.athenz.zms.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Change log store that keeps all local domains in a single memory
+ * mapped segment file (see {@link DomainSegmentStore}) instead of one json
+ * file per domain. Signed domains are stored as their key id, signature and
+ * json encoded domain data while jws domains are stored as their payload,
+ * protected header, signature and header fields. All requests to ZMS along
+ * with the last modification timestamp are handled by the given server
+ * change log store.
+ */
+public class ZMSSegmentChangeLogStore implements ChangeLogStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZMSSegmentChangeLogStore.class);
+
+    static final String SEGMENT_FILE_NAME = ".domains.seg";
+
+    private final ChangeLogStore serverStore;
+    private final DomainSegmentStore segmentStore;
+    private final ObjectMapper jsonMapper;
+
+    public ZMSSegmentChangeLogStore(final String rootDirectory, ChangeLogStore serverStore,
+            long compactMinSize, int compactPercent) {
+
+        this.serverStore = serverStore;
+
+        jsonMapper = new ObjectMapper();
+        jsonMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        segmentStore = new DomainSegmentStore(new File(rootDirectory), SEGMENT_FILE_NAME,
+                compactMinSize, compactPercent);
+
+        // remove any domain files left by the file based change log
+        // store since those are no longer updated
+
+        boolean resetLastModTime = false;
+        for (String domainName : serverStore.getLocalDomainList()) {
+            LOGGER.info("Removing local domain file: {}", domainName);
+            serverStore.removeLocalDomain(domainName);
+            resetLastModTime = true;
+        }
+
+        // if we removed any domain files, our segment has no domains
+        // or some of its records were dropped (reset or truncated) then
+        // we must reset the last modification timestamp so the data store
+        // requests a full refresh from ZMS instead of only the domains
+        // modified since that timestamp
+
+        if (resetLastModTime || segmentStore.wasTruncated() || segmentStore.getNames().isEmpty()) {
+            LOGGER.info("Resetting last modification timestamp for full domain refresh");
+            serverStore.setLastModificationTimestamp(null);
+        }
+    }
+
+    DomainSegmentStore getSegmentStore() {
+        return segmentStore;
+    }
+
+    @Override
+    public boolean supportsFullRefresh() {
+        return serverStore.supportsFullRefresh();
+    }
+
+    @Override
+    public SignedDomain getLocalSignedDomain(String domainName) {
+
+        DomainSegmentStore.Record record = segmentStore.get(domainName);
+        if (record == null || record.getType() != DomainSegmentStore.RECORD_SIGNED_DOMAIN) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(record.getData());
+            final String keyId = readString(buffer);
+            final String signature = readString(buffer);
+            DomainData domainData = jsonMapper.readValue(readBytes(buffer), DomainData.class);
+            return new SignedDomain().setDomain(domainData).setSignature(signature).setKeyId(keyId);
+        } catch (Exception ex) {
+            LOGGER.error("Unable to decode signed domain: {} error: {}", domainName, ex.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public JWSDomain getLocalJWSDomain(String domainName) {
+
+        DomainSegmentStore.Record record = segmentStore.get(domainName);
+        if (record == null || record.getType() != DomainSegmentStore.RECORD_JWS_DOMAIN) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(record.getData());
+            JWSDomain jwsDomain = new JWSDomain()
+                    .setPayload(readString(buffer))
+                    .setProtectedHeader(readString(buffer))
+                    .setSignature(readString(buffer));
+            final int headerCount = buffer.getInt();
+            if (headerCount != -1) {
+                Map<String, String> header = new HashMap<>();
+                for (int i = 0; i < headerCount; i++) {
+                    header.put(readString(buffer), readString(buffer));
+                }
+                jwsDomain.setHeader(header);
+            }
+            return jwsDomain;
+        } catch (Exception ex) {
+            LOGGER.error("Unable to decode jws domain: {} error: {}", domainName, ex.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public SignedDomain getServerSignedDomain(String domainName) {
+        return serverStore.getServerSignedDomain(domainName);
+    }
+
+    @Override
+    public JWSDomain getServerJWSDomain(String domainName) {
+        return serverStore.getServerJWSDomain(domainName);
+    }
+
+    @Override
+    public void removeLocalDomain(String domainName) {
+        segmentStore.delete(domainName);
+    }
+
+    @Override
+    public void saveLocalDomain(String domainName, SignedDomain signedDomain) {
+
+        byte[] domainData;
+        try {
+            domainData = jsonMapper.writerWithView(DomainData.class).writeValueAsBytes(signedDomain.getDomain());
+        } catch (Exception ex) {
+            ZMSFileChangeLogStoreCommon.error("unable to serialize domain: " + domainName + " error: " + ex.getMessage());
+            return;
+        }
+
+        DomainDataWriter writer = new DomainDataWriter();
+        writer.writeString(signedDomain.getKeyId());
+        writer.writeString(signedDomain.getSignature());
+        writer.writeBytes(domainData);
+        segmentStore.put(domainName, DomainSegmentStore.RECORD_SIGNED_DOMAIN, writer.toByteArray());
+    }
+
+    @Override
+    public void saveLocalDomain(String domainName, JWSDomain jwsDomain) {
+
+        DomainDataWriter writer = new DomainDataWriter();
+        writer.writeString(jwsDomain.getPayload());
+        writer.writeString(jwsDomain.getProtectedHeader());
+        writer.writeString(jwsDomain.getSignature());
+        final Map<String, String> header = jwsDomain.getHeader();
+        if (header == null) {
+            writer.writeInt(-1);
+        } else {
+            writer.writeInt(header.size());
+            for (Map.Entry<String, String> entry : header.entrySet()) {
+                writer.writeString(entry.getKey());
+                writer.writeString(entry.getValue());
+            }
+        }
+        segmentStore.put(domainName, DomainSegmentStore.RECORD_JWS_DOMAIN, writer.toByteArray());
+    }
+
+    @Override
+    public List<String> getLocalDomainList() {
+        return segmentStore.getNames();
+    }
+
+    @Override
+    public Set<String> getServerDomainList() {
+        return serverStore.getServerDomainList();
+    }
+
+    @Override
+    public SignedDomains getServerDomainModifiedList() {
+        return serverStore.getServerDomainModifiedList();
+    }
+
+    @Override
+    public SignedDomains getUpdatedSignedDomains(StringBuilder lastModTimeBuffer) {
+        return serverStore.getUpdatedSignedDomains(lastModTimeBuffer);
+    }
+
+    @Override
+    public List<JWSDomain> getUpdatedJWSDomains(StringBuilder lastModTimeBuffer) {
+        return serverStore.getUpdatedJWSDomains(lastModTimeBuffer);
+    }
+
+    @Override
+    public void setLastModificationTimestamp(String lastModTime) {
+        serverStore.setLastModificationTimestamp(lastModTime);
+    }
+
+    @Override
+    public void setRequestConditions(boolean requestConditions) {
+        serverStore.setRequestConditions(requestConditions);
+    }
+
+    @Override
+    public void setJWSDomainSupport(boolean jwsDomainSupport) {
+        serverStore.setJWSDomainSupport(jwsDomainSupport);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        byte[] data = readBytes(buffer);
+        return data == null ? null : new String(data, StandardCharsets.UTF_8);
+    }
+
+    static byte[] readBytes(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] data = new byte[length];
+        buffer.get(data);
+        return data;
+    }
+
+    static class DomainDataWriter {
+
+        private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            buffer.putInt(value);
+        }
+
+        void writeString(final String value) {
+            writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void writeBytes(final byte[] value) {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            ensureCapacity(4 + value.length);
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        }
+
+        private void ensureCapacity(int size) {
+            if (buffer.remaining() >= size) {
+                return;
+            }
+            ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+            buffer.flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.store.impl;
+
+import com.yahoo.athenz.common.server.store.ChangeLogStore;
+
+import java.security.PrivateKey;
+
+/**
+ * Factory for the segment based change log store. The ZMS client
+ * settings are the same as for the file based change log store.
+ */
+public class ZMSSegmentChangeLogStoreFactory extends ZMSFileChangeLogStoreFactory {
+
+    // segment compaction settings
+
+    private static final String ZTS_SERVER_PROP_COMPACT_MIN_SIZE = "athenz.common.server.clog.segment_compact_min_size";
+    private static final String ZTS_SERVER_PROP_COMPACT_PERCENT  = "athenz.common.server.clog.segment_compact_percent";
+
+    @Override
+    public ChangeLogStore create(String ztsHomeDir, PrivateKey privateKey, String privateKeyId) {
+
+        ChangeLogStore serverStore = super.create(ztsHomeDir, privateKey, privateKeyId);
+
+        final long compactMinSize = Long.parseLong(System.getProperty(ZTS_SERVER_PROP_COMPACT_MIN_SIZE,
+                Long.toString(64 * 1024 * 1024)));
+        final int compactPercent = Integer.parseInt(System.getProperty(ZTS_SERVER_PROP_COMPACT_PERCENT, "50"));
+
+        return new ZMSSegmentChangeLogStore(getRootDirectory(ztsHomeDir), serverStore,
+                compactMinSize, compactPercent);
+    }
+}
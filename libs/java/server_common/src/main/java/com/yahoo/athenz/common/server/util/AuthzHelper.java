@@ -33,6 +33,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 public class AuthzHelper {
 
@@ -51,18 +52,16 @@ public class AuthzHelper {
         if (removeRoleMembers == null || originalRoleMembers == null) {
             return;
         }
-        for (RoleMember removeMember : removeRoleMembers) {
-            originalRoleMembers.removeIf(item -> item.getMemberName().equalsIgnoreCase(removeMember.getMemberName()));
-        }
+        Set<String> removeNames = MemberDiff.memberNames(removeRoleMembers, RoleMember::getMemberName);
+        originalRoleMembers.removeIf(item -> removeNames.contains(MemberDiff.normalizeMemberName(item.getMemberName())));
     }
 
     public static void removeGroupMembers(List<GroupMember> originalGroupMembers, List<GroupMember> removeGroupMembers) {
         if (removeGroupMembers == null || originalGroupMembers == null) {
             return;
         }
-        for (GroupMember removeMember : removeGroupMembers) {
-            originalGroupMembers.removeIf(item -> item.getMemberName().equalsIgnoreCase(removeMember.getMemberName()));
-        }
+        Set<String> removeNames = MemberDiff.memberNames(removeGroupMembers, GroupMember::getMemberName);
+        originalGroupMembers.removeIf(item -> removeNames.contains(MemberDiff.normalizeMemberName(item.getMemberName())));
     }
 
     public static boolean isMemberDisabled(Integer systemDisabled) {
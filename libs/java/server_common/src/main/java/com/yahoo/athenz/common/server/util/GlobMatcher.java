@@ -0,0 +1,210 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.util;
+
+/**
+ * Precompiled matcher for the glob patterns used in assertion
+ * actions, resources and roles. The glob is classified once
+ * so that the common cases (match all, exact value and prefix
+ * wildcards) are handled with simple string compares and the
+ * remaining patterns are matched with a wildcard matcher that
+ * does not allocate any objects - same results as the regex
+ * generated by StringUtils.patternFromGlob.
+ */
+public final class GlobMatcher {
+
+    enum Type {
+        ALL,
+        EQUAL,
+        STARTS_WITH,
+        SEGMENTS,
+        GLOB
+    }
+
+    private final String glob;
+    private final Type type;
+    private final String literal;
+    private final String[] segments;
+
+    private GlobMatcher(final String glob, Type type, final String literal) {
+        this(glob, type, literal, null);
+    }
+
+    private GlobMatcher(final String glob, Type type, final String literal, final String[] segments) {
+        this.glob = glob;
+        this.type = type;
+        this.literal = literal;
+        this.segments = segments;
+    }
+
+    /**
+     * Compile the given glob into a matcher. The glob supports
+     * '*' to match any number of characters and '?' to match
+     * a single character - same as StringUtils.patternFromGlob.
+     * @param glob glob pattern value
+     * @return matcher object for the given glob
+     */
+    public static GlobMatcher compile(final String glob) {
+
+        final int anyCharIdx = glob.indexOf('*');
+        final int singleCharIdx = glob.indexOf('?');
+
+        // first check if we're dealing with a literal value
+
+        if (anyCharIdx == -1 && singleCharIdx == -1) {
+            return new GlobMatcher(glob, Type.EQUAL, glob);
+        }
+
+        // if the glob only has a single * character at the end
+        // then it's a simple prefix match (including the special
+        // case of match all)
+
+        if (singleCharIdx == -1 && anyCharIdx == glob.length() - 1) {
+            if (anyCharIdx == 0) {
+                return new GlobMatcher(glob, Type.ALL, "");
+            }
+            return new GlobMatcher(glob, Type.STARTS_WITH, glob.substring(0, anyCharIdx));
+        }
+
+        // if we only have * characters then we'll split the glob into
+        // its literal segments which we can match with indexOf calls
+
+        if (singleCharIdx == -1) {
+            return new GlobMatcher(glob, Type.SEGMENTS, glob.substring(0, anyCharIdx),
+                    glob.split("\\*", -1));
+        }
+
+        // for all other cases we need the full wildcard match, but
+        // we'll keep the literal prefix so we can quickly reject
+        // values that can't possibly match
+
+        int prefixLen = anyCharIdx;
+        if (prefixLen == -1 || (singleCharIdx != -1 && singleCharIdx < prefixLen)) {
+            prefixLen = singleCharIdx;
+        }
+        return new GlobMatcher(glob, Type.GLOB, glob.substring(0, prefixLen));
+    }
+
+    /**
+     * @param value string to check against the glob
+     * @return true if the value matches the glob pattern
+     */
+    public boolean matches(final String value) {
+        switch (type) {
+            case ALL:
+                return true;
+            case EQUAL:
+                return literal.equals(value);
+            case STARTS_WITH:
+                return value.startsWith(literal);
+            case SEGMENTS:
+                return segmentsMatch(value);
+            default:
+                return value.startsWith(literal) && globMatch(value, literal.length());
+        }
+    }
+
+    boolean segmentsMatch(final String value) {
+
+        // our first segment is the prefix and the last one is the suffix
+        // of the value. all the segments in between must be present in
+        // the given order and the first occurrence is always the best
+        // choice since it leaves the most room for the other segments
+
+        final String suffix = segments[segments.length - 1];
+        final int suffixIdx = value.length() - suffix.length();
+        if (suffixIdx < literal.length() || !value.startsWith(literal) || !value.endsWith(suffix)) {
+            return false;
+        }
+
+        int offset = literal.length();
+        for (int i = 1; i < segments.length - 1; i++) {
+            final String segment = segments[i];
+            final int idx = value.indexOf(segment, offset);
+            if (idx == -1 || idx + segment.length() > suffixIdx) {
+                return false;
+            }
+            offset = idx + segment.length();
+        }
+        return true;
+    }
+
+    boolean globMatch(final String value, int offset) {
+
+        // standard iterative wildcard match - when we have a mismatch
+        // we backtrack to the last '*' character and let it consume
+        // one more character from the value
+
+        final int globLen = glob.length();
+        final int valueLen = value.length();
+        int globIdx = offset;
+        int valueIdx = offset;
+        int starIdx = -1;
+        int starValueIdx = 0;
+
+        while (valueIdx < valueLen) {
+            if (globIdx < globLen) {
+                final char c = glob.charAt(globIdx);
+                if (c == '*') {
+                    starIdx = globIdx++;
+                    starValueIdx = valueIdx;
+                    continue;
+                }
+                if (c == '?' || c == value.charAt(valueIdx)) {
+                    globIdx++;
+                    valueIdx++;
+                    continue;
+                }
+            }
+            if (starIdx == -1) {
+                return false;
+            }
+            globIdx = starIdx + 1;
+            valueIdx = ++starValueIdx;
+        }
+
+        while (globIdx < globLen && glob.charAt(globIdx) == '*') {
+            globIdx++;
+        }
+        return globIdx == globLen;
+    }
+
+    /**
+     * @return true if the glob does not include any wildcard characters
+     */
+    public boolean isLiteral() {
+        return type == Type.EQUAL;
+    }
+
+    /**
+     * @return the literal prefix of the glob before the first
+     * wildcard character (or the full value for literal globs)
+     */
+    public String getLiteralPrefix() {
+        return literal;
+    }
+
+    /**
+     * @return the original glob value
+     */
+    public String getGlob() {
+        return glob;
+    }
+
+    Type getType() {
+        return type;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.util;
+
+import com.yahoo.athenz.zms.GroupMember;
+import com.yahoo.athenz.zms.RoleMember;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Differences between the current and updated member lists of a role
+ * or group. Members are matched by their case-insensitive member name
+ * using a hash set of normalized names so the diff is calculated in
+ * linear time regardless of the size of the member lists.
+ * @param <T> member type
+ */
+public class MemberDiff<T> {
+
+    private final List<T> addedMembers;
+    private final List<T> removedMembers;
+    private final List<T> updatedMembers;
+
+    MemberDiff(List<T> addedMembers, List<T> removedMembers, List<T> updatedMembers) {
+        this.addedMembers = addedMembers;
+        this.removedMembers = removedMembers;
+        this.updatedMembers = updatedMembers;
+    }
+
+    /**
+     * Calculate the differences between the current and updated role members
+     * @param currentMembers current list of role members, null for no members
+     * @param updatedMembers updated list of role members, null for no members
+     * @return role member differences
+     */
+    public static MemberDiff<RoleMember> roleMembers(List<RoleMember> currentMembers, List<RoleMember> updatedMembers) {
+        return diff(currentMembers, updatedMembers, RoleMember::getMemberName);
+    }
+
+    /**
+     * Calculate the differences between the current and updated group members
+     * @param currentMembers current list of group members, null for no members
+     * @param updatedMembers updated list of group members, null for no members
+     * @return group member differences
+     */
+    public static MemberDiff<GroupMember> groupMembers(List<GroupMember> currentMembers, List<GroupMember> updatedMembers) {
+        return diff(currentMembers, updatedMembers, GroupMember::getMemberName);
+    }
+
+    /**
+     * Calculate the differences between the current and updated members
+     * @param currentMembers current list of members, null for no members
+     * @param updatedMembers updated list of members, null for no members
+     * @param memberName function to extract the member name from the member object
+     * @param <T> member type
+     * @return member differences
+     */
+    public static <T> MemberDiff<T> diff(List<T> currentMembers, List<T> updatedMembers,
+            Function<T, String> memberName) {
+
+        if (currentMembers == null) {
+            currentMembers = Collections.emptyList();
+        }
+        if (updatedMembers == null) {
+            updatedMembers = Collections.emptyList();
+        }
+
+        Set<String> currentNames = memberNames(currentMembers, memberName);
+        Set<String> updatedNames = memberNames(updatedMembers, memberName);
+
+        // members in the updated list are either new or updated
+        // depending if they're already present in the current list
+
+        List<T> added = new ArrayList<>();
+        List<T> updated = new ArrayList<>();
+        for (T member : updatedMembers) {
+            if (currentNames.contains(normalizeMemberName(memberName.apply(member)))) {
+                updated.add(member);
+            } else {
+                added.add(member);
+            }
+        }
+
+        // members in the current list that are not present
+        // in the updated list have been removed
+
+        List<T> removed = new ArrayList<>();
+        for (T member : currentMembers) {
+            if (!updatedNames.contains(normalizeMemberName(memberName.apply(member)))) {
+                removed.add(member);
+            }
+        }
+
+        return new MemberDiff<>(added, removed, updated);
+    }
+
+    /**
+     * Return the set of normalized member names for the given members
+     * @param members list of members
+     * @param memberName function to extract the member name from the member object
+     * @param <T> member type
+     * @return set of normalized member names
+     */
+    public static <T> Set<String> memberNames(List<T> members, Function<T, String> memberName) {
+        Set<String> names = new HashSet<>(members.size() * 2);
+        for (T member : members) {
+            names.add(normalizeMemberName(memberName.apply(member)));
+        }
+        return names;
+    }
+
+    static String normalizeMemberName(final String memberName) {
+        return memberName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return members present in the updated list but not in the current list
+     */
+    public List<T> getAddedMembers() {
+        return addedMembers;
+    }
+
+    /**
+     * @return members present in the current list but not in the updated list
+     */
+    public List<T> getRemovedMembers() {
+        return removedMembers;
+    }
+
+    /**
+     * @return members from the updated list that are also present in the current list
+     */
+    public List<T> getUpdatedMembers() {
+        return updatedMembers;
+    }
+}
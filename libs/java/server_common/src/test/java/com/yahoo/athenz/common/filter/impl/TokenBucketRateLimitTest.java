@@ -0,0 +1,318 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.filter.impl;
+
+import com.yahoo.athenz.common.server.util.config.ConfigManager;
+import com.yahoo.athenz.common.server.util.config.providers.ConfigProviderFile;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.security.auth.x500.X500Principal;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class TokenBucketRateLimitTest {
+
+    private File configFile;
+    private ConfigManager configManager;
+
+    @BeforeMethod
+    public void setup() throws IOException {
+        configFile = File.createTempFile("TokenBucketRateLimitTest", ".conf");
+        configManager = new ConfigManager("reload-configs-seconds", 1, TimeUnit.DAYS)
+                .addProvider(new ConfigProviderFile())
+                .addConfigSource("prop-file://" + configFile);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+
+        // the config manager sets the loaded values as system properties
+
+        configManager.close();
+        assertTrue(configFile.delete());
+        System.clearProperty(TokenBucketRateLimit.PROP_RATE_LIMIT_REQUESTS_PER_SECOND);
+        System.clearProperty(TokenBucketRateLimit.PROP_RATE_LIMIT_BURST);
+        System.clearProperty(TokenBucketRateLimit.PROP_RATE_LIMIT_API_PATHS);
+        System.clearProperty(TokenBucketRateLimit.PROP_RATE_LIMIT_KEY_PRINCIPAL_DOMAIN);
+    }
+
+    private void updateConfig(final String config) throws IOException {
+        Files.write(configFile.toPath(), config.getBytes(StandardCharsets.UTF_8));
+        configManager.reloadAllConfigs();
+    }
+
+    private HttpServletRequest mockRequest(final String uri, final String remoteAddr) {
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getRequestURI()).thenReturn(uri);
+        Mockito.when(request.getRemoteAddr()).thenReturn(remoteAddr);
+        return request;
+    }
+
+    private HttpServletResponse mockResponse() throws IOException {
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        Mockito.when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        return response;
+    }
+
+    private X509Certificate mockCert(final String subject) {
+        X509Certificate cert = Mockito.mock(X509Certificate.class);
+        Mockito.when(cert.getSubjectX500Principal()).thenReturn(new X500Principal(subject));
+        return cert;
+    }
+
+    @Test
+    public void testFactory() {
+        assertTrue(new TokenBucketRateLimitFactory().create() instanceof TokenBucketRateLimit);
+    }
+
+    @Test
+    public void testDisabled() throws IOException {
+
+        updateConfig("");
+        TokenBucketRateLimit rateLimit = new TokenBucketRateLimit(configManager);
+
+        HttpServletRequest request = mockRequest("/zts/v1/oauth2/token", "10.1.1.1");
+        for (int i = 0; i < 100; i++) {
+            assertFalse(rateLimit.filter(request, mockResponse()));
+        }
+    }
+
+    @Test
+    public void testRateLimit() throws IOException {
+
+        updateConfig("athenz.ratelimit.requests_per_second: 1\nathenz.ratelimit.burst: 3\n");
+        TokenBucketRateLimit rateLimit = new TokenBucketRateLimit(configManager);
+
+        // the first burst of requests is allowed, the next one is rejected
+
+        HttpServletRequest request = mockRequest("/zts/v1/oauth2/token", "10.1.1.1");
+        for (int i = 0; i < 3; i++) {
+            assertFalse(rateLimit.filter(request, mockResponse()));
+        }
+
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        StringWriter body = new StringWriter();
+        Mockito.when(response.getWriter()).thenReturn(new PrintWriter(body));
+        assertTrue(rateLimit.filter(request, response));
+        Mockito.verify(response).setStatus(429);
+        Mockito.verify(response).setHeader("Retry-After", "1");
+        Mockito.verify(response).setContentType("application/json");
+        assertEquals(body.toString(), "{\"code\":429,\"message\":\"Too Many Requests\"}");
+
+        // other clients have their own limit
+
+        assertFalse(rateLimit.filter(mockRequest("/zts/v1/oauth2/token", "10.1.1.2"),
+                Mockito.mock(HttpServletResponse.class)));
+    }
+
+    @Test
+    public void testAcquire() throws IOException {
+
+        updateConfig("athenz.ratelimit.requests_per_second: 10\nathenz.ratelimit.burst: 2\n");
+        TokenBucketRateLimit rateLimit = new TokenBucketRateLimit(configManager);
+        TokenBucketRateLimit.Limits limits = new TokenBucketRateLimit.Limits(100, 100, new String[0]);
+
+        // a burst of two requests, then one request every 100 nanos
+
+        assertEquals(rateLimit.acquire(1, 1000, limits), 0);
+        assertEquals(rateLimit.acquire(1, 1000, limits), 0);
+        assertEquals(rateLimit.acquire(1, 1000, limits), 100);
+        assertEquals(rateLimit.acquire(1, 1050, limits), 50);
+        assertEquals(rateLimit.acquire(1, 1100, limits), 0);
+        assertEquals(rateLimit.acquire(1, 1100, limits), 100);
+
+        // an idle client gets its full burst back
+
+        assertEquals(rateLimit.acquire(1, 5000, limits), 0);
+        assertEquals(rateLimit.acquire(1, 5000, limits), 0);
+        assertEquals(rateLimit.acquire(1, 5000, limits), 100);
+
+        // other buckets are not affected
+
+        assertEquals(rateLimit.acquire(2, 1000, limits), 0);
+    }
+
+    @Test
+    public void testApiPaths() throws IOException {
+
+        updateConfig("athenz.ratelimit.requests_per_second: 1\nathenz.ratelimit.burst: 1\n"
+                + "athenz.ratelimit.api_paths: /zts/v1/oauth2/token,/zts/v1/instance\n");
+        TokenBucketRateLimit rateLimit = new TokenBucketRateLimit(configManager);
+
+        // each api has its own limit and other apis are not limited
+
+        HttpServletRequest tokenRequest = mockRequest("/zts/v1/oauth2/token", "10.1.1.1");
+        HttpServletRequest instanceRequest = mockRequest("/zts/v1/instance/sys.auth/zts", "10.1.1.1");
+        HttpServletRequest domainRequest = mockRequest("/zts/v1/domain/sports", "10.1.1.1");
+
+        assertFalse(rateLimit.filter(tokenRequest, mockResponse()));
+        assertFalse(rateLimit.filter(instanceRequest, mockResponse()));
+        assertTrue(rateLimit.filter(tokenRequest, mockResponse()));
+        assertTrue(rateLimit.filter(instanceRequest, mockResponse()));
+        for (int i = 0; i < 10; i++) {
+            assertFalse(rateLimit.filter(domainRequest, mockResponse()));
+        }
+        assertFalse(rateLimit.filter(mockRequest(null, "10.1.1.1"), mockResponse()));
+
+        assertEquals(rateLimit.getApiName("/zts/v1/oauth2/token", new String[0]), "*");
+        assertNull(rateLimit.getApiName(null, new String[] { "/zts" }));
+    }
+
+    @Test
+    public void testReloadLimits() throws IOException {
+
+        updateConfig("athenz.ratelimit.requests_per_second: 1\nathenz.ratelimit.burst: 1\n");
+        TokenBucketRateLimit rateLimit = new TokenBucketRateLimit(configManager);
+
+        HttpServletRequest request = mockRequest("/zts/v1/oauth2/token", "10.1.1.1");
+        assertFalse(rateLimit.filter(request, mockResponse()));
+        assertTrue(rateLimit.filter(request, mockResponse()));
+
+        // disabling the limit takes effect without restarting
+
+        updateConfig("athenz.ratelimit.requests_per_second: 0\n");
+        assertFalse(rateLimit.filter(request, mockResponse()));
+
+        // as does a higher limit
+
+        updateConfig("athenz.ratelimit.requests_per_second: 1000000\nathenz.ratelimit.burst: 1000\n");
+        for (int i = 0; i < 100; i++) {
+            assertFalse(rateLimit.filter(request, mockResponse()));
+        }
+    }
+
+    @Test
+    public void testReloadApiPaths() throws IOException {
+
+        updateConfig("athenz.ratelimit.requests_per_second: 1\nathenz.ratelimit.burst: 1\n"
+                + "athenz.ratelimit.api_paths: /zts/v1/oauth2/token\n");
+        TokenBucketRateLimit rateLimit = new TokenBucketRateLimit(configManager);
+
+        HttpServletRequest tokenRequest = mockRequest("/zts/v1/oauth2/token", "10.1.1.1");
+        HttpServletRequest certRequest = mockRequest("/zts/v1/instance", "10.1.1.1");
+        assertFalse(rateLimit.filter(tokenRequest, mockResponse()));
+        assertTrue(rateLimit.filter(tokenRequest, mockResponse()));
+        assertFalse(rateLimit.filter(certRequest, mockResponse()));
+        assertFalse(rateLimit.filter(certRequest, mockResponse()));
+
+        // changing only the api paths must apply the new paths
+
+        updateConfig("athenz.ratelimit.requests_per_second: 1\nathenz.ratelimit.burst: 1\n"
+                + "athenz.ratelimit.api_paths: /zts/v1/instance\n");
+        assertFalse(rateLimit.filter(tokenRequest, mockResponse()));
+        assertFalse(rateLimit.filter(tokenRequest, mockResponse()));
+        assertFalse(rateLimit.filter(certRequest, mockResponse()));
+        assertTrue(rateLimit.filter(certRequest, mockResponse()));
+
+        // the limits are built from the given value and not from the
+        // csv list which might not be updated yet when our callback runs
+
+        rateLimit.updateLimits(" /zts/v1/domain , ,/zts/v1/role");
+        HttpServletRequest domainRequest = mockRequest("/zts/v1/domain/sports", "10.1.1.1");
+        assertFalse(rateLimit.filter(domainRequest, mockResponse()));
+        assertTrue(rateLimit.filter(domainRequest, mockResponse()));
+        assertFalse(rateLimit.filter(certRequest, mockResponse()));
+    }
+
+    @Test
+    public void testParseApiPaths() {
+        assertTrue(TokenBucketRateLimit.parseApiPaths(null).isEmpty());
+        assertTrue(TokenBucketRateLimit.parseApiPaths("").isEmpty());
+        assertTrue(TokenBucketRateLimit.parseApiPaths(" , ").isEmpty());
+        assertEquals(TokenBucketRateLimit.parseApiPaths(" /zts/v1/domain , ,/zts/v1/role"),
+                Arrays.asList("/zts/v1/domain", "/zts/v1/role"));
+    }
+
+    @Test
+    public void testPrincipalDomainKey() throws IOException {
+
+        updateConfig("athenz.ratelimit.requests_per_second: 1\nathenz.ratelimit.burst: 1\n");
+        TokenBucketRateLimit rateLimit = new TokenBucketRateLimit(configManager);
+
+        // requests with certificates are limited by the principal domain
+        // regardless of the client ip address
+
+        X509Certificate apiCert = mockCert("CN=sports.api,O=Athenz");
+        X509Certificate backendCert = mockCert("CN=sports.backend,O=Athenz");
+        HttpServletRequest request1 = mockRequest("/zts/v1/oauth2/token", "10.1.1.1");
+        Mockito.when(request1.getAttribute(TokenBucketRateLimit.ATTR_X509_CERTIFICATE))
+                .thenReturn(new X509Certificate[] { apiCert });
+        HttpServletRequest request2 = mockRequest("/zts/v1/oauth2/token", "10.1.1.2");
+        Mockito.when(request2.getAttribute(TokenBucketRateLimit.ATTR_X509_CERTIFICATE))
+                .thenReturn(new X509Certificate[] { backendCert });
+
+        assertEquals(rateLimit.getClientKey(request1), "sports");
+        assertFalse(rateLimit.filter(request1, mockResponse()));
+        assertTrue(rateLimit.filter(request2, mockResponse()));
+
+        // the certificate subject is only parsed once
+
+        assertEquals(rateLimit.getPrincipalDomain(apiCert), "sports");
+        Mockito.verify(apiCert, Mockito.times(1)).getSubjectX500Principal();
+
+        // certificates without a common name fall back to the ip address
+
+        HttpServletRequest request3 = mockRequest("/zts/v1/oauth2/token", "10.1.1.3");
+        X509Certificate noNameCert = mockCert("O=Athenz");
+        Mockito.when(request3.getAttribute(TokenBucketRateLimit.ATTR_X509_CERTIFICATE))
+                .thenReturn(new X509Certificate[] { noNameCert });
+        assertEquals(rateLimit.getClientKey(request3), "10.1.1.3");
+        assertEquals(rateLimit.getPrincipalDomain(mockCert("CN=athenz")), "athenz");
+
+        HttpServletRequest request4 = mockRequest("/zts/v1/oauth2/token", null);
+        Mockito.when(request4.getAttribute(TokenBucketRateLimit.ATTR_X509_CERTIFICATE))
+                .thenReturn(new X509Certificate[0]);
+        assertEquals(rateLimit.getClientKey(request4), "");
+
+        // with the principal domain key disabled only the ip is used
+
+        updateConfig("athenz.ratelimit.requests_per_second: 1\nathenz.ratelimit.burst: 1\n"
+                + "athenz.ratelimit.key_principal_domain: false\n");
+        assertEquals(rateLimit.getClientKey(request1), "10.1.1.1");
+    }
+
+    @Test
+    public void testResponseFailure() throws IOException {
+
+        updateConfig("athenz.ratelimit.requests_per_second: 1\nathenz.ratelimit.burst: 1\n");
+        TokenBucketRateLimit rateLimit = new TokenBucketRateLimit(configManager);
+
+        HttpServletRequest request = mockRequest("/zts/v1/oauth2/token", "10.1.1.1");
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        Mockito.when(response.getWriter()).thenThrow(new IOException("closed"));
+        assertFalse(rateLimit.filter(request, response));
+        assertTrue(rateLimit.filter(request, response));
+
+        // the retry after value is rounded up to seconds
+
+        rateLimit.sendTooManyRequests(response, TimeUnit.MILLISECONDS.toNanos(2500));
+        Mockito.verify(response).setHeader("Retry-After", "3");
+    }
+}
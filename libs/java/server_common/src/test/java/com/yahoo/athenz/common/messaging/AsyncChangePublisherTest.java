@@ -0,0 +1,273 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.messaging;
+
+import com.yahoo.athenz.common.messaging.AsyncChangePublisher.OverflowPolicy;
+import com.yahoo.athenz.common.metrics.Metric;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class AsyncChangePublisherTest {
+
+    /**
+     * Publisher that records the messages and only completes the
+     * publish futures once the test releases them.
+     */
+    static class RecordingPublisher implements ChangePublisher<String> {
+
+        final List<String> messages = new CopyOnWriteArrayList<>();
+        final List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean closed = false;
+        volatile boolean failPublish = false;
+
+        @Override
+        public void publish(String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public CompletableFuture<Void> publishAsync(String message) {
+            if (failPublish) {
+                throw new IllegalStateException("broker unavailable");
+            }
+            messages.add(message);
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            futures.add(future);
+            if (release.getCount() == 0) {
+                future.complete(null);
+            }
+            return future;
+        }
+
+        void releaseAll() {
+            release.countDown();
+            for (CompletableFuture<Void> future : futures) {
+                future.complete(null);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("condition not met within timeout");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testPublish() throws InterruptedException {
+
+        RecordingPublisher delegate = new RecordingPublisher();
+        Metric metric = Mockito.mock(Metric.class);
+        AsyncChangePublisher<String> publisher = new AsyncChangePublisher<>(delegate, "topic1", metric,
+                100, 10, 100, OverflowPolicy.BLOCK, 100);
+        assertSame(publisher.getPublisher(), delegate);
+
+        for (int i = 0; i < 25; i++) {
+            publisher.publish("msg" + i);
+        }
+
+        // all messages are sent in order but not acknowledged yet
+
+        waitFor(() -> delegate.messages.size() == 25);
+        assertEquals(delegate.messages.get(0), "msg0");
+        assertEquals(delegate.messages.get(24), "msg24");
+        assertEquals(publisher.getInFlightCount(), 25);
+        assertEquals(publisher.getQueueDepth(), 0);
+        assertEquals(publisher.getPublishedCount(), 0);
+
+        delegate.releaseAll();
+        waitFor(() -> publisher.getPublishedCount() == 25);
+        assertEquals(publisher.getInFlightCount(), 0);
+        assertTrue(publisher.getLastPublishLag() >= 0);
+
+        Mockito.verify(metric, Mockito.times(25)).startTiming("domain_change_publish_lag", "topic1");
+        Mockito.verify(metric, Mockito.times(25)).increment("domain_change_publish_success", "topic1");
+        Mockito.verify(metric, Mockito.times(25)).stopTiming(Mockito.any());
+        Mockito.verify(metric, Mockito.atLeastOnce()).setGauge("domain_change_publish_queue_depth", "topic1", 0);
+
+        publisher.close();
+        assertTrue(delegate.closed);
+    }
+
+    @Test
+    public void testMaxInFlight() throws InterruptedException {
+
+        RecordingPublisher delegate = new RecordingPublisher();
+        AsyncChangePublisher<String> publisher = new AsyncChangePublisher<>(delegate, "topic1",
+                Mockito.mock(Metric.class), 100, 10, 2, OverflowPolicy.BLOCK, 100);
+
+        for (int i = 0; i < 5; i++) {
+            publisher.publish("msg" + i);
+        }
+
+        // only two messages can wait for acknowledgement at once
+
+        waitFor(() -> delegate.messages.size() == 2);
+        Thread.sleep(200);
+        assertEquals(delegate.messages.size(), 2);
+        assertEquals(publisher.getInFlightCount(), 2);
+
+        delegate.releaseAll();
+        waitFor(() -> publisher.getPublishedCount() == 5);
+        assertEquals(delegate.messages, Arrays.asList("msg0", "msg1", "msg2", "msg3", "msg4"));
+
+        publisher.close();
+    }
+
+    @Test
+    public void testOverflowPolicies() throws InterruptedException {
+
+        for (OverflowPolicy policy : OverflowPolicy.values()) {
+
+            // a single in-flight slot that is never acknowledged keeps
+            // the worker blocked so the remaining messages stay queued
+
+            RecordingPublisher delegate = new RecordingPublisher();
+            Metric metric = Mockito.mock(Metric.class);
+            AsyncChangePublisher<String> publisher = new AsyncChangePublisher<>(delegate, "topic1", metric,
+                    2, 1, 1, policy, 10);
+
+            publisher.publish("msg0");
+            waitFor(() -> delegate.messages.size() == 1);
+            publisher.publish("msg1");
+            waitFor(() -> publisher.getQueueDepth() == 0);
+            publisher.publish("msg2");
+            publisher.publish("msg3");
+            publisher.publish("msg4");
+
+            assertEquals(publisher.getQueueDepth(), 2);
+            assertEquals(publisher.getDroppedCount(), 1);
+            Mockito.verify(metric, Mockito.times(1)).increment("domain_change_publish_dropped", "topic1");
+
+            // the queue depth gauge reports the size of the full queue
+
+            Mockito.verify(metric, Mockito.atLeastOnce()).setGauge("domain_change_publish_queue_depth", "topic1", 2);
+
+            // the timer of the dropped message is stopped as well
+
+            Mockito.verify(metric, Mockito.times(5)).startTiming("domain_change_publish_lag", "topic1");
+            Mockito.verify(metric, Mockito.times(1)).stopTiming(Mockito.any());
+
+            delegate.releaseAll();
+            waitFor(() -> publisher.getPublishedCount() == 4);
+
+            List<String> expected = new ArrayList<>(Arrays.asList("msg0", "msg1"));
+            if (policy == OverflowPolicy.DROP_OLDEST) {
+                expected.addAll(Arrays.asList("msg3", "msg4"));
+            } else {
+                expected.addAll(Arrays.asList("msg2", "msg3"));
+            }
+            assertEquals(delegate.messages, expected, policy.name());
+            publisher.close();
+        }
+    }
+
+    @Test
+    public void testPublishFailure() throws InterruptedException {
+
+        RecordingPublisher delegate = new RecordingPublisher();
+        Metric metric = Mockito.mock(Metric.class);
+        AsyncChangePublisher<String> publisher = new AsyncChangePublisher<>(delegate, "topic1", metric,
+                10, 10, 10, OverflowPolicy.DROP_NEWEST, 100);
+
+        // exceptions thrown by the publisher are reported as failures
+
+        delegate.failPublish = true;
+        publisher.publish("msg0");
+        waitFor(() -> publisher.getFailedCount() == 1);
+
+        // as are futures that complete exceptionally
+
+        delegate.failPublish = false;
+        assertTrue(publisher.publishAsync("msg1").isDone());
+        waitFor(() -> delegate.futures.size() == 1);
+        delegate.futures.get(0).completeExceptionally(new IllegalStateException("send failed"));
+        waitFor(() -> publisher.getFailedCount() == 2);
+
+        delegate.releaseAll();
+        publisher.publish("msg2");
+        waitFor(() -> publisher.getPublishedCount() == 1);
+
+        Mockito.verify(metric, Mockito.times(2)).increment("domain_change_publish_failure", "topic1");
+        Mockito.verify(metric, Mockito.times(1)).increment("domain_change_publish_success", "topic1");
+        Mockito.verify(metric, Mockito.times(3)).stopTiming(Mockito.any());
+        assertEquals(publisher.getInFlightCount(), 0);
+
+        publisher.close();
+    }
+
+    @Test
+    public void testClose() throws InterruptedException {
+
+        RecordingPublisher delegate = new RecordingPublisher();
+        AsyncChangePublisher<String> publisher = new AsyncChangePublisher<>(delegate, "topic1",
+                Mockito.mock(Metric.class), 10, 10, 10, OverflowPolicy.DROP_OLDEST, 100);
+
+        for (int i = 0; i < 5; i++) {
+            publisher.publish("msg" + i);
+        }
+
+        // queued messages are published before the publisher is closed
+        // and the close waits up to the timeout for acknowledgements
+
+        publisher.close(200);
+        assertEquals(delegate.messages.size(), 5);
+        assertEquals(publisher.getPublishedCount(), 0);
+        assertTrue(delegate.closed);
+
+        // messages published after close are dropped
+
+        publisher.publish("msg5");
+        assertEquals(publisher.getDroppedCount(), 1);
+        assertEquals(delegate.messages.size(), 5);
+    }
+
+    @Test
+    public void testInvalidSettings() {
+
+        RecordingPublisher delegate = new RecordingPublisher();
+        Metric metric = Mockito.mock(Metric.class);
+        int[][] settings = { { 0, 1, 1 }, { 1, 0, 1 }, { 1, 1, 0 } };
+        for (int[] setting : settings) {
+            try {
+                new AsyncChangePublisher<>(delegate, "topic1", metric, setting[0], setting[1], setting[2],
+                        OverflowPolicy.BLOCK, 100);
+                fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+}
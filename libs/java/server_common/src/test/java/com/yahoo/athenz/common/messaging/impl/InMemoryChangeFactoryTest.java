@@ -0,0 +1,132 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.messaging.impl;
+
+import com.yahoo.athenz.common.messaging.ChangePublisher;
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import com.yahoo.athenz.common.messaging.DomainChangeMessage;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+public class InMemoryChangeFactoryTest {
+
+    @Test
+    public void testPublishSubscribe() throws InterruptedException {
+
+        InMemoryChangeFactory<DomainChangeMessage> factory = new InMemoryChangeFactory<>();
+        ChangeSubscriber<DomainChangeMessage> subscriber1 = factory.create(null, "topic-pubsub", "sub1", "Exclusive");
+        ChangeSubscriber<DomainChangeMessage> subscriber2 = factory.create(null, "topic-pubsub", "sub2", "Exclusive");
+        ChangeSubscriber<DomainChangeMessage> subscriber3 = factory.create(null, "topic-other", "sub3", "Exclusive");
+
+        CountDownLatch latch = new CountDownLatch(4);
+        List<String> domains1 = new CopyOnWriteArrayList<>();
+        List<String> domains2 = new CopyOnWriteArrayList<>();
+        subscriber1.init(msg -> { domains1.add(msg.getDomainName()); latch.countDown(); }, DomainChangeMessage.class);
+        subscriber2.init(msg -> { domains2.add(msg.getDomainName()); latch.countDown(); }, DomainChangeMessage.class);
+        subscriber3.init(msg -> fail(), DomainChangeMessage.class);
+
+        Thread thread1 = new Thread(subscriber1);
+        Thread thread2 = new Thread(subscriber2);
+        thread1.start();
+        thread2.start();
+
+        // every subscriber of the topic receives all messages in order
+
+        ChangePublisher<DomainChangeMessage> publisher = factory.create(null, "topic-pubsub");
+        publisher.publish(new DomainChangeMessage().setDomainName("coretech"));
+        publisher.publish(new DomainChangeMessage().setDomainName("sports"));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(domains1, Arrays.asList("coretech", "sports"));
+        assertEquals(domains2, Arrays.asList("coretech", "sports"));
+        assertEquals(((InMemoryChangeSubscriber<DomainChangeMessage>) subscriber3).getPendingMessageCount(), 0);
+
+        subscriber1.close();
+        subscriber2.close();
+        subscriber3.close();
+        thread1.join(5000);
+        thread2.join(5000);
+        assertFalse(thread1.isAlive());
+        assertFalse(thread2.isAlive());
+    }
+
+    @Test
+    public void testClosed() {
+
+        InMemoryChangeFactory<DomainChangeMessage> factory = new InMemoryChangeFactory<>();
+        InMemoryChangeSubscriber<DomainChangeMessage> subscriber =
+                (InMemoryChangeSubscriber<DomainChangeMessage>) factory.create(null, "topic-closed", "sub", "Exclusive");
+        ChangePublisher<DomainChangeMessage> publisher = factory.create(null, "topic-closed");
+
+        publisher.publish(new DomainChangeMessage().setDomainName("coretech"));
+        assertEquals(subscriber.getPendingMessageCount(), 1);
+
+        // closed publishers and subscribers no longer deliver messages
+
+        publisher.close();
+        publisher.publish(new DomainChangeMessage().setDomainName("sports"));
+        assertEquals(subscriber.getPendingMessageCount(), 1);
+
+        subscriber.close();
+        assertEquals(subscriber.getPendingMessageCount(), 0);
+        subscriber.publish(new DomainChangeMessage().setDomainName("sports"));
+        factory.create(null, "topic-closed").publish(new DomainChangeMessage().setDomainName("sports"));
+        assertEquals(subscriber.getPendingMessageCount(), 0);
+
+        // publishing to a topic without subscribers is a no-op
+
+        factory.create(null, "topic-unknown").publish(new DomainChangeMessage().setDomainName("sports"));
+    }
+
+    @Test
+    public void testProcessorFailure() throws InterruptedException {
+
+        InMemoryChangeFactory<DomainChangeMessage> factory = new InMemoryChangeFactory<>();
+        ChangeSubscriber<DomainChangeMessage> subscriber = factory.create(null, "topic-failure", "sub", "Exclusive");
+
+        // a failure to process one message must not stop the subscriber
+
+        CountDownLatch latch = new CountDownLatch(1);
+        subscriber.init(msg -> {
+            if (msg.getDomainName().equals("coretech")) {
+                throw new IllegalStateException("invalid domain");
+            }
+            latch.countDown();
+        }, DomainChangeMessage.class);
+
+        Thread thread = new Thread(subscriber);
+        thread.start();
+
+        ChangePublisher<DomainChangeMessage> publisher = factory.create(null, "topic-failure");
+        publisher.publish(new DomainChangeMessage().setDomainName("coretech"));
+        publisher.publish(new DomainChangeMessage().setDomainName("sports"));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        // interrupting the thread stops the subscriber
+
+        thread.interrupt();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        subscriber.close();
+    }
+}
@@ -20,12 +20,17 @@ package com.yahoo.athenz.common.messaging.pulsar;
 
 import com.yahoo.athenz.common.messaging.DomainChangeMessage;
 import com.yahoo.athenz.common.messaging.pulsar.client.AthenzPulsarClient.TlsConfig;
+import org.apache.pulsar.client.api.MessageId;
 import org.apache.pulsar.client.api.Producer;
+import org.apache.pulsar.client.api.PulsarClientException;
+import org.mockito.Mockito;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.lang.reflect.Field;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static com.yahoo.athenz.common.messaging.pulsar.PulsarFactory.PROP_MESSAGING_CLI_SERVICE_URL;
 import static com.yahoo.athenz.common.messaging.pulsar.PulsarFactory.serviceUrl;
@@ -90,6 +95,29 @@ public class PulsarChangePublisherTest {
         System.clearProperty(PROP_MESSAGING_CLI_SERVICE_URL);
     }
 
+    @Test
+    public void test_publisher_async() throws Exception {
+        System.setProperty(PROP_MESSAGING_CLI_SERVICE_URL, "some-service");
+        PulsarChangePublisher<DomainChangeMessage> publisher = new PulsarChangePublisher<>(serviceUrl(), "some-topic", new TlsConfig("cert", "key", "trust"));
+        Producer<byte[]> producer = getPulsarProducer(publisher);
+        CompletableFuture<MessageId> sendFuture = new CompletableFuture<>();
+        Mockito.when(producer.sendAsync(Mockito.any())).thenReturn(sendFuture);
+
+        CompletableFuture<Void> future = publisher.publishAsync(new DomainChangeMessage().setDomainName("coretech"));
+        assertFalse(future.isDone());
+        sendFuture.complete(MessageId.earliest);
+        assertNull(future.get(5, TimeUnit.SECONDS));
+
+        sendFuture = new CompletableFuture<>();
+        Mockito.when(producer.sendAsync(Mockito.any())).thenReturn(sendFuture);
+        future = publisher.publishAsync(new DomainChangeMessage().setDomainName("coretech"));
+        sendFuture.completeExceptionally(new PulsarClientException("failed to send"));
+        assertTrue(future.isCompletedExceptionally());
+
+        publisher.close();
+        System.clearProperty(PROP_MESSAGING_CLI_SERVICE_URL);
+    }
+
     /**
      * Since pulsarProducer is private member, and not exposes outside,
      * load it in reflection for better assertion.
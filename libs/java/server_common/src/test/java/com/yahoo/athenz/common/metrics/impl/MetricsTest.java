@@ -57,6 +57,8 @@ public class MetricsTest {
         metric.stopTiming("metric1", "athenz", "sports");
         metric.stopTiming("apiRquestsMetric", "athenz", "sports", "POST", 200, "caller");
 
+        metric.setGauge("metric1", "athenz", 3);
+
         metric.flush();
         metric.quit();
     }
@@ -122,6 +124,7 @@ public class MetricsTest {
 
         metric.stopTiming("metric1", "athenz", "sports");
         metric.stopTiming("apiRquestsMetric", "athenz", "sports", "POST", 200, "caller");
+        metric.setGauge("metric1", "athenz", 3);
         metric.flush();
         metric.quit();
     }
@@ -27,6 +27,10 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.yahoo.athenz.common.ServerCommonConsts.USER_DOMAIN_PREFIX;
 import static com.yahoo.athenz.common.server.notification.NotificationServiceConstants.NOTIFICATION_PROP_SERVICE_FACTORY_CLASS;
@@ -273,4 +277,304 @@ public class NotificationManagerTest {
         notifications.add(new Notification().setDetails(details));
         assertNotNull(notificationCommon.printNotificationDetailsToLog(notifications, "descrition", LOGGER));
     }
+
+    @Test
+    public void testAggregateNotifications() {
+        RolesProvider rolesProvider = Mockito.mock(RolesProvider.class);
+        DomainRoleMembersFetcher domainRoleMembersFetcher = new DomainRoleMembersFetcher(rolesProvider, USER_DOMAIN_PREFIX);
+        NotificationCommon notificationCommon = new NotificationCommon(domainRoleMembersFetcher, USER_DOMAIN_PREFIX);
+        NotificationToEmailConverter converter = Mockito.mock(NotificationToEmailConverter.class);
+        NotificationToEmailConverter mergedConverter = Mockito.mock(NotificationToEmailConverter.class);
+        NotificationToEmailConverter otherConverter = Mockito.mock(NotificationToEmailConverter.class);
+        NotificationToMetricConverter metricConverter = Mockito.mock(NotificationToMetricConverter.class);
+
+        // joe and jane administer both domains while
+        // john is only an administrator of the sports domain
+
+        Notification athenz = new Notification().addRecipient("user.joe").addRecipient("user.jane")
+                .addDetails("domain", "athenz").addDetails("members", "user.a;role1;exp1|user.b;role2;exp2")
+                .setNotificationToEmailConverter(converter).setNotificationToMetricConverter(metricConverter);
+        Notification sports = new Notification().addRecipient("user.joe").addRecipient("user.jane")
+                .addRecipient("user.john").addDetails("domain", "sports").addDetails("members", "user.c;role3;exp3")
+                .setNotificationToEmailConverter(converter);
+        Notification other = new Notification().addRecipient("user.joe").addDetails("domain", "weather")
+                .setNotificationToEmailConverter(otherConverter);
+
+        List<Notification> notifications = notificationCommon.aggregateNotifications(
+                new ArrayList<>(Arrays.asList(athenz, sports, other)), converter, mergedConverter, "domain", "members",
+                (name, entry) -> name + ":" + entry);
+        assertEquals(notifications.size(), 4);
+
+        // the athenz notification is kept for metrics only, the sports
+        // notification without a metric converter is replaced and the
+        // notification with another converter is not changed
+
+        assertSame(notifications.get(0), athenz);
+        assertNull(athenz.getNotificationToEmailConverter());
+        assertSame(athenz.getNotificationToMetricConverter(), metricConverter);
+        assertSame(notifications.get(1), other);
+        assertSame(other.getNotificationToEmailConverter(), otherConverter);
+
+        Notification merged = notifications.get(2);
+        assertEquals(merged.getRecipients(), new HashSet<>(Arrays.asList("user.joe", "user.jane")));
+        assertEquals(merged.getDetails().get("domain"), "athenz, sports");
+        assertEquals(merged.getDetails().get("members"),
+                "athenz:user.a;role1;exp1|athenz:user.b;role2;exp2|sports:user.c;role3;exp3");
+        assertSame(merged.getNotificationToEmailConverter(), mergedConverter);
+        assertNull(merged.getNotificationToMetricConverter());
+
+        Notification single = notifications.get(3);
+        assertEquals(single.getRecipients(), Collections.singleton("user.john"));
+        assertEquals(single.getDetails().get("domain"), "sports");
+        assertEquals(single.getDetails().get("members"), "user.c;role3;exp3");
+        assertSame(single.getNotificationToEmailConverter(), converter);
+
+        // notifications without any shared recipients are not changed
+
+        List<Notification> unchanged = new ArrayList<>(Arrays.asList(
+                new Notification().addRecipient("user.joe").addDetails("domain", "athenz")
+                        .setNotificationToEmailConverter(converter),
+                new Notification().addRecipient("user.jane").addDetails("domain", "sports")
+                        .setNotificationToEmailConverter(converter)));
+        assertSame(notificationCommon.aggregateNotifications(unchanged, converter, mergedConverter, "domain", "members",
+                (name, entry) -> entry), unchanged);
+        assertNotNull(unchanged.get(0).getNotificationToEmailConverter());
+
+        assertNull(notificationCommon.aggregateNotifications(null, converter, mergedConverter, "domain", "members",
+                (name, entry) -> entry));
+        assertSame(notificationCommon.aggregateNotifications(unchanged, null, mergedConverter, "domain", "members",
+                (name, entry) -> entry), unchanged);
+
+        // without a merged converter the notifications are not merged
+
+        List<Notification> shared = new ArrayList<>(Arrays.asList(
+                new Notification().addRecipient("user.joe").addDetails("domain", "athenz")
+                        .setNotificationToEmailConverter(converter),
+                new Notification().addRecipient("user.joe").addDetails("domain", "sports")
+                        .setNotificationToEmailConverter(converter)));
+        assertSame(notificationCommon.aggregateNotifications(shared, converter, null, "domain", "members",
+                (name, entry) -> entry), shared);
+        assertSame(shared.get(0).getNotificationToEmailConverter(), converter);
+    }
+
+    static class TestNotificationService implements NotificationService {
+
+        private final int maxConcurrency;
+        private final double maxRate;
+        private final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final List<Notification> notified = new CopyOnWriteArrayList<>();
+
+        TestNotificationService(int maxConcurrency, double maxRate) {
+            this.maxConcurrency = maxConcurrency;
+            this.maxRate = maxRate;
+        }
+
+        @Override
+        public boolean notify(Notification notification) {
+            final int current = active.incrementAndGet();
+            maxActive.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ignored) {
+            }
+            active.decrementAndGet();
+            notified.add(notification);
+            if (notification.getDetails() != null && notification.getDetails().containsKey("fail")) {
+                throw new IllegalStateException("unable to notify");
+            }
+            return notification.getDetails() == null || !notification.getDetails().containsKey("reject");
+        }
+
+        @Override
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        @Override
+        public double getMaxRate() {
+            return maxRate;
+        }
+    }
+
+    private static List<Notification> createNotifications(int count) {
+        List<Notification> notifications = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            notifications.add(new Notification().addRecipient("user.user" + i));
+        }
+        return notifications;
+    }
+
+    @Test
+    public void testParallelDelivery() {
+
+        TestNotificationService parallelService = new TestNotificationService(4, 0);
+        TestNotificationService sequentialService = new TestNotificationService(1, 0);
+        NotificationManager notificationManager = new NotificationManager(
+                Arrays.asList(() -> parallelService, () -> sequentialService), Collections.emptyList(), null);
+
+        // all notifications are delivered to both services before
+        // the call returns with each service using its own concurrency
+
+        List<Notification> notifications = createNotifications(20);
+        notifications.add(null);
+        NotificationManager.DeliveryStats stats = notificationManager.deliverNotifications(notifications);
+
+        assertEquals(stats.getSucceeded(), 40);
+        assertEquals(stats.getFailed(), 0);
+        assertEquals(parallelService.notified.size(), 20);
+        assertEquals(sequentialService.notified.size(), 20);
+        assertTrue(parallelService.maxActive.get() > 1);
+        assertTrue(parallelService.maxActive.get() <= 4);
+        assertEquals(sequentialService.maxActive.get(), 1);
+        assertTrue(stats.getThroughput() > 0);
+
+        assertEquals(notificationManager.deliverNotifications(null).getSucceeded(), 0);
+        notificationManager.shutdown();
+    }
+
+    @Test
+    public void testDeliveryFailures() {
+
+        TestNotificationService service = new TestNotificationService(2, 0);
+        NotificationManager notificationManager = new NotificationManager(
+                Collections.singletonList(() -> service), Collections.emptyList(), null);
+
+        // rejected and failed notifications do not stop the others
+
+        List<Notification> notifications = createNotifications(3);
+        notifications.get(0).addDetails("reject", "true");
+        notifications.get(1).addDetails("fail", "true");
+        NotificationManager.DeliveryStats stats = notificationManager.deliverNotifications(notifications);
+        assertEquals(stats.getSucceeded(), 1);
+        assertEquals(stats.getFailed(), 2);
+
+        // once shutdown the notifications are delivered from the caller's thread
+
+        notificationManager.shutdown();
+        service.notified.clear();
+        stats = notificationManager.deliverNotifications(createNotifications(2));
+        assertEquals(stats.getSucceeded(), 2);
+        assertEquals(stats.getFailed(), 0);
+        assertEquals(service.notified.size(), 2);
+        assertEquals(service.maxActive.get(), 2);
+    }
+
+    @Test
+    public void testDeliveryNotApplicable() {
+
+        TestNotificationService service = new TestNotificationService(2, 0) {
+            @Override
+            public boolean isApplicable(Notification notification) {
+                return !notification.getDetails().containsKey("skip");
+            }
+        };
+        NotificationManager notificationManager = new NotificationManager(
+                Collections.singletonList(() -> service), Collections.emptyList(), null);
+
+        // notifications the service cannot deliver are neither
+        // sent nor counted as failures
+
+        List<Notification> notifications = createNotifications(4);
+        notifications.forEach(notification -> notification.addDetails("key", "value"));
+        notifications.get(0).addDetails("skip", "true");
+        notifications.get(1).addDetails("skip", "true");
+        notifications.get(2).addDetails("reject", "true");
+        NotificationManager.DeliveryStats stats = notificationManager.deliverNotifications(notifications);
+        assertEquals(stats.getSucceeded(), 1);
+        assertEquals(stats.getFailed(), 1);
+        assertEquals(stats.getNotApplicable(), 2);
+        assertEquals(service.notified.size(), 2);
+        assertTrue(service.notified.containsAll(notifications.subList(2, 4)));
+        notificationManager.shutdown();
+    }
+
+    @Test
+    public void testDeliveryRateLimit() {
+
+        TestNotificationService service = new TestNotificationService(4, 20);
+        NotificationManager notificationManager = new NotificationManager(
+                Collections.singletonList(() -> service), Collections.emptyList(), null);
+
+        // at 20 notifications per second, 5 notifications take at least 200ms
+
+        NotificationManager.DeliveryStats stats = notificationManager.deliverNotifications(createNotifications(5));
+        assertEquals(stats.getSucceeded(), 5);
+        assertTrue(stats.getElapsedTime() >= 150, "elapsed: " + stats.getElapsedTime());
+        notificationManager.shutdown();
+    }
+
+    @Test
+    public void testRequestNotificationsSkipDeliveryQueue() throws InterruptedException {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Notification> notified = new CopyOnWriteArrayList<>();
+        NotificationService service = notification -> {
+            if (notification.getDetails() != null && notification.getDetails().containsKey("periodic")) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+            notified.add(notification);
+            return true;
+        };
+        NotificationManager notificationManager = new NotificationManager(
+                Collections.singletonList(() -> service), Collections.emptyList(), null);
+
+        // keep the only delivery thread of the service busy with
+        // a notification from a periodic task
+
+        List<Notification> periodic = createNotifications(2);
+        periodic.forEach(notification -> notification.addDetails("periodic", "true"));
+        CompletableFuture<NotificationManager.DeliveryStats> periodicDelivery =
+                CompletableFuture.supplyAsync(() -> notificationManager.deliverNotifications(periodic));
+        started.await();
+
+        // request notifications are delivered right away
+
+        Notification notification = new Notification().addRecipient("user.joe");
+        notificationManager.sendNotifications(Arrays.asList(notification, null));
+        assertEquals(notified, Collections.singletonList(notification));
+        notificationManager.sendNotifications(null);
+
+        release.countDown();
+        assertEquals(periodicDelivery.join().getSucceeded(), 2);
+        assertEquals(notified.size(), 3);
+        notificationManager.shutdown();
+    }
+
+    @Test
+    public void testPeriodicNotificationsTaskOrder() {
+
+        TestNotificationService service = new TestNotificationService(4, 0);
+        List<Notification> notifications1 = createNotifications(10);
+        List<Notification> notifications2 = createNotifications(5);
+
+        // the second task must only run once all notifications
+        // from the first task have been delivered
+
+        NotificationTask notificationTask1 = Mockito.mock(NotificationTask.class);
+        Mockito.when(notificationTask1.getNotifications()).thenReturn(notifications1);
+        Mockito.when(notificationTask1.getDescription()).thenReturn("task1");
+        NotificationTask notificationTask2 = Mockito.mock(NotificationTask.class);
+        Mockito.when(notificationTask2.getNotifications()).thenAnswer(invocation -> {
+            assertEquals(service.notified.size(), 10);
+            return notifications2;
+        });
+        Mockito.when(notificationTask2.getDescription()).thenReturn("task2");
+        NotificationTask notificationTask3 = Mockito.mock(NotificationTask.class);
+        Mockito.when(notificationTask3.getNotifications()).thenThrow(new IllegalStateException("invalid task"));
+
+        NotificationManager notificationManager = new NotificationManager(Collections.singletonList(() -> service),
+                Arrays.asList(notificationTask1, notificationTask2, notificationTask3), null);
+        Mockito.verify(notificationTask3, Mockito.timeout(5000)).getNotifications();
+
+        assertEquals(service.notified.size(), 15);
+        assertTrue(service.notified.subList(0, 10).containsAll(notifications1));
+        assertTrue(service.notified.subList(10, 15).containsAll(notifications2));
+        notificationManager.shutdown();
+    }
 }
@@ -17,6 +17,11 @@
 package com.yahoo.athenz.common.server.notification.impl;
 
 import com.yahoo.athenz.common.server.notification.EmailProvider;
+import com.yahoo.athenz.common.server.notification.Notification;
+import com.yahoo.athenz.common.server.notification.NotificationToEmailConverter;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.internet.MimeMessage;
 import org.mockito.Mockito;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -46,6 +51,10 @@ public class EmailNotificationServiceTest {
     public void testNotifyNull() {
         EmailProvider emailProvider = mock(EmailProvider.class);
         EmailNotificationService svc = new EmailNotificationService(emailProvider);
+        assertFalse(svc.isApplicable(null));
+        assertFalse(svc.isApplicable(new Notification()));
+        assertTrue(svc.isApplicable(new Notification()
+                .setNotificationToEmailConverter(mock(NotificationToEmailConverter.class))));
         boolean status = svc.notify(null);
         assertFalse(status);
     }
@@ -57,6 +66,66 @@ public class EmailNotificationServiceTest {
         assertNotNull(svc.readBinaryFromFile("emails/athenz-logo-white.png"));
     }
 
+    @Test
+    public void testSendEmailBatches() throws Exception {
+        System.setProperty("athenz.notification_email_domain_from", "example.com");
+        System.setProperty("athenz.notification_email_from", "athenz");
+
+        // the provider is called for each batch of 50 recipients with
+        // the same content but its own recipients and message id
+
+        List<Integer> batchSizes = new ArrayList<>();
+        Set<String> messageIds = new HashSet<>();
+        Set<String> bccRecipients = new HashSet<>();
+        EmailProvider emailProvider = mock(EmailProvider.class);
+        Mockito.when(emailProvider.sendEmail(Mockito.any(), Mockito.eq("athenz@example.com"), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    MimeMessage message = invocation.getArgument(2);
+                    Address[] bcc = message.getRecipients(Message.RecipientType.BCC);
+                    batchSizes.add(bcc.length);
+                    Arrays.stream(bcc).forEach(address -> bccRecipients.add(address.toString()));
+                    messageIds.add(message.getMessageID());
+                    assertEquals(message.getSubject(), "subject");
+                    return true;
+                });
+
+        Set<String> recipients = new HashSet<>();
+        for (int i = 0; i < 120; i++) {
+            recipients.add("user" + i + "@example.com");
+        }
+        EmailNotificationService svc = new EmailNotificationService(emailProvider);
+        assertTrue(svc.sendEmail(recipients, "subject", "body"));
+
+        batchSizes.sort(Comparator.naturalOrder());
+        assertEquals(batchSizes, Arrays.asList(20, 50, 50));
+        assertEquals(bccRecipients, recipients);
+        assertEquals(messageIds.size(), 3);
+
+        // any failed batch is reported as a failure
+
+        Mockito.when(emailProvider.sendEmail(Mockito.any(), Mockito.any(), Mockito.any())).thenReturn(true, false, true);
+        assertFalse(svc.sendEmail(recipients, "subject", "body"));
+
+        System.clearProperty("athenz.notification_email_domain_from");
+        System.clearProperty("athenz.notification_email_from");
+    }
+
+    @Test
+    public void testDeliveryLimits() {
+        EmailProvider emailProvider = mock(EmailProvider.class);
+        EmailNotificationService svc = new EmailNotificationService(emailProvider);
+        assertEquals(svc.getMaxConcurrency(), 1);
+        assertEquals(svc.getMaxRate(), 0.0);
+
+        System.setProperty(NOTIFICATION_PROP_EMAIL_MAX_CONCURRENCY, "16");
+        System.setProperty(NOTIFICATION_PROP_EMAIL_MAX_RATE, "14");
+        svc = new EmailNotificationService(emailProvider);
+        assertEquals(svc.getMaxConcurrency(), 16);
+        assertEquals(svc.getMaxRate(), 14.0);
+        System.clearProperty(NOTIFICATION_PROP_EMAIL_MAX_CONCURRENCY);
+        System.clearProperty(NOTIFICATION_PROP_EMAIL_MAX_RATE);
+    }
+
     @Test
     public void testReadBinaryFromFileNull() {
         EmailProvider emailProvider = mock(EmailProvider.class);
@@ -27,6 +27,7 @@ import org.testng.annotations.Test;
 import java.util.*;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertTrue;
 
 public class MetricNotificationServiceTest {
@@ -56,7 +57,10 @@ public class MetricNotificationServiceTest {
         Mockito.when(notificationToMetricConverter.getNotificationAsMetrics(Mockito.any(), Mockito.any())).thenReturn(new NotificationMetric(attributes));
 
         Notification notification = new Notification();
+        assertFalse(metricNotificationService.isApplicable(notification));
+        assertFalse(metricNotificationService.isApplicable(null));
         notification.setNotificationToMetricConverter(notificationToMetricConverter);
+        assertTrue(metricNotificationService.isApplicable(notification));
 
         boolean notify = metricNotificationService.notify(notification);
         assertTrue(notify);
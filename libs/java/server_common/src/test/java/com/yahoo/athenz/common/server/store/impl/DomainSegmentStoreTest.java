@@ -0,0 +1,272 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.store.impl;
+
+import com.yahoo.athenz.CommonTestUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class DomainSegmentStoreTest {
+
+    private static final String SEGMENT_PATH = "/tmp/zts_segment_store_unit_test";
+    private static final String SEGMENT_NAME = ".domains.seg";
+
+    @BeforeMethod
+    public void setup() {
+        CommonTestUtils.deleteDirectory(new File(SEGMENT_PATH));
+    }
+
+    @AfterMethod
+    public void shutdown() {
+        CommonTestUtils.deleteDirectory(new File(SEGMENT_PATH));
+    }
+
+    private DomainSegmentStore openStore() {
+        return new DomainSegmentStore(new File(SEGMENT_PATH), SEGMENT_NAME, Long.MAX_VALUE, 50);
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String value(DomainSegmentStore.Record record) {
+        return new String(record.getData(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testPutGetDelete() {
+
+        DomainSegmentStore store = openStore();
+        assertTrue(store.getNames().isEmpty());
+        assertEquals(store.getSegmentSize(), DomainSegmentStore.HEADER_SIZE);
+        assertNull(store.get("coretech"));
+
+        store.put("coretech", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data1"));
+        store.put("sports", DomainSegmentStore.RECORD_JWS_DOMAIN, bytes("data2"));
+
+        DomainSegmentStore.Record record = store.get("coretech");
+        assertEquals(record.getType(), DomainSegmentStore.RECORD_SIGNED_DOMAIN);
+        assertEquals(value(record), "data1");
+
+        record = store.get("sports");
+        assertEquals(record.getType(), DomainSegmentStore.RECORD_JWS_DOMAIN);
+        assertEquals(value(record), "data2");
+
+        // update the record and verify we get the latest value
+
+        store.put("coretech", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data3"));
+        assertEquals(value(store.get("coretech")), "data3");
+
+        List<String> names = store.getNames();
+        assertEquals(names.size(), 2);
+        assertTrue(names.contains("coretech"));
+        assertTrue(names.contains("sports"));
+
+        store.delete("coretech");
+        assertNull(store.get("coretech"));
+        assertEquals(store.getNames().size(), 1);
+
+        // deleting an unknown record does not change the segment
+
+        long size = store.getSegmentSize();
+        store.delete("unknown");
+        assertEquals(store.getSegmentSize(), size);
+
+        store.close();
+    }
+
+    @Test
+    public void testReopen() {
+
+        DomainSegmentStore store = openStore();
+        store.put("coretech", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data1"));
+        store.put("sports", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data2"));
+        store.put("coretech", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data3"));
+        store.put("weather", DomainSegmentStore.RECORD_JWS_DOMAIN, new byte[0]);
+        store.delete("sports");
+        final long size = store.getSegmentSize();
+        final long liveBytes = store.getLiveBytes();
+        store.close();
+
+        store = openStore();
+        assertEquals(store.getSegmentSize(), size);
+        assertEquals(store.getLiveBytes(), liveBytes);
+        assertEquals(store.getNames().size(), 2);
+        assertEquals(value(store.get("coretech")), "data3");
+        assertEquals(store.get("weather").getData().length, 0);
+        assertNull(store.get("sports"));
+
+        // new records after reopen are appended at the end
+
+        store.put("sports", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data4"));
+        assertEquals(value(store.get("sports")), "data4");
+        store.close();
+    }
+
+    @Test
+    public void testTruncatedRecord() throws IOException {
+
+        DomainSegmentStore store = openStore();
+        store.put("coretech", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data1"));
+        final long size = store.getSegmentSize();
+        store.put("sports", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data2"));
+        store.close();
+
+        // simulate a partially written record
+
+        File file = new File(SEGMENT_PATH, SEGMENT_NAME);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        store = openStore();
+        assertTrue(store.wasTruncated());
+        assertEquals(store.getSegmentSize(), size);
+        assertEquals(file.length(), size);
+        assertEquals(value(store.get("coretech")), "data1");
+        assertNull(store.get("sports"));
+
+        store.put("sports", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data2"));
+        store.close();
+
+        store = openStore();
+        assertFalse(store.wasTruncated());
+        assertEquals(value(store.get("sports")), "data2");
+        store.close();
+    }
+
+    @Test
+    public void testCorruptedRecord() throws IOException {
+
+        DomainSegmentStore store = openStore();
+        store.put("coretech", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data1"));
+        final long size = store.getSegmentSize();
+        store.put("sports", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data2"));
+        store.close();
+
+        // corrupt the data of the last record so the crc check fails
+
+        File file = new File(SEGMENT_PATH, SEGMENT_NAME);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write('x');
+        }
+
+        store = openStore();
+        assertEquals(store.getSegmentSize(), size);
+        assertEquals(store.getNames().size(), 1);
+        assertNull(store.get("sports"));
+        store.close();
+    }
+
+    @Test
+    public void testInvalidHeader() throws IOException {
+
+        DomainSegmentStore store = openStore();
+        store.put("coretech", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data1"));
+        store.close();
+
+        File file = new File(SEGMENT_PATH, SEGMENT_NAME);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeInt(0x12345678);
+        }
+
+        store = openStore();
+        assertTrue(store.wasTruncated());
+        assertTrue(store.getNames().isEmpty());
+        assertEquals(store.getSegmentSize(), DomainSegmentStore.HEADER_SIZE);
+        store.close();
+    }
+
+    @Test
+    public void testCompaction() {
+
+        // compact once superseded records are 50% of the segment
+
+        DomainSegmentStore store = new DomainSegmentStore(new File(SEGMENT_PATH), SEGMENT_NAME, 1024, 50);
+        for (int i = 0; i < 10; i++) {
+            store.put("domain" + i, DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("initial-data-" + i));
+        }
+        final long initialSize = store.getSegmentSize();
+
+        for (int j = 0; j < 20; j++) {
+            for (int i = 0; i < 10; i++) {
+                store.put("domain" + i, DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("updated-data-" + i));
+            }
+            assertTrue(store.getSegmentSize() < 1024 * 3);
+        }
+        store.delete("domain0");
+
+        assertEquals(store.getNames().size(), 9);
+        for (int i = 1; i < 10; i++) {
+            assertEquals(value(store.get("domain" + i)), "updated-data-" + i);
+        }
+        assertTrue(store.getSegmentSize() < initialSize * 3);
+        assertFalse(new File(SEGMENT_PATH, SEGMENT_NAME + ".compact").exists());
+        store.close();
+
+        // verify the compacted segment is valid
+
+        store = openStore();
+        assertEquals(store.getNames().size(), 9);
+        for (int i = 1; i < 10; i++) {
+            assertEquals(value(store.get("domain" + i)), "updated-data-" + i);
+        }
+        store.close();
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+
+        DomainSegmentStore store = openStore();
+        store.put("coretech", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data1"));
+        store.put("coretech", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data2"));
+        store.put("sports", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data3"));
+        store.delete("sports");
+
+        store.compact();
+        assertEquals(store.getSegmentSize(), DomainSegmentStore.HEADER_SIZE + store.getLiveBytes());
+        assertEquals(value(store.get("coretech")), "data2");
+        assertNull(store.get("sports"));
+
+        store.put("sports", DomainSegmentStore.RECORD_SIGNED_DOMAIN, bytes("data4"));
+        assertEquals(value(store.get("sports")), "data4");
+        store.close();
+    }
+
+    @Test
+    public void testInvalidDirectory() throws IOException {
+
+        File file = new File(SEGMENT_PATH);
+        assertTrue(file.createNewFile());
+
+        try {
+            new DomainSegmentStore(new File(SEGMENT_PATH, "subdir"), SEGMENT_NAME, 1024, 50);
+            fail();
+        } catch (RuntimeException ignored) {
+        }
+        assertTrue(file.delete());
+    }
+}
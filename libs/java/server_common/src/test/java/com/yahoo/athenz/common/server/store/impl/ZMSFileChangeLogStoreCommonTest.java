@@ -35,6 +35,9 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.yahoo.athenz.common.ServerCommonConsts.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -249,6 +252,100 @@ public class ZMSFileChangeLogStoreCommonTest {
         }
     }
 
+    @Test
+    public void testPutMoveException() throws IOException {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        FilesHelper helper = Mockito.spy(new FilesHelper());
+        Mockito.doThrow(new IOException("io exception")).when(helper).move(any(), any());
+        fstore.filesHelper = helper;
+
+        Struct data = new Struct();
+        data.put("key", "val1");
+        try {
+            fstore.put("test1", JSON.bytes(data));
+            fail();
+        } catch (Exception ex) {
+            assertTrue(ex.getMessage().contains("unable to save file"));
+        }
+
+        // the temp file must be removed and no domain file created
+
+        assertFalse(new File(FSTORE_PATH, ".test1.tmp").exists());
+        assertFalse(new File(FSTORE_PATH, "test1").exists());
+    }
+
+    @Test
+    public void testPutReplaceFile() {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+
+        Struct data = new Struct();
+        data.put("key", "val1");
+        fstore.put("test1", JSON.bytes(data));
+
+        data.put("key", "val2");
+        fstore.put("test1", JSON.bytes(data));
+
+        Struct st = fstore.get("test1", Struct.class);
+        assertEquals(st.getString("key"), "val2");
+        assertFalse(new File(FSTORE_PATH, ".test1.tmp").exists());
+        assertEquals(fstore.getLocalDomainList(), Collections.singletonList("test1"));
+    }
+
+    @Test
+    public void testRemoveTempFilesOnInit() throws IOException {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        fstore.setLastModificationTimestamp("12345");
+
+        File tempFile = new File(FSTORE_PATH, ".coretech.tmp");
+        assertTrue(tempFile.createNewFile());
+
+        new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+        assertFalse(tempFile.exists());
+        assertTrue(new File(FSTORE_PATH, ".lastModTime").exists());
+    }
+
+    @Test
+    public void testConcurrentPutGet() throws Exception {
+
+        ZMSFileChangeLogStoreCommon fstore = new ZMSFileChangeLogStoreCommon(FSTORE_PATH);
+
+        // multiple threads are updating and reading the same set of
+        // files and readers must never see a partially written file
+
+        final int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final int threadId = t;
+            futures.add(executor.submit(() -> {
+                int failures = 0;
+                for (int i = 0; i < 200; i++) {
+                    final String name = "domain" + (i % 4);
+                    Struct data = new Struct();
+                    data.put("key", "value-" + threadId + "-" + i);
+                    fstore.put(name, JSON.bytes(data));
+                    Struct st = fstore.get("domain" + ((i + threadId) % 4), Struct.class);
+                    if (st != null && !st.getString("key").startsWith("value-")) {
+                        failures += 1;
+                    }
+                }
+                return failures;
+            }));
+        }
+        for (Future<Integer> future : futures) {
+            assertEquals(future.get().intValue(), 0);
+        }
+        executor.shutdown();
+
+        for (int i = 0; i < 4; i++) {
+            assertNotNull(fstore.get("domain" + i, Struct.class));
+        }
+        assertEquals(fstore.getLocalDomainList().size(), 4);
+    }
+
     @Test
     public void testDeleteException() throws IOException {
 
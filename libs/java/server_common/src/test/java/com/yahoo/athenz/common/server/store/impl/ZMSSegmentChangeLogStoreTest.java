@@ -0,0 +1,306 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.store.impl;
+
+import com.yahoo.athenz.CommonTestUtils;
+import com.yahoo.athenz.auth.util.Crypto;
+import com.yahoo.athenz.common.server.store.ChangeLogStore;
+import com.yahoo.athenz.common.utils.SignUtils;
+import com.yahoo.athenz.zms.*;
+import com.yahoo.rdl.Timestamp;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.PrivateKey;
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class ZMSSegmentChangeLogStoreTest {
+
+    private static final String SEGMENT_PATH = "/tmp/zts_segment_clog_unit_test";
+
+    @BeforeMethod
+    public void setup() {
+        CommonTestUtils.deleteDirectory(new File(SEGMENT_PATH));
+    }
+
+    @AfterMethod
+    public void shutdown() {
+        CommonTestUtils.deleteDirectory(new File(SEGMENT_PATH));
+    }
+
+    private SignedDomain createSignedDomain(final String domainName) {
+
+        Role role = new Role().setName(domainName + ":role.admin")
+                .setRoleMembers(Collections.singletonList(new RoleMember().setMemberName("user.joe")));
+        DomainData domainData = new DomainData().setName(domainName)
+                .setModified(Timestamp.fromCurrentTime())
+                .setRoles(Collections.singletonList(role));
+        return new SignedDomain().setDomain(domainData).setKeyId("0").setSignature("signature");
+    }
+
+    private ZMSSegmentChangeLogStore createStore(ChangeLogStore serverStore) {
+        return new ZMSSegmentChangeLogStore(SEGMENT_PATH, serverStore, 1024 * 1024, 50);
+    }
+
+    @Test
+    public void testSignedDomain() {
+
+        ChangeLogStore serverStore = Mockito.mock(ChangeLogStore.class);
+        ZMSSegmentChangeLogStore store = createStore(serverStore);
+
+        assertNull(store.getLocalSignedDomain("coretech"));
+        assertTrue(store.getLocalDomainList().isEmpty());
+
+        SignedDomain signedDomain = createSignedDomain("coretech");
+        store.saveLocalDomain("coretech", signedDomain);
+        store.saveLocalDomain("sports", createSignedDomain("sports").setKeyId(null));
+
+        SignedDomain localDomain = store.getLocalSignedDomain("coretech");
+        assertNotNull(localDomain);
+        assertEquals(localDomain.getKeyId(), "0");
+        assertEquals(localDomain.getSignature(), "signature");
+        assertEquals(SignUtils.asCanonicalString(localDomain.getDomain()),
+                SignUtils.asCanonicalString(signedDomain.getDomain()));
+        assertNull(store.getLocalSignedDomain("sports").getKeyId());
+
+        // signed domains are not returned as jws domains
+
+        assertNull(store.getLocalJWSDomain("coretech"));
+
+        List<String> domains = store.getLocalDomainList();
+        assertEquals(domains.size(), 2);
+        assertTrue(domains.contains("coretech"));
+        assertTrue(domains.contains("sports"));
+
+        store.removeLocalDomain("coretech");
+        assertNull(store.getLocalSignedDomain("coretech"));
+        assertEquals(store.getLocalDomainList(), Collections.singletonList("sports"));
+
+        store.getSegmentStore().close();
+
+        // verify our domains are available after reopening the store
+
+        store = createStore(serverStore);
+        assertNull(store.getLocalSignedDomain("coretech"));
+        assertEquals(store.getLocalSignedDomain("sports").getDomain().getName(), "sports");
+        store.getSegmentStore().close();
+    }
+
+    @Test
+    public void testJWSDomain() {
+
+        ChangeLogStore serverStore = Mockito.mock(ChangeLogStore.class);
+        ZMSSegmentChangeLogStore store = createStore(serverStore);
+
+        Map<String, String> header = new HashMap<>();
+        header.put("kid", "0");
+        JWSDomain jwsDomain = new JWSDomain().setPayload("payload").setProtectedHeader("protected")
+                .setSignature("signature").setHeader(header);
+        store.saveLocalDomain("coretech", jwsDomain);
+        store.saveLocalDomain("sports", new JWSDomain().setPayload("payload2"));
+
+        JWSDomain localDomain = store.getLocalJWSDomain("coretech");
+        assertNotNull(localDomain);
+        assertEquals(localDomain.getPayload(), "payload");
+        assertEquals(localDomain.getProtectedHeader(), "protected");
+        assertEquals(localDomain.getSignature(), "signature");
+        assertEquals(localDomain.getHeader(), header);
+
+        localDomain = store.getLocalJWSDomain("sports");
+        assertEquals(localDomain.getPayload(), "payload2");
+        assertNull(localDomain.getProtectedHeader());
+        assertNull(localDomain.getSignature());
+        assertNull(localDomain.getHeader());
+
+        // jws domains are not returned as signed domains
+
+        assertNull(store.getLocalSignedDomain("coretech"));
+        assertNull(store.getLocalJWSDomain("unknown"));
+        store.getSegmentStore().close();
+    }
+
+    @Test
+    public void testInvalidRecordData() {
+
+        ChangeLogStore serverStore = Mockito.mock(ChangeLogStore.class);
+        ZMSSegmentChangeLogStore store = createStore(serverStore);
+
+        store.getSegmentStore().put("coretech", DomainSegmentStore.RECORD_SIGNED_DOMAIN, new byte[2]);
+        store.getSegmentStore().put("sports", DomainSegmentStore.RECORD_JWS_DOMAIN, new byte[2]);
+
+        assertNull(store.getLocalSignedDomain("coretech"));
+        assertNull(store.getLocalJWSDomain("sports"));
+        store.getSegmentStore().close();
+    }
+
+    @Test
+    public void testRemoveLocalDomainFiles() {
+
+        ChangeLogStore serverStore = Mockito.mock(ChangeLogStore.class);
+        Mockito.when(serverStore.getLocalDomainList()).thenReturn(Arrays.asList("coretech", "sports"));
+
+        ZMSSegmentChangeLogStore store = createStore(serverStore);
+        Mockito.verify(serverStore).removeLocalDomain("coretech");
+        Mockito.verify(serverStore).removeLocalDomain("sports");
+        Mockito.verify(serverStore).setLastModificationTimestamp(null);
+        store.getSegmentStore().close();
+    }
+
+    @Test
+    public void testMigrateFromFileStore() {
+
+        ZMSFileChangeLogStore fileStore = new ZMSFileChangeLogStore(SEGMENT_PATH, null, null);
+        fileStore.saveLocalDomain("coretech", createSignedDomain("coretech"));
+        fileStore.saveLocalDomain("sports", createSignedDomain("sports"));
+        fileStore.setLastModificationTimestamp("12345");
+
+        ZMSSegmentChangeLogStore store = createStore(fileStore);
+
+        // all domain files and the last modification timestamp must be
+        // removed so the data store carries out a full refresh
+
+        ZMSFileChangeLogStoreCommon cstore = new ZMSFileChangeLogStoreCommon(SEGMENT_PATH);
+        assertTrue(fileStore.getLocalDomainList().isEmpty());
+        assertTrue(store.getLocalDomainList().isEmpty());
+        assertNull(cstore.retrieveLastModificationTime());
+        store.getSegmentStore().close();
+    }
+
+    @Test
+    public void testEmptySegmentResetsLastModTime() {
+
+        ZMSFileChangeLogStore fileStore = new ZMSFileChangeLogStore(SEGMENT_PATH, null, null);
+        ZMSSegmentChangeLogStore store = createStore(fileStore);
+        store.saveLocalDomain("coretech", createSignedDomain("coretech"));
+        store.setLastModificationTimestamp("12345");
+        store.getSegmentStore().close();
+
+        // with domains in the segment the timestamp is preserved
+
+        ZMSFileChangeLogStoreCommon cstore = new ZMSFileChangeLogStoreCommon(SEGMENT_PATH);
+        store = createStore(new ZMSFileChangeLogStore(SEGMENT_PATH, null, null));
+        assertEquals(cstore.retrieveLastModificationTime(), "12345");
+        store.getSegmentStore().close();
+
+        // remove the segment file while keeping the timestamp
+
+        assertTrue(new File(SEGMENT_PATH, ZMSSegmentChangeLogStore.SEGMENT_FILE_NAME).delete());
+        assertEquals(cstore.retrieveLastModificationTime(), "12345");
+
+        store = createStore(new ZMSFileChangeLogStore(SEGMENT_PATH, null, null));
+        assertTrue(store.getLocalDomainList().isEmpty());
+        assertNull(cstore.retrieveLastModificationTime());
+        store.getSegmentStore().close();
+    }
+
+    @Test
+    public void testTruncatedSegmentResetsLastModTime() throws IOException {
+
+        ZMSFileChangeLogStore fileStore = new ZMSFileChangeLogStore(SEGMENT_PATH, null, null);
+        ZMSSegmentChangeLogStore store = createStore(fileStore);
+        store.saveLocalDomain("coretech", createSignedDomain("coretech"));
+        store.saveLocalDomain("sports", createSignedDomain("sports"));
+        store.setLastModificationTimestamp("12345");
+        store.getSegmentStore().close();
+
+        // corrupt the tail record so only the first domain survives
+
+        File file = new File(SEGMENT_PATH, ZMSSegmentChangeLogStore.SEGMENT_FILE_NAME);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        ZMSFileChangeLogStoreCommon cstore = new ZMSFileChangeLogStoreCommon(SEGMENT_PATH);
+        assertEquals(cstore.retrieveLastModificationTime(), "12345");
+
+        store = createStore(new ZMSFileChangeLogStore(SEGMENT_PATH, null, null));
+        assertTrue(store.getSegmentStore().wasTruncated());
+        assertEquals(store.getLocalDomainList(), Collections.singletonList("coretech"));
+        assertNull(cstore.retrieveLastModificationTime());
+        store.getSegmentStore().close();
+
+        // reopening the now valid segment does not report truncation
+
+        store.setLastModificationTimestamp("12346");
+        store = createStore(new ZMSFileChangeLogStore(SEGMENT_PATH, null, null));
+        assertFalse(store.getSegmentStore().wasTruncated());
+        assertEquals(cstore.retrieveLastModificationTime(), "12346");
+        store.getSegmentStore().close();
+    }
+
+    @Test
+    public void testServerStoreRequests() {
+
+        ChangeLogStore serverStore = Mockito.mock(ChangeLogStore.class);
+        ZMSSegmentChangeLogStore store = createStore(serverStore);
+
+        SignedDomain signedDomain = createSignedDomain("coretech");
+        JWSDomain jwsDomain = new JWSDomain().setPayload("payload");
+        SignedDomains signedDomains = new SignedDomains().setDomains(Collections.singletonList(signedDomain));
+        Set<String> domainList = Collections.singleton("coretech");
+        StringBuilder lastModTime = new StringBuilder();
+
+        Mockito.when(serverStore.supportsFullRefresh()).thenReturn(true);
+        Mockito.when(serverStore.getServerSignedDomain("coretech")).thenReturn(signedDomain);
+        Mockito.when(serverStore.getServerJWSDomain("coretech")).thenReturn(jwsDomain);
+        Mockito.when(serverStore.getServerDomainList()).thenReturn(domainList);
+        Mockito.when(serverStore.getServerDomainModifiedList()).thenReturn(signedDomains);
+        Mockito.when(serverStore.getUpdatedSignedDomains(lastModTime)).thenReturn(signedDomains);
+        Mockito.when(serverStore.getUpdatedJWSDomains(lastModTime)).thenReturn(Collections.singletonList(jwsDomain));
+
+        assertTrue(store.supportsFullRefresh());
+        assertEquals(store.getServerSignedDomain("coretech"), signedDomain);
+        assertEquals(store.getServerJWSDomain("coretech"), jwsDomain);
+        assertEquals(store.getServerDomainList(), domainList);
+        assertEquals(store.getServerDomainModifiedList(), signedDomains);
+        assertEquals(store.getUpdatedSignedDomains(lastModTime), signedDomains);
+        assertEquals(store.getUpdatedJWSDomains(lastModTime), Collections.singletonList(jwsDomain));
+
+        store.setLastModificationTimestamp("12345");
+        Mockito.verify(serverStore).setLastModificationTimestamp("12345");
+
+        store.setRequestConditions(true);
+        Mockito.verify(serverStore).setRequestConditions(true);
+
+        store.setJWSDomainSupport(true);
+        Mockito.verify(serverStore).setJWSDomainSupport(true);
+        store.getSegmentStore().close();
+    }
+
+    @Test
+    public void testFactory() {
+
+        File privKeyFile = new File("src/test/resources/unit_test_zts_private.pem");
+        String privKey = Crypto.encodedFile(privKeyFile);
+        PrivateKey pkey = Crypto.loadPrivateKey(Crypto.ybase64DecodeString(privKey));
+
+        ZMSSegmentChangeLogStoreFactory factory = new ZMSSegmentChangeLogStoreFactory();
+        ChangeLogStore store = factory.create(SEGMENT_PATH, pkey, "0");
+        assertTrue(store instanceof ZMSSegmentChangeLogStore);
+
+        File segmentFile = new File(SEGMENT_PATH + File.separator + "zts_store",
+                ZMSSegmentChangeLogStore.SEGMENT_FILE_NAME);
+        assertTrue(segmentFile.exists());
+        ((ZMSSegmentChangeLogStore) store).getSegmentStore().close();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.util;
+
+import com.yahoo.athenz.auth.util.StringUtils;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class GlobMatcherTest {
+
+    @Test
+    public void testCompileTypes() {
+
+        GlobMatcher matcher = GlobMatcher.compile("*");
+        assertEquals(matcher.getType(), GlobMatcher.Type.ALL);
+        assertFalse(matcher.isLiteral());
+        assertEquals(matcher.getLiteralPrefix(), "");
+        assertEquals(matcher.getGlob(), "*");
+
+        matcher = GlobMatcher.compile("coretech:role.readers");
+        assertEquals(matcher.getType(), GlobMatcher.Type.EQUAL);
+        assertTrue(matcher.isLiteral());
+        assertEquals(matcher.getLiteralPrefix(), "coretech:role.readers");
+
+        matcher = GlobMatcher.compile("coretech:role.*");
+        assertEquals(matcher.getType(), GlobMatcher.Type.STARTS_WITH);
+        assertEquals(matcher.getLiteralPrefix(), "coretech:role.");
+
+        matcher = GlobMatcher.compile("coretech:role.*.readers");
+        assertEquals(matcher.getType(), GlobMatcher.Type.SEGMENTS);
+        assertEquals(matcher.getLiteralPrefix(), "coretech:role.");
+
+        matcher = GlobMatcher.compile("coretech:role.read?rs*");
+        assertEquals(matcher.getType(), GlobMatcher.Type.GLOB);
+        assertEquals(matcher.getLiteralPrefix(), "coretech:role.read");
+    }
+
+    @DataProvider(name = "globValues")
+    public static Object[][] globValues() {
+        return new Object[][] {
+                { "*", "coretech:role.readers" },
+                { "*", "" },
+                { "coretech:role.readers", "coretech:role.readers" },
+                { "coretech:role.readers", "coretech:role.writers" },
+                { "coretech:role.*", "coretech:role.readers" },
+                { "coretech:role.*", "coretech:role." },
+                { "coretech:role.*", "coretech:policy.readers" },
+                { "coretech:role.*.readers", "coretech:role.api.readers" },
+                { "coretech:role.*.readers", "coretech:role.api.writers" },
+                { "coretech:role.read?rs", "coretech:role.readers" },
+                { "coretech:role.read?rs", "coretech:role.readrs" },
+                { "*:role.readers", "sports:role.readers" },
+                { "*:role.readers", "sports:role.writers" },
+                { "coretech:service(1)+", "coretech:service(1)+" },
+                { "coretech:service[1]*", "coretech:service[1]abc" },
+                { "coretech:service[1]*", "coretech:service1abc" },
+                { "coretech:*$test", "coretech:abc$test" },
+                { "?", "" },
+                { "?", "a" },
+                { "?", "ab" },
+                { "*abc*abd", "abcabcabd" },
+                { "*abc*abd", "abcabdabc" },
+                { "a*b*c", "abc" },
+                { "a*b*c", "aXbYcZ" },
+                { "a**c", "abbbc" },
+                { "*?", "" },
+                { "*?", "x" },
+                { "coretech:*", "sports:role" },
+                { "*:role.delegated1*", "coretech:role.delegated12" },
+                { "*:role.delegated1*", "coretech:role.delegated21" },
+                { "ab*ba", "aba" },
+                { "ab*ba", "abba" },
+                { "*a*a*", "aa" },
+                { "*a*a*", "ab" },
+                { "*.*.*", "a.b" },
+                { "*.*.*", "a.b.c" },
+                { "a*?b", "ab" },
+                { "a*?b", "acb" },
+        };
+    }
+
+    @Test(dataProvider = "globValues")
+    public void testMatchesRegexCompatibility(final String glob, final String value) {
+
+        // the matcher must return the same result as the regex
+        // pattern generated by StringUtils.patternFromGlob
+
+        GlobMatcher matcher = GlobMatcher.compile(glob);
+        assertEquals(matcher.matches(value), value.matches(StringUtils.patternFromGlob(glob)));
+    }
+}
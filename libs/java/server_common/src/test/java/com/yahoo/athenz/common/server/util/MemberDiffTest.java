@@ -0,0 +1,121 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.common.server.util;
+
+import com.yahoo.athenz.zms.GroupMember;
+import com.yahoo.athenz.zms.RoleMember;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+public class MemberDiffTest {
+
+    private static List<String> roleMemberNames(List<RoleMember> members) {
+        return members.stream().map(RoleMember::getMemberName).collect(Collectors.toList());
+    }
+
+    private static List<String> groupMemberNames(List<GroupMember> members) {
+        return members.stream().map(GroupMember::getMemberName).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRoleMembers() {
+
+        List<RoleMember> currentMembers = Arrays.asList(
+                new RoleMember().setMemberName("user.joe"),
+                new RoleMember().setMemberName("user.Jane"),
+                new RoleMember().setMemberName("user.john"));
+        List<RoleMember> updatedMembers = Arrays.asList(
+                new RoleMember().setMemberName("user.jane"),
+                new RoleMember().setMemberName("user.bob"),
+                new RoleMember().setMemberName("User.Joe"),
+                new RoleMember().setMemberName("user.alice"));
+
+        MemberDiff<RoleMember> diff = MemberDiff.roleMembers(currentMembers, updatedMembers);
+        assertEquals(roleMemberNames(diff.getAddedMembers()), Arrays.asList("user.bob", "user.alice"));
+        assertEquals(roleMemberNames(diff.getRemovedMembers()), Arrays.asList("user.john"));
+
+        // updated members are returned from the updated list
+
+        assertEquals(roleMemberNames(diff.getUpdatedMembers()), Arrays.asList("user.jane", "User.Joe"));
+    }
+
+    @Test
+    public void testGroupMembers() {
+
+        List<GroupMember> currentMembers = Arrays.asList(
+                new GroupMember().setMemberName("user.joe"),
+                new GroupMember().setMemberName("user.jane"));
+        List<GroupMember> updatedMembers = Arrays.asList(
+                new GroupMember().setMemberName("user.jane"),
+                new GroupMember().setMemberName("user.bob"));
+
+        MemberDiff<GroupMember> diff = MemberDiff.groupMembers(currentMembers, updatedMembers);
+        assertEquals(groupMemberNames(diff.getAddedMembers()), Arrays.asList("user.bob"));
+        assertEquals(groupMemberNames(diff.getRemovedMembers()), Arrays.asList("user.joe"));
+        assertEquals(groupMemberNames(diff.getUpdatedMembers()), Arrays.asList("user.jane"));
+    }
+
+    @Test
+    public void testNullMemberLists() {
+
+        List<GroupMember> members = Arrays.asList(
+                new GroupMember().setMemberName("user.joe"),
+                new GroupMember().setMemberName("user.jane"));
+
+        MemberDiff<GroupMember> diff = MemberDiff.groupMembers(null, members);
+        assertEquals(groupMemberNames(diff.getAddedMembers()), Arrays.asList("user.joe", "user.jane"));
+        assertTrue(diff.getRemovedMembers().isEmpty());
+        assertTrue(diff.getUpdatedMembers().isEmpty());
+
+        diff = MemberDiff.groupMembers(members, null);
+        assertTrue(diff.getAddedMembers().isEmpty());
+        assertEquals(groupMemberNames(diff.getRemovedMembers()), Arrays.asList("user.joe", "user.jane"));
+        assertTrue(diff.getUpdatedMembers().isEmpty());
+
+        diff = MemberDiff.groupMembers(null, null);
+        assertTrue(diff.getAddedMembers().isEmpty());
+        assertTrue(diff.getRemovedMembers().isEmpty());
+        assertTrue(diff.getUpdatedMembers().isEmpty());
+    }
+
+    @Test
+    public void testLargeMemberLists() {
+
+        // 100k members with half of them replaced must be processed
+        // in linear time
+
+        List<GroupMember> currentMembers = new ArrayList<>();
+        List<GroupMember> updatedMembers = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            currentMembers.add(new GroupMember().setMemberName("user.member" + i));
+            updatedMembers.add(new GroupMember().setMemberName("user.member" + (i + 50000)));
+        }
+
+        MemberDiff<GroupMember> diff = MemberDiff.groupMembers(currentMembers, updatedMembers);
+        assertEquals(diff.getAddedMembers().size(), 50000);
+        assertEquals(diff.getRemovedMembers().size(), 50000);
+        assertEquals(diff.getUpdatedMembers().size(), 50000);
+        assertEquals(diff.getAddedMembers().get(0).getMemberName(), "user.member100000");
+        assertEquals(diff.getRemovedMembers().get(0).getMemberName(), "user.member0");
+        assertEquals(diff.getUpdatedMembers().get(0).getMemberName(), "user.member50000");
+    }
+}
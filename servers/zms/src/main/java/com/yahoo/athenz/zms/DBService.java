@@ -28,6 +28,7 @@ import com.yahoo.athenz.common.server.db.RolesProvider;
 import com.yahoo.athenz.common.server.log.AuditLogMsgBuilder;
 import com.yahoo.athenz.common.server.log.AuditLogger;
 import com.yahoo.athenz.common.server.util.AuthzHelper;
+import com.yahoo.athenz.common.server.util.MemberDiff;
 import com.yahoo.athenz.common.server.util.ResourceUtils;
 import com.yahoo.athenz.zms.config.MemberDueDays;
 import com.yahoo.athenz.zms.store.AthenzDomain;
@@ -198,6 +199,10 @@ public class DBService implements RolesProvider {
     static class DataCache {
         AthenzDomain athenzDomain;
         long modTime;
+        volatile DomainAccessEvaluator accessEvaluator;
+        volatile JWSDomain jwsDomain;
+        volatile JWSDomain jwsDomainP1363;
+        final Object jwsDomainLock = new Object();
 
         DataCache(AthenzDomain athenzDomain, long modTime) {
             this.athenzDomain = athenzDomain;
@@ -211,6 +216,80 @@ public class DBService implements RolesProvider {
         long getModTime() {
             return modTime;
         }
+
+        DomainAccessEvaluator getAccessEvaluator() {
+
+            // the evaluator is compiled on first use and since the
+            // cache entry is replaced whenever the domain is modified
+            // there is no need for any other invalidation logic
+
+            DomainAccessEvaluator evaluator = accessEvaluator;
+            if (evaluator == null) {
+                synchronized (this) {
+                    evaluator = accessEvaluator;
+                    if (evaluator == null) {
+                        evaluator = new DomainAccessEvaluator(athenzDomain);
+                        accessEvaluator = evaluator;
+                    }
+                }
+            }
+            return evaluator;
+        }
+
+        JWSDomain getJWSDomain(Boolean signatureP1363Format, Function<Boolean, JWSDomain> generator) {
+
+            // the signed domain object only depends on the domain data and
+            // the signature format so it's generated once per cache entry.
+            // concurrent requests wait for the first one to complete the
+            // signing operation. we don't cache any failures so the next
+            // request will try to generate the object again
+
+            final boolean p1363Format = (signatureP1363Format == Boolean.TRUE);
+            JWSDomain jws = p1363Format ? jwsDomainP1363 : jwsDomain;
+            if (jws == null) {
+                synchronized (jwsDomainLock) {
+                    jws = p1363Format ? jwsDomainP1363 : jwsDomain;
+                    if (jws == null) {
+                        jws = generator.apply(p1363Format);
+                        if (p1363Format) {
+                            jwsDomainP1363 = jws;
+                        } else {
+                            jwsDomain = jws;
+                        }
+                    }
+                }
+            }
+            return jws;
+        }
+    }
+
+    DomainAccessEvaluator getAccessEvaluator(AthenzDomain athenzDomain) {
+
+        // we only return the evaluator if the given domain object is
+        // the one currently in our cache. virtual home domains and
+        // domains that have already been replaced in the cache will
+        // be processed by the caller without the compiled evaluator
+
+        DataCache data = cacheStore.getIfPresent(athenzDomain.getName());
+        if (data == null || data.getAthenzDomain() != athenzDomain) {
+            return null;
+        }
+        return data.getAccessEvaluator();
+    }
+
+    JWSDomain getJWSDomain(AthenzDomain athenzDomain, Boolean signatureP1363Format,
+            Function<Boolean, JWSDomain> generator) {
+
+        // we only use the cached signed object if the given domain object
+        // is the one currently in our cache. since the cache entry is
+        // replaced or invalidated whenever the domain is modified, the
+        // signed object is discarded along with it
+
+        DataCache data = cacheStore.getIfPresent(athenzDomain.getName());
+        if (data == null || data.getAthenzDomain() != athenzDomain) {
+            return generator.apply(signatureP1363Format);
+        }
+        return data.getJWSDomain(signatureP1363Format, generator);
     }
 
     AthenzDomain getAthenzDomainFromCache(ObjectStoreConnection con, String domainName) {
@@ -785,21 +864,12 @@ public class DBService implements RolesProvider {
             List<RoleMember> roleMembers, boolean ignoreDeletes, String domainName,
             String roleName, String admin, String auditRef, StringBuilder auditDetails) {
 
-        // first we need to retrieve the current set of members
+        // compare the current set of members with the requested
+        // members to determine the list of added and deleted members
 
-        List<RoleMember> originalMembers = originalRole.getRoleMembers();
-        List<RoleMember> curMembers = (null == originalMembers) ? new ArrayList<>() : new ArrayList<>(originalMembers);
-        List<RoleMember> delMembers = new ArrayList<>(curMembers);
-        ArrayList<RoleMember> newMembers = (null == roleMembers) ? new ArrayList<>() : new ArrayList<>(roleMembers);
-
-        // remove current members from new members
-
-        AuthzHelper.removeRoleMembers(newMembers, curMembers);
-
-        // remove new members from current members
-        // which leaves the deleted members.
-
-        AuthzHelper.removeRoleMembers(delMembers, roleMembers);
+        MemberDiff<RoleMember> memberDiff = MemberDiff.roleMembers(originalRole.getRoleMembers(), roleMembers);
+        List<RoleMember> delMembers = memberDiff.getRemovedMembers();
+        List<RoleMember> newMembers = memberDiff.getAddedMembers();
 
         if (!ignoreDeletes) {
             for (RoleMember member : delMembers) {
@@ -824,21 +894,12 @@ public class DBService implements RolesProvider {
                                               final String groupName, final String admin, final String auditRef,
                                               StringBuilder auditDetails) {
 
-        // first we need to retrieve the current set of members
-
-        List<GroupMember> originalMembers = originalGroup.getGroupMembers();
-        List<GroupMember> curMembers = (null == originalMembers) ? new ArrayList<>() : new ArrayList<>(originalMembers);
-        List<GroupMember> delMembers = new ArrayList<>(curMembers);
-        ArrayList<GroupMember> newMembers = (null == groupMembers) ? new ArrayList<>() : new ArrayList<>(groupMembers);
-
-        // remove current members from new members
-
-        AuthzHelper.removeGroupMembers(newMembers, curMembers);
-
-        // remove new members from current members
-        // which leaves the deleted members.
+        // compare the current set of members with the requested
+        // members to determine the list of added and deleted members
 
-        AuthzHelper.removeGroupMembers(delMembers, groupMembers);
+        MemberDiff<GroupMember> memberDiff = MemberDiff.groupMembers(originalGroup.getGroupMembers(), groupMembers);
+        List<GroupMember> delMembers = memberDiff.getRemovedMembers();
+        List<GroupMember> newMembers = memberDiff.getAddedMembers();
 
         for (GroupMember member : delMembers) {
             if (!con.deleteGroupMember(domainName, groupName, member.getMemberName(), admin, auditRef)) {
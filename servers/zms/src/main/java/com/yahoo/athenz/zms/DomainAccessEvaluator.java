@@ -0,0 +1,384 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zms;
+
+import com.yahoo.athenz.auth.AuthorityConsts;
+import com.yahoo.athenz.auth.Principal;
+import com.yahoo.athenz.common.server.util.AuthzHelper;
+import com.yahoo.athenz.common.server.util.GlobMatcher;
+import com.yahoo.athenz.zms.store.AthenzDomain;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Compiled representation of the policies in a single domain used
+ * to evaluate access checks. The evaluator is built once per cached
+ * domain (see DBService.DataCache) and it's discarded together with
+ * the cache entry when the domain is modified. All glob patterns are
+ * precompiled, the roles matching each assertion role pattern are
+ * resolved at compile time and the assertions are indexed by effect
+ * and by their literal action value.
+ */
+public class DomainAccessEvaluator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DomainAccessEvaluator.class);
+
+    private static final String ASSUME_ROLE = "assume_role";
+
+    interface DelegatedTrustChecker {
+        boolean delegatedTrust(String trustDomain, String roleName, String roleMember);
+    }
+
+    private final String domainName;
+    private final AssertionIndex allowIndex = new AssertionIndex();
+    private final AssertionIndex denyIndex = new AssertionIndex();
+    private final List<CompiledAssertion> assumeRoleAssertions = new ArrayList<>();
+
+    public DomainAccessEvaluator(AthenzDomain athenzDomain) {
+
+        domainName = athenzDomain.getName();
+
+        // first we're going to compile all of our roles so that
+        // each role object is processed only once even if it's
+        // referenced by multiple assertions
+
+        final String rolePrefix = domainName + AuthorityConsts.ROLE_SEP;
+        List<CompiledRole> roles = new ArrayList<>();
+        if (athenzDomain.getRoles() != null) {
+            for (Role role : athenzDomain.getRoles()) {
+                roles.add(new CompiledRole(role, rolePrefix));
+            }
+        }
+
+        List<Policy> policies = athenzDomain.getPolicies();
+        if (policies == null) {
+            return;
+        }
+
+        Map<String, List<CompiledRole>> rolePatternMap = new HashMap<>();
+        for (Policy policy : policies) {
+
+            // ignore any inactive/multi-version policies
+
+            if (policy.getActive() == Boolean.FALSE) {
+                continue;
+            }
+
+            List<Assertion> assertions = policy.getAssertions();
+            if (assertions == null) {
+                continue;
+            }
+
+            for (Assertion assertion : assertions) {
+
+                List<CompiledRole> matchedRoles = rolePatternMap.computeIfAbsent(assertion.getRole(),
+                        rolePattern -> matchRoles(roles, rolePattern));
+
+                AssertionEffect effect = assertion.getEffect();
+                if (effect == AssertionEffect.DENY) {
+                    denyIndex.add(new CompiledAssertion(assertion.getAction().toLowerCase(),
+                            assertion.getResource().toLowerCase(), matchedRoles));
+                } else {
+                    allowIndex.add(new CompiledAssertion(assertion.getAction().toLowerCase(),
+                            assertion.getResource().toLowerCase(), matchedRoles));
+                }
+
+                // delegated trust checks only look at assume_role assertions
+                // and the resource is matched without any case conversion
+
+                if (ASSUME_ROLE.equalsIgnoreCase(assertion.getAction())) {
+                    assumeRoleAssertions.add(new CompiledAssertion(ASSUME_ROLE,
+                            assertion.getResource(), matchedRoles));
+                }
+            }
+        }
+    }
+
+    static List<CompiledRole> matchRoles(List<CompiledRole> roles, final String rolePattern) {
+        GlobMatcher roleMatcher = GlobMatcher.compile(rolePattern);
+        List<CompiledRole> matchedRoles = new ArrayList<>();
+        for (CompiledRole role : roles) {
+            if (roleMatcher.matches(role.name)) {
+                matchedRoles.add(role);
+            }
+        }
+        return matchedRoles;
+    }
+
+    public String getDomainName() {
+        return domainName;
+    }
+
+    /**
+     * Evaluate the access check for the given action and resource. The
+     * result is the same as processing all assertions in order: if any
+     * deny assertion matches then access is denied, otherwise access is
+     * allowed if any allow assertion matches.
+     * @param identity full name of the principal
+     * @param action action value (lower case)
+     * @param resource resource value (lower case)
+     * @param authenticatedRoles roles from the role token if any
+     * @param trustDomain trust domain value for delegated trust checks
+     * @param groupMembersFetcher fetcher for the group members
+     * @param trustChecker checker for roles delegated to other domains
+     * @return access status
+     */
+    ZMSImpl.AccessStatus evaluateAccess(final String identity, final String action, final String resource,
+            List<String> authenticatedRoles, final String trustDomain,
+            AuthzHelper.GroupMembersFetcher groupMembersFetcher, DelegatedTrustChecker trustChecker) {
+
+        // a single matching deny assertion is enough to reject
+        // the request so we'll process those first
+
+        if (denyIndex.match(identity, action, resource, authenticatedRoles, trustDomain,
+                groupMembersFetcher, trustChecker)) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("evaluateAccess: domain {} -> deny assertion matched", domainName);
+            }
+            return ZMSImpl.AccessStatus.DENIED;
+        }
+
+        if (allowIndex.match(identity, action, resource, authenticatedRoles, trustDomain,
+                groupMembersFetcher, trustChecker)) {
+            return ZMSImpl.AccessStatus.ALLOWED;
+        }
+
+        return ZMSImpl.AccessStatus.DENIED;
+    }
+
+    /**
+     * Check if the given member is authorized to assume the given role
+     * from another domain based on the assume_role assertions in
+     * this domain.
+     * @param roleName name of the role in the trusting domain
+     * @param roleMember name of the member
+     * @param groupMembersFetcher fetcher for the group members
+     * @return true if the member is authorized
+     */
+    boolean matchDelegatedTrust(final String roleName, final String roleMember,
+            AuthzHelper.GroupMembersFetcher groupMembersFetcher) {
+
+        for (CompiledAssertion assertion : assumeRoleAssertions) {
+            if (!assertion.resourceMatcher.matches(roleName)) {
+                continue;
+            }
+            for (CompiledRole role : assertion.roles) {
+                if (role.isMember(roleMember, groupMembersFetcher)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static class AssertionIndex {
+
+        final Map<String, List<CompiledAssertion>> actionAssertions = new HashMap<>();
+        final List<CompiledAssertion> wildcardAssertions = new ArrayList<>();
+
+        void add(CompiledAssertion assertion) {
+            if (assertion.actionMatcher.isLiteral()) {
+                actionAssertions.computeIfAbsent(assertion.actionMatcher.getLiteralPrefix(),
+                        k -> new ArrayList<>()).add(assertion);
+            } else {
+                wildcardAssertions.add(assertion);
+            }
+        }
+
+        boolean match(final String identity, final String action, final String resource,
+                List<String> authenticatedRoles, final String trustDomain,
+                AuthzHelper.GroupMembersFetcher groupMembersFetcher, DelegatedTrustChecker trustChecker) {
+
+            List<CompiledAssertion> assertions = actionAssertions.get(action);
+            if (assertions != null) {
+                for (CompiledAssertion assertion : assertions) {
+                    if (assertion.matches(identity, resource, authenticatedRoles, trustDomain,
+                            groupMembersFetcher, trustChecker)) {
+                        return true;
+                    }
+                }
+            }
+
+            for (CompiledAssertion assertion : wildcardAssertions) {
+                if (!assertion.actionMatcher.matches(action)) {
+                    continue;
+                }
+                if (assertion.matches(identity, resource, authenticatedRoles, trustDomain,
+                        groupMembersFetcher, trustChecker)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    static class CompiledAssertion {
+
+        final GlobMatcher actionMatcher;
+        final GlobMatcher resourceMatcher;
+        final List<CompiledRole> roles;
+
+        CompiledAssertion(final String action, final String resource, List<CompiledRole> roles) {
+            this.actionMatcher = GlobMatcher.compile(action);
+            this.resourceMatcher = GlobMatcher.compile(resource);
+            this.roles = roles;
+        }
+
+        boolean matches(final String identity, final String resource, List<String> authenticatedRoles,
+                final String trustDomain, AuthzHelper.GroupMembersFetcher groupMembersFetcher,
+                DelegatedTrustChecker trustChecker) {
+
+            if (!resourceMatcher.matches(resource)) {
+                return false;
+            }
+
+            for (CompiledRole role : roles) {
+                if (authenticatedRoles != null) {
+
+                    // depending on the authority we either have the full role
+                    // name or only the short name so we're going to check both
+
+                    if (authenticatedRoles.contains(role.name) || authenticatedRoles.contains(role.shortName)) {
+                        return true;
+                    }
+                } else if (role.matchPrincipal(identity, trustDomain, groupMembersFetcher, trustChecker)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static class CompiledRole {
+
+        final Role role;
+        final String name;
+        final String shortName;
+
+        // for regular members we keep the position of each member in
+        // the original list so we can honor the first match semantics
+        // of AuthzHelper.checkRoleMemberValidity when a principal
+        // matches both a wildcard and a regular member
+
+        final Map<String, Integer> memberIndex;
+        final List<Integer> wildcardMembers;
+        final List<RoleMember> groupMembers;
+
+        CompiledRole(Role role, final String rolePrefix) {
+
+            this.role = role;
+            this.name = role.getName();
+            this.shortName = name.startsWith(rolePrefix) ? name.substring(rolePrefix.length()) : name;
+
+            List<RoleMember> roleMembers = role.getRoleMembers();
+            if (roleMembers == null) {
+                memberIndex = null;
+                wildcardMembers = null;
+                groupMembers = null;
+                return;
+            }
+
+            memberIndex = new HashMap<>();
+            wildcardMembers = new ArrayList<>();
+            groupMembers = new ArrayList<>();
+            for (int idx = 0; idx < roleMembers.size(); idx++) {
+                RoleMember roleMember = roleMembers.get(idx);
+                if (roleMember.getPrincipalType() != null && roleMember.getPrincipalType() == Principal.Type.GROUP.getValue()) {
+                    groupMembers.add(roleMember);
+                    continue;
+                }
+                final String memberName = roleMember.getMemberName();
+                if (memberName.endsWith("*")) {
+                    wildcardMembers.add(idx);
+                } else {
+                    memberIndex.putIfAbsent(memberName, idx);
+                }
+            }
+        }
+
+        boolean matchPrincipal(final String identity, final String trustDomain,
+                AuthzHelper.GroupMembersFetcher groupMembersFetcher, DelegatedTrustChecker trustChecker) {
+
+            // if we have members in the role then we're going to check
+            // against that list only
+
+            if (memberIndex != null) {
+                return isMember(identity, groupMembersFetcher);
+            }
+
+            // no members so let's check if this is a trust domain
+
+            final String trust = role.getTrust();
+            if (!AuthzHelper.shouldRunDelegatedTrustCheck(trust, trustDomain)) {
+                return false;
+            }
+
+            return trustChecker.delegatedTrust(trust, name, identity);
+        }
+
+        boolean isMember(final String member, AuthzHelper.GroupMembersFetcher groupMembersFetcher) {
+
+            if (memberIndex == null) {
+                return false;
+            }
+
+            // find the first regular member in the list that matches
+            // our principal - either the exact name or a wildcard
+
+            List<RoleMember> roleMembers = role.getRoleMembers();
+            int matchIdx = memberIndex.getOrDefault(member, Integer.MAX_VALUE);
+            for (int idx : wildcardMembers) {
+                if (idx > matchIdx) {
+                    break;
+                }
+                if (AuthzHelper.memberNameMatch(roleMembers.get(idx).getMemberName(), member)) {
+                    matchIdx = idx;
+                    break;
+                }
+            }
+
+            boolean isMember = false;
+            long currentTime = System.currentTimeMillis();
+            if (matchIdx != Integer.MAX_VALUE) {
+                RoleMember roleMember = roleMembers.get(matchIdx);
+                isMember = !AuthzHelper.isMemberDisabled(roleMember.getSystemDisabled())
+                        && !AuthzHelper.isMemberExpired(roleMember.getExpiration(), currentTime);
+            }
+
+            // if we have a match or no group members then we're done
+
+            if (isMember || groupMembers.isEmpty()) {
+                return isMember;
+            }
+
+            for (RoleMember roleMember : groupMembers) {
+
+                // if the group is expired there is no need to check
+
+                if (AuthzHelper.isMemberExpired(roleMember.getExpiration(), currentTime)) {
+                    continue;
+                }
+                if (AuthzHelper.isMemberOfGroup(groupMembersFetcher.getGroupMembers(roleMember.getMemberName()), member)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
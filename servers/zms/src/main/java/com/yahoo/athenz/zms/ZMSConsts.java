@@ -342,5 +342,11 @@ public final class ZMSConsts {
     public static final String ZMS_PROP_DOMAIN_CHANGE_TOPIC_NAMES = "athenz.zms.domain_changes_topic_names";
     public static final String ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_FACTORY_CLASS = "athenz.zms.domain_change_publisher_factory_class";
     public static final String ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_DEFAULT = "com.yahoo.athenz.common.messaging.impl.NoOpDomainChangePublisherFactory";
+    public static final String ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_ASYNC = "athenz.zms.domain_change_publisher_async";
+    public static final String ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_QUEUE_SIZE = "athenz.zms.domain_change_publisher_queue_size";
+    public static final String ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_BATCH_SIZE = "athenz.zms.domain_change_publisher_batch_size";
+    public static final String ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_MAX_IN_FLIGHT = "athenz.zms.domain_change_publisher_max_in_flight";
+    public static final String ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_OVERFLOW_POLICY = "athenz.zms.domain_change_publisher_overflow_policy";
+    public static final String ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_BLOCK_TIMEOUT = "athenz.zms.domain_change_publisher_block_timeout";
 
 }
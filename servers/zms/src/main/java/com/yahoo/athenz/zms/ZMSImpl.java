@@ -23,6 +23,7 @@ import com.yahoo.athenz.auth.util.Crypto;
 import com.yahoo.athenz.auth.util.StringUtils;
 import com.yahoo.athenz.common.config.AuthzDetailsEntity;
 import com.yahoo.athenz.common.config.AuthzDetailsField;
+import com.yahoo.athenz.common.messaging.AsyncChangePublisher;
 import com.yahoo.athenz.common.messaging.ChangePublisher;
 import com.yahoo.athenz.common.messaging.ChangePublisherFactory;
 import com.yahoo.athenz.common.messaging.DomainChangeMessage;
@@ -677,17 +678,43 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
 
     void loadDomainChangePublisher() {
         final String topicNames = System.getProperty(ZMS_PROP_DOMAIN_CHANGE_TOPIC_NAMES, "");
+        final boolean asyncPublisher = Boolean.parseBoolean(
+                System.getProperty(ZMSConsts.ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_ASYNC, "true"));
         for (String topic : topicNames.split(",")) {
             topic = topic.trim();
             if (!topic.isEmpty()) {
                 ChangePublisher<DomainChangeMessage> publisher = createPublisher(topic);
                 if (publisher != null) {
-                    domainChangePublishers.add(publisher);
+                    domainChangePublishers.add(asyncPublisher ? createAsyncPublisher(publisher, topic) : publisher);
                 }
             }
         }
     }
 
+    ChangePublisher<DomainChangeMessage> createAsyncPublisher(ChangePublisher<DomainChangeMessage> publisher,
+            final String topicName) {
+
+        // messages are queued and published from a separate thread so
+        // that our request latency does not depend on the messaging system
+
+        final int queueSize = Integer.parseInt(System.getProperty(ZMSConsts.ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_QUEUE_SIZE, "10000"));
+        final int batchSize = Integer.parseInt(System.getProperty(ZMSConsts.ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_BATCH_SIZE, "100"));
+        final int maxInFlight = Integer.parseInt(System.getProperty(ZMSConsts.ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_MAX_IN_FLIGHT, "1000"));
+        final long blockTimeout = Long.parseLong(System.getProperty(ZMSConsts.ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_BLOCK_TIMEOUT, "100"));
+
+        AsyncChangePublisher.OverflowPolicy overflowPolicy;
+        final String policyName = System.getProperty(ZMSConsts.ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_OVERFLOW_POLICY, "DROP_OLDEST");
+        try {
+            overflowPolicy = AsyncChangePublisher.OverflowPolicy.valueOf(policyName.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            LOG.error("invalid publisher overflow policy: {}, using DROP_OLDEST", policyName);
+            overflowPolicy = AsyncChangePublisher.OverflowPolicy.DROP_OLDEST;
+        }
+
+        return new AsyncChangePublisher<>(publisher, topicName, metric, queueSize, batchSize,
+                maxInFlight, overflowPolicy, blockTimeout);
+    }
+
     private ChangePublisher<DomainChangeMessage> createPublisher(String topicName) {
         ChangePublisherFactory<DomainChangeMessage> publisherFactory = null;
         final String domainChangePublisherClassName = System.getProperty(ZMSConsts.ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_FACTORY_CLASS,
@@ -2720,6 +2747,15 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
             return AccessStatus.DENIED;
         }
 
+        // if the domain is in our cache then we'll use its compiled
+        // evaluator instead of processing all assertions one by one
+
+        DomainAccessEvaluator evaluator = dbService.getAccessEvaluator(domain);
+        if (evaluator != null) {
+            return evaluator.evaluateAccess(identity, action, resource, authenticatedRoles,
+                    trustDomain, groupMemberFetcher, this::delegatedTrust);
+        }
+
         AccessStatus accessStatus = AccessStatus.DENIED;
 
         List<Policy> policies = domain.getPolicies();
@@ -5222,6 +5258,11 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
             return false;
         }
 
+        DomainAccessEvaluator evaluator = dbService.getAccessEvaluator(domain);
+        if (evaluator != null) {
+            return evaluator.matchDelegatedTrust(roleName, roleMember, groupMemberFetcher);
+        }
+
         for (Policy policy : domain.getPolicies()) {
 
             // ignore any inactive/multi-version policies
@@ -6235,7 +6276,8 @@ public class ZMSImpl implements Authorizer, KeyStore, ZMSHandler {
 
         return Response
                 .status(ResourceException.OK)
-                .entity(generateJWSDomain(athenzDomain, signatureP1363Format))
+                .entity(dbService.getJWSDomain(athenzDomain, signatureP1363Format,
+                        p1363Format -> generateJWSDomain(athenzDomain, p1363Format)))
                 .header("ETag", eTag.toString())
                 .build();
     }
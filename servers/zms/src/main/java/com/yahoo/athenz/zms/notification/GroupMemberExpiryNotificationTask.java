@@ -31,41 +31,49 @@ import static com.yahoo.athenz.common.server.notification.impl.MetricNotificatio
 
 public class GroupMemberExpiryNotificationTask implements NotificationTask {
     private final DBService dbService;
+    private final DomainRoleMembersFetcher domainRoleMembersFetcher;
     private final NotificationCommon notificationCommon;
     private static final Logger LOGGER = LoggerFactory.getLogger(GroupMemberExpiryNotificationTask.class);
     private final static String DESCRIPTION = "group membership expiration reminders";
     private final GroupExpiryDomainNotificationToEmailConverter groupExpiryDomainNotificationToEmailConverter;
+    private final GroupExpiryMergedDomainNotificationToEmailConverter groupExpiryMergedDomainNotificationToEmailConverter;
     private final GroupExpiryPrincipalNotificationToEmailConverter groupExpiryPrincipalNotificationToEmailConverter;
     private final GroupExpiryDomainNotificationToMetricConverter groupExpiryDomainNotificationToMetricConverter;
     private final GroupExpiryPrincipalNotificationToToMetricConverter groupExpiryPrincipalNotificationToToMetricConverter;
 
     public GroupMemberExpiryNotificationTask(DBService dbService, String userDomainPrefix, NotificationToEmailConverterCommon notificationToEmailConverterCommon) {
         this.dbService = dbService;
-        DomainRoleMembersFetcher domainRoleMembersFetcher = new DomainRoleMembersFetcher(dbService, userDomainPrefix);
+        this.domainRoleMembersFetcher = new DomainRoleMembersFetcher(dbService, userDomainPrefix, true);
         this.notificationCommon = new NotificationCommon(domainRoleMembersFetcher, userDomainPrefix);
         this.groupExpiryPrincipalNotificationToEmailConverter = new GroupExpiryPrincipalNotificationToEmailConverter(notificationToEmailConverterCommon);
         this.groupExpiryDomainNotificationToEmailConverter = new GroupExpiryDomainNotificationToEmailConverter(notificationToEmailConverterCommon);
+        this.groupExpiryMergedDomainNotificationToEmailConverter = new GroupExpiryMergedDomainNotificationToEmailConverter(notificationToEmailConverterCommon);
         this.groupExpiryPrincipalNotificationToToMetricConverter = new GroupExpiryPrincipalNotificationToToMetricConverter();
         this.groupExpiryDomainNotificationToMetricConverter = new GroupExpiryDomainNotificationToMetricConverter();
     }
 
     @Override
     public List<Notification> getNotifications() {
-        Map<String, DomainGroupMember> expiryMembers = dbService.getGroupExpiryMembers(1);
-        if (expiryMembers == null || expiryMembers.isEmpty()) {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("No expiry group members available to send notifications");
+        try {
+            Map<String, DomainGroupMember> expiryMembers = dbService.getGroupExpiryMembers(1);
+            if (expiryMembers == null || expiryMembers.isEmpty()) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("No expiry group members available to send notifications");
+                }
+                return new ArrayList<>();
             }
-            return new ArrayList<>();
-        }
 
-        List<Notification> notificationDetails = getNotificationDetails(
-                expiryMembers,
-                groupExpiryPrincipalNotificationToEmailConverter,
-                groupExpiryDomainNotificationToEmailConverter,
-                groupExpiryPrincipalNotificationToToMetricConverter,
-                groupExpiryDomainNotificationToMetricConverter);
-        return notificationCommon.printNotificationDetailsToLog(notificationDetails, DESCRIPTION, LOGGER);
+            List<Notification> notificationDetails = getNotificationDetails(
+                    expiryMembers,
+                    groupExpiryPrincipalNotificationToEmailConverter,
+                    groupExpiryDomainNotificationToEmailConverter,
+                    groupExpiryMergedDomainNotificationToEmailConverter,
+                    groupExpiryPrincipalNotificationToToMetricConverter,
+                    groupExpiryDomainNotificationToMetricConverter);
+            return notificationCommon.printNotificationDetailsToLog(notificationDetails, DESCRIPTION, LOGGER);
+        } finally {
+            domainRoleMembersFetcher.clearCache();
+        }
     }
 
     public StringBuilder getDetailString(GroupMember memberGroup) {
@@ -181,6 +189,7 @@ public class GroupMemberExpiryNotificationTask implements NotificationTask {
     List<Notification> getNotificationDetails(Map<String, DomainGroupMember> members,
                                               NotificationToEmailConverter principalNotificationToEmailConverter,
                                               NotificationToEmailConverter domainAdminNotificationToEmailConverter,
+                                              NotificationToEmailConverter mergedDomainAdminNotificationToEmailConverter,
                                               NotificationToMetricConverter principalNotificationToMetricConverter,
                                               NotificationToMetricConverter domainAdminNotificationToMetricConverter) {
 
@@ -217,7 +226,25 @@ public class GroupMemberExpiryNotificationTask implements NotificationTask {
             }
         }
 
-        return notificationList;
+        // administrators of multiple domains get a single reminder
+        // for all their domains. each member entry is updated to
+        // include the full group name so we know its domain
+
+        return notificationCommon.aggregateNotifications(notificationList, domainAdminNotificationToEmailConverter,
+                mergedDomainAdminNotificationToEmailConverter, NOTIFICATION_DETAILS_DOMAIN, NOTIFICATION_DETAILS_MEMBERS_LIST,
+                (domainName, memberEntry) -> getQualifiedMemberEntry(domainName, memberEntry));
+    }
+
+    String getQualifiedMemberEntry(final String domainName, final String memberEntry) {
+
+        // member-entry := <member-name>;<group-name>;<expiration>
+
+        String[] comps = memberEntry.split(";", -1);
+        if (comps.length < 2) {
+            return memberEntry;
+        }
+        comps[1] = ResourceUtils.groupResourceName(domainName, comps[1]);
+        return String.join(";", comps);
     }
 
     public static class GroupExpiryPrincipalNotificationToEmailConverter implements NotificationToEmailConverter {
@@ -280,6 +307,36 @@ public class GroupMemberExpiryNotificationTask implements NotificationTask {
         }
     }
 
+    public static class GroupExpiryMergedDomainNotificationToEmailConverter implements NotificationToEmailConverter {
+        private static final String EMAIL_TEMPLATE_MERGED_DOMAIN_MEMBER_EXPIRY = "messages/domains-group-member-expiry.html";
+        private static final String DOMAIN_MEMBER_EXPIRY_SUBJECT = "athenz.notification.email.domain.group_member.expiry.subject";
+
+        private final NotificationToEmailConverterCommon notificationToEmailConverterCommon;
+        private final String emailMergedDomainMemberExpiryBody;
+
+        public GroupExpiryMergedDomainNotificationToEmailConverter(NotificationToEmailConverterCommon notificationToEmailConverterCommon) {
+            this.notificationToEmailConverterCommon = notificationToEmailConverterCommon;
+            emailMergedDomainMemberExpiryBody = notificationToEmailConverterCommon.readContentFromFile(getClass().getClassLoader(), EMAIL_TEMPLATE_MERGED_DOMAIN_MEMBER_EXPIRY);
+        }
+
+        private String getMergedDomainMemberExpiryBody(Map<String, String> metaDetails) {
+            if (metaDetails == null) {
+                return null;
+            }
+
+            return notificationToEmailConverterCommon.generateBodyFromTemplate(metaDetails, emailMergedDomainMemberExpiryBody,
+                    NOTIFICATION_DETAILS_DOMAIN, NOTIFICATION_DETAILS_MEMBERS_LIST, 3);
+        }
+
+        @Override
+        public NotificationEmail getNotificationAsEmail(Notification notification) {
+            String subject = notificationToEmailConverterCommon.getSubject(DOMAIN_MEMBER_EXPIRY_SUBJECT);
+            String body = getMergedDomainMemberExpiryBody(notification.getDetails());
+            Set<String> fullyQualifiedEmailAddresses = notificationToEmailConverterCommon.getFullyQualifiedEmailAddresses(notification.getRecipients());
+            return new NotificationEmail(subject, body, fullyQualifiedEmailAddresses);
+        }
+    }
+
     public static class GroupExpiryPrincipalNotificationToToMetricConverter implements NotificationToMetricConverter {
         private final static String NOTIFICATION_TYPE = "principal_group_membership_expiry";
         private final NotificationToMetricConverterCommon notificationToMetricConverterCommon = new NotificationToMetricConverterCommon();
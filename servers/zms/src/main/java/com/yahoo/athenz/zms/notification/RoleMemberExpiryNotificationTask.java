@@ -36,6 +36,7 @@ public class RoleMemberExpiryNotificationTask implements NotificationTask {
     private static final Logger LOGGER = LoggerFactory.getLogger(RoleMemberExpiryNotificationTask.class);
     private final static String DESCRIPTION = "membership expiration reminders";
     private final RoleExpiryDomainNotificationToEmailConverter roleExpiryDomainNotificationToEmailConverter;
+    private final RoleExpiryMergedDomainNotificationToEmailConverter roleExpiryMergedDomainNotificationToEmailConverter;
     private final RoleExpiryPrincipalNotificationToEmailConverter roleExpiryPrincipalNotificationToEmailConverter;
     private final RoleExpiryDomainNotificationToMetricConverter roleExpiryDomainNotificationToMetricConverter;
     private final RoleExpiryPrincipalNotificationToMetricConverter roleExpiryPrincipalNotificationToMetricConverter;
@@ -45,32 +46,38 @@ public class RoleMemberExpiryNotificationTask implements NotificationTask {
         this.roleMemberNotificationCommon = new RoleMemberNotificationCommon(dbService, userDomainPrefix);
         this.roleExpiryPrincipalNotificationToEmailConverter = new RoleExpiryPrincipalNotificationToEmailConverter(notificationToEmailConverterCommon);
         this.roleExpiryDomainNotificationToEmailConverter = new RoleExpiryDomainNotificationToEmailConverter(notificationToEmailConverterCommon);
+        this.roleExpiryMergedDomainNotificationToEmailConverter = new RoleExpiryMergedDomainNotificationToEmailConverter(notificationToEmailConverterCommon);
         this.roleExpiryPrincipalNotificationToMetricConverter = new RoleExpiryPrincipalNotificationToMetricConverter();
         this.roleExpiryDomainNotificationToMetricConverter = new RoleExpiryDomainNotificationToMetricConverter();
     }
 
     @Override
     public List<Notification> getNotifications() {
-        Map<String, DomainRoleMember> expiryMembers = dbService.getRoleExpiryMembers(1, false);
-        if (expiryMembers == null || expiryMembers.isEmpty()) {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("No expiry members available to send email notifications");
+        try {
+            Map<String, DomainRoleMember> expiryMembers = dbService.getRoleExpiryMembers(1, false);
+            if (expiryMembers == null || expiryMembers.isEmpty()) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("No expiry members available to send email notifications");
+                }
+                return getMetricNotificationDetails();
             }
-            return getMetricNotificationDetails();
-        }
-
-        List<Notification> metricNotificationDetails = getMetricNotificationDetails();
-        List<Notification> metricAndEmailNotificationDetails = roleMemberNotificationCommon.getNotificationDetails(
-                expiryMembers,
-                roleExpiryPrincipalNotificationToEmailConverter,
-                roleExpiryDomainNotificationToEmailConverter,
-                new ExpiryRoleMemberDetailStringer(),
-                roleExpiryPrincipalNotificationToMetricConverter,
-                roleExpiryDomainNotificationToMetricConverter,
-                memberRole -> DisableNotificationEnum.getEnumSet(0));
 
-        metricNotificationDetails.addAll(metricAndEmailNotificationDetails);
-        return metricNotificationDetails;
+            List<Notification> metricNotificationDetails = getMetricNotificationDetails();
+            List<Notification> metricAndEmailNotificationDetails = roleMemberNotificationCommon.getNotificationDetails(
+                    expiryMembers,
+                    roleExpiryPrincipalNotificationToEmailConverter,
+                    roleExpiryDomainNotificationToEmailConverter,
+                    roleExpiryMergedDomainNotificationToEmailConverter,
+                    new ExpiryRoleMemberDetailStringer(),
+                    roleExpiryPrincipalNotificationToMetricConverter,
+                    roleExpiryDomainNotificationToMetricConverter,
+                    memberRole -> DisableNotificationEnum.getEnumSet(0));
+
+            metricNotificationDetails.addAll(metricAndEmailNotificationDetails);
+            return metricNotificationDetails;
+        } finally {
+            roleMemberNotificationCommon.clearCache();
+        }
     }
 
     private List<Notification> getMetricNotificationDetails() {
@@ -177,6 +184,43 @@ public class RoleMemberExpiryNotificationTask implements NotificationTask {
         }
     }
 
+    public static class RoleExpiryMergedDomainNotificationToEmailConverter implements NotificationToEmailConverter {
+        private static final String EMAIL_TEMPLATE_MERGED_DOMAIN_MEMBER_EXPIRY = "messages/domains-role-member-expiry.html";
+        private static final String DOMAIN_MEMBER_EXPIRY_SUBJECT = "athenz.notification.email.domain.role_member.expiry.subject";
+
+        private final NotificationToEmailConverterCommon notificationToEmailConverterCommon;
+        private final String emailMergedDomainMemberExpiryBody;
+
+        public RoleExpiryMergedDomainNotificationToEmailConverter(NotificationToEmailConverterCommon notificationToEmailConverterCommon) {
+            this.notificationToEmailConverterCommon = notificationToEmailConverterCommon;
+            emailMergedDomainMemberExpiryBody = notificationToEmailConverterCommon.readContentFromFile(getClass().getClassLoader(), EMAIL_TEMPLATE_MERGED_DOMAIN_MEMBER_EXPIRY);
+        }
+
+        private String getMergedDomainMemberExpiryBody(Map<String, String> metaDetails) {
+            if (metaDetails == null) {
+                return null;
+            }
+
+            // the domain detail contains the list of all merged domains
+            // so the template only links to the athenz ui
+
+            return notificationToEmailConverterCommon.generateBodyFromTemplate(
+                    metaDetails,
+                    emailMergedDomainMemberExpiryBody,
+                    NOTIFICATION_DETAILS_DOMAIN,
+                    NOTIFICATION_DETAILS_MEMBERS_LIST,
+                    3);
+        }
+
+        @Override
+        public NotificationEmail getNotificationAsEmail(Notification notification) {
+            String subject = notificationToEmailConverterCommon.getSubject(DOMAIN_MEMBER_EXPIRY_SUBJECT);
+            String body = getMergedDomainMemberExpiryBody(notification.getDetails());
+            Set<String> fullyQualifiedEmailAddresses = notificationToEmailConverterCommon.getFullyQualifiedEmailAddresses(notification.getRecipients());
+            return new NotificationEmail(subject, body, fullyQualifiedEmailAddresses);
+        }
+    }
+
     public static class RoleExpiryPrincipalNotificationToMetricConverter implements NotificationToMetricConverter {
         private final static String NOTIFICATION_TYPE = "principal_role_membership_expiry";
         private final NotificationToMetricConverterCommon notificationToMetricConverterCommon = new NotificationToMetricConverterCommon();
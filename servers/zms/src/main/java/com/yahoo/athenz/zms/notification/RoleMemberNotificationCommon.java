@@ -30,14 +30,24 @@ import static com.yahoo.athenz.common.ServerCommonConsts.ADMIN_ROLE_NAME;
 import static com.yahoo.athenz.common.server.notification.NotificationServiceConstants.*;
 
 public class RoleMemberNotificationCommon {
+    private final DomainRoleMembersFetcher domainRoleMembersFetcher;
     private final NotificationCommon notificationCommon;
     private static final Logger LOGGER = LoggerFactory.getLogger(RoleMemberNotificationCommon.class);
 
     public RoleMemberNotificationCommon(DBService dbService, String userDomainPrefix) {
-        DomainRoleMembersFetcher domainRoleMembersFetcher = new DomainRoleMembersFetcher(dbService, userDomainPrefix);
+        this.domainRoleMembersFetcher = new DomainRoleMembersFetcher(dbService, userDomainPrefix, true);
         this.notificationCommon = new NotificationCommon(domainRoleMembersFetcher, userDomainPrefix);
     }
 
+    /**
+     * Clear the cached domain role members. Called by the notification
+     * tasks at the end of each run so the members are only looked up
+     * once per run and are not kept in memory between runs.
+     */
+    public void clearCache() {
+        domainRoleMembersFetcher.clearCache();
+    }
+
     public List<Notification> getNotificationDetails(Map<String, DomainRoleMember> members,
                                                      NotificationToEmailConverter principalNotificationToEmailConverter,
                                                      NotificationToEmailConverter domainAdminNotificationToEmailConverter,
@@ -45,6 +55,26 @@ public class RoleMemberNotificationCommon {
                                                      NotificationToMetricConverter principalNotificationToMetricConverter,
                                                      NotificationToMetricConverter domainAdminNotificationToMetricConverter,
                                                      DisableRoleMemberNotificationFilter disableRoleMemberNotificationFilter) {
+        return getNotificationDetails(members, principalNotificationToEmailConverter,
+                domainAdminNotificationToEmailConverter, null, roleMemberDetailStringer,
+                principalNotificationToMetricConverter, domainAdminNotificationToMetricConverter,
+                disableRoleMemberNotificationFilter);
+    }
+
+    /**
+     * Generate the principal and domain admin notifications for the given
+     * members. If the merged domain admin email converter is specified then
+     * administrators of multiple domains get a single reminder for all their
+     * domains generated with that converter.
+     */
+    public List<Notification> getNotificationDetails(Map<String, DomainRoleMember> members,
+                                                     NotificationToEmailConverter principalNotificationToEmailConverter,
+                                                     NotificationToEmailConverter domainAdminNotificationToEmailConverter,
+                                                     NotificationToEmailConverter mergedDomainAdminNotificationToEmailConverter,
+                                                     RoleMemberDetailStringer roleMemberDetailStringer,
+                                                     NotificationToMetricConverter principalNotificationToMetricConverter,
+                                                     NotificationToMetricConverter domainAdminNotificationToMetricConverter,
+                                                     DisableRoleMemberNotificationFilter disableRoleMemberNotificationFilter) {
         // first we're going to send reminders to all the members indicating to
         // them that they're going to expiry (or nearing review date) and they should follow up with
         // domain admins to extend their membership.
@@ -92,7 +122,25 @@ public class RoleMemberNotificationCommon {
             }
         }
 
-        return notificationList;
+        // administrators of multiple domains get a single reminder
+        // for all their domains. each member entry is updated to
+        // include the full role name so we know its domain
+
+        return notificationCommon.aggregateNotifications(notificationList, domainAdminNotificationToEmailConverter,
+                mergedDomainAdminNotificationToEmailConverter, NOTIFICATION_DETAILS_DOMAIN, NOTIFICATION_DETAILS_MEMBERS_LIST,
+                (domainName, memberEntry) -> getQualifiedMemberEntry(domainName, memberEntry));
+    }
+
+    String getQualifiedMemberEntry(final String domainName, final String memberEntry) {
+
+        // member-entry := <member-name>;<role-name>;<details>
+
+        String[] comps = memberEntry.split(";", -1);
+        if (comps.length < 2) {
+            return memberEntry;
+        }
+        comps[1] = ResourceUtils.roleResourceName(domainName, comps[1]);
+        return String.join(";", comps);
     }
 
     private Map<String, String> processRoleReminder(Map<String, List<MemberRole>> domainAdminMap,
@@ -51,23 +51,27 @@ public class RoleMemberReviewNotificationTask implements NotificationTask {
 
     @Override
     public List<Notification> getNotifications() {
-        Map<String, DomainRoleMember> reviewMembers = dbService.getRoleReviewMembers(1);
-        if (reviewMembers == null || reviewMembers.isEmpty()) {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("No members require review reminders");
+        try {
+            Map<String, DomainRoleMember> reviewMembers = dbService.getRoleReviewMembers(1);
+            if (reviewMembers == null || reviewMembers.isEmpty()) {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("No members require review reminders");
+                }
+                return new ArrayList<>();
             }
-            return new ArrayList<>();
-        }
 
-        List<Notification> notificationDetails = roleMemberNotificationCommon.getNotificationDetails(
-                reviewMembers,
-                roleReviewPrincipalNotificationToEmailConverter,
-                roleReviewDomainNotificationToEmailConverter,
-                new ReviewRoleMemberDetailStringer(),
-                roleReviewPrincipalNotificationToMetricConverter,
-                roleReviewDomainNotificationToMetricConverter,
-                new ReviewDisableRoleMemberNotificationFilter());
-        return roleMemberNotificationCommon.printNotificationDetailsToLog(notificationDetails, DESCRIPTION, LOGGER);
+            List<Notification> notificationDetails = roleMemberNotificationCommon.getNotificationDetails(
+                    reviewMembers,
+                    roleReviewPrincipalNotificationToEmailConverter,
+                    roleReviewDomainNotificationToEmailConverter,
+                    new ReviewRoleMemberDetailStringer(),
+                    roleReviewPrincipalNotificationToMetricConverter,
+                    roleReviewDomainNotificationToMetricConverter,
+                    new ReviewDisableRoleMemberNotificationFilter());
+            return roleMemberNotificationCommon.printNotificationDetailsToLog(notificationDetails, DESCRIPTION, LOGGER);
+        } finally {
+            roleMemberNotificationCommon.clearCache();
+        }
     }
 
     static class ReviewRoleMemberDetailStringer implements RoleMemberNotificationCommon.RoleMemberDetailStringer {
@@ -52,6 +52,8 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.*;
@@ -4071,6 +4073,77 @@ public class DBServiceTest {
         assertNull(key);
     }
 
+    @Test
+    public void testGetAccessEvaluator() {
+
+        final String domainName = "getaccessevaluator";
+        AthenzDomain athenzDomain = new AthenzDomain(domainName);
+
+        // no cache entry
+
+        assertNull(zms.dbService.getAccessEvaluator(athenzDomain));
+
+        zms.dbService.cacheStore.put(domainName, new DataCache(athenzDomain, 101));
+        DomainAccessEvaluator evaluator = zms.dbService.getAccessEvaluator(athenzDomain);
+        assertNotNull(evaluator);
+        assertSame(zms.dbService.getAccessEvaluator(athenzDomain), evaluator);
+
+        // a different domain object with the same name must not
+        // use the evaluator from the cache
+
+        assertNull(zms.dbService.getAccessEvaluator(new AthenzDomain(domainName)));
+
+        // once invalidated, the new cache entry gets a new evaluator
+
+        zms.dbService.cacheStore.invalidate(domainName);
+        assertNull(zms.dbService.getAccessEvaluator(athenzDomain));
+    }
+
+    @Test
+    public void testGetJWSDomainCached() {
+
+        final String domainName = "getjwsdomaincached";
+        AthenzDomain athenzDomain = new AthenzDomain(domainName);
+        AtomicInteger counter = new AtomicInteger();
+        Function<Boolean, JWSDomain> generator = p1363Format -> {
+            counter.incrementAndGet();
+            return new JWSDomain().setSignature(p1363Format ? "p1363" : "der");
+        };
+
+        // no cache entry so the object is generated for every call
+
+        assertEquals(zms.dbService.getJWSDomain(athenzDomain, false, generator).getSignature(), "der");
+        assertEquals(zms.dbService.getJWSDomain(athenzDomain, false, generator).getSignature(), "der");
+        assertEquals(counter.get(), 2);
+
+        // with the cache entry we only generate once per format
+
+        zms.dbService.cacheStore.put(domainName, new DataCache(athenzDomain, 101));
+        JWSDomain jwsDomain = zms.dbService.getJWSDomain(athenzDomain, false, generator);
+        assertSame(zms.dbService.getJWSDomain(athenzDomain, null, generator), jwsDomain);
+        assertEquals(counter.get(), 3);
+
+        JWSDomain jwsDomainP1363 = zms.dbService.getJWSDomain(athenzDomain, true, generator);
+        assertEquals(jwsDomainP1363.getSignature(), "p1363");
+        assertSame(zms.dbService.getJWSDomain(athenzDomain, true, generator), jwsDomainP1363);
+        assertEquals(counter.get(), 4);
+
+        // a different domain object with the same name must not
+        // use the signed object from the cache
+
+        assertNotSame(zms.dbService.getJWSDomain(new AthenzDomain(domainName), false, generator), jwsDomain);
+        assertEquals(counter.get(), 5);
+
+        // failures are not cached
+
+        zms.dbService.cacheStore.put(domainName, new DataCache(athenzDomain, 102));
+        assertNull(zms.dbService.getJWSDomain(athenzDomain, false, p1363Format -> null));
+        assertNotSame(zms.dbService.getJWSDomain(athenzDomain, false, generator), jwsDomain);
+        assertEquals(counter.get(), 6);
+
+        zms.dbService.cacheStore.invalidate(domainName);
+    }
+
     @Test
     public void testListPrincipalsUsersOnly() {
 
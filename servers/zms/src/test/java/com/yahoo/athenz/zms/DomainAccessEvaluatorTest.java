@@ -0,0 +1,202 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zms;
+
+import com.yahoo.athenz.auth.Principal;
+import com.yahoo.athenz.common.server.util.AuthzHelper;
+import com.yahoo.athenz.zms.store.AthenzDomain;
+import com.yahoo.rdl.Timestamp;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public class DomainAccessEvaluatorTest {
+
+    private final AuthzHelper.GroupMembersFetcher nullFetcher = groupName -> null;
+    private final DomainAccessEvaluator.DelegatedTrustChecker noTrust = (trust, roleName, member) -> false;
+
+    private Role createRole(final String domainName, final String roleName, final String... members) {
+        List<RoleMember> roleMembers = new ArrayList<>();
+        for (String member : members) {
+            roleMembers.add(new RoleMember().setMemberName(member));
+        }
+        return new Role().setName(domainName + ":role." + roleName).setRoleMembers(roleMembers);
+    }
+
+    private Assertion createAssertion(final String domainName, final String roleName, final String action,
+            final String resource, AssertionEffect effect) {
+        return new Assertion().setRole(domainName + ":role." + roleName).setAction(action)
+                .setResource(resource).setEffect(effect);
+    }
+
+    private AthenzDomain createDomain() {
+
+        AthenzDomain athenzDomain = new AthenzDomain("coretech");
+        athenzDomain.getRoles().add(createRole("coretech", "readers", "user.joe", "user.jane"));
+        athenzDomain.getRoles().add(createRole("coretech", "writers", "user.joe"));
+        athenzDomain.getRoles().add(createRole("coretech", "api.readers", "user.*"));
+        athenzDomain.getRoles().add(new Role().setName("coretech:role.trusted").setTrust("sports"));
+
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(createAssertion("coretech", "readers", "read", "coretech:data.*", null));
+        assertions.add(createAssertion("coretech", "writers", "write", "coretech:data.*", AssertionEffect.ALLOW));
+        assertions.add(createAssertion("coretech", "readers", "write", "coretech:data.secret", AssertionEffect.DENY));
+        assertions.add(createAssertion("coretech", "*.readers", "get*", "coretech:api.*", AssertionEffect.ALLOW));
+        assertions.add(createAssertion("coretech", "trusted", "update", "coretech:trusted", AssertionEffect.ALLOW));
+        athenzDomain.getPolicies().add(new Policy().setName("coretech:policy.access").setAssertions(assertions));
+
+        List<Assertion> inactiveAssertions = new ArrayList<>();
+        inactiveAssertions.add(createAssertion("coretech", "readers", "delete", "*", AssertionEffect.ALLOW));
+        athenzDomain.getPolicies().add(new Policy().setName("coretech:policy.inactive").setActive(false)
+                .setAssertions(inactiveAssertions));
+
+        athenzDomain.getPolicies().add(new Policy().setName("coretech:policy.empty"));
+        return athenzDomain;
+    }
+
+    @Test
+    public void testEvaluateAccessPrincipal() {
+
+        DomainAccessEvaluator evaluator = new DomainAccessEvaluator(createDomain());
+        assertEquals(evaluator.getDomainName(), "coretech");
+
+        assertEquals(evaluator.evaluateAccess("user.jane", "read", "coretech:data.file1", null, null,
+                nullFetcher, noTrust), ZMSImpl.AccessStatus.ALLOWED);
+        assertEquals(evaluator.evaluateAccess("user.john", "read", "coretech:data.file1", null, null,
+                nullFetcher, noTrust), ZMSImpl.AccessStatus.DENIED);
+        assertEquals(evaluator.evaluateAccess("user.jane", "read", "coretech:other.file1", null, null,
+                nullFetcher, noTrust), ZMSImpl.AccessStatus.DENIED);
+
+        // joe is both reader and writer so deny assertion takes precedence
+
+        assertEquals(evaluator.evaluateAccess("user.joe", "write", "coretech:data.file1", null, null,
+                nullFetcher, noTrust), ZMSImpl.AccessStatus.ALLOWED);
+        assertEquals(evaluator.evaluateAccess("user.joe", "write", "coretech:data.secret", null, null,
+                nullFetcher, noTrust), ZMSImpl.AccessStatus.DENIED);
+
+        // wildcard action, role and member
+
+        assertEquals(evaluator.evaluateAccess("user.john", "getdata", "coretech:api.list", null, null,
+                nullFetcher, noTrust), ZMSImpl.AccessStatus.ALLOWED);
+        assertEquals(evaluator.evaluateAccess("user.john", "putdata", "coretech:api.list", null, null,
+                nullFetcher, noTrust), ZMSImpl.AccessStatus.DENIED);
+        assertEquals(evaluator.evaluateAccess("sports.api", "getdata", "coretech:api.list", null, null,
+                nullFetcher, noTrust), ZMSImpl.AccessStatus.DENIED);
+
+        // inactive policies are ignored
+
+        assertEquals(evaluator.evaluateAccess("user.joe", "delete", "coretech:data.file1", null, null,
+                nullFetcher, noTrust), ZMSImpl.AccessStatus.DENIED);
+    }
+
+    @Test
+    public void testEvaluateAccessAuthenticatedRoles() {
+
+        DomainAccessEvaluator evaluator = new DomainAccessEvaluator(createDomain());
+
+        assertEquals(evaluator.evaluateAccess("user.john", "read", "coretech:data.file1",
+                Collections.singletonList("readers"), null, nullFetcher, noTrust), ZMSImpl.AccessStatus.ALLOWED);
+        assertEquals(evaluator.evaluateAccess("user.john", "read", "coretech:data.file1",
+                Collections.singletonList("coretech:role.readers"), null, nullFetcher, noTrust), ZMSImpl.AccessStatus.ALLOWED);
+        assertEquals(evaluator.evaluateAccess("user.john", "read", "coretech:data.file1",
+                Collections.singletonList("writers"), null, nullFetcher, noTrust), ZMSImpl.AccessStatus.DENIED);
+    }
+
+    @Test
+    public void testEvaluateAccessDelegatedTrust() {
+
+        DomainAccessEvaluator evaluator = new DomainAccessEvaluator(createDomain());
+
+        DomainAccessEvaluator.DelegatedTrustChecker trustChecker = (trust, roleName, member) ->
+                trust.equals("sports") && roleName.equals("coretech:role.trusted") && member.equals("user.joe");
+
+        assertEquals(evaluator.evaluateAccess("user.joe", "update", "coretech:trusted", null, null,
+                nullFetcher, trustChecker), ZMSImpl.AccessStatus.ALLOWED);
+        assertEquals(evaluator.evaluateAccess("user.joe", "update", "coretech:trusted", null, "sports",
+                nullFetcher, trustChecker), ZMSImpl.AccessStatus.ALLOWED);
+        assertEquals(evaluator.evaluateAccess("user.joe", "update", "coretech:trusted", null, "weather",
+                nullFetcher, trustChecker), ZMSImpl.AccessStatus.DENIED);
+        assertEquals(evaluator.evaluateAccess("user.jane", "update", "coretech:trusted", null, null,
+                nullFetcher, trustChecker), ZMSImpl.AccessStatus.DENIED);
+    }
+
+    @Test
+    public void testMatchDelegatedTrust() {
+
+        AthenzDomain athenzDomain = new AthenzDomain("sports");
+        athenzDomain.getRoles().add(createRole("sports", "admin", "user.joe"));
+
+        List<Assertion> assertions = new ArrayList<>();
+        assertions.add(createAssertion("sports", "admin", "ASSUME_ROLE", "coretech:role.trusted", AssertionEffect.ALLOW));
+        assertions.add(createAssertion("sports", "admin", "read", "coretech:role.readers", AssertionEffect.ALLOW));
+        athenzDomain.getPolicies().add(new Policy().setName("sports:policy.trust").setAssertions(assertions));
+
+        DomainAccessEvaluator evaluator = new DomainAccessEvaluator(athenzDomain);
+        assertTrue(evaluator.matchDelegatedTrust("coretech:role.trusted", "user.joe", nullFetcher));
+        assertFalse(evaluator.matchDelegatedTrust("coretech:role.trusted", "user.jane", nullFetcher));
+        assertFalse(evaluator.matchDelegatedTrust("coretech:role.readers", "user.joe", nullFetcher));
+    }
+
+    @Test
+    public void testIsMemberFirstMatch() {
+
+        // the first matching member in the list determines the result
+        // so an expired wildcard member before a valid regular member
+        // must return false - same as AuthzHelper.checkRoleMemberValidity
+
+        Timestamp expired = Timestamp.fromMillis(System.currentTimeMillis() - 100000);
+        List<RoleMember> roleMembers = new ArrayList<>();
+        roleMembers.add(new RoleMember().setMemberName("user.*").setExpiration(expired));
+        roleMembers.add(new RoleMember().setMemberName("user.joe"));
+        roleMembers.add(new RoleMember().setMemberName("user.jane").setSystemDisabled(1));
+        roleMembers.add(new RoleMember().setMemberName("sports.api"));
+        roleMembers.add(new RoleMember().setMemberName("sports:group.dev-team")
+                .setPrincipalType(Principal.Type.GROUP.getValue()));
+        Role role = new Role().setName("coretech:role.readers").setRoleMembers(roleMembers);
+
+        AuthzHelper.GroupMembersFetcher fetcher = groupName -> groupName.equals("sports:group.dev-team") ?
+                Collections.singletonList(new GroupMember().setMemberName("weather.api")) : null;
+
+        DomainAccessEvaluator.CompiledRole compiledRole = new DomainAccessEvaluator.CompiledRole(role, "coretech:role.");
+        assertEquals(compiledRole.shortName, "readers");
+
+        for (String member : new String[] { "user.joe", "user.jane", "user.john", "sports.api", "weather.api", "unknown.api" }) {
+            assertEquals(compiledRole.isMember(member, fetcher),
+                    AuthzHelper.checkRoleMemberValidity(roleMembers, member, fetcher), member);
+        }
+        assertTrue(compiledRole.isMember("sports.api", fetcher));
+        assertTrue(compiledRole.isMember("weather.api", fetcher));
+
+        // role without any members
+
+        compiledRole = new DomainAccessEvaluator.CompiledRole(new Role().setName("coretech:role.trust"), "coretech:role.");
+        assertFalse(compiledRole.isMember("user.joe", fetcher));
+    }
+
+    @Test
+    public void testDataCacheAccessEvaluator() {
+
+        AthenzDomain athenzDomain = createDomain();
+        DBService.DataCache dataCache = new DBService.DataCache(athenzDomain, 100);
+        DomainAccessEvaluator evaluator = dataCache.getAccessEvaluator();
+        assertNotNull(evaluator);
+        assertSame(dataCache.getAccessEvaluator(), evaluator);
+    }
+}
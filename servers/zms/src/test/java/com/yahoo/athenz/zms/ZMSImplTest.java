@@ -33,6 +33,8 @@ import com.yahoo.athenz.auth.util.AthenzUtils;
 import com.yahoo.athenz.auth.util.Crypto;
 import com.yahoo.athenz.common.config.AuthzDetailsEntity;
 import com.yahoo.athenz.common.config.AuthzDetailsField;
+import com.yahoo.athenz.common.messaging.AsyncChangePublisher;
+import com.yahoo.athenz.common.messaging.ChangePublisher;
 import com.yahoo.athenz.common.messaging.DomainChangeMessage;
 import com.yahoo.athenz.common.messaging.MockDomainChangePublisher;
 import com.yahoo.athenz.common.metrics.Metric;
@@ -29424,7 +29426,7 @@ public class ZMSImplTest {
         ZMSImpl zmsImpl = zmsTestInitializer.zmsInit();
         assertNotNull(zmsImpl.domainChangePublishers);
         List<String> topicNames = zmsImpl.domainChangePublishers.stream()
-            .map(publisher -> ((MockDomainChangePublisher) publisher).getTopicName())
+            .map(publisher -> getMockPublisher(publisher).getTopicName())
             .collect(Collectors.toList());
         assertThat(topicNames, containsInAnyOrder("topic1", "topic2"));
         System.clearProperty(ZMS_PROP_DOMAIN_CHANGE_TOPIC_NAMES);
@@ -29438,7 +29440,7 @@ public class ZMSImplTest {
         ZMSImpl zmsImpl = zmsTestInitializer.zmsInit();
         assertNotNull(zmsImpl.domainChangePublishers);
         List<String> topicNames = zmsImpl.domainChangePublishers.stream()
-            .map(publisher -> ((MockDomainChangePublisher) publisher).getTopicName())
+            .map(publisher -> getMockPublisher(publisher).getTopicName())
             .collect(Collectors.toList());
         assertThat(topicNames, containsInAnyOrder("topic1"));
 
@@ -29458,7 +29460,7 @@ public class ZMSImplTest {
         // verify publish messages
         MockDomainChangePublisher.Recorder evtRecorder = getEventRecorder(zmsImpl);
         ArgumentCaptor<DomainChangeMessage> evtArgumentCaptor = ArgumentCaptor.forClass(DomainChangeMessage.class);
-        verify(evtRecorder, Mockito.times(1)).record(evtArgumentCaptor.capture());
+        verify(evtRecorder, Mockito.timeout(5000).times(1)).record(evtArgumentCaptor.capture());
         DomainChangeMessage actual = evtArgumentCaptor.getValue();
         assertEquals(actual.getDomainName(), "domainName");
         assertEquals(actual.getApiName(), "apiName");
@@ -29470,7 +29472,14 @@ public class ZMSImplTest {
     }
 
     private MockDomainChangePublisher.Recorder getEventRecorder(ZMSImpl zmsImpl) {
-        return ((MockDomainChangePublisher) zmsImpl.domainChangePublishers.get(0)).getRecorder();
+        return getMockPublisher(zmsImpl.domainChangePublishers.get(0)).getRecorder();
+    }
+
+    private MockDomainChangePublisher getMockPublisher(ChangePublisher<DomainChangeMessage> publisher) {
+        if (publisher instanceof AsyncChangePublisher) {
+            publisher = ((AsyncChangePublisher<DomainChangeMessage>) publisher).getPublisher();
+        }
+        return (MockDomainChangePublisher) publisher;
     }
     
     @Test
@@ -29501,7 +29510,7 @@ public class ZMSImplTest {
         assertNotNull(zmsImpl.domainChangePublishers);
         assertEquals(zmsImpl.domainChangePublishers.size(), 2);
         List<String> topicNames = zmsImpl.domainChangePublishers.stream()
-            .map(publisher -> ((MockDomainChangePublisher) publisher).getTopicName())
+            .map(publisher -> getMockPublisher(publisher).getTopicName())
             .collect(Collectors.toList());
         assertThat(topicNames, containsInAnyOrder("topic1", "topic2"));
         System.clearProperty(ZMS_PROP_DOMAIN_CHANGE_PUBLISHER_FACTORY_CLASS);
@@ -65,6 +65,40 @@ public class DomainRoleMembersFetcherTest {
         assertTrue(domainRoleMembers.contains("user.domain1rolemember2"));
     }
 
+    @Test
+    public void testGetDomainRoleMembersCached() {
+        DBService dbsvc = Mockito.mock(DBService.class);
+
+        Role adminRole = new Role().setName("domain1:role.admin").setRoleMembers(Collections.singletonList(
+                new RoleMember().setMemberName("user.domain1rolemember1")));
+        Role readerRole = new Role().setName("domain1:role.reader").setRoleMembers(Collections.singletonList(
+                new RoleMember().setMemberName("user.domain1rolemember2")));
+        Mockito.when(dbsvc.getRolesByDomain(eq("domain1"))).thenReturn(Arrays.asList(adminRole, readerRole));
+
+        DomainRoleMembersFetcher domainRoleMembersFetcher = new DomainRoleMembersFetcher(
+                dbsvc,
+                USER_DOMAIN_PREFIX,
+                true);
+
+        // the members of each role are only looked up once
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Collections.singleton("user.domain1rolemember1"),
+                    domainRoleMembersFetcher.getDomainRoleMembers("domain1", "domain1:role.admin"));
+        }
+        assertEquals(Collections.singleton("user.domain1rolemember2"),
+                domainRoleMembersFetcher.getDomainRoleMembers("domain1", "domain1:role.reader"));
+        Mockito.verify(dbsvc, Mockito.times(2)).getRolesByDomain("domain1");
+
+        // clearing the cache picks up the changed roles
+
+        adminRole.setRoleMembers(Collections.singletonList(new RoleMember().setMemberName("user.domain1rolemember3")));
+        domainRoleMembersFetcher.clearCache();
+        assertEquals(Collections.singleton("user.domain1rolemember3"),
+                domainRoleMembersFetcher.getDomainRoleMembers("domain1", "domain1:role.admin"));
+        Mockito.verify(dbsvc, Mockito.times(3)).getRolesByDomain("domain1");
+    }
+
     @Test
     public void testNoDataStore() {
         DomainRoleMembersFetcher domainRoleMembersFetcher = new DomainRoleMembersFetcher(
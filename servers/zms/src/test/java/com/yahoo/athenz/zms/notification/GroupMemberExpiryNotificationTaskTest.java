@@ -276,6 +276,32 @@ public class GroupMemberExpiryNotificationTaskTest {
         assertEquals(subject, "Athenz Group Member Expiration Notification");
     }
 
+    @Test
+    public void testGetMergedDomainEmailBody() {
+        System.setProperty("athenz.notification_athenz_ui_url", "https://athenz.example.com");
+        NotificationToEmailConverterCommon notificationToEmailConverterCommon = new NotificationToEmailConverterCommon(null);
+        System.clearProperty("athenz.notification_athenz_ui_url");
+
+        Map<String, String> details = new HashMap<>();
+        details.put(NOTIFICATION_DETAILS_DOMAIN, "athenz1, athenz2");
+        details.put(NOTIFICATION_DETAILS_MEMBERS_LIST,
+                "user.joe;athenz1:group.dev-team;2020-12-01T12:00:00.000Z|user.jane;athenz2:group.qa-team;2020-12-01T12:00:00.000Z");
+
+        Notification notification = new Notification();
+        notification.setDetails(details);
+        GroupMemberExpiryNotificationTask.GroupExpiryMergedDomainNotificationToEmailConverter converter =
+                new GroupMemberExpiryNotificationTask.GroupExpiryMergedDomainNotificationToEmailConverter(notificationToEmailConverterCommon);
+        NotificationEmail notificationAsEmail = converter.getNotificationAsEmail(notification);
+        assertEquals(notificationAsEmail.getSubject(), "Athenz Domain Group Member Expiration Notification");
+
+        String body = notificationAsEmail.getBody();
+        assertTrue(body.contains("Athenz domains <b>athenz1, athenz2</b> groups"));
+        assertTrue(body.contains("athenz1:group.dev-team"));
+        assertTrue(body.contains("athenz2:group.qa-team"));
+        assertTrue(body.contains("<a href=\"https://athenz.example.com\">Athenz UI</a>"));
+        assertFalse(body.contains("/domain/"));
+    }
+
     @Test
     public void testGetNotificationAsMetric() {
         Timestamp currentTimeStamp = Timestamp.fromCurrentTime();
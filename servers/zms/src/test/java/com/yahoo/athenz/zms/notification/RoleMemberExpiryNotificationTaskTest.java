@@ -148,6 +148,46 @@ public class RoleMemberExpiryNotificationTaskTest {
         notificationManager.shutdown();
     }
 
+    @Test
+    public void testRoleMemberExpiryRemindersCacheCleared() {
+
+        DBService dbsvc = Mockito.mock(DBService.class);
+
+        List<MemberRole> memberRoles = new ArrayList<>();
+        memberRoles.add(new MemberRole().setRoleName("role1")
+                .setDomainName("athenz1")
+                .setMemberName("user.joe")
+                .setExpiration(Timestamp.fromMillis(100)));
+        DomainRoleMember domainRoleMember = new DomainRoleMember()
+                .setMemberName("user.joe")
+                .setMemberRoles(memberRoles);
+        Map<String, DomainRoleMember> expiryMembers = new HashMap<>();
+        expiryMembers.put("user.joe", domainRoleMember);
+        Mockito.when(dbsvc.getRoleExpiryMembers(1, false)).thenReturn(expiryMembers);
+
+        Role adminRole = new Role().setName("athenz1:role.admin")
+                .setRoleMembers(Collections.singletonList(new RoleMember().setMemberName("user.jane")));
+        Mockito.when(dbsvc.getRolesByDomain("athenz1")).thenReturn(Collections.singletonList(adminRole));
+
+        RoleMemberExpiryNotificationTask task = new RoleMemberExpiryNotificationTask(dbsvc,
+                USER_DOMAIN_PREFIX, new NotificationToEmailConverterCommon(null));
+        List<Notification> notifications = task.getNotifications();
+        assertEquals(notifications.size(), 2);
+        assertEquals(notifications.get(1).getRecipients(), Collections.singleton("user.jane"));
+
+        // the admin role members cached during the first run
+        // are not used by the next run
+
+        Role updatedAdminRole = new Role().setName("athenz1:role.admin")
+                .setRoleMembers(Collections.singletonList(new RoleMember().setMemberName("user.john")));
+        Mockito.when(dbsvc.getRolesByDomain("athenz1")).thenReturn(Collections.singletonList(updatedAdminRole));
+
+        notifications = task.getNotifications();
+        assertEquals(notifications.size(), 2);
+        assertEquals(notifications.get(1).getRecipients(), Collections.singleton("user.john"));
+        Mockito.verify(dbsvc, Mockito.times(2)).getRolesByDomain("athenz1");
+    }
+
     @Test
     public void testSendRoleMemberExpiryRemindersNoValidDomain() {
 
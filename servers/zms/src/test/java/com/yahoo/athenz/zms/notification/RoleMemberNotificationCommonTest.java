@@ -17,6 +17,7 @@
 package com.yahoo.athenz.zms.notification;
 
 import com.yahoo.athenz.common.server.notification.Notification;
+import com.yahoo.athenz.common.server.notification.NotificationEmail;
 import com.yahoo.athenz.common.server.notification.NotificationToEmailConverterCommon;
 import com.yahoo.athenz.zms.*;
 import com.yahoo.rdl.Timestamp;
@@ -29,6 +30,9 @@ import static com.yahoo.athenz.common.ServerCommonConsts.USER_DOMAIN_PREFIX;
 import static com.yahoo.athenz.common.server.notification.NotificationServiceConstants.*;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
 
 public class RoleMemberNotificationCommonTest {
@@ -114,6 +118,138 @@ public class RoleMemberNotificationCommonTest {
                 "athenz1;role1;" + expirationTs + "|athenz2;role1;" + expirationTs + "|athenz2;role2;" + expirationTs);
     }
 
+    @Test
+    public void testExpiryDomainNotificationsAggregated() {
+        DBService dbsvc = Mockito.mock(DBService.class);
+        Role adminRole1 = new Role().setName("athenz1:role.admin").setRoleMembers(
+                Collections.singletonList(new RoleMember().setMemberName("user.testadmin")));
+        Role adminRole2 = new Role().setName("athenz2:role.admin").setRoleMembers(
+                Collections.singletonList(new RoleMember().setMemberName("user.testadmin")));
+        Mockito.when(dbsvc.getRolesByDomain("athenz1")).thenReturn(Collections.singletonList(adminRole1));
+        Mockito.when(dbsvc.getRolesByDomain("athenz2")).thenReturn(Collections.singletonList(adminRole2));
+
+        RoleMemberNotificationCommon roleMemberNotificationCommon = new RoleMemberNotificationCommon(dbsvc, USER_DOMAIN_PREFIX);
+        System.setProperty("athenz.notification_athenz_ui_url", "https://athenz.example.com");
+        NotificationToEmailConverterCommon notificationToEmailConverterCommon = new NotificationToEmailConverterCommon(null);
+        System.clearProperty("athenz.notification_athenz_ui_url");
+        RoleMemberExpiryNotificationTask.RoleExpiryDomainNotificationToEmailConverter domainConverter =
+                new RoleMemberExpiryNotificationTask.RoleExpiryDomainNotificationToEmailConverter(notificationToEmailConverterCommon);
+        RoleMemberExpiryNotificationTask.RoleExpiryMergedDomainNotificationToEmailConverter mergedConverter =
+                new RoleMemberExpiryNotificationTask.RoleExpiryMergedDomainNotificationToEmailConverter(notificationToEmailConverterCommon);
+
+        final Timestamp expirationTs = Timestamp.fromMillis(100);
+        List<MemberRole> memberRoles = new ArrayList<>();
+        memberRoles.add(new MemberRole().setRoleName("role1").setDomainName("athenz1").setMemberName("user.joe")
+                .setExpiration(expirationTs));
+        memberRoles.add(new MemberRole().setRoleName("role2").setDomainName("athenz2").setMemberName("user.joe")
+                .setExpiration(expirationTs));
+        DomainRoleMember roleMember = new DomainRoleMember().setMemberName("user.joe").setMemberRoles(memberRoles);
+        Map<String, DomainRoleMember> members = new HashMap<>();
+        members.put("user.joe", roleMember);
+
+        List<Notification> notifications = roleMemberNotificationCommon.getNotificationDetails(
+                members,
+                new RoleMemberExpiryNotificationTask.RoleExpiryPrincipalNotificationToEmailConverter(notificationToEmailConverterCommon),
+                domainConverter,
+                mergedConverter,
+                new RoleMemberExpiryNotificationTask.ExpiryRoleMemberDetailStringer(),
+                new RoleMemberExpiryNotificationTask.RoleExpiryPrincipalNotificationToMetricConverter(),
+                new RoleMemberExpiryNotificationTask.RoleExpiryDomainNotificationToMetricConverter(),
+                memberRole -> DisableNotificationEnum.getEnumSet(0));
+
+        // the principal notification, the two domain notifications kept
+        // for metrics and a single email for the admin of both domains
+
+        assertEquals(4, notifications.size());
+        Notification merged = notifications.get(3);
+        assertEquals(Collections.singleton("user.testadmin"), merged.getRecipients());
+        final String domains = merged.getDetails().get(NOTIFICATION_DETAILS_DOMAIN);
+        assertTrue(domains.equals("athenz1, athenz2") || domains.equals("athenz2, athenz1"));
+        final String membersList = merged.getDetails().get(NOTIFICATION_DETAILS_MEMBERS_LIST);
+        assertTrue(membersList.contains("user.joe;athenz1:role.role1;" + expirationTs));
+        assertTrue(membersList.contains("user.joe;athenz2:role.role2;" + expirationTs));
+
+        // the merged email lists all domains and only links
+        // to the athenz ui since there is no single domain page
+
+        NotificationEmail mergedEmail = merged.getNotificationAsEmail();
+        assertNotNull(mergedEmail);
+        assertEquals("Athenz Domain Role Member Expiration Notification", mergedEmail.getSubject());
+        final String body = mergedEmail.getBody();
+        assertTrue(body.contains("Athenz domains <b>" + domains + "</b>"));
+        assertTrue(body.contains("<a href=\"https://athenz.example.com\">Athenz UI</a>"));
+        assertFalse(body.contains("/domain/"));
+        assertTrue(body.contains("athenz1:role.role1"));
+        assertTrue(body.contains("athenz2:role.role2"));
+        for (int i = 1; i < 3; i++) {
+            assertNull(notifications.get(i).getNotificationAsEmail());
+            assertNotNull(notifications.get(i).getNotificationAsMetrics(Timestamp.fromMillis(0)));
+        }
+
+        // the admin role members are only looked up once per domain
+
+        roleMemberNotificationCommon.getNotificationDetails(members, null, domainConverter, mergedConverter,
+                new RoleMemberExpiryNotificationTask.ExpiryRoleMemberDetailStringer(), null, null,
+                memberRole -> DisableNotificationEnum.getEnumSet(0));
+        Mockito.verify(dbsvc, Mockito.times(1)).getRolesByDomain("athenz1");
+        Mockito.verify(dbsvc, Mockito.times(1)).getRolesByDomain("athenz2");
+
+        roleMemberNotificationCommon.clearCache();
+        roleMemberNotificationCommon.getNotificationDetails(members, null, domainConverter, mergedConverter,
+                new RoleMemberExpiryNotificationTask.ExpiryRoleMemberDetailStringer(), null, null,
+                memberRole -> DisableNotificationEnum.getEnumSet(0));
+        Mockito.verify(dbsvc, Mockito.times(2)).getRolesByDomain("athenz1");
+    }
+
+    @Test
+    public void testReviewDomainNotificationsNotAggregated() {
+        DBService dbsvc = Mockito.mock(DBService.class);
+        Role adminRole1 = new Role().setName("athenz1:role.admin").setRoleMembers(
+                Collections.singletonList(new RoleMember().setMemberName("user.testadmin")));
+        Role adminRole2 = new Role().setName("athenz2:role.admin").setRoleMembers(
+                Collections.singletonList(new RoleMember().setMemberName("user.testadmin")));
+        Mockito.when(dbsvc.getRolesByDomain("athenz1")).thenReturn(Collections.singletonList(adminRole1));
+        Mockito.when(dbsvc.getRolesByDomain("athenz2")).thenReturn(Collections.singletonList(adminRole2));
+
+        RoleMemberNotificationCommon roleMemberNotificationCommon = new RoleMemberNotificationCommon(dbsvc, USER_DOMAIN_PREFIX);
+        NotificationToEmailConverterCommon notificationToEmailConverterCommon = new NotificationToEmailConverterCommon(null);
+        RoleMemberReviewNotificationTask.RoleReviewDomainNotificationToEmailConverter domainConverter =
+                new RoleMemberReviewNotificationTask.RoleReviewDomainNotificationToEmailConverter(notificationToEmailConverterCommon);
+
+        final Timestamp reviewTs = Timestamp.fromMillis(100);
+        List<MemberRole> memberRoles = new ArrayList<>();
+        memberRoles.add(new MemberRole().setRoleName("role1").setDomainName("athenz1").setMemberName("user.joe")
+                .setReviewReminder(reviewTs));
+        memberRoles.add(new MemberRole().setRoleName("role2").setDomainName("athenz2").setMemberName("user.joe")
+                .setReviewReminder(reviewTs));
+        DomainRoleMember roleMember = new DomainRoleMember().setMemberName("user.joe").setMemberRoles(memberRoles);
+        Map<String, DomainRoleMember> members = new HashMap<>();
+        members.put("user.joe", roleMember);
+
+        // review reminders are not merged so the admin gets
+        // a separate email for each domain
+
+        List<Notification> notifications = roleMemberNotificationCommon.getNotificationDetails(
+                members,
+                new RoleMemberReviewNotificationTask.RoleReviewPrincipalNotificationToEmailConverter(notificationToEmailConverterCommon),
+                domainConverter,
+                new RoleMemberReviewNotificationTask.ReviewRoleMemberDetailStringer(),
+                new RoleMemberReviewNotificationTask.RoleReviewPrincipalNotificationToMetricConverter(),
+                new RoleMemberReviewNotificationTask.RoleReviewDomainNotificationToMetricConverter(),
+                memberRole -> DisableNotificationEnum.getEnumSet(0));
+
+        assertEquals(3, notifications.size());
+        Set<String> domains = new HashSet<>();
+        for (int i = 1; i < 3; i++) {
+            Notification notification = notifications.get(i);
+            assertEquals(Collections.singleton("user.testadmin"), notification.getRecipients());
+            domains.add(notification.getDetails().get(NOTIFICATION_DETAILS_DOMAIN));
+            assertNotNull(notification.getNotificationAsEmail());
+            assertNotNull(notification.getNotificationAsMetrics(Timestamp.fromMillis(0)));
+        }
+        assertEquals(new HashSet<>(Arrays.asList("athenz1", "athenz2")), domains);
+    }
+
     @Test
     public void testReviewPrincipalGetNotificationDetails() {
         DBService dbsvc = Mockito.mock(DBService.class);
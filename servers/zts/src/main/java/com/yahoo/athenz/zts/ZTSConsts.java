@@ -80,6 +80,8 @@ public final class ZTSConsts {
     public static final String ZTS_PROP_ID_TOKEN_MAX_TIMEOUT       = "athenz.zts.id_token_max_timeout";
     public static final String ZTS_PROP_ID_TOKEN_DEFAULT_TIMEOUT   = "athenz.zts.id_token_default_timeout";
     public static final String ZTS_PROP_SIGNED_POLICY_TIMEOUT      = "athenz.zts.signed_policy_timeout";
+    public static final String ZTS_PROP_SIGNED_POLICY_CACHE_TIMEOUT  = "athenz.zts.signed_policy_cache_timeout";
+    public static final String ZTS_PROP_SIGNED_POLICY_CACHE_MAX_SIZE = "athenz.zts.signed_policy_cache_max_size";
     public static final String ZTS_PROP_AUTHORIZED_PROXY_USERS     = "athenz.zts.authorized_proxy_users";
     public static final String ZTS_PROP_SECURE_REQUESTS_ONLY       = "athenz.zts.secure_requests_only";
     public static final String ZTS_PROP_STATUS_CERT_SIGNER         = "athenz.zts.status_cert_signer";
@@ -214,8 +216,14 @@ public final class ZTSConsts {
     public static final String ZTS_PROP_VALIDATE_SERVICE_IDENTITY        = "athenz.zts.validate_service_identity";
     public static final String ZTS_PROP_MAX_AUTHZ_DETAILS_LENGTH         = "athenz.zts.max_authz_details_length";
     public static final String ZTS_PROP_WORKLOAD_RECORD_STORE_FACTORY_CLASS   = "athenz.zts.workload_record_store_factory_class";
+    public static final String ZTS_PROP_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS = "athenz.zts.domain_change_subscriber_factory_class";
+    public static final String ZTS_PROP_DOMAIN_CHANGE_TOPIC_NAMES         = "athenz.zts.domain_change_topic_names";
+    public static final String ZTS_PROP_DOMAIN_CHANGE_SUBSCRIPTION_NAME   = "athenz.zts.domain_change_subscription_name";
+    public static final String ZTS_PROP_DOMAIN_CHANGE_SUBSCRIPTION_TYPE   = "athenz.zts.domain_change_subscription_type";
 
     public static final String ZTS_CHANGE_LOG_STORE_FACTORY_CLASS  = "com.yahoo.athenz.common.server.store.impl.ZMSFileChangeLogStoreFactory";
+    public static final String ZTS_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS = "com.yahoo.athenz.common.messaging.pulsar.PulsarFactory";
+    public static final String ZTS_DOMAIN_CHANGE_SUBSCRIPTION_TYPE = "Exclusive";
     public static final String ZTS_PKEY_STORE_FACTORY_CLASS        = "com.yahoo.athenz.auth.impl.FilePrivateKeyStoreFactory";
     public static final String ZTS_CERT_SIGNER_FACTORY_CLASS       = "com.yahoo.athenz.zts.cert.impl.crypki.HttpCertSignerFactory";
     public static final String ZTS_AUDIT_LOGGER_FACTORY_CLASS      = "com.yahoo.athenz.common.server.log.impl.DefaultAuditLoggerFactory";
@@ -29,6 +29,9 @@ import com.yahoo.athenz.auth.util.CryptoException;
 import com.yahoo.athenz.auth.util.StringUtils;
 import com.yahoo.athenz.common.config.AuthzDetailsEntity;
 import com.yahoo.athenz.common.config.AuthzDetailsEntityList;
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import com.yahoo.athenz.common.messaging.ChangeSubscriberFactory;
+import com.yahoo.athenz.common.messaging.DomainChangeMessage;
 import com.yahoo.athenz.common.metrics.Metric;
 import com.yahoo.athenz.common.metrics.MetricFactory;
 import com.yahoo.athenz.common.server.cert.Priority;
@@ -62,6 +65,7 @@ import com.yahoo.athenz.instance.provider.impl.InstanceUtils;
 import com.yahoo.athenz.zms.DomainData;
 import com.yahoo.athenz.zms.RoleMeta;
 import com.yahoo.athenz.zts.cache.DataCache;
+import com.yahoo.athenz.zts.cache.SignedPolicyCache;
 import com.yahoo.athenz.zts.cert.*;
 import com.yahoo.athenz.zts.notification.ZTSNotificationTaskFactory;
 import com.yahoo.athenz.zts.store.CloudStore;
@@ -126,6 +130,7 @@ public class ZTSImpl implements KeyStore, ZTSHandler {
     protected int idTokenDefaultTimeout;
     protected DynamicConfigLong x509CertRefreshResetTime;
     protected long signedPolicyTimeout;
+    protected SignedPolicyCache signedPolicyCache;
     protected static String serverHostName = null;
     protected AuditLogger auditLogger = null;
     protected Authority userAuthority = null;
@@ -315,7 +320,12 @@ public class ZTSImpl implements KeyStore, ZTSHandler {
             // key details already retrieved at this point
             
             dataStore = new DataStore(clogStore, cloudStore, metric);
-            
+
+            // load any configured domain change subscribers so domains
+            // are refreshed as soon as they're updated in ZMS
+
+            loadDomainChangeSubscribers(dataStore);
+
             // Initialize our storage subsystem which would load all data into
             // memory and if necessary retrieve the data from ZMS. It will also
             // create the thread to monitor for changes from ZMS
@@ -493,7 +503,22 @@ public class ZTSImpl implements KeyStore, ZTSHandler {
         timeout = TimeUnit.SECONDS.convert(7, TimeUnit.DAYS);
         signedPolicyTimeout = 1000 * Long.parseLong(
                 System.getProperty(ZTSConsts.ZTS_PROP_SIGNED_POLICY_TIMEOUT, Long.toString(timeout)));
-        
+
+        // signed policy objects are cached until the domain is modified or
+        // the cache timeout (in seconds) expires. the cache timeout must be
+        // shorter than the signed policy timeout so we cap it at half of
+        // that value to guarantee the remaining validity of the policies
+
+        timeout = TimeUnit.SECONDS.convert(1, TimeUnit.DAYS);
+        long signedPolicyCacheTimeout = 1000 * Long.parseLong(
+                System.getProperty(ZTSConsts.ZTS_PROP_SIGNED_POLICY_CACHE_TIMEOUT, Long.toString(timeout)));
+        if (signedPolicyCacheTimeout > signedPolicyTimeout / 2) {
+            signedPolicyCacheTimeout = signedPolicyTimeout / 2;
+        }
+        long signedPolicyCacheMaxSize = Long.parseLong(
+                System.getProperty(ZTSConsts.ZTS_PROP_SIGNED_POLICY_CACHE_MAX_SIZE, "1000"));
+        signedPolicyCache = new SignedPolicyCache(signedPolicyCacheMaxSize, signedPolicyCacheTimeout);
+
         // default token timeout for issued tokens
         
         timeout = TimeUnit.SECONDS.convert(1, TimeUnit.DAYS);
@@ -632,6 +657,49 @@ public class ZTSImpl implements KeyStore, ZTSHandler {
         validator = new Validator(schema);
     }
     
+    void loadDomainChangeSubscribers(DataStore store) {
+
+        final String topicNames = System.getProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_TOPIC_NAMES, "");
+        for (String topic : topicNames.split(",")) {
+            topic = topic.trim();
+            if (!topic.isEmpty()) {
+                ChangeSubscriber<DomainChangeMessage> subscriber = createDomainChangeSubscriber(topic);
+                if (subscriber != null) {
+                    store.addDomainChangeSubscriber(subscriber);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    ChangeSubscriber<DomainChangeMessage> createDomainChangeSubscriber(final String topicName) {
+
+        final String subscriberFactoryClass = System.getProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS,
+                ZTSConsts.ZTS_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS);
+        ChangeSubscriberFactory<DomainChangeMessage> subscriberFactory;
+        try {
+            subscriberFactory = (ChangeSubscriberFactory<DomainChangeMessage>) Class.forName(subscriberFactoryClass)
+                    .getDeclaredConstructor().newInstance();
+        } catch (Exception ex) {
+            LOGGER.error("Invalid ChangeSubscriberFactory class: {} error: {}", subscriberFactoryClass, ex.getMessage());
+            return null;
+        }
+
+        // each zts server must have its own subscription so that
+        // all servers receive all domain change messages
+
+        final String subscriptionName = System.getProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIPTION_NAME,
+                "zts-" + serverHostName);
+        final String subscriptionType = System.getProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIPTION_TYPE,
+                ZTSConsts.ZTS_DOMAIN_CHANGE_SUBSCRIPTION_TYPE);
+        try {
+            return subscriberFactory.create(privateKeyStore, topicName, subscriptionName, subscriptionType);
+        } catch (Exception ex) {
+            LOGGER.error("Unable to create a subscriber for topic: {}", topicName, ex);
+            return null;
+        }
+    }
+
     ChangeLogStore getChangeLogStore(String homeDir) {
 
         final String clogFactoryClass = System.getProperty(ZTSConsts.ZTS_PROP_CHANGE_LOG_STORE_FACTORY_CLASS,
@@ -1125,6 +1193,27 @@ public class ZTSImpl implements KeyStore, ZTSHandler {
 
         Map<String, String> policyVersions = generatePolicyVersions(domainName, signedPolicyRequest);
 
+        // the signed object only depends on the domain modified timestamp,
+        // requested policy versions and signature format so we'll check
+        // our cache first before generating and signing the policy data
+
+        final boolean signatureP1363Format = signedPolicyRequest.getSignatureP1363Format();
+        final String cacheKey = SignedPolicyCache.generateKey(domainName, modified, policyVersions,
+                signatureP1363Format ? SignedPolicyCache.FORMAT_JWS_P1363 : SignedPolicyCache.FORMAT_JWS);
+        final String policyDomainName = domainName;
+
+        JWSPolicyData jwsPolicyData = signedPolicyCache.getSignedPolicy(cacheKey,
+                () -> generateJwsPolicyData(policyDomainName, domainData, policyVersions, signatureP1363Format));
+        if (jwsPolicyData == null) {
+            return Response.status(ResourceException.INTERNAL_SERVER_ERROR).build();
+        } else {
+            return Response.status(ResourceException.OK).entity(jwsPolicyData).header("ETag", tag).build();
+        }
+    }
+
+    JWSPolicyData generateJwsPolicyData(final String domainName, DomainData domainData,
+            Map<String, String> policyVersions, boolean signatureP1363Format) {
+
         // first get our PolicyData object
 
         PolicyData policyData = new PolicyData()
@@ -1138,16 +1227,11 @@ public class ZTSImpl implements KeyStore, ZTSHandler {
         SignedPolicyData signedPolicyData = new SignedPolicyData()
                 .setPolicyData(policyData)
                 .setExpires(expires)
-                .setModified(modified)
+                .setModified(domainData.getModified())
                 .setZmsKeyId("")
                 .setZmsSignature("");
 
-        JWSPolicyData jwsPolicyData = signJwsPolicyData(signedPolicyData, signedPolicyRequest.getSignatureP1363Format());
-        if (jwsPolicyData == null) {
-            return Response.status(ResourceException.INTERNAL_SERVER_ERROR).build();
-        } else {
-            return Response.status(ResourceException.OK).entity(jwsPolicyData).header("ETag", tag).build();
-        }
+        return signJwsPolicyData(signedPolicyData, signatureP1363Format);
     }
 
     Map<String, String> generatePolicyVersions(final String domainName, SignedPolicyRequest signedPolicyRequest) {
@@ -1258,30 +1342,45 @@ public class ZTSImpl implements KeyStore, ZTSHandler {
             return Response.status(ResourceException.NOT_MODIFIED).header("ETag", tag).build();
         }
         
+        // check our cache first before generating and signing the policy data
+
+        final String cacheKey = SignedPolicyCache.generateKey(domainName, modified, null,
+                SignedPolicyCache.FORMAT_SIGNED_POLICY);
+        final String policyDomainName = domainName;
+
+        DomainSignedPolicyData result = signedPolicyCache.getSignedPolicy(cacheKey,
+                () -> generateDomainSignedPolicyData(policyDomainName, domainData));
+        if (result == null) {
+            return Response.status(ResourceException.INTERNAL_SERVER_ERROR).build();
+        }
+
+        return Response.status(ResourceException.OK).entity(result).header("ETag", tag).build();
+    }
+
+    DomainSignedPolicyData generateDomainSignedPolicyData(final String domainName, DomainData domainData) {
+
         // first get our PolicyData object
-        
+
         PolicyData policyData = new PolicyData()
                 .setDomain(domainName)
                 .setPolicies(getPolicyList(domainData, null));
 
         // then get the signed policy data
-        
+
         Timestamp expires = Timestamp.fromMillis(System.currentTimeMillis() + signedPolicyTimeout);
 
         SignedPolicyData signedPolicyData = new SignedPolicyData()
                 .setPolicyData(policyData)
                 .setExpires(expires)
-                .setModified(modified)
+                .setModified(domainData.getModified())
                 .setZmsKeyId(domainData.getPolicies().getKeyId())
                 .setZmsSignature(domainData.getPolicies().getSignature());
 
         String signature = Crypto.sign(SignUtils.asCanonicalString(signedPolicyData), privateKey.getKey());
-        DomainSignedPolicyData result = new DomainSignedPolicyData()
+        return new DomainSignedPolicyData()
             .setSignedPolicyData(signedPolicyData)
             .setSignature(signature)
             .setKeyId(privateKey.getId());
-        
-        return Response.status(ResourceException.OK).entity(result).header("ETag", tag).build();
     }
 
     String convertEmptyStringToNull(String value) {
@@ -21,9 +21,11 @@ import com.yahoo.athenz.auth.Principal;
 import com.yahoo.athenz.auth.util.AthenzUtils;
 import com.yahoo.athenz.auth.util.Crypto;
 import com.yahoo.athenz.auth.util.CryptoException;
+import com.yahoo.athenz.auth.util.StringUtils;
 import com.yahoo.athenz.common.config.AuthzDetailsEntity;
 import com.yahoo.athenz.common.config.AuthzDetailsField;
 import com.yahoo.athenz.common.server.util.AuthzHelper;
+import com.yahoo.athenz.common.server.util.GlobMatcher;
 import com.yahoo.athenz.common.server.util.ResourceUtils;
 import com.yahoo.athenz.zms.*;
 import com.yahoo.athenz.zts.transportrules.TransportRulesProcessor;
@@ -42,6 +44,7 @@ public class DataCache {
     // member ==> [ role1, role2, ...] complete map
     private final Map<String, Set<MemberRole>> memberRoleCache;
     private final Map<String, Set<MemberRole>> memberPrefixRoleCache;
+    private final MemberPrefixTrie memberPrefixRoleTrie;
     private final Set<MemberRole> memberAllRoleCache;
     private final Map<String, Set<String>> trustCache;
     private final Map<String, Set<String>> hostCache;
@@ -68,6 +71,7 @@ public class DataCache {
     public DataCache() {
         memberRoleCache = new HashMap<>();
         memberPrefixRoleCache = new HashMap<>();
+        memberPrefixRoleTrie = new MemberPrefixTrie();
         memberAllRoleCache = new HashSet<>();
         trustCache = new HashMap<>();
         hostCache = new HashMap<>();
@@ -103,6 +107,13 @@ public class DataCache {
             return;
         }
         
+        // if the role name includes any glob characters (e.g. assume_role
+        // assertion resources) we'll compile the matcher only once and
+        // share it with all member role objects
+
+        final GlobMatcher roleMatcher = StringUtils.containsMatchCharacter(roleName) ?
+                GlobMatcher.compile(roleName) : null;
+
         // memberRoleCache: add members
 
         long currentTime = System.currentTimeMillis();
@@ -129,20 +140,22 @@ public class DataCache {
             
             final String memberName = member.getMemberName();
             if (memberName.equals("*")) {
-                memberAllRoleCache.add(new MemberRole(roleName, expiration));
+                memberAllRoleCache.add(new MemberRole(roleName, roleMatcher, expiration));
             } else if (memberName.endsWith("*")) {
                 final String keyName = memberName.substring(0, memberName.length() - 1);
                 if (!memberPrefixRoleCache.containsKey(keyName)) {
-                    memberPrefixRoleCache.put(keyName, new HashSet<>());
+                    final Set<MemberRole> rolesForPrefix = new HashSet<>();
+                    memberPrefixRoleCache.put(keyName, rolesForPrefix);
+                    memberPrefixRoleTrie.insert(keyName, rolesForPrefix);
                 }
                 final Set<MemberRole> rolesForMember = memberPrefixRoleCache.get(keyName);
-                rolesForMember.add(new MemberRole(roleName, expiration));
+                rolesForMember.add(new MemberRole(roleName, roleMatcher, expiration));
             } else {
                 if (!memberRoleCache.containsKey(memberName)) {
                     memberRoleCache.put(memberName, new HashSet<>());
                 }
                 final Set<MemberRole> rolesForMember = memberRoleCache.get(memberName);
-                rolesForMember.add(new MemberRole(roleName, expiration));
+                rolesForMember.add(new MemberRole(roleName, roleMatcher, expiration));
             }
         }
     }
@@ -521,6 +534,16 @@ public class DataCache {
     public Map<String, Set<MemberRole>> getPrefixMemberRoleSetMap() {
         return memberPrefixRoleCache;
     }
+
+    /**
+     * Return roles configured for wildcard access where the
+     * wildcard prefix matches the given member
+     * @param member whose roles we want
+     * @return the list of role sets for all matching prefixes
+     */
+    public List<Set<MemberRole>> getPrefixMemberRoleSets(final String member) {
+        return memberPrefixRoleTrie.findMatchingValues(member);
+    }
     
     /**
      * Return the number of members in the cache
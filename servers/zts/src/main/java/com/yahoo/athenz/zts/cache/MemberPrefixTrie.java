@@ -0,0 +1,87 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.cache;
+
+import java.util.*;
+
+/**
+ * Character based prefix trie for the prefix wildcard role members
+ * (e.g. user.*) in a domain. Unlike the RolePrefixTrie in the store
+ * package, the prefix can end at any character and not only at the
+ * domain separator. The trie is populated while the DataCache object
+ * is being built and it's read-only afterwards so no locking is
+ * required - same as the other maps in the DataCache.
+ */
+public class MemberPrefixTrie {
+
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private Set<MemberRole> memberRoles;
+    }
+
+    private final TrieNode root = new TrieNode();
+    private int size = 0;
+
+    /**
+     * Associate the given member role set with the prefix.
+     * @param prefix member name prefix without the trailing *
+     * @param memberRoles set of roles for members with the given prefix
+     */
+    public void insert(final String prefix, Set<MemberRole> memberRoles) {
+        TrieNode current = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            current = current.children.computeIfAbsent(prefix.charAt(i), c -> new TrieNode());
+        }
+        if (current.memberRoles == null) {
+            size += 1;
+        }
+        current.memberRoles = memberRoles;
+    }
+
+    /**
+     * Return all member role sets whose prefix matches the given
+     * identity. The lookup is a single walk of the trie so the cost
+     * depends only on the length of the identity.
+     * @param identity principal name to match
+     * @return list of matching member role sets (empty list if none)
+     */
+    public List<Set<MemberRole>> findMatchingValues(final String identity) {
+
+        List<Set<MemberRole>> matches = null;
+        TrieNode current = root;
+        int idx = 0;
+        while (current != null) {
+            if (current.memberRoles != null) {
+                if (matches == null) {
+                    matches = new ArrayList<>();
+                }
+                matches.add(current.memberRoles);
+            }
+            if (idx == identity.length() || current.children.isEmpty()) {
+                break;
+            }
+            current = current.children.get(identity.charAt(idx++));
+        }
+        return matches == null ? Collections.emptyList() : matches;
+    }
+
+    /**
+     * @return number of prefixes in the trie
+     */
+    public int size() {
+        return size;
+    }
+}
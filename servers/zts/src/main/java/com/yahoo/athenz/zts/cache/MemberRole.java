@@ -15,13 +15,31 @@
  */
 package com.yahoo.athenz.zts.cache;
 
+import com.yahoo.athenz.auth.util.StringUtils;
+import com.yahoo.athenz.common.server.util.GlobMatcher;
+
 public class MemberRole {
     
     final String role;
     final long expiration;
+    final GlobMatcher roleMatcher;
     
     public MemberRole(String role, long expiration) {
+        this(role, (role != null && StringUtils.containsMatchCharacter(role)) ? GlobMatcher.compile(role) : null, expiration);
+    }
+
+    /**
+     * Create a member role object with the precompiled matcher for
+     * the role name. The caller is responsible to pass a matcher
+     * for the given role if it contains any glob characters so the
+     * same matcher can be shared by all members of the role.
+     * @param role name of the role
+     * @param roleMatcher precompiled matcher or null for literal role names
+     * @param expiration expiration time in millis (0 - no expiry)
+     */
+    public MemberRole(String role, GlobMatcher roleMatcher, long expiration) {
         this.role = role;
+        this.roleMatcher = roleMatcher;
         this.expiration = expiration;
     }
 
@@ -32,6 +50,17 @@ public class MemberRole {
     public long getExpiration() {
         return expiration;
     }
+
+    /**
+     * Check if the given role name is matched by this member role
+     * which might include glob characters for wildcard assume_role
+     * assertions.
+     * @param roleName name of the role to check
+     * @return true if the role name matches
+     */
+    public boolean matches(final String roleName) {
+        return roleMatcher == null ? role.equals(roleName) : roleMatcher.matches(roleName);
+    }
     
     @Override
     public int hashCode() {
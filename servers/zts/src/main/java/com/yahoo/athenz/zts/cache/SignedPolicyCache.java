@@ -0,0 +1,147 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.yahoo.rdl.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache for the signed policy objects returned to the ZPU
+ * clients. The signed object depends only on the domain modified
+ * timestamp, the requested policy versions and the signature format
+ * so we can return the same object until the cache entry expires.
+ * The cache timeout must be shorter than the signed policy timeout
+ * so that the clients always receive policies that are valid for
+ * at least (signedPolicyTimeout - cacheTimeout). Concurrent requests
+ * for the same key are blocked until the first one completes the
+ * signing operation and then all of them share its result.
+ */
+public class SignedPolicyCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SignedPolicyCache.class);
+
+    public static final String FORMAT_SIGNED_POLICY = "spd";
+    public static final String FORMAT_JWS = "jws";
+    public static final String FORMAT_JWS_P1363 = "jws-p1363";
+
+    private final Cache<String, Object> cache;
+
+    /**
+     * Create a signed policy cache object
+     * @param maxSize maximum number of entries in the cache (0 disables the cache)
+     * @param cacheTimeout cache entry timeout in milliseconds
+     */
+    public SignedPolicyCache(long maxSize, long cacheTimeout) {
+        if (maxSize <= 0 || cacheTimeout <= 0) {
+            LOGGER.info("Signed policy cache is disabled");
+            cache = null;
+        } else {
+            cache = CacheBuilder.newBuilder().concurrencyLevel(25)
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(cacheTimeout, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+    }
+
+    /**
+     * Generate the cache key for the given request
+     * @param domainName name of the domain
+     * @param modified domain modified timestamp
+     * @param policyVersions requested policy versions (could be null or empty)
+     * @param format signed policy format
+     * @return cache key
+     */
+    public static String generateKey(final String domainName, Timestamp modified,
+            Map<String, String> policyVersions, final String format) {
+
+        StringBuilder key = new StringBuilder(128);
+        key.append(domainName).append(':').append(modified.millis()).append(':').append(format);
+
+        // we need the policy versions in a consistent order so requests
+        // with the same set of versions map to the same key
+
+        if (policyVersions != null && !policyVersions.isEmpty()) {
+            for (Map.Entry<String, String> entry : new TreeMap<>(policyVersions).entrySet()) {
+                key.append(':').append(entry.getKey()).append('=').append(entry.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Return the signed policy object for the given key. If the object is
+     * not present in the cache then the loader is called to generate it.
+     * Only one loader is executed for the same key while other callers
+     * wait for its result. If the loader returns null, the result is not
+     * cached and null is returned to the caller.
+     * @param key cache key generated by the generateKey method
+     * @param loader signed policy object generator
+     * @return signed policy object or null in case of failure
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getSignedPolicy(final String key, Callable<T> loader) {
+
+        if (cache == null) {
+            return callLoader(loader);
+        }
+
+        try {
+            return (T) cache.get(key, () -> {
+                T value = loader.call();
+                if (value == null) {
+                    throw new IllegalStateException("unable to generate signed policy for " + key);
+                }
+                return value;
+            });
+        } catch (ExecutionException | UncheckedExecutionException ex) {
+            LOGGER.error("Unable to generate signed policy data for {}: {}", key, ex.getMessage());
+            return null;
+        }
+    }
+
+    <T> T callLoader(Callable<T> loader) {
+        try {
+            return loader.call();
+        } catch (Exception ex) {
+            LOGGER.error("Unable to generate signed policy data: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+}
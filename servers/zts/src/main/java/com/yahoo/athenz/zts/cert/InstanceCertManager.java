@@ -67,8 +67,8 @@ public class InstanceCertManager {
     private WorkloadRecordStore workloadStore = null;
     private ScheduledExecutorService certScheduledExecutor;
     private ScheduledExecutorService sshScheduledExecutor;
-    private List<IPBlock> certRefreshIPBlocks;
-    private Map<String, List<IPBlock>> instanceCertIPBlocks;
+    private IPBlockIndex certRefreshIPBlocks;
+    private Map<String, IPBlockIndex> instanceCertIPBlocks;
     private String caX509CertificateSigner = null;
     private Map<String, String> caX509ProviderCertificateSigners = null;
     private String sshUserCertificateSigner = null;
@@ -134,7 +134,7 @@ public class InstanceCertManager {
 
         // load our allowed cert refresh and instance register ip blocks
         
-        certRefreshIPBlocks = new ArrayList<>();
+        certRefreshIPBlocks = new IPBlockIndex();
         loadAllowedIPAddresses(certRefreshIPBlocks, System.getProperty(ZTSConsts.ZTS_PROP_CERT_REFRESH_IP_FNAME));
 
         if (!loadAllowedInstanceCertIPAddresses()) {
@@ -320,12 +320,9 @@ public class InstanceCertManager {
 
         for (ProviderIPBlock ipBlock : ipBlocks.getIpblocks()) {
 
-            List<IPBlock> certIPBlocks;
+            IPBlockIndex certIPBlocks = new IPBlockIndex();
             final String filename = ipBlock.getFilename();
-            if (filename == null) {
-                certIPBlocks = Collections.emptyList();
-            } else {
-                certIPBlocks = new ArrayList<>();
+            if (filename != null) {
                 if (!loadAllowedIPAddresses(certIPBlocks, filename)) {
                     LOGGER.error("Invalid provider ip file {}", filename);
                     return false;
@@ -401,7 +398,7 @@ public class InstanceCertManager {
         return new String(data);
     }
 
-    boolean loadAllowedIPAddresses(List<IPBlock> ipBlocks, final String ipAddressFileName) {
+    boolean loadAllowedIPAddresses(IPBlockIndex ipBlocks, final String ipAddressFileName) {
 
         if (ipAddressFileName == null || ipAddressFileName.isEmpty()) {
             return true;
@@ -431,15 +428,16 @@ public class InstanceCertManager {
         
         for (IPPrefix prefix : prefixList) {
             
-            // for now we're only supporting IPv4 blocks
+            // each entry includes either an IPv4 or an IPv6 block
             
             final String ipEntry = prefix.getIpv4Prefix();
             if (ipEntry == null) {
+                loadAllowedIPv6Address(ipBlocks, prefix.getIpv6Prefix());
                 continue;
             }
             
             try {
-                ipBlocks.add(new IPBlock(ipEntry));
+                ipBlocks.add(ipEntry);
             } catch (Exception ex) {
                 LOGGER.error("Skipping invalid ip block entry: {}, error: {}",
                         ipEntry, ex.getMessage());
@@ -450,6 +448,23 @@ public class InstanceCertManager {
         return true;
     }
     
+    void loadAllowedIPv6Address(IPBlockIndex ipBlocks, final String ipEntry) {
+
+        if (ipEntry == null) {
+            return;
+        }
+
+        // IPv6 blocks were ignored in earlier releases so we're not going
+        // to reject the full file if we have an invalid IPv6 entry
+
+        try {
+            ipBlocks.add(ipEntry);
+        } catch (Exception ex) {
+            LOGGER.error("Skipping invalid ipv6 block entry: {}, error: {}",
+                    ipEntry, ex.getMessage());
+        }
+    }
+
     private void loadCertificateObjectStore(PrivateKeyStore keyStore) {
         
         String certRecordStoreFactoryClass = System.getProperty(ZTSConsts.ZTS_PROP_CERT_RECORD_STORE_FACTORY_CLASS,
@@ -926,7 +941,7 @@ public class InstanceCertManager {
 
     public boolean verifyInstanceCertIPAddress(final String provider, final String ipAddress) {
 
-        final List<IPBlock> certIPBlocks = instanceCertIPBlocks.get(provider);
+        final IPBlockIndex certIPBlocks = instanceCertIPBlocks.get(provider);
 
         // if we have no blocks defined for the provider, then we'll return
         // failure if we have others defined or success if there are no
@@ -1022,7 +1037,7 @@ public class InstanceCertManager {
         return false;
     }
 
-    private boolean verifyIPAddressAccess(final String ipAddress, final List<IPBlock> ipBlocks) {
+    private boolean verifyIPAddressAccess(final String ipAddress, final IPBlockIndex ipBlocks) {
         
         // if the list has no IP addresses then we allow all
         
@@ -1030,13 +1045,7 @@ public class InstanceCertManager {
             return true;
         }
         
-        long ipAddr = IPBlock.convertIPToLong(ipAddress);
-        for (IPBlock ipBlock : ipBlocks) {
-            if (ipBlock.ipCheck(ipAddr)) {
-                return true;
-            }
-        }
-        return false;
+        return ipBlocks.contains(ipAddress);
     }
 
     public void logX509Cert(final Principal principal, final String ip, final String provider,
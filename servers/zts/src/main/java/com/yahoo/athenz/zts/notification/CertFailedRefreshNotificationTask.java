@@ -45,6 +45,7 @@ public class CertFailedRefreshNotificationTask implements NotificationTask {
     private final String serverName;
     private final List<String> providers;
     private final InstanceCertManager instanceCertManager;
+    private final DomainRoleMembersFetcher domainRoleMembersFetcher;
     private final NotificationCommon notificationCommon;
     private final DataStore dataStore;
     private static final Logger LOGGER = LoggerFactory.getLogger(CertFailedRefreshNotificationTask.class);
@@ -68,7 +69,7 @@ public class CertFailedRefreshNotificationTask implements NotificationTask {
         this.providers = getProvidersList();
         this.instanceCertManager = instanceCertManager;
         this.dataStore = dataStore;
-        DomainRoleMembersFetcher domainRoleMembersFetcher = new DomainRoleMembersFetcher(dataStore, USER_DOMAIN_PREFIX);
+        this.domainRoleMembersFetcher = new DomainRoleMembersFetcher(dataStore, USER_DOMAIN_PREFIX, true);
         this.notificationCommon = new NotificationCommon(domainRoleMembersFetcher, userDomainPrefix);
         this.hostnameResolver = hostnameResolver;
         final String apiHostName = System.getProperty(ZTSConsts.ZTS_PROP_NOTIFICATION_API_HOSTNAME, serverName);
@@ -83,43 +84,47 @@ public class CertFailedRefreshNotificationTask implements NotificationTask {
 
     @Override
     public List<Notification> getNotifications() {
-        if (providers == null || providers.isEmpty()) {
-            LOGGER.warn("No configured providers. Notifications will not be sent.");
-            return new ArrayList<>();
-        }
+        try {
+            if (providers == null || providers.isEmpty()) {
+                LOGGER.warn("No configured providers. Notifications will not be sent.");
+                return new ArrayList<>();
+            }
 
-        List<X509CertRecord> unrefreshedCerts = new ArrayList<>();
-        for (String provider : providers) {
-            unrefreshedCerts.addAll(instanceCertManager.getUnrefreshedCertsNotifications(serverName, provider));
-        }
-        if (unrefreshedCerts.isEmpty()) {
-            LOGGER.info("No unrefreshed certificates available to send notifications");
-            return new ArrayList<>();
-        }
+            List<X509CertRecord> unrefreshedCerts = new ArrayList<>();
+            for (String provider : providers) {
+                unrefreshedCerts.addAll(instanceCertManager.getUnrefreshedCertsNotifications(serverName, provider));
+            }
+            if (unrefreshedCerts.isEmpty()) {
+                LOGGER.info("No unrefreshed certificates available to send notifications");
+                return new ArrayList<>();
+            }
 
-        List<X509CertRecord> unrefreshedCertsValidServices = getRecordsWithValidServices(unrefreshedCerts);
-        if (unrefreshedCertsValidServices.isEmpty()) {
-            LOGGER.info("No unrefreshed certificates with configured services available to send notifications");
-            return new ArrayList<>();
-        }
+            List<X509CertRecord> unrefreshedCertsValidServices = getRecordsWithValidServices(unrefreshedCerts);
+            if (unrefreshedCertsValidServices.isEmpty()) {
+                LOGGER.info("No unrefreshed certificates with configured services available to send notifications");
+                return new ArrayList<>();
+            }
 
-        List<X509CertRecord> unrefreshedCertsUnsnoozed = getRecordsNotSnoozed(unrefreshedCertsValidServices);
-        if (unrefreshedCertsUnsnoozed.isEmpty()) {
-            LOGGER.info("No unrefreshed certificates in un-snoozed domains");
-            return new ArrayList<>();
-        }
+            List<X509CertRecord> unrefreshedCertsUnsnoozed = getRecordsNotSnoozed(unrefreshedCertsValidServices);
+            if (unrefreshedCertsUnsnoozed.isEmpty()) {
+                LOGGER.info("No unrefreshed certificates in un-snoozed domains");
+                return new ArrayList<>();
+            }
 
-        List<X509CertRecord> unrefreshedCertsValidHosts = getRecordsWithValidHosts(unrefreshedCertsUnsnoozed);
-        if (unrefreshedCertsValidHosts.isEmpty()) {
-            LOGGER.info("No unrefreshed certificates with valid hosts available to send notifications");
-            return new ArrayList<>();
-        } else {
-            LOGGER.info("Number of valid certificate records that will receive notifications: {}", unrefreshedCertsValidHosts.size());
-        }
+            List<X509CertRecord> unrefreshedCertsValidHosts = getRecordsWithValidHosts(unrefreshedCertsUnsnoozed);
+            if (unrefreshedCertsValidHosts.isEmpty()) {
+                LOGGER.info("No unrefreshed certificates with valid hosts available to send notifications");
+                return new ArrayList<>();
+            } else {
+                LOGGER.info("Number of valid certificate records that will receive notifications: {}", unrefreshedCertsValidHosts.size());
+            }
 
-        Map<String, List<X509CertRecord>> domainToCertRecordsMap = getDomainToCertRecordsMap(unrefreshedCertsValidHosts);
+            Map<String, List<X509CertRecord>> domainToCertRecordsMap = getDomainToCertRecordsMap(unrefreshedCertsValidHosts);
 
-        return generateNotificationsForAdmins(domainToCertRecordsMap);
+            return generateNotificationsForAdmins(domainToCertRecordsMap);
+        } finally {
+            domainRoleMembersFetcher.clearCache();
+        }
     }
 
     private List<X509CertRecord> getRecordsWithValidServices(List<X509CertRecord> unrefreshedCerts) {
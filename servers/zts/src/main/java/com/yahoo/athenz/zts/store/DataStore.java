@@ -19,13 +19,14 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.yahoo.athenz.auth.AuthorityConsts;
-import com.yahoo.athenz.auth.util.StringUtils;
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import com.yahoo.athenz.common.messaging.DomainChangeMessage;
 import com.yahoo.athenz.common.metrics.Metric;
 import com.yahoo.athenz.common.server.db.RolesProvider;
 import com.yahoo.athenz.common.server.store.ChangeLogStore;
 import com.yahoo.athenz.common.server.util.ConfigProperties;
 import com.yahoo.athenz.common.server.util.AuthzHelper;
+import com.yahoo.athenz.common.server.util.MemberDiff;
 import com.yahoo.athenz.common.utils.SignUtils;
 import com.yahoo.athenz.zms.*;
 import com.yahoo.athenz.zts.*;
@@ -46,9 +47,14 @@ import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
 import java.security.spec.ECPoint;
 import java.util.*;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
@@ -72,7 +78,7 @@ public class DataStore implements DataCacheProvider, RolesProvider {
     private final Cache<String, DataCache> cacheStore;
     final Cache<String, PublicKey> zmsPublicKeyCache;
     final Cache<String, List<GroupMember>> groupMemberCache;
-    final Cache<String, List<GroupMember>> principalGroupCache;
+    final PrincipalGroupIndex principalGroupIndex;
     final RequireRoleCertCache requireRoleCertCache;
     final Map<String, List<String>> hostCache;
     final Map<String, String> publicKeyCache;
@@ -87,6 +93,15 @@ public class DataStore implements DataCacheProvider, RolesProvider {
     long lastDeleteRunTime;
     long lastCheckRunTime;
     boolean jwsDomainSupport;
+    int localDomainLoadThreads;
+    List<String> localDomainPriorityList;
+    final AtomicInteger localDomainsLoaded = new AtomicInteger();
+    final AtomicInteger localDomainsFailed = new AtomicInteger();
+    long subscriberDomainRefreshTime;
+    long domainChangeCoalesceTime;
+    final List<ChangeSubscriber<DomainChangeMessage>> domainChangeSubscribers = new ArrayList<>();
+    final Set<String> pendingDomainRefreshes = ConcurrentHashMap.newKeySet();
+    ScheduledExecutorService scheduledThreadPool;
 
     private static final String ROLE_POSTFIX = ":role.";
 
@@ -102,6 +117,12 @@ public class DataStore implements DataCacheProvider, RolesProvider {
     private static final String ZTS_PROP_DOMAIN_DELETE_TIMEOUT = "athenz.zts.zms_domain_delete_timeout";
     private static final String ZTS_PROP_DOMAIN_CHECK_TIMEOUT  = "athenz.zts.zms_domain_check_timeout";
     private static final String ZTS_PROP_DOMAIN_JWS_SUPPORT    = "athenz.zts.zms_domain_jws_support";
+    private static final String ZTS_PROP_LOCAL_DOMAIN_LOAD_THREADS  = "athenz.zts.local_domain_load_threads";
+    private static final String ZTS_PROP_LOCAL_DOMAIN_PRIORITY_LIST = "athenz.zts.local_domain_priority_list";
+    private static final String ZTS_PROP_DOMAIN_UPDATE_SUBSCRIBER_TIMEOUT = "athenz.zts.zms_domain_update_subscriber_timeout";
+    private static final String ZTS_PROP_DOMAIN_CHANGE_COALESCE_TIME     = "athenz.zts.domain_change_coalesce_time";
+
+    private static final int LOCAL_DOMAIN_LOAD_PROGRESS_INTERVAL = 1000;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DataStore.class);
     
@@ -119,7 +140,7 @@ public class DataStore implements DataCacheProvider, RolesProvider {
         zmsPublicKeyCache = CacheBuilder.newBuilder().concurrencyLevel(25).build();
 
         groupMemberCache = CacheBuilder.newBuilder().concurrencyLevel(25).build();
-        principalGroupCache = CacheBuilder.newBuilder().concurrencyLevel(25).build();
+        principalGroupIndex = new PrincipalGroupIndex();
 
         requireRoleCertCache = new RequireRoleCertCache();
 
@@ -148,6 +169,16 @@ public class DataStore implements DataCacheProvider, RolesProvider {
             checkDomainRefreshTime = updDomainRefreshTime;
         }
 
+        /* if we have domain change subscribers then domains are refreshed
+         * as soon as we receive a change message and we only poll for
+         * updates at a much slower rate in case we have missed any messages.
+         * the coalesce time (in millis) is how long we wait after the first
+         * message before fetching the domain so multiple changes for the
+         * same domain result in a single refresh */
+
+        subscriberDomainRefreshTime = ConfigProperties.retrieveConfigSetting(ZTS_PROP_DOMAIN_UPDATE_SUBSCRIBER_TIMEOUT, 600);
+        domainChangeCoalesceTime = ConfigProperties.retrieveConfigSetting(ZTS_PROP_DOMAIN_CHANGE_COALESCE_TIME, 500);
+
         lastDeleteRunTime = System.currentTimeMillis();
         lastCheckRunTime = System.currentTimeMillis();
 
@@ -163,6 +194,19 @@ public class DataStore implements DataCacheProvider, RolesProvider {
         jwsDomainSupport = Boolean.parseBoolean(System.getProperty(ZTS_PROP_DOMAIN_JWS_SUPPORT, "false"));
         clogStore.setJWSDomainSupport(jwsDomainSupport);
 
+        // number of threads used to read and validate our local domains
+        // during startup and the list of domains that must be loaded first
+
+        localDomainLoadThreads = Integer.parseInt(System.getProperty(ZTS_PROP_LOCAL_DOMAIN_LOAD_THREADS,
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+        localDomainPriorityList = new ArrayList<>();
+        final String priorityList = System.getProperty(ZTS_PROP_LOCAL_DOMAIN_PRIORITY_LIST, ATHENZ_SYS_DOMAIN);
+        for (String domainName : priorityList.split(",")) {
+            if (!domainName.trim().isEmpty()) {
+                localDomainPriorityList.add(domainName.trim());
+            }
+        }
+
         // initialize our jackson object mapper
 
         jsonMapper = new ObjectMapper();
@@ -172,12 +216,54 @@ public class DataStore implements DataCacheProvider, RolesProvider {
     }
 
     boolean processLocalSignedDomain(String domainName) {
+        return processLocalDomainData(domainName, loadLocalSignedDomain(domainName));
+    }
+
+    /**
+     * Read the given domain from our local store and validate its signature.
+     * This method does not update any of our caches so it can be called
+     * concurrently for multiple domains.
+     * @param domainName name of the domain
+     * @return validated domain data or null if the domain is not valid
+     */
+    DomainData loadLocalSignedDomain(String domainName) {
 
-        boolean result = false;
         try {
-            result = processSignedDomain(changeLogStore.getLocalSignedDomain(domainName), false);
+            SignedDomain signedDomain = changeLogStore.getLocalSignedDomain(domainName);
+            if (validateSignedDomain(signedDomain)) {
+                return signedDomain.getDomain();
+            }
         } catch (Exception ex) {
-             LOGGER.error("Unable to process local domain {}", domainName, ex);
+            LOGGER.error("Unable to process local domain {}", domainName, ex);
+        }
+        return null;
+    }
+
+    /**
+     * Update our caches with the validated domain data loaded from our
+     * local store. Must only be called by a single thread at a time.
+     * @param domainName name of the domain
+     * @param domainData validated domain data, null if the domain was not valid
+     * @return true if the domain was successfully processed
+     */
+    boolean processLocalDomainData(String domainName, DomainData domainData) {
+
+        boolean result = false;
+        if (domainData != null) {
+
+            LOGGER.info("Processing domain: {}", domainName);
+
+            try {
+                if (domainData.getEnabled() == Boolean.FALSE) {
+                    LOGGER.info("Skipping disabled domain: {}", domainName);
+                    deleteDomainFromCache(domainName);
+                } else {
+                    processDomainData(domainData);
+                }
+                result = true;
+            } catch (Exception ex) {
+                LOGGER.error("Unable to process local domain {}", domainName, ex);
+            }
         }
 
         if (!result) {
@@ -352,19 +438,39 @@ public class DataStore implements DataCacheProvider, RolesProvider {
     }
 
     boolean processLocalJWSDomain(String domainName) {
+        return processLocalDomainData(domainName, loadLocalJWSDomain(domainName));
+    }
+
+    /**
+     * Read the given jws domain from our local store and validate its
+     * signature. This method does not update any of our caches so it
+     * can be called concurrently for multiple domains.
+     * @param domainName name of the domain
+     * @return validated domain data or null if the domain is not valid
+     */
+    DomainData loadLocalJWSDomain(String domainName) {
 
-        boolean result = false;
         try {
-            result = processJWSDomain(changeLogStore.getLocalJWSDomain(domainName), false);
+            JWSDomain jwsDomain = changeLogStore.getLocalJWSDomain(domainName);
+            DomainData domainData = parseJWSDomain(jwsDomain);
+            if (domainData != null && validateJWSDomain(domainData.getName(), jwsDomain)) {
+                return domainData;
+            }
         } catch (Exception ex) {
             LOGGER.error("Unable to process local domain {}", domainName, ex);
         }
+        return null;
+    }
 
-        if (!result) {
-            LOGGER.error("Invalid local domain: {}. Refresh from ZMS required", domainName);
-        }
+    DomainData parseJWSDomain(JWSDomain jwsDomain) {
 
-        return result;
+        try {
+            byte[] payload = base64Decoder.decode(jwsDomain.getPayload());
+            return jsonMapper.readValue(payload, DomainData.class);
+        } catch (Exception ex) {
+            LOGGER.error("Unable to parse jws domain", ex);
+            return null;
+        }
     }
 
     boolean validateJWSDomain(final String domainName, JWSDomain jwsDomain) {
@@ -383,12 +489,8 @@ public class DataStore implements DataCacheProvider, RolesProvider {
 
     public boolean processJWSDomain(JWSDomain jwsDomain, boolean saveInStore) {
 
-        DomainData domainData;
-        try {
-            byte[] payload = base64Decoder.decode(jwsDomain.getPayload());
-            domainData = jsonMapper.readValue(payload, DomainData.class);
-        } catch (Exception ex) {
-            LOGGER.error("Unable to parse jws domain", ex);
+        DomainData domainData = parseJWSDomain(jwsDomain);
+        if (domainData == null) {
             return false;
         }
 
@@ -707,24 +809,79 @@ public class DataStore implements DataCacheProvider, RolesProvider {
         
         Set<String> zmsDomainList = changeLogStore.getServerDomainList();
 
-        int badDomains = 0;
+        /* make sure each domain is still active in ZMS otherwise
+         * we'll just remove our local copy. if we were not able
+         * to fetch the domain list from ZMS at this time, we'll
+         * just defer the cleanup at the next check. the remaining
+         * domains are split into our priority domains which are
+         * processed first in the configured order and the rest */
+
+        List<String> priorityDomains = new ArrayList<>();
+        List<String> domainNames = new ArrayList<>();
         for (String domainName : localDomainList) {
-            
-            /* make sure this domain is still active in ZMS otherwise
-             * we'll just remove our local copy. if we were not able
-             * to fetch the domain list from ZMS at this time, we'll
-             * just defer the cleanup at the next check */
 
             if (zmsDomainList != null && !zmsDomainList.contains(domainName)) {
-                
+
                 if (LOGGER.isDebugEnabled()) {
                     LOGGER.debug("Removing local domain: {}. Domain not in ZMS anymore.", domainName);
                 }
-                
+
                 deleteDomain(domainName);
                 continue;
             }
-            
+
+            if (localDomainPriorityList.contains(domainName)) {
+                priorityDomains.add(domainName);
+            } else {
+                domainNames.add(domainName);
+            }
+        }
+        priorityDomains.sort(Comparator.comparingInt(localDomainPriorityList::indexOf));
+
+        localDomainsLoaded.set(0);
+        localDomainsFailed.set(0);
+        final long startTime = System.currentTimeMillis();
+        final int totalDomains = priorityDomains.size() + domainNames.size();
+
+        int badDomains = 0;
+        for (String domainName : priorityDomains) {
+            if (!processLocalDomainResult(domainName, loadLocalDomain(domainName), totalDomains)) {
+                if (changeLogStore.supportsFullRefresh()) {
+                    return -1;
+                }
+                badDomains += 1;
+            }
+        }
+
+        int result = (localDomainLoadThreads > 1 && domainNames.size() > 1) ?
+                processLocalDomainsParallel(domainNames, totalDomains) :
+                processLocalDomainsSequential(domainNames, totalDomains);
+        if (result == -1) {
+            return -1;
+        }
+        badDomains += result;
+
+        LOGGER.info("Processed {} local domains in {} ms: {} failed", totalDomains,
+                System.currentTimeMillis() - startTime, localDomainsFailed.get());
+        metric.increment("local_domain_load_success", ATHENZ_SYS_DOMAIN, localDomainsLoaded.get());
+        metric.increment("local_domain_load_failure", ATHENZ_SYS_DOMAIN, localDomainsFailed.get());
+
+        /* if more than 1/4 of our domains are bad then we have some
+         * issue that needs to be addressed so we're going to return failure */
+
+        if (badDomains > localDomainList.size() / 4) {
+            LOGGER.error("Too many invalid domains: {} out of {}", badDomains, localDomainList.size());
+            return -1;
+        }
+
+        return badDomains;
+    }
+
+    int processLocalDomainsSequential(List<String> domainNames, int totalDomains) {
+
+        int badDomains = 0;
+        for (String domainName : domainNames) {
+
             /* if we get a failure when processing a local domain then it
              * indicates that we had an invalid domain file (possibly
              * corrupted or hacked. In this case we're going to drop
@@ -732,28 +889,91 @@ public class DataStore implements DataCacheProvider, RolesProvider {
              * change log store supports that functionality. Otherwise,
              * we're going to just skip the domain and continue. */
 
-            if (!processLocalDomain(domainName)) {
+            if (!processLocalDomainResult(domainName, loadLocalDomain(domainName), totalDomains)) {
                 if (changeLogStore.supportsFullRefresh()) {
                     return -1;
-                } else {
-                    badDomains += 1;
                 }
+                badDomains += 1;
             }
         }
+        return badDomains;
+    }
 
-        /* if more than 1/4 of our domains are bad then we have some
-         * issue that needs to be addressed so we're going to return failure */
+    /**
+     * Reading, parsing and validating the signature of the local domains
+     * is carried out by a bounded pool of worker threads while the calling
+     * thread updates our caches with the validated domains as they become
+     * available. Only a limited number of validated domains are kept
+     * pending so we don't hold the full data set in memory at once.
+     * @param domainNames list of domains to process
+     * @param totalDomains total number of domains for progress reporting
+     * @return -1 if full resync is needed, otherwise the number of bad domains
+     */
+    int processLocalDomainsParallel(List<String> domainNames, int totalDomains) {
 
-        if (badDomains > localDomainList.size() / 4) {
-            LOGGER.error("Too many invalid domains: {} out of {}", badDomains, localDomainList.size());
+        final int threads = Math.min(localDomainLoadThreads, domainNames.size());
+        final int maxPending = threads * 4;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CompletionService<LocalDomain> completionService = new ExecutorCompletionService<>(executor);
+
+        int badDomains = 0;
+        try {
+            int submitted = 0;
+            while (submitted < domainNames.size() && submitted < maxPending) {
+                submitLocalDomainLoad(completionService, domainNames.get(submitted++));
+            }
+
+            for (int completed = 0; completed < submitted; completed++) {
+
+                LocalDomain localDomain = completionService.take().get();
+                if (submitted < domainNames.size()) {
+                    submitLocalDomainLoad(completionService, domainNames.get(submitted++));
+                }
+
+                if (!processLocalDomainResult(localDomain.domainName, localDomain.domainData, totalDomains)) {
+                    if (changeLogStore.supportsFullRefresh()) {
+                        return -1;
+                    }
+                    badDomains += 1;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while processing local domains");
             return -1;
+        } catch (Exception ex) {
+            LOGGER.error("Unable to process local domains", ex);
+            return -1;
+        } finally {
+            executor.shutdownNow();
         }
 
         return badDomains;
     }
 
+    void submitLocalDomainLoad(CompletionService<LocalDomain> completionService, final String domainName) {
+        completionService.submit(() -> new LocalDomain(domainName, loadLocalDomain(domainName)));
+    }
+
+    boolean processLocalDomainResult(String domainName, DomainData domainData, int totalDomains) {
+
+        boolean result = processLocalDomainData(domainName, domainData);
+        int processed = result ? localDomainsLoaded.incrementAndGet() + localDomainsFailed.get() :
+                localDomainsLoaded.get() + localDomainsFailed.incrementAndGet();
+        if (processed % LOCAL_DOMAIN_LOAD_PROGRESS_INTERVAL == 0) {
+            LOGGER.info("Processed {} out of {} local domains: {} failed", processed, totalDomains,
+                    localDomainsFailed.get());
+        }
+        return result;
+    }
+
     boolean processLocalDomain(String domainName) {
-        return jwsDomainSupport ? processLocalJWSDomain(domainName) : processLocalSignedDomain(domainName);
+        return processLocalDomainData(domainName, loadLocalDomain(domainName));
+    }
+
+    DomainData loadLocalDomain(String domainName) {
+        return jwsDomainSupport ? loadLocalJWSDomain(domainName) : loadLocalSignedDomain(domainName);
     }
 
     public void init() {
@@ -796,11 +1016,86 @@ public class DataStore implements DataCacheProvider, RolesProvider {
             processDomainChecks();
         }
 
-        /* Start our monitoring thread to get changes from ZMS */
+        /* Start our monitoring thread to get changes from ZMS. The same
+         * thread is used to refresh domains based on change messages so
+         * all domain updates are processed by a single thread */
+
+        scheduledThreadPool = Executors.newScheduledThreadPool(1);
+        final long refreshTime = domainChangeSubscribers.isEmpty() ? updDomainRefreshTime :
+                Math.max(updDomainRefreshTime, subscriberDomainRefreshTime);
+        scheduledThreadPool.scheduleAtFixedRate(new DataUpdater(), refreshTime,
+                refreshTime, TimeUnit.SECONDS);
+
+        startDomainChangeSubscribers();
+    }
+
+    /**
+     * Add a subscriber for domain change messages. When the store is
+     * initialized, each subscriber is started in its own thread and
+     * any domain included in a received message is refreshed from ZMS.
+     * @param subscriber domain change message subscriber
+     */
+    public void addDomainChangeSubscriber(ChangeSubscriber<DomainChangeMessage> subscriber) {
+        domainChangeSubscribers.add(subscriber);
+    }
+
+    void startDomainChangeSubscribers() {
+
+        for (ChangeSubscriber<DomainChangeMessage> subscriber : domainChangeSubscribers) {
+            subscriber.init(this::processDomainChangeMessage, DomainChangeMessage.class);
+            Thread subscriberThread = new Thread(subscriber, "zts-domain-change-subscriber");
+            subscriberThread.setDaemon(true);
+            subscriberThread.start();
+        }
+    }
+
+    void processDomainChangeMessage(DomainChangeMessage message) {
+
+        final String domainName = message.getDomainName();
+        if (domainName == null || domainName.isEmpty()) {
+            return;
+        }
+
+        // if we already have a refresh pending for this domain then
+        // there is no need to schedule another one since the domain
+        // has not been retrieved from ZMS yet
+
+        if (!pendingDomainRefreshes.add(domainName)) {
+            LOGGER.debug("Domain {} refresh already pending for message: {}", domainName, message.getMessageId());
+            return;
+        }
+
+        scheduledThreadPool.schedule(() -> processDomainRefresh(domainName), domainChangeCoalesceTime,
+                TimeUnit.MILLISECONDS);
+    }
+
+    boolean processDomainRefresh(final String domainName) {
+
+        // we remove the domain from our pending set before retrieving
+        // it so any changes received after this point schedule another
+        // refresh and we don't miss any updates
+
+        pendingDomainRefreshes.remove(domainName);
 
-        ScheduledExecutorService scheduledThreadPool = Executors.newScheduledThreadPool(1);
-        scheduledThreadPool.scheduleAtFixedRate(new DataUpdater(), updDomainRefreshTime,
-                updDomainRefreshTime, TimeUnit.SECONDS);
+        boolean result = false;
+        try {
+            if (jwsDomainSupport) {
+                JWSDomain jwsDomain = changeLogStore.getServerJWSDomain(domainName);
+                result = jwsDomain != null && processJWSDomain(jwsDomain, true);
+            } else {
+                SignedDomain signedDomain = changeLogStore.getServerSignedDomain(domainName);
+                result = signedDomain != null && processSignedDomain(signedDomain, true);
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Unable to refresh domain {}", domainName, ex);
+        }
+
+        // if we're not able to refresh the domain (e.g. it has been deleted)
+        // then our regular update, delete and check tasks will handle it
+
+        metric.increment(result ? "domain_change_refresh_success" : "domain_change_refresh_failure",
+                domainName);
+        return result;
     }
 
     void processDomainChecks() {
@@ -908,84 +1203,28 @@ public class DataStore implements DataCacheProvider, RolesProvider {
         // and determine the list of changes between old and new members
 
         List<GroupMember> originalMembers = groupMemberCache.getIfPresent(group.getName());
-        List<GroupMember> curMembers = originalMembers == null ? new ArrayList<>() : new ArrayList<>(originalMembers);
-        List<GroupMember> delMembers = new ArrayList<>(curMembers);
-        List<GroupMember> newMembers = new ArrayList<>(group.getGroupMembers());
-        List<GroupMember> updMembers = new ArrayList<>(group.getGroupMembers());
-
-        // remove current members from new members
-
-        AuthzHelper.removeGroupMembers(newMembers, curMembers);
-
-        // remove new members from current members
-        // which leaves the deleted members.
-
-        AuthzHelper.removeGroupMembers(delMembers, group.getGroupMembers());
-
-        // now let's remove our new members from the member list to
-        // get the possible list of users that need to be updated
-
-        AuthzHelper.removeGroupMembers(updMembers, newMembers);
+        MemberDiff<GroupMember> memberDiff = MemberDiff.groupMembers(originalMembers, group.getGroupMembers());
+        List<GroupMember> delMembers = memberDiff.getRemovedMembers();
+        List<GroupMember> newMembers = memberDiff.getAddedMembers();
+        List<GroupMember> updMembers = memberDiff.getUpdatedMembers();
 
         // update the group member cache with the new members
 
         groupMemberCache.put(group.getName(), group.getGroupMembers());
 
-        // first process the updated entries
+        // first process the updated entries. it's possible that initially
+        // we skipped the entry because it was disabled or expired so we
+        // might have no entries in the index or the member might now be
+        // disabled so we need to remove it from the index
 
+        final String groupName = group.getName();
         long currentTime = System.currentTimeMillis();
         for (GroupMember member : updMembers) {
-
-            // it's possible that initially we skipped the entry because it was
-            // disabled or expired so we might have no entries in the map
-
-            List<GroupMember> groupMembers = principalGroupCache.getIfPresent(member.getMemberName());
-            if (groupMembers == null) {
-
-                // make sure we want to process this user
-
-                if (AuthzHelper.shouldSkipGroupMember(member, currentTime)) {
-                    continue;
-                }
-
-                // we'll add this member to our new list
-
-                groupMembers = new ArrayList<>();
-                groupMembers.add(member);
-                principalGroupCache.put(member.getMemberName(), groupMembers);
-
-            } else if (groupMembers.isEmpty()) {
-
-                // make sure we want to process this user
-
-                if (AuthzHelper.shouldSkipGroupMember(member, currentTime)) {
-                    continue;
-                }
-
-                // we'll add this member to our existing list
-
-                groupMembers.add(member);
-
+            if (AuthzHelper.shouldSkipGroupMember(member, currentTime)) {
+                principalGroupIndex.removeMember(member.getMemberName(), groupName);
             } else {
-
-                // if we need to skip the entry then we'll delete the member
-                // from our list otherwise we'll just update it
-
-                if (AuthzHelper.shouldSkipGroupMember(member, currentTime)) {
-                    groupMembers.removeIf(item -> item.getGroupName().equalsIgnoreCase(group.getName()));
-                } else {
-                    // we need to find our entry and update details
-
-                    for (GroupMember mbr : groupMembers) {
-                        if (mbr.getGroupName().equalsIgnoreCase(group.getName())) {
-                            mbr.setExpiration(member.getExpiration());
-                            mbr.setSystemDisabled(member.getSystemDisabled());
-                            mbr.setActive(member.getActive());
-                            mbr.setApproved(member.getApproved());
-                            break;
-                        }
-                    }
-                }
+                principalGroupIndex.addMember(member.getMemberName(), groupName,
+                        PrincipalGroupIndex.expirationMillis(member.getExpiration()));
             }
         }
 
@@ -999,12 +1238,8 @@ public class DataStore implements DataCacheProvider, RolesProvider {
                 continue;
             }
 
-            List<GroupMember> groupMembers = principalGroupCache.getIfPresent(member.getMemberName());
-            if (groupMembers == null) {
-                groupMembers = new ArrayList<>();
-                principalGroupCache.put(member.getMemberName(), groupMembers);
-            }
-            groupMembers.add(member);
+            principalGroupIndex.addMember(member.getMemberName(), groupName,
+                    PrincipalGroupIndex.expirationMillis(member.getExpiration()));
         }
 
         // process deleted members from the group
@@ -1021,11 +1256,7 @@ public class DataStore implements DataCacheProvider, RolesProvider {
         }
 
         for (GroupMember member : deletedMembers) {
-            List<GroupMember> groupMembers = principalGroupCache.getIfPresent(member.getMemberName());
-            if (groupMembers == null) {
-                continue;
-            }
-            groupMembers.removeIf(item -> item.getGroupName().equalsIgnoreCase(groupName));
+            principalGroupIndex.removeMember(member.getMemberName(), groupName);
         }
     }
 
@@ -1436,8 +1667,8 @@ public class DataStore implements DataCacheProvider, RolesProvider {
 
         // get the list of groups that a given identity is part of
 
-        List<GroupMember> groupMembers = principalGroupCache.getIfPresent(identity);
-        if (groupMembers == null || groupMembers.isEmpty()) {
+        final PrincipalGroupIndex.Memberships memberships = principalGroupIndex.getMemberships(identity);
+        if (memberships == null) {
             return;
         }
 
@@ -1445,17 +1676,18 @@ public class DataStore implements DataCacheProvider, RolesProvider {
         // the user is included in the given domain role
 
         long currentTime = System.currentTimeMillis();
-        for (GroupMember member : groupMembers) {
+        for (int i = 0; i < memberships.size(); i++) {
 
             // skip any members that have already expired
 
-            if (AuthzHelper.isMemberExpired(member.getExpiration(), currentTime)) {
+            if (memberships.isExpired(i, currentTime)) {
                 continue;
             }
 
             // skip any that have no member roles
 
-            final Set<MemberRole> groupMemberRoleSet = data.getMemberRoleSet(member.getGroupName());
+            final String groupName = principalGroupIndex.getGroupName(memberships.getGroupId(i));
+            final Set<MemberRole> groupMemberRoleSet = data.getMemberRoleSet(groupName);
             if (groupMemberRoleSet == null) {
                 continue;
             }
@@ -1480,47 +1712,11 @@ public class DataStore implements DataCacheProvider, RolesProvider {
     // API
     public List<String> getPrincipalGroups(final String identity, final String domainName, final Set<String> requestedGroups) {
 
-        // get the list of groups that a given identity is part of
-
-        List<GroupMember> groupMembers = principalGroupCache.getIfPresent(identity);
-        if (groupMembers == null || groupMembers.isEmpty()) {
-            return null;
-        }
-
-        // extract and only keep active group names from the specified domain
-
-        List<String> groups = new ArrayList<>();
-        long currentTime = System.currentTimeMillis();
-        final String domainNamePrefix = domainName + AuthorityConsts.GROUP_SEP;
-
-        for (GroupMember member : groupMembers) {
-
-            final String groupFullName = member.getGroupName();
-
-            // skip any members that have already expired
-
-            if (AuthzHelper.isMemberExpired(member.getExpiration(), currentTime)) {
-                continue;
-            }
+        // get the list of active groups from the specified domain
+        // that a given identity is part of
 
-            // skip any members from a different domain
-
-            if (!groupFullName.startsWith(domainNamePrefix)) {
-                continue;
-            }
-
-            final String groupName = groupFullName.substring(domainNamePrefix.length());
-
-            // skip if the given group is not in our requested set
-
-            if (requestedGroups != null && !requestedGroups.contains(groupName)) {
-                continue;
-            }
-
-            groups.add(groupName);
-        }
-
-        return groups.isEmpty() ? null : groups;
+        return principalGroupIndex.getDomainGroups(identity, domainName, requestedGroups,
+                System.currentTimeMillis());
     }
 
     // Internal
@@ -1573,16 +1769,12 @@ public class DataStore implements DataCacheProvider, RolesProvider {
         processStandardMembership(data.getAllMemberRoleSet(),
                 rolePrefix, requestedRoleList, accessibleRoles, keepFullName);
         
-        /* then look at the prefix wildcard roles. in this map
-         * we only process those where the key in the map is
-         * a prefix of our identity */
+        /* then look at the prefix wildcard roles. the cache returns
+         * the role sets for all prefixes that match our identity */
         
-        Map<String, Set<MemberRole>> roleSetMap = data.getPrefixMemberRoleSetMap();
-        for (String identityPrefix : roleSetMap.keySet()) {
-            if (identity.startsWith(identityPrefix)) {
-                processStandardMembership(roleSetMap.get(identityPrefix),
-                        rolePrefix, requestedRoleList, accessibleRoles, keepFullName);
-            }
+        for (Set<MemberRole> prefixMemberRoles : data.getPrefixMemberRoleSets(identity)) {
+            processStandardMembership(prefixMemberRoles, rolePrefix, requestedRoleList,
+                    accessibleRoles, keepFullName);
         }
 
         // now process our group membership
@@ -1642,7 +1834,6 @@ public class DataStore implements DataCacheProvider, RolesProvider {
     // Internal
     boolean roleMatchInSet(String role, Set<MemberRole> memberRoles) {
 
-        String rolePattern;
         long currentTime = System.currentTimeMillis();
         for (MemberRole memberRole : memberRoles) {
             
@@ -1654,19 +1845,12 @@ public class DataStore implements DataCacheProvider, RolesProvider {
                 continue;
             }
             
-            // if the role does not contain any of our pattern
-            // characters then we can just a regular compare
+            // the member role carries a precompiled matcher if the
+            // role contains any of our pattern characters otherwise
+            // it's just a regular compare
             
-            final String roleName = memberRole.getRole();
-            if (StringUtils.containsMatchCharacter(roleName)) {
-                rolePattern = StringUtils.patternFromGlob(roleName);
-                if (role.matches(rolePattern)) {
-                    return true;
-                }
-            } else {
-                if (role.equals(roleName)) {
-                    return true;
-                }
+            if (memberRole.matches(role)) {
+                return true;
             }
         }
         
@@ -1731,21 +1915,15 @@ public class DataStore implements DataCacheProvider, RolesProvider {
         }
         
         /* finally we're going to process the wildcard roles
-         * but we need to first confirm that our identity
-         * matches to member before processing it */
+         * where the prefix matches our identity */
         
-        Map<String, Set<MemberRole>> roleSetMap = trustData.getPrefixMemberRoleSetMap();
-        for (String identityPrefix : roleSetMap.keySet()) {
-            if (identity.startsWith(identityPrefix)) {
+        for (Set<MemberRole> prefixMemberRoles : trustData.getPrefixMemberRoleSets(identity)) {
+            for (String resource : trustedResources) {
                 
-                memberRoles = roleSetMap.get(identityPrefix);
-                for (String resource : trustedResources) {
+                /* in this case our resource is the role name */
                     
-                    /* in this case our resource is the role name */
-                        
-                    processSingleTrustedDomainRole(resource, rolePrefix, requestedRoleList,
-                            memberRoles, accessibleRoles, keepFullName);
-                }
+                processSingleTrustedDomainRole(resource, rolePrefix, requestedRoleList,
+                        prefixMemberRoles, accessibleRoles, keepFullName);
             }
         }
 
@@ -1884,4 +2062,15 @@ public class DataStore implements DataCacheProvider, RolesProvider {
             }
         }
     }
+
+    static class LocalDomain {
+
+        final String domainName;
+        final DomainData domainData;
+
+        LocalDomain(final String domainName, final DomainData domainData) {
+            this.domainName = domainName;
+            this.domainData = domainData;
+        }
+    }
 }
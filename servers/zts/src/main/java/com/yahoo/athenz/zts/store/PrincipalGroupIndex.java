@@ -0,0 +1,305 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.store;
+
+import com.yahoo.athenz.auth.AuthorityConsts;
+import com.yahoo.rdl.Timestamp;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact index of the groups each principal is a member of. Group names
+ * are interned to int ids and each principal is mapped to a sorted array
+ * of group ids along with a parallel array of expiration times in millis.
+ * The membership arrays are never modified once published so lookups
+ * are lock-free and do not allocate any objects while updates, which are
+ * only carried out when processing domain changes, are serialized and
+ * replace the arrays of the given principal. Group ids are never reused
+ * so the number of interned groups is bounded by the number of groups
+ * processed since the server was started.
+ */
+public class PrincipalGroupIndex {
+
+    public static final long NO_EXPIRATION = Long.MAX_VALUE;
+
+    private static final int INITIAL_GROUP_CAPACITY = 1024;
+
+    private final Map<String, Integer> groupIds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> domainIds = new ConcurrentHashMap<>();
+    private final Map<String, Memberships> principals = new ConcurrentHashMap<>();
+    private volatile GroupInfo[] groups = new GroupInfo[INITIAL_GROUP_CAPACITY];
+    private int groupCount = 0;
+    private int domainCount = 0;
+
+    /**
+     * Return the expiration time in millis for the given member expiry
+     * @param expiration member expiration timestamp, null for no expiry
+     * @return expiration time in millis or NO_EXPIRATION
+     */
+    public static long expirationMillis(Timestamp expiration) {
+        return expiration == null ? NO_EXPIRATION : expiration.millis();
+    }
+
+    /**
+     * Add the principal as a member of the given group or update the
+     * expiration time if the principal is already a member of the group
+     * @param principal name of the principal
+     * @param groupName full name of the group (domain:group.name)
+     * @param expiration expiration time in millis or NO_EXPIRATION
+     */
+    public synchronized void addMember(final String principal, final String groupName, long expiration) {
+
+        final int groupId = internGroup(groupName);
+        Memberships memberships = principals.get(principal);
+        if (memberships == null) {
+            principals.put(principal, new Memberships(new int[] { groupId }, new long[] { expiration }));
+            return;
+        }
+
+        final int size = memberships.groupIds.length;
+        int index = Arrays.binarySearch(memberships.groupIds, groupId);
+        if (index >= 0) {
+            if (memberships.expirations[index] == expiration) {
+                return;
+            }
+            long[] expirations = memberships.expirations.clone();
+            expirations[index] = expiration;
+            principals.put(principal, new Memberships(memberships.groupIds, expirations));
+            return;
+        }
+
+        index = -(index + 1);
+        int[] newGroupIds = new int[size + 1];
+        long[] newExpirations = new long[size + 1];
+        System.arraycopy(memberships.groupIds, 0, newGroupIds, 0, index);
+        System.arraycopy(memberships.expirations, 0, newExpirations, 0, index);
+        newGroupIds[index] = groupId;
+        newExpirations[index] = expiration;
+        System.arraycopy(memberships.groupIds, index, newGroupIds, index + 1, size - index);
+        System.arraycopy(memberships.expirations, index, newExpirations, index + 1, size - index);
+        principals.put(principal, new Memberships(newGroupIds, newExpirations));
+    }
+
+    /**
+     * Remove the principal from the given group. If the principal is no
+     * longer a member of any group then the principal is removed from the index
+     * @param principal name of the principal
+     * @param groupName full name of the group (domain:group.name)
+     */
+    public synchronized void removeMember(final String principal, final String groupName) {
+
+        final Integer groupId = groupIds.get(groupName);
+        if (groupId == null) {
+            return;
+        }
+
+        Memberships memberships = principals.get(principal);
+        if (memberships == null) {
+            return;
+        }
+
+        final int index = Arrays.binarySearch(memberships.groupIds, groupId);
+        if (index < 0) {
+            return;
+        }
+
+        final int size = memberships.groupIds.length;
+        if (size == 1) {
+            principals.remove(principal);
+            return;
+        }
+
+        int[] newGroupIds = new int[size - 1];
+        long[] newExpirations = new long[size - 1];
+        System.arraycopy(memberships.groupIds, 0, newGroupIds, 0, index);
+        System.arraycopy(memberships.expirations, 0, newExpirations, 0, index);
+        System.arraycopy(memberships.groupIds, index + 1, newGroupIds, index, size - index - 1);
+        System.arraycopy(memberships.expirations, index + 1, newExpirations, index, size - index - 1);
+        principals.put(principal, new Memberships(newGroupIds, newExpirations));
+    }
+
+    /**
+     * Return the group memberships for the given principal
+     * @param principal name of the principal
+     * @return memberships or null if the principal is not a member of any group
+     */
+    public Memberships getMemberships(final String principal) {
+        return principals.get(principal);
+    }
+
+    /**
+     * Return the full name of the group with the given id
+     * @param groupId id of the group as returned by Memberships.getGroupId
+     * @return full name of the group (domain:group.name)
+     */
+    public String getGroupName(int groupId) {
+        return groups[groupId].fullName;
+    }
+
+    /**
+     * Return the names of the groups in the given domain that the principal
+     * is a member of. The only object allocated is the returned list.
+     * @param principal name of the principal
+     * @param domainName name of the domain
+     * @param requestedGroups only include these group names, null for all groups
+     * @param currentTime current time in millis to skip expired members
+     * @return list of group names (without the domain prefix) or null if none
+     */
+    public List<String> getDomainGroups(final String principal, final String domainName,
+            final Set<String> requestedGroups, long currentTime) {
+
+        final Memberships memberships = principals.get(principal);
+        if (memberships == null) {
+            return null;
+        }
+
+        final Integer domain = domainIds.get(domainName);
+        if (domain == null) {
+            return null;
+        }
+        final int domainId = domain;
+
+        final GroupInfo[] groupInfos = groups;
+        List<String> groupNames = null;
+        for (int i = 0; i < memberships.groupIds.length; i++) {
+
+            // skip any members that have already expired or
+            // are members of groups from a different domain
+
+            if (memberships.isExpired(i, currentTime)) {
+                continue;
+            }
+
+            final GroupInfo groupInfo = groupInfos[memberships.groupIds[i]];
+            if (groupInfo.domainId != domainId) {
+                continue;
+            }
+
+            if (requestedGroups != null && !requestedGroups.contains(groupInfo.name)) {
+                continue;
+            }
+
+            if (groupNames == null) {
+                groupNames = new ArrayList<>();
+            }
+            groupNames.add(groupInfo.name);
+        }
+        return groupNames;
+    }
+
+    /**
+     * Return the full names of all groups (including any expired members)
+     * that the principal is a member of
+     * @param principal name of the principal
+     * @return list of group names or null if the principal is not in the index
+     */
+    List<String> getGroupNames(final String principal) {
+
+        final Memberships memberships = principals.get(principal);
+        if (memberships == null) {
+            return null;
+        }
+        List<String> groupNames = new ArrayList<>(memberships.groupIds.length);
+        for (int groupId : memberships.groupIds) {
+            groupNames.add(getGroupName(groupId));
+        }
+        return groupNames;
+    }
+
+    int getPrincipalCount() {
+        return principals.size();
+    }
+
+    synchronized int getGroupCount() {
+        return groupCount;
+    }
+
+    private int internGroup(final String groupName) {
+
+        Integer groupId = groupIds.get(groupName);
+        if (groupId != null) {
+            return groupId;
+        }
+
+        // the group info must be stored before the id is published
+        // in any memberships so readers always find the entry
+
+        GroupInfo[] groupInfos = groups;
+        if (groupCount == groupInfos.length) {
+            groupInfos = Arrays.copyOf(groupInfos, groupInfos.length * 2);
+        }
+
+        final int idx = groupName.indexOf(AuthorityConsts.GROUP_SEP);
+        final String domainName = idx == -1 ? "" : groupName.substring(0, idx);
+        final String name = idx == -1 ? groupName : groupName.substring(idx + AuthorityConsts.GROUP_SEP.length());
+        Integer domainId = domainIds.get(domainName);
+        if (domainId == null) {
+            domainId = domainCount++;
+            domainIds.put(domainName, domainId);
+        }
+
+        groupId = groupCount++;
+        groupInfos[groupId] = new GroupInfo(groupName, name, domainId);
+        groups = groupInfos;
+        groupIds.put(groupName, groupId);
+        return groupId;
+    }
+
+    private static final class GroupInfo {
+
+        final String fullName;
+        final String name;
+        final int domainId;
+
+        GroupInfo(final String fullName, final String name, int domainId) {
+            this.fullName = fullName;
+            this.name = name;
+            this.domainId = domainId;
+        }
+    }
+
+    /**
+     * Immutable list of group ids, sorted in ascending order, along
+     * with the expiration time of each membership.
+     */
+    public static final class Memberships {
+
+        private final int[] groupIds;
+        private final long[] expirations;
+
+        Memberships(int[] groupIds, long[] expirations) {
+            this.groupIds = groupIds;
+            this.expirations = expirations;
+        }
+
+        public int size() {
+            return groupIds.length;
+        }
+
+        public int getGroupId(int index) {
+            return groupIds[index];
+        }
+
+        public long getExpiration(int index) {
+            return expirations[index];
+        }
+
+        public boolean isExpired(int index, long currentTime) {
+            return expirations[index] < currentTime;
+        }
+    }
+}
@@ -21,6 +21,7 @@ package com.yahoo.athenz.zts.store;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.yahoo.athenz.common.server.util.AuthzHelper;
+import com.yahoo.athenz.common.server.util.MemberDiff;
 import com.yahoo.athenz.zms.Role;
 import com.yahoo.athenz.zms.RoleMember;
 
@@ -49,23 +50,11 @@ public class RequireRoleCertCache {
         // and determine the list of changes between old and new members
 
         List<RoleMemberCache> originalMembers = roleMemberRequireCertCache.getIfPresent(role.getName());
-        List<RoleMemberCache> curMembers = originalMembers == null ? new ArrayList<>() : new ArrayList<>(originalMembers);
-        List<RoleMemberCache> delMembers = new ArrayList<>(curMembers);
-        List<RoleMemberCache> newMembers = new ArrayList<>(collectionMembers);
-        List<RoleMemberCache> updMembers = new ArrayList<>(collectionMembers);
-
-        // remove current members from new members
-        removeRoleMembersCache(newMembers, curMembers);
-
-        // remove new members from current members
-        // which leaves the deleted members.
-
-        removeRoleMembersCache(delMembers, collectionMembers);
-
-        // now let's remove our new members from the member list to
-        // get the possible list of users that need to be updated
-
-        removeRoleMembersCache(updMembers, newMembers);
+        MemberDiff<RoleMemberCache> memberDiff = MemberDiff.diff(originalMembers, collectionMembers,
+                member -> member.getRoleMember().getMemberName());
+        List<RoleMemberCache> delMembers = memberDiff.getRemovedMembers();
+        List<RoleMemberCache> newMembers = memberDiff.getAddedMembers();
+        List<RoleMemberCache> updMembers = memberDiff.getUpdatedMembers();
 
         // update the collection member cache with the new members
 
@@ -204,12 +193,6 @@ public class RequireRoleCertCache {
                 .collect(Collectors.toList());
     }
 
-    private static void removeRoleMembersCache(List<RoleMemberCache> originalRoleMembers, List<RoleMemberCache> removeRoleMembers) {
-        for (RoleMemberCache removeMember : removeRoleMembers) {
-            originalRoleMembers.removeIf(item -> item.getRoleMember().getMemberName().equalsIgnoreCase(removeMember.getRoleMember().getMemberName()));
-        }
-    }
-
     private static boolean shouldSkipRoleMember(RoleMemberCache member, long currentTime) {
         return AuthzHelper.isMemberDisabled(member.getRoleMember().getSystemDisabled()) ||
                 AuthzHelper.isMemberExpired(member.getRoleMember().getExpiration(), currentTime);
@@ -0,0 +1,222 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.utils;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+
+import com.google.common.net.InetAddresses;
+
+/**
+ * Index of IPv4 and IPv6 address blocks. The blocks are stored in a
+ * path compressed binary trie (one for each address family) so checking
+ * if an address is included in any of the blocks only requires walking
+ * the trie along the bits of the address instead of checking each block.
+ * The index is built once when the configuration is loaded and is not
+ * modified afterwards so it can be shared by all request threads.
+ */
+public class IPBlockIndex {
+
+    private Node ipv4Root;
+    private Node ipv6Root;
+    private int size;
+
+    /**
+     * Add the given ip block to the index
+     * @param ipBlock block in subnet/mask format e.g. 192.1.0.0/20 or 2600:1f00::/24
+     */
+    public void add(final String ipBlock) {
+
+        // the expected format is subnet/mask e.g. 192.1.0.0/20
+
+        int idx = ipBlock.indexOf('/');
+        if (idx == -1) {
+            throw new IllegalArgumentException("Invalid ipblock line - missing / separator");
+        }
+        InetAddress subnet = InetAddresses.forString(ipBlock.substring(0, idx).trim());
+        byte[] address = subnet.getAddress();
+
+        // valid mask is 1..32 for ipv4 and 1..128 for ipv6
+
+        final int maxBits = address.length * 8;
+        int prefixLength = Integer.parseInt(ipBlock.substring(idx + 1).trim());
+        if (prefixLength < 1 || prefixLength > maxBits) {
+            throw new IllegalArgumentException("Invalid ipblock line - invalid mask: " + prefixLength);
+        }
+
+        if (subnet instanceof Inet4Address) {
+            ipv4Root = insert(ipv4Root, maskAddress(address, prefixLength), prefixLength);
+        } else {
+            ipv6Root = insert(ipv6Root, maskAddress(address, prefixLength), prefixLength);
+        }
+        size += 1;
+    }
+
+    /**
+     * Check if the given address is included in any of the blocks
+     * @param ipAddress IPv4 or IPv6 address
+     * @return true if the address is included in one of the blocks
+     */
+    public boolean contains(final String ipAddress) {
+        InetAddress addr = InetAddresses.forString(ipAddress);
+        return contains((addr instanceof Inet4Address) ? ipv4Root : ipv6Root, addr.getAddress());
+    }
+
+    /**
+     * @return true if no blocks have been added to the index
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return number of blocks added to the index
+     */
+    public int size() {
+        return size;
+    }
+
+    boolean contains(Node node, final byte[] address) {
+
+        final int maxBits = address.length * 8;
+        while (node != null) {
+            if (!prefixMatches(node.prefix, address, node.prefixLength)) {
+                return false;
+            }
+            if (node.block) {
+                return true;
+            }
+            if (node.prefixLength == maxBits) {
+                return false;
+            }
+            node = node.getChild(bitAt(address, node.prefixLength));
+        }
+        return false;
+    }
+
+    Node insert(Node root, final byte[] prefix, int prefixLength) {
+
+        if (root == null) {
+            return new Node(prefix, prefixLength, true);
+        }
+
+        Node parent = null;
+        Node node = root;
+        while (true) {
+
+            int common = commonPrefixLength(node.prefix, prefix, Math.min(node.prefixLength, prefixLength));
+
+            // if our block includes the full node prefix then we either have
+            // a duplicate or we need to continue down the trie
+
+            if (common == node.prefixLength) {
+                if (common == prefixLength) {
+                    node.block = true;
+                    return root;
+                }
+                final int bit = bitAt(prefix, node.prefixLength);
+                Node child = node.getChild(bit);
+                if (child == null) {
+                    node.setChild(bit, new Node(prefix, prefixLength, true));
+                    return root;
+                }
+                parent = node;
+                node = child;
+                continue;
+            }
+
+            // otherwise we need to insert a new node above the current one
+            // either for our block or a new branch node for the common prefix
+
+            Node newNode;
+            if (common == prefixLength) {
+                newNode = new Node(prefix, prefixLength, true);
+                newNode.setChild(bitAt(node.prefix, common), node);
+            } else {
+                newNode = new Node(maskAddress(prefix, common), common, false);
+                newNode.setChild(bitAt(node.prefix, common), node);
+                newNode.setChild(bitAt(prefix, common), new Node(prefix, prefixLength, true));
+            }
+
+            if (parent == null) {
+                return newNode;
+            }
+            parent.setChild(bitAt(prefix, parent.prefixLength), newNode);
+            return root;
+        }
+    }
+
+    static int bitAt(final byte[] address, int index) {
+        return (address[index >> 3] >> (7 - (index & 7))) & 1;
+    }
+
+    static int commonPrefixLength(final byte[] addr1, final byte[] addr2, int maxBits) {
+        int bits = 0;
+        int idx = 0;
+        while (bits < maxBits) {
+            int diff = (addr1[idx] ^ addr2[idx]) & 0xFF;
+            if (diff != 0) {
+                bits += Integer.numberOfLeadingZeros(diff) - 24;
+                break;
+            }
+            bits += 8;
+            idx += 1;
+        }
+        return Math.min(bits, maxBits);
+    }
+
+    static boolean prefixMatches(final byte[] prefix, final byte[] address, int prefixLength) {
+        return commonPrefixLength(prefix, address, prefixLength) == prefixLength;
+    }
+
+    static byte[] maskAddress(final byte[] address, int prefixLength) {
+        byte[] masked = new byte[address.length];
+        int fullBytes = prefixLength >> 3;
+        System.arraycopy(address, 0, masked, 0, fullBytes);
+        int remainingBits = prefixLength & 7;
+        if (remainingBits != 0) {
+            masked[fullBytes] = (byte) (address[fullBytes] & (0xFF << (8 - remainingBits)));
+        }
+        return masked;
+    }
+
+    static final class Node {
+
+        final byte[] prefix;
+        final int prefixLength;
+        boolean block;
+        Node zero;
+        Node one;
+
+        Node(final byte[] prefix, int prefixLength, boolean block) {
+            this.prefix = prefix;
+            this.prefixLength = prefixLength;
+            this.block = block;
+        }
+
+        Node getChild(int bit) {
+            return bit == 0 ? zero : one;
+        }
+
+        void setChild(int bit, Node child) {
+            if (bit == 0) {
+                zero = child;
+            } else {
+                one = child;
+            }
+        }
+    }
+}
@@ -7939,6 +7939,57 @@ public class ZTSImplTest {
         assertEquals(response.getStatus(), ResourceException.NOT_MODIFIED);
     }
 
+    @Test
+    public void testGetSignedDomainPolicyDataCached() throws InterruptedException {
+
+        ChangeLogStore structStore = new ZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                privateKey, "0");
+
+        DataStore store = new DataStore(structStore, null, ztsMetric);
+
+        ZTSImpl ztsImpl = new ZTSImpl(mockCloudStore, store);
+        ZTSImpl.serverHostName = "localhost";
+
+        SignedDomain signedDomain = createSignedDomain("coretech", "weather", "storage", true);
+        store.processSignedDomain(signedDomain, false);
+
+        Principal principal = SimplePrincipal.create("user_domain", "user",
+                "v=U1;d=user_domain;n=user;s=signature", 0, null);
+        ResourceContext context = createResourceContext(principal);
+
+        Response response = ztsImpl.getDomainSignedPolicyData(context, "coretech", null);
+        assertEquals(response.getStatus(), 200);
+        DomainSignedPolicyData policyData1 = (DomainSignedPolicyData) response.getEntity();
+
+        // the second request must return the cached object
+
+        response = ztsImpl.getDomainSignedPolicyData(context, "coretech", null);
+        assertEquals(response.getStatus(), 200);
+        assertSame(response.getEntity(), policyData1);
+        assertEquals(ztsImpl.signedPolicyCache.size(), 1);
+
+        // update the domain modified timestamp and we should
+        // get a newly signed object
+
+        Thread.sleep(10);
+        signedDomain = createSignedDomain("coretech", "weather", "storage", true);
+        store.processSignedDomain(signedDomain, false);
+
+        response = ztsImpl.getDomainSignedPolicyData(context, "coretech", null);
+        assertEquals(response.getStatus(), 200);
+        DomainSignedPolicyData policyData2 = (DomainSignedPolicyData) response.getEntity();
+        assertNotSame(policyData2, policyData1);
+        assertEquals(ztsImpl.signedPolicyCache.size(), 2);
+
+        // with an error the request is rejected and nothing is cached
+
+        ztsImpl.signedPolicyCache.invalidateAll();
+        ztsImpl.privateKey = null;
+        response = ztsImpl.getDomainSignedPolicyData(context, "coretech", null);
+        assertEquals(response.getStatus(), 500);
+        assertEquals(ztsImpl.signedPolicyCache.size(), 0);
+    }
+
     @Test
     public void testCreatePrincipalForName() {
         Principal principal = zts.createPrincipalForName("athenz.provider");
@@ -8001,6 +8052,33 @@ public class ZTSImplTest {
         assertNotNull(store);
     }
 
+    @Test
+    public void testLoadDomainChangeSubscribers() {
+
+        DataStore dataStore = Mockito.mock(DataStore.class);
+
+        // no topics configured
+
+        System.clearProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_TOPIC_NAMES);
+        zts.loadDomainChangeSubscribers(dataStore);
+        Mockito.verify(dataStore, Mockito.never()).addDomainChangeSubscriber(Mockito.any());
+
+        System.setProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_TOPIC_NAMES, "topic1, ,topic2");
+        System.setProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS,
+                "com.yahoo.athenz.common.messaging.impl.InMemoryChangeFactory");
+        zts.loadDomainChangeSubscribers(dataStore);
+        Mockito.verify(dataStore, Mockito.times(2)).addDomainChangeSubscriber(Mockito.any());
+
+        // invalid factory class
+
+        System.setProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS, "invalid.class");
+        zts.loadDomainChangeSubscribers(dataStore);
+        Mockito.verify(dataStore, Mockito.times(2)).addDomainChangeSubscriber(Mockito.any());
+
+        System.clearProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_TOPIC_NAMES);
+        System.clearProperty(ZTSConsts.ZTS_PROP_DOMAIN_CHANGE_SUBSCRIBER_FACTORY_CLASS);
+    }
+
     @Test
     public void testNormalizeDomainAliasUser() {
 
@@ -12863,6 +12941,62 @@ public class ZTSImplTest {
         }
     }
 
+    @Test
+    public void testPostSignedPolicyRequestCached() {
+
+        ChangeLogStore structStore = new ZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                privateKey, "0");
+
+        DataStore store = new DataStore(structStore, null, ztsMetric);
+
+        ZTSImpl ztsImpl = new ZTSImpl(mockCloudStore, store);
+        ZTSImpl.serverHostName = "localhost";
+
+        SignedDomain signedDomain = createSignedDomain("coretech", "weather", "storage", true);
+        store.processSignedDomain(signedDomain, false);
+
+        Principal principal = SimplePrincipal.create("user_domain", "user",
+                "v=U1;d=user_domain;n=user;s=signature", 0, null);
+        ResourceContext context = createResourceContext(principal);
+
+        SignedPolicyRequest signedPolicyRequest = new SignedPolicyRequest();
+        signedPolicyRequest.setPolicyVersions(Collections.emptyMap());
+        Response response = ztsImpl.postSignedPolicyRequest(context, "coretech", signedPolicyRequest, null);
+        assertEquals(response.getStatus(), 200);
+        JWSPolicyData jwsPolicyData = (JWSPolicyData) response.getEntity();
+
+        response = ztsImpl.postSignedPolicyRequest(context, "coretech", signedPolicyRequest, null);
+        assertEquals(response.getStatus(), 200);
+        assertSame(response.getEntity(), jwsPolicyData);
+        assertEquals(ztsImpl.signedPolicyCache.size(), 1);
+
+        // different signature format is a separate entry
+
+        signedPolicyRequest.setSignatureP1363Format(true);
+        response = ztsImpl.postSignedPolicyRequest(context, "coretech", signedPolicyRequest, null);
+        assertEquals(response.getStatus(), 200);
+        assertNotSame(response.getEntity(), jwsPolicyData);
+        assertEquals(ztsImpl.signedPolicyCache.size(), 2);
+
+        // different policy versions is also a separate entry
+
+        Map<String, String> policyVersions = new HashMap<>();
+        policyVersions.put("policy1", "0");
+        signedPolicyRequest.setPolicyVersions(policyVersions);
+        response = ztsImpl.postSignedPolicyRequest(context, "coretech", signedPolicyRequest, null);
+        assertEquals(response.getStatus(), 200);
+        assertEquals(ztsImpl.signedPolicyCache.size(), 3);
+
+        // the same policy version with full policy name maps to the same entry
+
+        policyVersions = new HashMap<>();
+        policyVersions.put("coretech:policy.policy1", "0");
+        signedPolicyRequest.setPolicyVersions(policyVersions);
+        response = ztsImpl.postSignedPolicyRequest(context, "coretech", signedPolicyRequest, null);
+        assertEquals(response.getStatus(), 200);
+        assertEquals(ztsImpl.signedPolicyCache.size(), 3);
+    }
+
     @Test
     public void testPostSignedPolicyRequestNoChanges() {
 
@@ -340,6 +340,20 @@ public class DataCacheTest {
         assertNotNull(set6);
         assertTrue(set6.contains(new MemberRole("dom.role1", 0)));
         assertEquals(set6.size(), 1);
+
+        // the prefix lookup must return the same sets from the map
+
+        List<Set<MemberRole>> prefixSets = cache.getPrefixMemberRoleSets("user_domain.user1");
+        assertEquals(prefixSets.size(), 2);
+        assertSame(prefixSets.get(0), set5);
+        assertSame(prefixSets.get(1), set6);
+
+        prefixSets = cache.getPrefixMemberRoleSets("user_domain.joe");
+        assertEquals(prefixSets.size(), 1);
+        assertSame(prefixSets.get(0), set5);
+
+        assertTrue(cache.getPrefixMemberRoleSets("user_domain").isEmpty());
+        assertTrue(cache.getPrefixMemberRoleSets("coretech.api").isEmpty());
     }
     
     @Test
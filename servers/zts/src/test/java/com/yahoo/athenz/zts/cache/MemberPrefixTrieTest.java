@@ -0,0 +1,99 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.cache;
+
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class MemberPrefixTrieTest {
+
+    private Set<MemberRole> roleSet(final String... roles) {
+        Set<MemberRole> memberRoles = new HashSet<>();
+        for (String role : roles) {
+            memberRoles.add(new MemberRole(role, 0));
+        }
+        return memberRoles;
+    }
+
+    @Test
+    public void testFindMatchingValues() {
+
+        MemberPrefixTrie trie = new MemberPrefixTrie();
+        assertEquals(trie.size(), 0);
+        assertTrue(trie.findMatchingValues("user.joe").isEmpty());
+
+        Set<MemberRole> userSet = roleSet("coretech:role.users");
+        Set<MemberRole> userJSet = roleSet("coretech:role.j-users");
+        Set<MemberRole> coretechSet = roleSet("coretech:role.services", "coretech:role.readers");
+        Set<MemberRole> apiSet = roleSet("coretech:role.api");
+
+        trie.insert("user.", userSet);
+        trie.insert("user.j", userJSet);
+        trie.insert("coretech.", coretechSet);
+        trie.insert("coretech.api", apiSet);
+        assertEquals(trie.size(), 4);
+
+        List<Set<MemberRole>> values = trie.findMatchingValues("user.joe");
+        assertEquals(values.size(), 2);
+        assertSame(values.get(0), userSet);
+        assertSame(values.get(1), userJSet);
+
+        values = trie.findMatchingValues("user.jane");
+        assertEquals(values.size(), 2);
+
+        values = trie.findMatchingValues("user.bob");
+        assertEquals(values.size(), 1);
+        assertSame(values.get(0), userSet);
+
+        // exact match of the prefix is also a match
+
+        values = trie.findMatchingValues("user.j");
+        assertEquals(values.size(), 2);
+
+        values = trie.findMatchingValues("coretech.api");
+        assertEquals(values.size(), 2);
+        assertSame(values.get(0), coretechSet);
+        assertSame(values.get(1), apiSet);
+
+        values = trie.findMatchingValues("coretech.backend");
+        assertEquals(values.size(), 1);
+        assertSame(values.get(0), coretechSet);
+
+        assertTrue(trie.findMatchingValues("user").isEmpty());
+        assertTrue(trie.findMatchingValues("sports.api").isEmpty());
+        assertTrue(trie.findMatchingValues("").isEmpty());
+    }
+
+    @Test
+    public void testInsertReplace() {
+
+        MemberPrefixTrie trie = new MemberPrefixTrie();
+
+        Set<MemberRole> set1 = roleSet("coretech:role.role1");
+        Set<MemberRole> set2 = roleSet("coretech:role.role2");
+
+        trie.insert("user.", set1);
+        trie.insert("user.", set2);
+        assertEquals(trie.size(), 1);
+
+        List<Set<MemberRole>> values = trie.findMatchingValues("user.joe");
+        assertEquals(values.size(), 1);
+        assertSame(values.get(0), set2);
+    }
+}
@@ -15,7 +15,7 @@
  */
 package com.yahoo.athenz.zts.cache;
 
-
+import com.yahoo.athenz.common.server.util.GlobMatcher;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.*;
@@ -55,4 +55,31 @@ public class MemberRoleTest {
         assertTrue(mr4.equals(mr5));
         assertFalse(mr1.equals(mr6));
     }
+
+    @Test
+    public void testMemberRoleMatches() {
+
+        MemberRole mr = new MemberRole("coretech:role.readers", 100);
+        assertTrue(mr.matches("coretech:role.readers"));
+        assertFalse(mr.matches("coretech:role.writers"));
+
+        mr = new MemberRole("coretech:role.*", 100);
+        assertTrue(mr.matches("coretech:role.readers"));
+        assertTrue(mr.matches("coretech:role.writers"));
+        assertFalse(mr.matches("sports:role.readers"));
+
+        mr = new MemberRole("*:role.read?rs", 100);
+        assertTrue(mr.matches("coretech:role.readers"));
+        assertTrue(mr.matches("sports:role.readers"));
+        assertFalse(mr.matches("sports:role.writers"));
+
+        // precompiled matcher is shared and does not affect equality
+
+        GlobMatcher matcher = GlobMatcher.compile("coretech:role.*");
+        MemberRole mr1 = new MemberRole("coretech:role.*", matcher, 100);
+        MemberRole mr2 = new MemberRole("coretech:role.*", 100);
+        assertEquals(mr1, mr2);
+        assertEquals(mr1.hashCode(), mr2.hashCode());
+        assertTrue(mr1.matches("coretech:role.readers"));
+    }
 }
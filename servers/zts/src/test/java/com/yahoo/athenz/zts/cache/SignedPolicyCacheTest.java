@@ -0,0 +1,135 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.cache;
+
+import com.yahoo.rdl.Timestamp;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class SignedPolicyCacheTest {
+
+    @Test
+    public void testGenerateKey() {
+
+        Timestamp modified = Timestamp.fromMillis(1000);
+        assertEquals(SignedPolicyCache.generateKey("coretech", modified, null, SignedPolicyCache.FORMAT_JWS),
+                "coretech:1000:jws");
+        assertEquals(SignedPolicyCache.generateKey("coretech", modified, Collections.emptyMap(),
+                SignedPolicyCache.FORMAT_JWS_P1363), "coretech:1000:jws-p1363");
+
+        // policy versions are always sorted
+
+        Map<String, String> policyVersions1 = new LinkedHashMap<>();
+        policyVersions1.put("coretech:policy.p2", "v2");
+        policyVersions1.put("coretech:policy.p1", "v1");
+        Map<String, String> policyVersions2 = new LinkedHashMap<>();
+        policyVersions2.put("coretech:policy.p1", "v1");
+        policyVersions2.put("coretech:policy.p2", "v2");
+
+        final String key = SignedPolicyCache.generateKey("coretech", modified, policyVersions1,
+                SignedPolicyCache.FORMAT_JWS);
+        assertEquals(key, "coretech:1000:jws:coretech:policy.p1=v1:coretech:policy.p2=v2");
+        assertEquals(SignedPolicyCache.generateKey("coretech", modified, policyVersions2,
+                SignedPolicyCache.FORMAT_JWS), key);
+    }
+
+    @Test
+    public void testGetSignedPolicy() {
+
+        SignedPolicyCache cache = new SignedPolicyCache(10, 60000);
+        assertTrue(cache.isEnabled());
+
+        AtomicInteger counter = new AtomicInteger();
+        assertEquals(cache.getSignedPolicy("key1", () -> "value" + counter.incrementAndGet()), "value1");
+        assertEquals(cache.getSignedPolicy("key1", () -> "value" + counter.incrementAndGet()), "value1");
+        assertEquals(cache.getSignedPolicy("key2", () -> "value" + counter.incrementAndGet()), "value2");
+        assertEquals(cache.size(), 2);
+
+        cache.invalidateAll();
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getSignedPolicy("key1", () -> "value" + counter.incrementAndGet()), "value3");
+    }
+
+    @Test
+    public void testGetSignedPolicyFailures() {
+
+        SignedPolicyCache cache = new SignedPolicyCache(10, 60000);
+
+        // null values and exceptions are not cached
+
+        assertNull(cache.getSignedPolicy("key1", () -> null));
+        assertNull(cache.getSignedPolicy("key1", () -> {
+            throw new IllegalArgumentException("invalid");
+        }));
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.getSignedPolicy("key1", () -> "value1"), "value1");
+    }
+
+    @Test
+    public void testGetSignedPolicyDisabled() {
+
+        SignedPolicyCache cache = new SignedPolicyCache(0, 60000);
+        assertFalse(cache.isEnabled());
+
+        AtomicInteger counter = new AtomicInteger();
+        assertEquals(cache.getSignedPolicy("key1", () -> "value" + counter.incrementAndGet()), "value1");
+        assertEquals(cache.getSignedPolicy("key1", () -> "value" + counter.incrementAndGet()), "value2");
+        assertEquals(cache.size(), 0);
+
+        assertNull(cache.getSignedPolicy("key1", () -> {
+            throw new IllegalArgumentException("invalid");
+        }));
+
+        cache.invalidateAll();
+
+        cache = new SignedPolicyCache(10, 0);
+        assertFalse(cache.isEnabled());
+    }
+
+    @Test
+    public void testGetSignedPolicyConcurrentMisses() throws Exception {
+
+        SignedPolicyCache cache = new SignedPolicyCache(10, 60000);
+
+        final int threadCount = 8;
+        AtomicInteger counter = new AtomicInteger();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            futures.add(executor.submit(() -> {
+                startLatch.await();
+                return cache.getSignedPolicy("key1", () -> {
+                    Thread.sleep(100);
+                    return "value" + counter.incrementAndGet();
+                });
+            }));
+        }
+        startLatch.countDown();
+
+        for (Future<String> future : futures) {
+            assertEquals(future.get(), "value1");
+        }
+        assertEquals(counter.get(), 1);
+        executor.shutdown();
+    }
+}
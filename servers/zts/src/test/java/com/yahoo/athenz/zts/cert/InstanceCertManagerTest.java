@@ -38,7 +38,7 @@ import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.fail;
 
 import com.yahoo.athenz.auth.util.Crypto;
-import com.yahoo.athenz.zts.utils.IPBlock;
+import com.yahoo.athenz.zts.utils.IPBlockIndex;
 import com.yahoo.athenz.auth.Principal;
 
 public class InstanceCertManagerTest {
@@ -1084,7 +1084,7 @@ public class InstanceCertManagerTest {
     @Test
     public void testLoadAllowedIPAddresses() {
         
-        List<IPBlock> ipBlocks = new ArrayList<>();
+        IPBlockIndex ipBlocks = new IPBlockIndex();
 
         InstanceCertManager instance = new InstanceCertManager(null, null, null, true, null);
         instance.setCertSigner(null);
@@ -1109,6 +1109,32 @@ public class InstanceCertManagerTest {
         instance.shutdown();
     }
 
+    @Test
+    public void testLoadAllowedIPv6Addresses() {
+
+        IPBlockIndex ipBlocks = new IPBlockIndex();
+
+        InstanceCertManager instance = new InstanceCertManager(null, null, null, true, null);
+        instance.setCertSigner(null);
+
+        // both ipv4 and ipv6 blocks are loaded
+
+        assertTrue(instance.loadAllowedIPAddresses(ipBlocks, "src/test/resources/ipv6_ipblocks.txt"));
+        assertEquals(ipBlocks.size(), 3);
+        assertTrue(ipBlocks.contains("10.1.3.25"));
+        assertTrue(ipBlocks.contains("2a05:d07f:8000::1"));
+        assertTrue(ipBlocks.contains("2600:1f14:1fff::25"));
+        assertFalse(ipBlocks.contains("2600:1f15::25"));
+        assertFalse(ipBlocks.contains("10.2.3.25"));
+
+        // invalid ipv6 entries are skipped
+
+        instance.loadAllowedIPv6Address(ipBlocks, "::1");
+        assertEquals(ipBlocks.size(), 3);
+
+        instance.shutdown();
+    }
+
     @Test
     public void testLoadCAX509CertificateBundle() {
 
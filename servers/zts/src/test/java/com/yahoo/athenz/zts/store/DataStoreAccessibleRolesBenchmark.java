@@ -0,0 +1,114 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.store;
+
+import com.yahoo.athenz.common.metrics.impl.NoOpMetric;
+import com.yahoo.athenz.common.server.store.ChangeLogStore;
+import com.yahoo.athenz.zms.*;
+import com.yahoo.athenz.zts.cache.DataCache;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.yahoo.athenz.common.ServerCommonConsts.PROP_ATHENZ_CONF;
+
+/**
+ * Benchmark for DataStore.getAccessibleRoles with a domain that delegates
+ * its roles to another domain with a large number of wildcard assume_role
+ * assertions. Run with the gc profiler (-prof gc) to report the number of
+ * bytes allocated per call (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataStoreAccessibleRolesBenchmark {
+
+    @Param({"10", "100"})
+    int delegatedRoleCount;
+
+    @Param({"10", "100"})
+    int wildcardAssertionCount;
+
+    DataStore store;
+    DataCache coretechCache;
+
+    @Setup
+    public void setup() {
+
+        System.setProperty(PROP_ATHENZ_CONF, "src/test/resources/athenz.conf");
+        store = new DataStore(Mockito.mock(ChangeLogStore.class), null, new NoOpMetric());
+
+        // trusting domain - all roles are delegated to the sports domain
+
+        coretechCache = new DataCache();
+        List<Role> coretechRoles = new ArrayList<>();
+        for (int i = 0; i < delegatedRoleCount; i++) {
+            Role role = new Role().setName("coretech:role.delegated" + i).setTrust("sports");
+            coretechCache.processRole(role);
+            coretechRoles.add(role);
+        }
+        coretechCache.setDomainData(new DomainData().setName("coretech")
+                .setRoles(coretechRoles));
+        store.addDomainToCache("coretech", coretechCache);
+
+        // trusted domain with wildcard assume_role assertions
+
+        DataCache sportsCache = new DataCache();
+        Map<String, Role> sportsRoles = new HashMap<>();
+        List<Assertion> assertions = new ArrayList<>();
+        for (int i = 0; i < wildcardAssertionCount; i++) {
+            List<RoleMember> members = new ArrayList<>();
+            members.add(new RoleMember().setMemberName("user.joe"));
+            members.add(new RoleMember().setMemberName("user.jane"));
+            Role role = new Role().setName("sports:role.admin" + i).setRoleMembers(members);
+            sportsCache.processRole(role);
+            sportsRoles.put(role.getName(), role);
+
+            assertions.add(new Assertion().setAction("assume_role").setRole(role.getName())
+                    .setResource("*:role.delegated" + i + "*").setEffect(AssertionEffect.ALLOW));
+        }
+        Policy policy = new Policy().setName("sports:policy.trust").setAssertions(assertions);
+        sportsCache.processPolicy("sports", policy, sportsRoles);
+        sportsCache.setDomainData(new DomainData().setName("sports")
+                .setRoles(new ArrayList<>(sportsRoles.values())));
+        store.addDomainToCache("sports", sportsCache);
+    }
+
+    @Benchmark
+    public void getAccessibleRoles(Blackhole blackhole) {
+        Set<String> accessibleRoles = new HashSet<>();
+        store.getAccessibleRoles(coretechCache, "coretech", "user.joe", null, accessibleRoles, false);
+        blackhole.consume(accessibleRoles);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(DataStoreAccessibleRolesBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
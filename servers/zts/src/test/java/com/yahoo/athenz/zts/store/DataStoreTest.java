@@ -35,10 +35,18 @@ import java.nio.file.Paths;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.primitives.Bytes;
 import com.yahoo.athenz.auth.Principal;
+import com.yahoo.athenz.common.messaging.ChangePublisher;
+import com.yahoo.athenz.common.messaging.ChangeSubscriber;
+import com.yahoo.athenz.common.messaging.DomainChangeMessage;
+import com.yahoo.athenz.common.messaging.impl.InMemoryChangeFactory;
 import com.yahoo.athenz.common.metrics.Metric;
 import com.yahoo.athenz.common.server.store.ChangeLogStore;
 import com.yahoo.athenz.zms.*;
@@ -46,6 +54,7 @@ import com.yahoo.athenz.zts.ResourceException;
 import com.yahoo.athenz.zts.ZTSTestUtils;
 import com.yahoo.rdl.Timestamp;
 import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
 import org.testng.annotations.AfterMethod;
@@ -3223,6 +3232,172 @@ public class DataStoreTest {
         assertEquals(badDomains, -1);
     }
 
+    @Test
+    public void testProcessLocalDomainsParallel() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore setupStore = new DataStore(clogStore, null, ztsMetric);
+        setupStore.loadAthenzPublicKeys();
+
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final String domainName = "coretech" + i;
+            setupStore.processSignedDomain(createSignedDomain(domainName, "weather"), true);
+            list.add(domainName);
+        }
+
+        // include a disabled domain which must not be in our cache
+
+        SignedDomain signedDomain = createSignedDomain("disabled", "weather");
+        signedDomain.getDomain().setEnabled(false);
+        signedDomain.setSignature(Crypto.sign(SignUtils.asCanonicalString(signedDomain.getDomain()), pkey));
+        setupStore.processSignedDomain(signedDomain, true);
+        list.add("disabled");
+
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.localDomainLoadThreads = 4;
+        ((MockZMSFileChangeLogStore) store.changeLogStore).setDomainList(list);
+
+        int badDomains = store.processLocalDomains(list);
+        assertEquals(badDomains, 0);
+        assertEquals(store.localDomainsLoaded.get(), 51);
+        assertEquals(store.localDomainsFailed.get(), 0);
+
+        for (int i = 0; i < 50; i++) {
+            assertNotNull(store.getDomainData("coretech" + i));
+        }
+        assertNull(store.getDomainData("disabled"));
+    }
+
+    @Test
+    public void testProcessLocalDomainsParallelJWS() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore setupStore = new DataStore(clogStore, null, ztsMetric);
+        setupStore.jwsDomainSupport = true;
+        setupStore.loadAthenzPublicKeys();
+
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final String domainName = "coretech" + i;
+            assertTrue(setupStore.processJWSDomain(createJWSDomain(domainName, "weather", "0"), true));
+            list.add(domainName);
+        }
+
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.jwsDomainSupport = true;
+        store.localDomainLoadThreads = 4;
+        ((MockZMSFileChangeLogStore) store.changeLogStore).setDomainList(list);
+
+        assertEquals(store.processLocalDomains(list), 0);
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(store.getDomainData("coretech" + i));
+        }
+    }
+
+    @Test
+    public void testProcessLocalDomainsParallelInvalidDomains() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore setupStore = new DataStore(clogStore, null, ztsMetric);
+        setupStore.loadAthenzPublicKeys();
+
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final String domainName = "coretech" + i;
+            setupStore.processSignedDomain(createSignedDomain(domainName, "weather"), true);
+            list.add(domainName);
+        }
+        list.add("invalid");
+
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.localDomainLoadThreads = 3;
+        ((MockZMSFileChangeLogStore) store.changeLogStore).setDomainList(list);
+
+        assertEquals(store.processLocalDomains(list), 1);
+        assertEquals(store.localDomainsLoaded.get(), 8);
+        assertEquals(store.localDomainsFailed.get(), 1);
+
+        // with full refresh support we must get back failure
+
+        store = new DataStore(clogStore, null, ztsMetric);
+        store.localDomainLoadThreads = 3;
+        ((MockZMSFileChangeLogStore) store.changeLogStore).setRefreshSupport(true);
+        assertEquals(store.processLocalDomains(list), -1);
+    }
+
+    @Test
+    public void testProcessLocalDomainsPriorityOrder() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore setupStore = new DataStore(clogStore, null, ztsMetric);
+        setupStore.loadAthenzPublicKeys();
+
+        List<String> list = Arrays.asList("coretech", "sports", "sys.auth", "weather", "finance");
+        for (String domainName : list) {
+            setupStore.processSignedDomain(createSignedDomain(domainName, "weather"), true);
+        }
+
+        DataStore store = Mockito.spy(new DataStore(clogStore, null, ztsMetric));
+        store.localDomainLoadThreads = 2;
+        store.localDomainPriorityList = Arrays.asList("sys.auth", "weather");
+        ((MockZMSFileChangeLogStore) store.changeLogStore).setDomainList(list);
+
+        assertEquals(store.processLocalDomains(list), 0);
+        for (String domainName : list) {
+            assertNotNull(store.getDomainData(domainName));
+        }
+
+        // our priority domains must be processed before any other domain
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(store, Mockito.times(5)).processLocalDomainData(captor.capture(), ArgumentMatchers.any());
+        List<String> processed = captor.getAllValues();
+        assertEquals(processed.get(0), "sys.auth");
+        assertEquals(processed.get(1), "weather");
+    }
+
+    @Test
+    public void testProcessLocalDomainsSequential() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore setupStore = new DataStore(clogStore, null, ztsMetric);
+        setupStore.loadAthenzPublicKeys();
+
+        setupStore.processSignedDomain(createSignedDomain("coretech", "weather"), true);
+        setupStore.processSignedDomain(createSignedDomain("sports", "weather"), true);
+
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.localDomainLoadThreads = 1;
+
+        List<String> list = Arrays.asList("coretech", "sports");
+        ((MockZMSFileChangeLogStore) store.changeLogStore).setDomainList(list);
+
+        assertEquals(store.processLocalDomains(list), 0);
+        assertEquals(store.localDomainsLoaded.get(), 2);
+        assertNotNull(store.getDomainData("coretech"));
+        assertNotNull(store.getDomainData("sports"));
+    }
+
+    @Test
+    public void testProcessLocalDomainDataException() {
+
+        ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore store = Mockito.spy(new DataStore(clogStore, null, ztsMetric));
+
+        DomainData domainData = createSignedDomain("coretech", "weather").getDomain();
+        doThrow(new IllegalArgumentException()).when(store).processDomainData(domainData);
+
+        assertFalse(store.processLocalDomainData("coretech", domainData));
+        assertFalse(store.processLocalDomainData("coretech", null));
+    }
+
     @Test
     public void testProcessSignedDomains() {
         ChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
@@ -4267,7 +4442,7 @@ public class DataStoreTest {
 
         // we have no group
 
-        assertNull(store.principalGroupCache.getIfPresent("user.user1"));
+        assertNull(store.principalGroupIndex.getGroupNames("user.user1"));
         assertNull(store.groupMemberCache.getIfPresent("coretech:group.dev-team"));
         assertNull(store.getPrincipalGroups("user.user1", "coretech", null));
         assertNull(store.getPrincipalGroups("user.user1", "coretech", Collections.singleton("dev-team")));
@@ -4278,7 +4453,7 @@ public class DataStoreTest {
         store.processGroup(group);
 
         assertTrue(store.groupMemberCache.getIfPresent("coretech:group.dev-team").isEmpty());
-        assertNull(store.principalGroupCache.getIfPresent("user.user1"));
+        assertNull(store.principalGroupIndex.getGroupNames("user.user1"));
         assertNull(store.getPrincipalGroups("user.user1", "coretech", null));
         assertNull(store.getPrincipalGroups("user.user1", "coretech", Collections.singleton("dev-team")));
 
@@ -4321,21 +4496,21 @@ public class DataStoreTest {
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "user.user1"));
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "coretech.api"));
 
-        members = store.principalGroupCache.getIfPresent("user.user1");
-        assertNotNull(members);
-        assertEquals(members.size(), 2);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.pe-team"));
+        List<String> principalGroups = store.principalGroupIndex.getGroupNames("user.user1");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 2);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
+        assertTrue(principalGroups.contains("coretech:group.pe-team"));
 
-        members = store.principalGroupCache.getIfPresent("user.user2");
-        assertNotNull(members);
-        assertEquals(members.size(), 1);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user2");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 1);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
 
-        members = store.principalGroupCache.getIfPresent("coretech.api");
-        assertNotNull(members);
-        assertEquals(members.size(), 1);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.pe-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("coretech.api");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 1);
+        assertTrue(principalGroups.contains("coretech:group.pe-team"));
 
         List<String> groupNames = store.getPrincipalGroups("user.user1", "coretech", null);
         assertEquals(groupNames.size(), 2);
@@ -4372,20 +4547,18 @@ public class DataStoreTest {
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "user.user1"));
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "user.user3"));
 
-        members = store.principalGroupCache.getIfPresent("user.user1");
-        assertNotNull(members);
-        assertEquals(members.size(), 2);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.pe-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user1");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 2);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
+        assertTrue(principalGroups.contains("coretech:group.pe-team"));
 
-        members = store.principalGroupCache.getIfPresent("user.user2");
-        assertNotNull(members);
-        assertTrue(members.isEmpty());
+        assertNull(store.principalGroupIndex.getGroupNames("user.user2"));
 
-        members = store.principalGroupCache.getIfPresent("user.user3");
-        assertNotNull(members);
-        assertEquals(members.size(), 1);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user3");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 1);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
 
         groupNames = store.getPrincipalGroups("user.user1", "coretech", null);
         assertEquals(groupNames.size(), 2);
@@ -4434,22 +4607,22 @@ public class DataStoreTest {
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "user.user6"));
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "user.user7"));
 
-        members = store.principalGroupCache.getIfPresent("user.user1");
-        assertNotNull(members);
-        assertEquals(members.size(), 2);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.pe-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user1");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 2);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
+        assertTrue(principalGroups.contains("coretech:group.pe-team"));
 
-        members = store.principalGroupCache.getIfPresent("user.user3");
-        assertNotNull(members);
-        assertEquals(members.size(), 1);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user3");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 1);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
 
         // expired and disabled users are not present
 
-        assertNull(store.principalGroupCache.getIfPresent("user.user4"));
-        assertNull(store.principalGroupCache.getIfPresent("user.user5"));
-        assertNull(store.principalGroupCache.getIfPresent("user.user6"));
+        assertNull(store.principalGroupIndex.getGroupNames("user.user4"));
+        assertNull(store.principalGroupIndex.getGroupNames("user.user5"));
+        assertNull(store.principalGroupIndex.getGroupNames("user.user6"));
 
         assertNull(store.getPrincipalGroups("user.user4", "coretech", null));
         assertNull(store.getPrincipalGroups("user.user5", "coretech", null));
@@ -4500,23 +4673,21 @@ public class DataStoreTest {
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "user.user4"));
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "user.user5"));
 
-        members = store.principalGroupCache.getIfPresent("user.user1");
-        assertNotNull(members);
-        assertEquals(members.size(), 2);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.pe-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user1");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 2);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
+        assertTrue(principalGroups.contains("coretech:group.pe-team"));
 
-        members = store.principalGroupCache.getIfPresent("user.user3");
-        assertNotNull(members);
-        assertTrue(members.isEmpty());
+        assertNull(store.principalGroupIndex.getGroupNames("user.user3"));
 
-        members = store.principalGroupCache.getIfPresent("user.user4");
-        assertNotNull(members);
-        assertEquals(members.size(), 1);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user4");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 1);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
 
-        assertNull(store.principalGroupCache.getIfPresent("user.user5"));
-        assertNull(store.principalGroupCache.getIfPresent("user.user6"));
+        assertNull(store.principalGroupIndex.getGroupNames("user.user5"));
+        assertNull(store.principalGroupIndex.getGroupNames("user.user6"));
 
         assertNull(store.getPrincipalGroups("user.user3", "coretech", null));
 
@@ -4555,25 +4726,23 @@ public class DataStoreTest {
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "user.user4"));
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "user.user5"));
 
-        members = store.principalGroupCache.getIfPresent("user.user1");
-        assertNotNull(members);
-        assertEquals(members.size(), 2);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.pe-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user1");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 2);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
+        assertTrue(principalGroups.contains("coretech:group.pe-team"));
 
-        members = store.principalGroupCache.getIfPresent("user.user3");
-        assertNotNull(members);
-        assertTrue(members.isEmpty());
+        assertNull(store.principalGroupIndex.getGroupNames("user.user3"));
 
-        members = store.principalGroupCache.getIfPresent("user.user4");
-        assertNotNull(members);
-        assertEquals(members.size(), 1);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user4");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 1);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
 
-        members = store.principalGroupCache.getIfPresent("user.user5");
-        assertNotNull(members);
-        assertEquals(members.size(), 1);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user5");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 1);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
 
         // update the pe-team with no changes
 
@@ -4594,16 +4763,16 @@ public class DataStoreTest {
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "user.user1"));
         assertTrue(ZTSTestUtils.verifyGroupMemberName(members, "coretech.api"));
 
-        members = store.principalGroupCache.getIfPresent("user.user1");
-        assertNotNull(members);
-        assertEquals(members.size(), 2);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.dev-team"));
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.pe-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user1");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 2);
+        assertTrue(principalGroups.contains("coretech:group.dev-team"));
+        assertTrue(principalGroups.contains("coretech:group.pe-team"));
 
-        members = store.principalGroupCache.getIfPresent("coretech.api");
-        assertNotNull(members);
-        assertEquals(members.size(), 1);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(members, "coretech:group.pe-team"));
+        principalGroups = store.principalGroupIndex.getGroupNames("coretech.api");
+        assertNotNull(principalGroups);
+        assertEquals(principalGroups.size(), 1);
+        assertTrue(principalGroups.contains("coretech:group.pe-team"));
     }
 
     @Test
@@ -4692,22 +4861,21 @@ public class DataStoreTest {
         final String domainName = "access-domain";
         ZTSTestUtils.setupDomainsWithGroups(store, pkey, domainName, Collections.emptyList());
 
-        List<GroupMember> groupMembers = store.principalGroupCache.getIfPresent("user.user1");
-        assertEquals(groupMembers.size(), 2);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(groupMembers, "access-domain1:group.group1"));
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(groupMembers, "access-domain3:group.group3"));
+        List<String> principalGroups = store.principalGroupIndex.getGroupNames("user.user1");
+        assertEquals(principalGroups.size(), 2);
+        assertTrue(principalGroups.contains("access-domain1:group.group1"));
+        assertTrue(principalGroups.contains("access-domain3:group.group3"));
 
         store.deleteDomain("access-domain1");
 
-        groupMembers = store.principalGroupCache.getIfPresent("user.user1");
-        assertEquals(groupMembers.size(), 1);
-        assertTrue(ZTSTestUtils.verifyGroupMemberGroup(groupMembers, "access-domain3:group.group3"));
+        principalGroups = store.principalGroupIndex.getGroupNames("user.user1");
+        assertEquals(principalGroups.size(), 1);
+        assertTrue(principalGroups.contains("access-domain3:group.group3"));
 
         store.deleteDomain("access-domain2");
         store.deleteDomain("access-domain3");
 
-        groupMembers = store.principalGroupCache.getIfPresent("user.user1");
-        assertTrue(groupMembers.isEmpty());
+        assertNull(store.principalGroupIndex.getGroupNames("user.user1"));
     }
 
     @Test
@@ -5212,4 +5380,110 @@ public class DataStoreTest {
 
         assertFalse(store.processJWSDomain(jwsDomain, true));
     }
+
+    @Test
+    public void testProcessDomainChangeMessage() {
+
+        ChangeLogStore clogStore = Mockito.mock(ChangeLogStore.class);
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        ScheduledExecutorService executor = Mockito.mock(ScheduledExecutorService.class);
+        store.scheduledThreadPool = executor;
+
+        // messages without a domain name are ignored
+
+        store.processDomainChangeMessage(new DomainChangeMessage());
+        store.processDomainChangeMessage(new DomainChangeMessage().setDomainName(""));
+        Mockito.verify(executor, Mockito.never()).schedule(ArgumentMatchers.any(Callable.class),
+                ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+
+        // multiple messages for the same domain are coalesced into
+        // a single refresh until the refresh is processed
+
+        store.processDomainChangeMessage(new DomainChangeMessage().setDomainName("coretech").setMessageId("1"));
+        store.processDomainChangeMessage(new DomainChangeMessage().setDomainName("coretech").setMessageId("2"));
+        store.processDomainChangeMessage(new DomainChangeMessage().setDomainName("sports").setMessageId("3"));
+        Mockito.verify(executor, Mockito.times(2)).schedule(ArgumentMatchers.any(Callable.class),
+                ArgumentMatchers.eq(store.domainChangeCoalesceTime), ArgumentMatchers.eq(TimeUnit.MILLISECONDS));
+        assertEquals(store.pendingDomainRefreshes, new HashSet<>(Arrays.asList("coretech", "sports")));
+
+        SignedDomain signedDomain = createSignedDomain("coretech", "weather");
+        Mockito.when(clogStore.getServerSignedDomain("coretech")).thenReturn(signedDomain);
+        assertTrue(store.processDomainRefresh("coretech"));
+        assertNotNull(store.getDomainData("coretech"));
+        assertEquals(store.pendingDomainRefreshes, Collections.singleton("sports"));
+        Mockito.verify(clogStore).saveLocalDomain("coretech", signedDomain);
+
+        store.processDomainChangeMessage(new DomainChangeMessage().setDomainName("coretech").setMessageId("4"));
+        Mockito.verify(executor, Mockito.times(3)).schedule(ArgumentMatchers.any(Callable.class),
+                ArgumentMatchers.anyLong(), ArgumentMatchers.any());
+    }
+
+    @Test
+    public void testProcessDomainRefreshJWSDomain() {
+
+        MockZMSFileChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.jwsDomainSupport = true;
+
+        clogStore.setJWSDomain("coretech", createJWSDomain("coretech", "weather", "0"));
+        assertTrue(store.processDomainRefresh("coretech"));
+        assertNotNull(store.getDomainData("coretech"));
+
+        // unknown domain and invalid signature
+
+        assertFalse(store.processDomainRefresh("sports"));
+        assertNull(store.getDomainData("sports"));
+
+        clogStore.setJWSDomain("weather", createJWSDomain("weather", "coretech", "100"));
+        assertFalse(store.processDomainRefresh("weather"));
+        assertNull(store.getDomainData("weather"));
+    }
+
+    @Test
+    public void testProcessDomainRefreshFailure() {
+
+        ChangeLogStore clogStore = Mockito.mock(ChangeLogStore.class);
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+
+        Mockito.when(clogStore.getServerSignedDomain("coretech")).thenThrow(new IllegalStateException("failure"));
+        assertFalse(store.processDomainRefresh("coretech"));
+        assertFalse(store.processDomainRefresh("sports"));
+        assertNull(store.getDomainData("coretech"));
+    }
+
+    @Test
+    public void testDomainChangeSubscriber() throws InterruptedException {
+
+        MockZMSFileChangeLogStore clogStore = new MockZMSFileChangeLogStore("/tmp/zts_server_unit_tests/zts_root",
+                pkey, "0");
+        DataStore store = new DataStore(clogStore, null, ztsMetric);
+        store.jwsDomainSupport = true;
+        store.domainChangeCoalesceTime = 10;
+        store.scheduledThreadPool = Executors.newScheduledThreadPool(1);
+
+        InMemoryChangeFactory<DomainChangeMessage> factory = new InMemoryChangeFactory<>();
+        ChangeSubscriber<DomainChangeMessage> subscriber = factory.create(null, "zts-domain-changes",
+                "zts-unit-test", "Exclusive");
+        store.addDomainChangeSubscriber(subscriber);
+        store.startDomainChangeSubscribers();
+
+        // publish a change message and verify the domain is retrieved
+        // from zms without running our regular update task
+
+        clogStore.setJWSDomain("coretech", createJWSDomain("coretech", "weather", "0"));
+        ChangePublisher<DomainChangeMessage> publisher = factory.create(null, "zts-domain-changes");
+        publisher.publish(new DomainChangeMessage().setDomainName("coretech")
+                .setObjectType(DomainChangeMessage.ObjectType.ROLE).setObjectName("admin")
+                .setApiName("putrole").setMessageId("1").setPublished(System.currentTimeMillis()));
+
+        for (int i = 0; i < 500 && store.getDomainData("coretech") == null; i++) {
+            Thread.sleep(10);
+        }
+        assertNotNull(store.getDomainData("coretech"));
+
+        subscriber.close();
+        publisher.close();
+        store.scheduledThreadPool.shutdownNow();
+    }
 }
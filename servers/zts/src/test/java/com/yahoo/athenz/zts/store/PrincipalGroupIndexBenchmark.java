@@ -0,0 +1,153 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.store;
+
+import com.yahoo.athenz.common.server.util.AuthzHelper;
+import com.yahoo.athenz.zms.GroupMember;
+import com.yahoo.rdl.Timestamp;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark comparing the PrincipalGroupIndex with the previous map of
+ * principals to their list of GroupMember objects. The heap retained by
+ * each structure is printed during setup while the benchmark reports the
+ * latency of returning the groups of a principal in a given domain. Run
+ * with the gc profiler (-prof gc) to report the number of bytes allocated
+ * per lookup (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrincipalGroupIndexBenchmark {
+
+    private static final int DOMAIN_COUNT = 100;
+
+    @Param({"index", "list"})
+    String structure;
+
+    @Param({"100000"})
+    int principalCount;
+
+    @Param({"20"})
+    int groupsPerPrincipal;
+
+    PrincipalGroupIndex index;
+    Map<String, List<GroupMember>> principalGroups;
+    String[] principals;
+    int lookupCount;
+
+    @Setup
+    public void setup() {
+
+        principals = new String[principalCount];
+        for (int i = 0; i < principalCount; i++) {
+            principals[i] = "user.user" + i;
+        }
+
+        final long heapBefore = usedHeap();
+        final Timestamp expiration = Timestamp.fromMillis(System.currentTimeMillis() + 86400000L);
+        if ("index".equals(structure)) {
+            index = new PrincipalGroupIndex();
+        } else {
+            principalGroups = new HashMap<>();
+        }
+
+        Random random = new Random(principalCount);
+        for (String principal : principals) {
+            for (int j = 0; j < groupsPerPrincipal; j++) {
+                final String groupName = "domain" + random.nextInt(DOMAIN_COUNT) + ":group.group" + j;
+                final Timestamp memberExpiration = (j % 2 == 0) ? null : expiration;
+                if (index != null) {
+                    index.addMember(principal, groupName, PrincipalGroupIndex.expirationMillis(memberExpiration));
+                } else {
+                    principalGroups.computeIfAbsent(principal, k -> new ArrayList<>())
+                            .add(new GroupMember().setMemberName(principal).setGroupName(groupName)
+                                    .setExpiration(memberExpiration).setActive(true).setApproved(true)
+                                    .setSystemDisabled(0));
+                }
+            }
+        }
+
+        final long heapUsed = usedHeap() - heapBefore;
+        System.out.printf("%n%s: %d principals with %d groups each retain %d bytes (%d bytes per membership)%n",
+                structure, principalCount, groupsPerPrincipal, heapUsed,
+                heapUsed / ((long) principalCount * groupsPerPrincipal));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The same logic as the previous DataStore.getPrincipalGroups implementation
+     */
+    private List<String> listDomainGroups(final String principal, final String domainName, long currentTime) {
+
+        List<GroupMember> groupMembers = principalGroups.get(principal);
+        if (groupMembers == null || groupMembers.isEmpty()) {
+            return null;
+        }
+
+        List<String> groups = new ArrayList<>();
+        final String domainNamePrefix = domainName + ":group.";
+        for (GroupMember member : groupMembers) {
+            final String groupFullName = member.getGroupName();
+            if (AuthzHelper.isMemberExpired(member.getExpiration(), currentTime)) {
+                continue;
+            }
+            if (!groupFullName.startsWith(domainNamePrefix)) {
+                continue;
+            }
+            groups.add(groupFullName.substring(domainNamePrefix.length()));
+        }
+        return groups.isEmpty() ? null : groups;
+    }
+
+    @Benchmark
+    public void getDomainGroups(Blackhole blackhole) {
+
+        final String principal = principals[lookupCount++ % principalCount];
+        final long currentTime = System.currentTimeMillis();
+        if (index != null) {
+            blackhole.consume(index.getDomainGroups(principal, "domain1", null, currentTime));
+        } else {
+            blackhole.consume(listDomainGroups(principal, "domain1", currentTime));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PrincipalGroupIndexBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.store;
+
+import com.yahoo.rdl.Timestamp;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+public class PrincipalGroupIndexTest {
+
+    @Test
+    public void testExpirationMillis() {
+        assertEquals(PrincipalGroupIndex.expirationMillis(null), PrincipalGroupIndex.NO_EXPIRATION);
+        assertEquals(PrincipalGroupIndex.expirationMillis(Timestamp.fromMillis(12345)), 12345);
+    }
+
+    @Test
+    public void testAddMember() {
+
+        PrincipalGroupIndex index = new PrincipalGroupIndex();
+        assertNull(index.getMemberships("user.joe"));
+        assertNull(index.getGroupNames("user.joe"));
+
+        index.addMember("user.joe", "sports:group.dev", PrincipalGroupIndex.NO_EXPIRATION);
+        index.addMember("user.joe", "coretech:group.dev", 1000);
+        index.addMember("user.joe", "coretech:group.pe", PrincipalGroupIndex.NO_EXPIRATION);
+        index.addMember("user.jane", "coretech:group.dev", PrincipalGroupIndex.NO_EXPIRATION);
+
+        assertEquals(index.getPrincipalCount(), 2);
+        assertEquals(index.getGroupCount(), 3);
+
+        // group ids must be sorted with the matching expiration
+
+        PrincipalGroupIndex.Memberships memberships = index.getMemberships("user.joe");
+        assertEquals(memberships.size(), 3);
+        for (int i = 0; i < memberships.size(); i++) {
+            if (i > 0) {
+                assertTrue(memberships.getGroupId(i - 1) < memberships.getGroupId(i));
+            }
+            final String groupName = index.getGroupName(memberships.getGroupId(i));
+            if (groupName.equals("coretech:group.dev")) {
+                assertEquals(memberships.getExpiration(i), 1000);
+                assertTrue(memberships.isExpired(i, 1001));
+                assertFalse(memberships.isExpired(i, 1000));
+            } else {
+                assertEquals(memberships.getExpiration(i), PrincipalGroupIndex.NO_EXPIRATION);
+                assertFalse(memberships.isExpired(i, System.currentTimeMillis()));
+            }
+        }
+
+        List<String> groupNames = index.getGroupNames("user.joe");
+        assertEquals(groupNames.size(), 3);
+        assertTrue(groupNames.contains("sports:group.dev"));
+        assertTrue(groupNames.contains("coretech:group.dev"));
+        assertTrue(groupNames.contains("coretech:group.pe"));
+    }
+
+    @Test
+    public void testUpdateMember() {
+
+        PrincipalGroupIndex index = new PrincipalGroupIndex();
+        index.addMember("user.joe", "coretech:group.dev", 1000);
+        index.addMember("user.joe", "coretech:group.pe", 1000);
+
+        // same expiration keeps the existing memberships
+
+        PrincipalGroupIndex.Memberships memberships = index.getMemberships("user.joe");
+        index.addMember("user.joe", "coretech:group.dev", 1000);
+        assertSame(index.getMemberships("user.joe"), memberships);
+
+        // updated expiration must not modify the published memberships
+
+        index.addMember("user.joe", "coretech:group.dev", 2000);
+        assertEquals(memberships.getExpiration(0), 1000);
+
+        memberships = index.getMemberships("user.joe");
+        assertEquals(memberships.size(), 2);
+        assertEquals(memberships.getExpiration(0), 2000);
+        assertEquals(memberships.getExpiration(1), 1000);
+    }
+
+    @Test
+    public void testRemoveMember() {
+
+        PrincipalGroupIndex index = new PrincipalGroupIndex();
+        index.addMember("user.joe", "coretech:group.dev", PrincipalGroupIndex.NO_EXPIRATION);
+        index.addMember("user.joe", "coretech:group.pe", 1000);
+        index.addMember("user.joe", "coretech:group.qa", PrincipalGroupIndex.NO_EXPIRATION);
+
+        // unknown groups and principals are ignored
+
+        index.removeMember("user.joe", "coretech:group.unknown");
+        index.removeMember("user.jane", "coretech:group.dev");
+        index.addMember("user.jane", "coretech:group.dev", PrincipalGroupIndex.NO_EXPIRATION);
+        index.removeMember("user.jane", "coretech:group.pe");
+        assertEquals(index.getMemberships("user.joe").size(), 3);
+        assertEquals(index.getMemberships("user.jane").size(), 1);
+
+        index.removeMember("user.joe", "coretech:group.pe");
+        PrincipalGroupIndex.Memberships memberships = index.getMemberships("user.joe");
+        assertEquals(memberships.size(), 2);
+        assertEquals(index.getGroupName(memberships.getGroupId(0)), "coretech:group.dev");
+        assertEquals(index.getGroupName(memberships.getGroupId(1)), "coretech:group.qa");
+        assertEquals(memberships.getExpiration(1), PrincipalGroupIndex.NO_EXPIRATION);
+
+        // principals without any groups are removed from the index
+
+        index.removeMember("user.joe", "coretech:group.dev");
+        index.removeMember("user.joe", "coretech:group.qa");
+        assertNull(index.getMemberships("user.joe"));
+        assertEquals(index.getPrincipalCount(), 1);
+    }
+
+    @Test
+    public void testGetDomainGroups() {
+
+        PrincipalGroupIndex index = new PrincipalGroupIndex();
+        index.addMember("user.joe", "coretech:group.dev", PrincipalGroupIndex.NO_EXPIRATION);
+        index.addMember("user.joe", "coretech:group.pe", 1000);
+        index.addMember("user.joe", "coretech:group.qa", PrincipalGroupIndex.NO_EXPIRATION);
+        index.addMember("user.joe", "coretech.api:group.dev", PrincipalGroupIndex.NO_EXPIRATION);
+        index.addMember("user.jane", "sports:group.dev", PrincipalGroupIndex.NO_EXPIRATION);
+
+        List<String> groups = index.getDomainGroups("user.joe", "coretech", null, 500);
+        assertEquals(groups, Arrays.asList("dev", "pe", "qa"));
+
+        // expired members are skipped
+
+        groups = index.getDomainGroups("user.joe", "coretech", null, 1001);
+        assertEquals(groups, Arrays.asList("dev", "qa"));
+
+        // only requested groups are returned
+
+        Set<String> requestedGroups = new HashSet<>(Arrays.asList("qa", "unknown"));
+        groups = index.getDomainGroups("user.joe", "coretech", requestedGroups, 1001);
+        assertEquals(groups, Collections.singletonList("qa"));
+        assertNull(index.getDomainGroups("user.joe", "coretech", Collections.singleton("pe"), 1001));
+
+        groups = index.getDomainGroups("user.joe", "coretech.api", null, 1001);
+        assertEquals(groups, Collections.singletonList("dev"));
+
+        // unknown principals and domains and domains without any groups
+
+        assertNull(index.getDomainGroups("user.bob", "coretech", null, 1001));
+        assertNull(index.getDomainGroups("user.joe", "unknown", null, 1001));
+        assertNull(index.getDomainGroups("user.joe", "sports", null, 1001));
+    }
+
+    @Test
+    public void testGroupCapacity() {
+
+        // verify group ids are preserved when the group table is resized
+
+        PrincipalGroupIndex index = new PrincipalGroupIndex();
+        for (int i = 0; i < 5000; i++) {
+            index.addMember("user.joe", "coretech:group.group" + i, PrincipalGroupIndex.NO_EXPIRATION);
+            index.addMember("user.user" + i, "coretech:group.group" + i, PrincipalGroupIndex.NO_EXPIRATION);
+        }
+        assertEquals(index.getGroupCount(), 5000);
+        assertEquals(index.getPrincipalCount(), 5001);
+        assertEquals(index.getMemberships("user.joe").size(), 5000);
+        assertEquals(index.getDomainGroups("user.joe", "coretech", null, 0).size(), 5000);
+
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(index.getGroupNames("user.user" + i),
+                    Collections.singletonList("coretech:group.group" + i));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for checking if an address is included in the provider ip
+ * blocks with the ip block index compared to the list scan of ip blocks.
+ * Half of the addresses are selected from the configured blocks and the
+ * rest are random so most of them are not included in any block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IPBlockIndexBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int blockCount;
+
+    List<IPBlock> ipBlocks;
+    IPBlockIndex ipBlockIndex;
+    String[] addresses;
+    int addressIndex;
+
+    @Setup
+    public void setup() {
+
+        Random random = new Random(12345);
+        ipBlocks = new ArrayList<>();
+        ipBlockIndex = new IPBlockIndex();
+        List<Long> subnets = new ArrayList<>();
+        for (int i = 0; i < blockCount; i++) {
+            final int mask = 16 + random.nextInt(13);
+            final long subnet = (random.nextInt() & 0xFFFFFFFFL) & IPBlock.convertMaskToLong(mask);
+            final String ipBlock = IPBlockIndexTest.longToAddress(subnet) + "/" + mask;
+            ipBlocks.add(new IPBlock(ipBlock));
+            ipBlockIndex.add(ipBlock);
+            subnets.add(subnet);
+        }
+
+        addresses = new String[1024];
+        for (int i = 0; i < addresses.length; i++) {
+            long addr = (i % 2 == 0) ? subnets.get(random.nextInt(blockCount)) + 1 : random.nextInt() & 0xFFFFFFFFL;
+            addresses[i] = IPBlockIndexTest.longToAddress(addr);
+        }
+    }
+
+    String nextAddress() {
+        return addresses[addressIndex++ & (addresses.length - 1)];
+    }
+
+    @Benchmark
+    public boolean listScan() {
+        long ipAddr = IPBlock.convertIPToLong(nextAddress());
+        for (IPBlock ipBlock : ipBlocks) {
+            if (ipBlock.ipCheck(ipAddr)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean blockIndex() {
+        return ipBlockIndex.contains(nextAddress());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(IPBlockIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright The Athenz Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yahoo.athenz.zts.utils;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+public class IPBlockIndexTest {
+
+    @Test
+    public void testInvalidIPBlock() {
+
+        final String[] invalidBlocks = { "10.1.1.1", "10.1.1.1%32", "10.1.1.1-24", "10.1.1.256/24",
+                "10.1.1.0/33", "10.1.1.0/-1", "10.1.1.0/0", "172.300.10.2/32", "2600:1f14::/129",
+                "2600:1f14::/0", "2600:1f14:::/32" };
+
+        IPBlockIndex index = new IPBlockIndex();
+        for (String ipBlock : invalidBlocks) {
+            try {
+                index.add(ipBlock);
+                fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void testIPv4Blocks() {
+
+        IPBlockIndex index = new IPBlockIndex();
+        assertTrue(index.isEmpty());
+        assertFalse(index.contains("10.1.0.1"));
+
+        index.add("10.1.0.1/32");
+        index.add("10.1.0.0/21");
+        index.add("35.160.0.0/ 13");
+        assertEquals(index.size(), 3);
+        assertFalse(index.isEmpty());
+
+        assertTrue(index.contains("10.1.0.1"));
+        assertTrue(index.contains("10.1.0.0"));
+        assertTrue(index.contains("10.1.7.255"));
+        assertTrue(index.contains("10.1.3.25"));
+        assertFalse(index.contains("10.1.8.0"));
+        assertFalse(index.contains("10.0.0.0"));
+        assertFalse(index.contains("10.2.0.0"));
+        assertTrue(index.contains("35.166.98.147"));
+        assertFalse(index.contains("35.168.0.0"));
+
+        // ipv4 blocks never match ipv6 addresses
+
+        assertFalse(index.contains("::a01:1"));
+        assertFalse(index.contains("2600:1f14::1"));
+    }
+
+    @Test
+    public void testIPv6Blocks() {
+
+        IPBlockIndex index = new IPBlockIndex();
+        index.add("2a05:d07f:8000::/40");
+        index.add("2600:1f14::/35");
+        index.add("2600:1f14:4000::1/128");
+        index.add("10.1.0.0/16");
+
+        assertTrue(index.contains("2a05:d07f:8000::1"));
+        assertTrue(index.contains("2a05:d07f:80ff:ffff:ffff:ffff:ffff:ffff"));
+        assertFalse(index.contains("2a05:d07f:8100::"));
+        assertTrue(index.contains("2600:1f14:1fff::25"));
+        assertFalse(index.contains("2600:1f14:2000::"));
+        assertTrue(index.contains("2600:1f14:4000::1"));
+        assertFalse(index.contains("2600:1f14:4000::2"));
+        assertTrue(index.contains("10.1.3.25"));
+        assertFalse(index.contains("::1"));
+    }
+
+    @Test
+    public void testOverlappingBlocks() {
+
+        // insert the same blocks in different orders so we cover
+        // both adding child and parent blocks to the trie
+
+        IPBlockIndex index1 = new IPBlockIndex();
+        index1.add("10.0.0.0/8");
+        index1.add("10.1.0.0/16");
+        index1.add("10.1.2.0/24");
+        index1.add("10.1.2.0/24");
+
+        IPBlockIndex index2 = new IPBlockIndex();
+        index2.add("10.1.2.0/24");
+        index2.add("10.1.0.0/16");
+        index2.add("10.0.0.0/8");
+
+        for (IPBlockIndex index : new IPBlockIndex[] { index1, index2 }) {
+            assertTrue(index.contains("10.1.2.3"));
+            assertTrue(index.contains("10.1.3.3"));
+            assertTrue(index.contains("10.200.3.3"));
+            assertFalse(index.contains("11.1.2.3"));
+            assertFalse(index.contains("9.255.255.255"));
+        }
+
+        // host bits in the subnet are ignored
+
+        IPBlockIndex index3 = new IPBlockIndex();
+        index3.add("10.1.2.3/24");
+        assertTrue(index3.contains("10.1.2.200"));
+    }
+
+    @Test
+    public void testMatchesListScan() {
+
+        // compare the index results with the list of ip blocks
+        // for a large set of random blocks and addresses
+
+        Random random = new Random(12345);
+        IPBlockIndex index = new IPBlockIndex();
+        List<IPBlock> ipBlocks = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            final int mask = 8 + random.nextInt(25);
+            final long subnet = (random.nextInt() & 0xFFFFFFFFL) & IPBlock.convertMaskToLong(mask);
+            final String ipBlock = longToAddress(subnet) + "/" + mask;
+            index.add(ipBlock);
+            ipBlocks.add(new IPBlock(ipBlock));
+        }
+
+        for (int i = 0; i < 20000; i++) {
+            final long addr = random.nextInt() & 0xFFFFFFFFL;
+            boolean expected = false;
+            for (IPBlock ipBlock : ipBlocks) {
+                if (ipBlock.ipCheck(addr)) {
+                    expected = true;
+                    break;
+                }
+            }
+            assertEquals(index.contains(longToAddress(addr)), expected);
+        }
+    }
+
+    static String longToAddress(long addr) {
+        return ((addr >> 24) & 0xFF) + "." + ((addr >> 16) & 0xFF) + "." + ((addr >> 8) & 0xFF) + "." + (addr & 0xFF);
+    }
+}